@@ -36,6 +36,7 @@ import sync.pds.solver.nodes.NodeWithLocation;
 import sync.pds.solver.nodes.PopNode;
 import sync.pds.solver.nodes.PushNode;
 import sync.pds.solver.nodes.SingleNode;
+import wpds.impl.HashTransitionStore;
 import wpds.impl.NestedAutomatonListener;
 import wpds.impl.NestedWeightedPAutomatons;
 import wpds.impl.NormalRule;
@@ -43,6 +44,7 @@ import wpds.impl.PopRule;
 import wpds.impl.PushRule;
 import wpds.impl.Rule;
 import wpds.impl.Transition;
+import wpds.impl.TransitionStore;
 import wpds.impl.Weight;
 import wpds.impl.WeightedPAutomaton;
 import wpds.impl.WeightedPushdownSystem;
@@ -91,7 +93,21 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
             final boolean useCallSummaries, NestedWeightedPAutomatons<Stmt, INode<Fact>, W> callSummaries,
             final boolean useFieldSummaries,
             NestedWeightedPAutomatons<Field, INode<Node<Stmt, Fact>>, W> fieldSummaries) {
-        fieldAutomaton = new WeightedPAutomaton<Field, INode<Node<Stmt, Fact>>, W>(initialFieldNode) {
+        this(initialCallNode, initialFieldNode, useCallSummaries, callSummaries, useFieldSummaries, fieldSummaries,
+                new HashTransitionStore<Stmt, INode<Fact>, W>(),
+                new HashTransitionStore<Field, INode<Node<Stmt, Fact>>, W>());
+    }
+
+    /**
+     * Creates a solver whose call and field automata keep their transitions in the given stores.
+     */
+    public SyncPDSSolver(INode<Fact> initialCallNode, INode<Node<Stmt, Fact>> initialFieldNode,
+            final boolean useCallSummaries, NestedWeightedPAutomatons<Stmt, INode<Fact>, W> callSummaries,
+            final boolean useFieldSummaries,
+            NestedWeightedPAutomatons<Field, INode<Node<Stmt, Fact>>, W> fieldSummaries,
+            TransitionStore<Stmt, INode<Fact>, W> callStore,
+            TransitionStore<Field, INode<Node<Stmt, Fact>>, W> fieldStore) {
+        fieldAutomaton = new WeightedPAutomaton<Field, INode<Node<Stmt, Fact>>, W>(initialFieldNode, fieldStore) {
             @Override
             public INode<Node<Stmt, Fact>> createState(INode<Node<Stmt, Fact>> d, Field loc) {
                 if (loc.equals(emptyField()))
@@ -137,7 +153,7 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
             }
         };
 
-        callAutomaton = new WeightedPAutomaton<Stmt, INode<Fact>, W>(initialCallNode) {
+        callAutomaton = new WeightedPAutomaton<Stmt, INode<Fact>, W>(initialCallNode, callStore) {
             @Override
             public INode<Fact> createState(INode<Fact> d, Stmt loc) {
                 return generateCallState(d, loc);
@@ -382,7 +398,7 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
         @Override
         public void onOutTransitionAdded(Transition<Stmt, INode<Fact>> t, W w,
                 WeightedPAutomaton<Stmt, INode<Fact>, W> weightedPAutomaton) {
-            Node<Stmt, Fact> returningNode = new Node<Stmt, Fact>(t.getLabel(), nestedT.getStart().fact());
+            Node<Stmt, Fact> returningNode = Node.of(t.getLabel(), nestedT.getStart().fact());
             setCallingContextReachable(returningNode);
         }
 
@@ -429,7 +445,7 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
         @Override
         public void onWeightAdded(Transition<Stmt, INode<Fact>> t, W w, WeightedPAutomaton<Stmt, INode<Fact>, W> aut) {
             if (!(t.getStart() instanceof GeneratedState) && !t.getLabel().equals(callAutomaton.epsilon())) {
-                Node<Stmt, Fact> node = new Node<Stmt, Fact>(t.getString(), t.getStart().fact());
+                Node<Stmt, Fact> node = Node.of(t.getString(), t.getStart().fact());
                 setCallingContextReachable(node);
             }
         }
@@ -583,7 +599,7 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
     }
 
     public INode<Node<Stmt, Fact>> asFieldFact(Node<Stmt, Fact> node) {
-        return new SingleNode<Node<Stmt, Fact>>(new Node<Stmt, Fact>(node.stmt(), node.fact()));
+        return new SingleNode<Node<Stmt, Fact>>(Node.of(node.stmt(), node.fact()));
     }
 
     public void processPop(Node<Stmt, Fact> curr, PopNode popNode) {
@@ -602,12 +618,12 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
             // TODO we have an unchecked cast here, branch directly based on PopNode type?
             CallPopNode<Fact, Stmt> callPopNode = (CallPopNode) popNode;
             Stmt returnSite = callPopNode.getReturnSite();
-            addNormalFieldFlow(curr, new Node<Stmt, Fact>(returnSite, (Fact) location));
+            addNormalFieldFlow(curr, Node.of(returnSite, (Fact) location));
             if (ContextSensitive) {
                 addCallRule(new PopRule<Stmt, INode<Fact>, W>(wrap(curr.fact()), curr.stmt(), wrap((Fact) location),
                         getCallWeights().pop(curr, returnSite)));
             } else {
-                addNormalCallFlow(curr, new Node<Stmt, Fact>(returnSite, (Fact) location));
+                addNormalCallFlow(curr, Node.of(returnSite, (Fact) location));
             }
         }
     }
@@ -658,7 +674,7 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
             INode<Node<Stmt, Fact>> n = t.getStart();
             if (!(n instanceof GeneratedState) && !t.getLabel().equals(fieldAutomaton.epsilon())) {
                 Node<Stmt, Fact> fact = n.fact();
-                Node<Stmt, Fact> node = new Node<Stmt, Fact>(fact.stmt(), fact.fact());
+                Node<Stmt, Fact> node = Node.of(fact.stmt(), fact.fact());
                 setFieldContextReachable(node);
             }
         }
@@ -744,6 +760,10 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
         return Sets.newHashSet(reachedStates);
     }
 
+    public boolean isReached(Node<Stmt, Fact> node) {
+        return reachedStates.contains(node);
+    }
+
     public void debugOutput() {
         logger.debug(this.getClass());
         logger.debug("All reachable states");
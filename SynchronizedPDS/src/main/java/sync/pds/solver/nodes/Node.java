@@ -11,9 +11,13 @@
  *******************************************************************************/
 package sync.pds.solver.nodes;
 
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
 import wpds.interfaces.State;
 
 public class Node<Stmt, Fact> implements State {
+    private static final Interner<Node<?, ?>> INTERNER = Interners.newWeakInterner();
 
     final protected Stmt stmt;
     final protected Fact variable;
@@ -24,6 +28,20 @@ public class Node<Stmt, Fact> implements State {
         this.variable = variable;
     }
 
+    /**
+     * Returns the canonical node for the statement and fact, equal nodes created by this method are reference-equal
+     * unless their facts are of different classes. Canonical nodes are only weakly referenced.
+     */
+    @SuppressWarnings("unchecked")
+    public static <Stmt, Fact> Node<Stmt, Fact> of(Stmt stmt, Fact variable) {
+        Node<Stmt, Fact> node = new Node<Stmt, Fact>(stmt, variable);
+        Node<?, ?> canonical = INTERNER.intern(node);
+        // Facts of different classes may be equal, the node must keep the fact it was created with.
+        if (canonical != node && variable != null && canonical.variable.getClass() != variable.getClass())
+            return node;
+        return (Node<Stmt, Fact>) canonical;
+    }
+
     public Stmt stmt() {
         return stmt;
     }
@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package wpds.impl;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.SetMultimap;
+import com.google.common.collect.Sets;
+
+import wpds.interfaces.Location;
+import wpds.interfaces.State;
+
+public class HashTransitionStore<N extends Location, D extends State, W extends Weight>
+        implements TransitionStore<N, D, W> {
+    private final Map<Transition<N, D>, W> transitionToWeights = Maps.newHashMap();
+    private final Set<Transition<N, D>> transitions = Sets.newHashSet();
+    private final Set<D> states = Sets.newHashSet();
+    private final SetMultimap<D, Transition<N, D>> transitionsOutOf = HashMultimap.create();
+    private final SetMultimap<D, Transition<N, D>> transitionsInto = HashMultimap.create();
+
+    @Override
+    public boolean add(Transition<N, D> trans) {
+        transitionsOutOf.put(trans.getStart(), trans);
+        transitionsInto.put(trans.getTarget(), trans);
+        states.add(trans.getTarget());
+        states.add(trans.getStart());
+        return transitions.add(trans);
+    }
+
+    @Override
+    public boolean contains(Transition<N, D> trans) {
+        return transitions.contains(trans);
+    }
+
+    @Override
+    public W getWeight(Transition<N, D> trans) {
+        return transitionToWeights.get(trans);
+    }
+
+    @Override
+    public void putWeight(Transition<N, D> trans, W weight) {
+        transitionToWeights.put(trans, weight);
+    }
+
+    @Override
+    public Collection<Transition<N, D>> getTransitions() {
+        return Collections.unmodifiableSet(transitions);
+    }
+
+    @Override
+    public Collection<Transition<N, D>> getTransitionsOutOf(D state) {
+        return Collections.unmodifiableSet(transitionsOutOf.get(state));
+    }
+
+    @Override
+    public Collection<Transition<N, D>> getTransitionsInto(D state) {
+        return Collections.unmodifiableSet(transitionsInto.get(state));
+    }
+
+    @Override
+    public Set<D> getStates() {
+        return states;
+    }
+
+    @Override
+    public int size() {
+        return transitions.size();
+    }
+
+    @Override
+    public TransitionStore<N, D, W> createEmpty() {
+        return new HashTransitionStore<>();
+    }
+}
@@ -0,0 +1,272 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package wpds.impl;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+
+import com.google.common.collect.Maps;
+
+import wpds.interfaces.Location;
+import wpds.interfaces.State;
+
+/**
+ * A {@link TransitionStore} that interns states and labels to dense integer ids. A transition is stored as three ints
+ * in parallel arrays next to its weight, the adjacency lists of the states are plain int arrays of transition ids. The
+ * {@link Transition} objects are not retained but created again whenever a view is read, which trades an allocation
+ * per read for about 40 bytes less per stored transition. Transitions are only ever appended, so the returned views
+ * keep their content while the store grows and may be iterated while transitions are added.
+ */
+public class IntTransitionStore<N extends Location, D extends State, W extends Weight>
+        implements TransitionStore<N, D, W> {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Map<D, Integer> stateToId = Maps.newHashMap();
+    private final Map<N, Integer> labelToId = Maps.newHashMap();
+    private Object[] states = new Object[INITIAL_CAPACITY];
+    private Object[] labelsById = new Object[INITIAL_CAPACITY];
+
+    // Transition i is (starts[i], labels[i], targets[i]) and carries the weight weights[i]
+    private int[] starts = new int[INITIAL_CAPACITY];
+    private int[] labels = new int[INITIAL_CAPACITY];
+    private int[] targets = new int[INITIAL_CAPACITY];
+    private Object[] weights = new Object[INITIAL_CAPACITY];
+    private int size;
+
+    // Open addressing index over all transitions, a slot holds a transition id + 1 and 0 marks a free slot
+    private int[] index = new int[2 * INITIAL_CAPACITY];
+
+    private int[][] outOf = new int[INITIAL_CAPACITY][];
+    private int[] outOfSize = new int[INITIAL_CAPACITY];
+    private int[][] into = new int[INITIAL_CAPACITY][];
+    private int[] intoSize = new int[INITIAL_CAPACITY];
+
+    @Override
+    public boolean add(Transition<N, D> trans) {
+        int s = internState(trans.getStart());
+        int l = internLabel(trans.getLabel());
+        int t = internState(trans.getTarget());
+        if (find(s, l, t) >= 0)
+            return false;
+        int id = size;
+        if (id == starts.length) {
+            int newLength = 2 * starts.length;
+            starts = Arrays.copyOf(starts, newLength);
+            labels = Arrays.copyOf(labels, newLength);
+            targets = Arrays.copyOf(targets, newLength);
+            weights = Arrays.copyOf(weights, newLength);
+        }
+        starts[id] = s;
+        labels[id] = l;
+        targets[id] = t;
+        size++;
+        if (2 * size > index.length) {
+            rehash(2 * index.length);
+        } else {
+            insertIntoIndex(id);
+        }
+        outOf[s] = append(outOf[s], outOfSize[s]++, id);
+        into[t] = append(into[t], intoSize[t]++, id);
+        return true;
+    }
+
+    @Override
+    public boolean contains(Transition<N, D> trans) {
+        return lookup(trans) >= 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public W getWeight(Transition<N, D> trans) {
+        int id = lookup(trans);
+        return id < 0 ? null : (W) weights[id];
+    }
+
+    @Override
+    public void putWeight(Transition<N, D> trans, W weight) {
+        int id = lookup(trans);
+        if (id < 0) {
+            add(trans);
+            id = size - 1;
+        }
+        weights[id] = weight;
+    }
+
+    @Override
+    public Collection<Transition<N, D>> getTransitions() {
+        return view(null, size);
+    }
+
+    @Override
+    public Collection<Transition<N, D>> getTransitionsOutOf(D state) {
+        Integer s = stateToId.get(state);
+        if (s == null)
+            return Collections.emptyList();
+        return view(outOf[s], outOfSize[s]);
+    }
+
+    @Override
+    public Collection<Transition<N, D>> getTransitionsInto(D state) {
+        Integer s = stateToId.get(state);
+        if (s == null)
+            return Collections.emptyList();
+        return view(into[s], intoSize[s]);
+    }
+
+    @Override
+    public Set<D> getStates() {
+        return Collections.unmodifiableSet(stateToId.keySet());
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public TransitionStore<N, D, W> createEmpty() {
+        return new IntTransitionStore<>();
+    }
+
+    private Collection<Transition<N, D>> view(int[] ids, int length) {
+        return new TransitionView<N, D>(starts, labels, targets, states, labelsById, ids, length);
+    }
+
+    private int lookup(Transition<N, D> trans) {
+        Integer s = stateToId.get(trans.getStart());
+        Integer l = labelToId.get(trans.getLabel());
+        Integer t = stateToId.get(trans.getTarget());
+        if (s == null || l == null || t == null)
+            return -1;
+        return find(s, l, t);
+    }
+
+    private int find(int s, int l, int t) {
+        int mask = index.length - 1;
+        int slot = hash(s, l, t) & mask;
+        while (index[slot] != 0) {
+            int id = index[slot] - 1;
+            if (starts[id] == s && labels[id] == l && targets[id] == t)
+                return id;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void insertIntoIndex(int id) {
+        int mask = index.length - 1;
+        int slot = hash(starts[id], labels[id], targets[id]) & mask;
+        while (index[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        index[slot] = id + 1;
+    }
+
+    private void rehash(int newLength) {
+        index = new int[newLength];
+        for (int id = 0; id < size; id++) {
+            insertIntoIndex(id);
+        }
+    }
+
+    private static int hash(int s, int l, int t) {
+        int h = 31 * (31 * s + l) + t;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        return h;
+    }
+
+    private int internState(D state) {
+        Integer id = stateToId.get(state);
+        if (id != null)
+            return id;
+        int newId = stateToId.size();
+        stateToId.put(state, newId);
+        if (newId == outOf.length) {
+            int newLength = 2 * outOf.length;
+            states = Arrays.copyOf(states, newLength);
+            outOf = Arrays.copyOf(outOf, newLength);
+            outOfSize = Arrays.copyOf(outOfSize, newLength);
+            into = Arrays.copyOf(into, newLength);
+            intoSize = Arrays.copyOf(intoSize, newLength);
+        }
+        states[newId] = state;
+        return newId;
+    }
+
+    private int internLabel(N label) {
+        Integer id = labelToId.get(label);
+        if (id != null)
+            return id;
+        int newId = labelToId.size();
+        labelToId.put(label, newId);
+        if (newId == labelsById.length) {
+            labelsById = Arrays.copyOf(labelsById, 2 * labelsById.length);
+        }
+        labelsById[newId] = label;
+        return newId;
+    }
+
+    // The first length entries of the arrays are never modified, so a view can keep reading the arrays it was created
+    // with after the store replaced them by larger copies
+    private static class TransitionView<N extends Location, D extends State> extends AbstractList<Transition<N, D>>
+            implements RandomAccess {
+        private final int[] starts;
+        private final int[] labels;
+        private final int[] targets;
+        private final Object[] states;
+        private final Object[] labelsById;
+        private final int[] ids;
+        private final int length;
+
+        TransitionView(int[] starts, int[] labels, int[] targets, Object[] states, Object[] labelsById, int[] ids,
+                int length) {
+            this.starts = starts;
+            this.labels = labels;
+            this.targets = targets;
+            this.states = states;
+            this.labelsById = labelsById;
+            this.ids = ids;
+            this.length = length;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Transition<N, D> get(int index) {
+            if (index >= length)
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + length);
+            int id = ids == null ? index : ids[index];
+            return new Transition<N, D>((D) states[starts[id]], (N) labelsById[labels[id]], (D) states[targets[id]]);
+        }
+
+        @Override
+        public int size() {
+            return length;
+        }
+    }
+
+    private static int[] append(int[] list, int length, int value) {
+        if (list == null) {
+            list = new int[2];
+        } else if (length == list.length) {
+            list = Arrays.copyOf(list, 2 * length);
+        }
+        list[length] = value;
+        return list;
+    }
+}
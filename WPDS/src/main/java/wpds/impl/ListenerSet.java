@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package wpds.impl;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Set;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.Sets;
+
+/**
+ * Copy-on-write set of listeners. {@link #snapshot()} returns an immutable list of the listeners registered so far
+ * without allocating, listeners registered while a snapshot is iterated are not part of that snapshot. Registration
+ * appends to a shared backing array, older snapshots only ever read the prefix they were created with.
+ */
+final class ListenerSet<L> {
+    private final Set<L> members = Sets.newHashSet();
+    private Object[] elements = new Object[0];
+    private List<L> snapshot = Collections.emptyList();
+
+    boolean add(L listener) {
+        if (!members.add(listener))
+            return false;
+        int size = snapshot.size();
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, Math.max(2, 2 * size));
+        }
+        elements[size] = listener;
+        snapshot = new Snapshot<L>(elements, size + 1);
+        return true;
+    }
+
+    List<L> snapshot() {
+        return snapshot;
+    }
+
+    boolean isEmpty() {
+        return members.isEmpty();
+    }
+
+    /**
+     * Removes the listeners matching the filter. The remaining listeners are copied to a new backing array, snapshots
+     * taken before keep their elements.
+     */
+    boolean removeIf(Predicate<? super L> filter) {
+        List<L> remaining = new ArrayList<>(snapshot.size());
+        for (L l : snapshot) {
+            if (filter.apply(l)) {
+                members.remove(l);
+            } else {
+                remaining.add(l);
+            }
+        }
+        if (remaining.size() == snapshot.size())
+            return false;
+        elements = remaining.toArray();
+        snapshot = new Snapshot<L>(elements, elements.length);
+        return true;
+    }
+
+    void clear() {
+        members.clear();
+        elements = new Object[0];
+        snapshot = Collections.emptyList();
+    }
+
+    private static class Snapshot<L> extends AbstractList<L> implements RandomAccess {
+        private final Object[] elements;
+        private final int size;
+
+        Snapshot(Object[] elements, int size) {
+            this.elements = elements;
+            this.size = size;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public L get(int index) {
+            if (index >= size)
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            return (L) elements[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
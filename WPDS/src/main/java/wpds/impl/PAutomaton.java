@@ -23,6 +23,10 @@ public abstract class PAutomaton<N extends Location, D extends State> extends We
         super(initialState);
     }
 
+    public PAutomaton(D initialState, TransitionStore<N, D, NoWeight> store) {
+        super(initialState, store);
+    }
+
     @Override
     public NoWeight getOne() {
         return NoWeight.NO_WEIGHT_ONE;
@@ -427,8 +427,8 @@ public abstract class PostStar<N extends Location, D extends State, W extends We
         WeightedPAutomaton<N, D, W> aut = getSummaryAutomaton(target);
         if (aut == null) {
             aut = context.createNestedAutomaton(target);
+            // Summaries may be shared by the post* runs of several automata, they must not refer to the first one.
             putSummaryAutomaton(target, aut);
-            aut.setInitialAutomaton(fa);
         } else {
             context.addNestedAutomaton(aut);
         }
@@ -13,6 +13,7 @@ package wpds.impl;
 
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
@@ -70,12 +71,9 @@ public class PreStar<N extends Location, D extends State, W extends Weight> {
                 }
             }
 
-            for (PushRule<N, D, W> r : pds.getPushRules()) {
-                if (!(r.getCallSite() instanceof Wildcard) && !r.getCallSite().equals(t.getString())) {
-                    continue;
-                }
+            for (PushRule<N, D, W> r : pushRulesWithCallSite(t.getString())) {
                 Transition<N, D> tdash = new Transition<N, D>(r.getS2(), r.getL2(), t.getTarget());
-                if (!fa.getTransitions().contains(tdash)) {
+                if (fa.getWeightFor(tdash) == null) {
                     continue;
                 }
                 LinkedList<Transition<N, D>> previous = Lists.<Transition<N, D>> newLinkedList();
@@ -89,6 +87,19 @@ public class PreStar<N extends Location, D extends State, W extends Weight> {
         return fa;
     }
 
+    private Set<PushRule<N, D, W>> pushRulesWithCallSite(N callSite) {
+        if (pds instanceof WeightedPushdownSystem) {
+            return ((WeightedPushdownSystem<N, D, W>) pds).getPushRulesWithCallSite(callSite);
+        }
+        Set<PushRule<N, D, W>> result = Sets.newHashSet();
+        for (PushRule<N, D, W> r : pds.getPushRules()) {
+            if (r.getCallSite() instanceof Wildcard || r.getCallSite().equals(callSite)) {
+                result.add(r);
+            }
+        }
+        return result;
+    }
+
     private void update(Transition<N, D> trans, W weight, List<Transition<N, D>> previous) {
         if (trans.getLabel() instanceof Wildcard)
             throw new RuntimeException("INVALID TRANSITION");
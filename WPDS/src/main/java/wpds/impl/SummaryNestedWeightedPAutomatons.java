@@ -11,6 +11,7 @@
  *******************************************************************************/
 package wpds.impl;
 
+import java.util.Collection;
 import java.util.Map;
 
 import com.google.common.collect.Maps;
@@ -33,4 +34,8 @@ public class SummaryNestedWeightedPAutomatons<N extends Location, D extends Stat
         return summaries.get(target);
     }
 
+    public Collection<WeightedPAutomaton<N, D, W>> getSummaryAutomata() {
+        return summaries.values();
+    }
+
 }
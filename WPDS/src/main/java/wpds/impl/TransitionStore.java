@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package wpds.impl;
+
+import java.util.Collection;
+import java.util.Set;
+
+import wpds.interfaces.Location;
+import wpds.interfaces.State;
+
+/**
+ * Backing storage of the transitions, states and transition weights of a {@link WeightedPAutomaton}. The automaton
+ * implements all listener semantics on top of this interface, a store only has to record what it is given.
+ */
+public interface TransitionStore<N extends Location, D extends State, W extends Weight> {
+
+    /**
+     * Records the transition and its start and target state.
+     *
+     * @return <code>false</code> if the transition was already contained.
+     */
+    boolean add(Transition<N, D> trans);
+
+    boolean contains(Transition<N, D> trans);
+
+    /**
+     * @return the weight of the transition or <code>null</code> if no weight has been stored for it yet.
+     */
+    W getWeight(Transition<N, D> trans);
+
+    void putWeight(Transition<N, D> trans, W weight);
+
+    /**
+     * The returned collections are unmodifiable views. Callers that add transitions while iterating them must iterate
+     * a copy.
+     */
+    Collection<Transition<N, D>> getTransitions();
+
+    Collection<Transition<N, D>> getTransitionsOutOf(D state);
+
+    Collection<Transition<N, D>> getTransitionsInto(D state);
+
+    Set<D> getStates();
+
+    int size();
+
+    /**
+     * Creates an empty store of the same kind, used for nested automata.
+     */
+    TransitionStore<N, D, W> createEmpty();
+}
@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package wpds.impl;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+/**
+ * Canonicalizes weights, so that equal weights are reference-equal and duplicates can be garbage collected. Canonical
+ * instances are only weakly referenced. Additionally the results of {@link #extend(Weight, Weight)} and
+ * {@link #combine(Weight, Weight)} are kept in a small direct-mapped cache keyed by the identity of the operands.
+ * <p>
+ * Only weights that are immutable and whose equals and hashCode cover all their state may be interned, otherwise
+ * interning merges weights that are different.
+ */
+public class WeightInterner<W extends Weight> {
+    private static final int CACHE_SIZE = 1 << 10;
+
+    private final Interner<W> interner = Interners.newWeakInterner();
+    private final CachedResult[] extendCache = new CachedResult[CACHE_SIZE];
+    private final CachedResult[] combineCache = new CachedResult[CACHE_SIZE];
+
+    public W intern(W weight) {
+        return interner.intern(weight);
+    }
+
+    @SuppressWarnings("unchecked")
+    public W extend(W first, W second) {
+        int slot = slot(first, second);
+        CachedResult cached = extendCache[slot];
+        if (cached != null && cached.first == first && cached.second == second)
+            return (W) cached.result;
+        W result = intern((W) first.extendWith(second));
+        extendCache[slot] = new CachedResult(first, second, result);
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    public W combine(W first, W second) {
+        int slot = slot(first, second);
+        CachedResult cached = combineCache[slot];
+        if (cached != null && cached.first == first && cached.second == second)
+            return (W) cached.result;
+        W result = intern((W) first.combineWith(second));
+        combineCache[slot] = new CachedResult(first, second, result);
+        return result;
+    }
+
+    private static int slot(Weight first, Weight second) {
+        int h = 31 * System.identityHashCode(first) + System.identityHashCode(second);
+        h ^= h >>> 16;
+        return h & (CACHE_SIZE - 1);
+    }
+
+    // Entries are immutable, a racy read of a slot sees either a complete entry or a stale one.
+    private static class CachedResult {
+        private final Weight first;
+        private final Weight second;
+        private final Weight result;
+
+        CachedResult(Weight first, Weight second, Weight result) {
+            this.first = first;
+            this.second = second;
+            this.result = result;
+        }
+    }
+}
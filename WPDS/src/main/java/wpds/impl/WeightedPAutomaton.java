@@ -13,8 +13,9 @@ package wpds.impl;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -26,11 +27,10 @@ import java.util.Set;
 import java.util.TreeSet;
 
 import com.google.common.base.Joiner;
+import com.google.common.base.Predicate;
 import com.google.common.collect.HashBasedTable;
-import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
 
 import pathexpression.Edge;
@@ -49,29 +49,25 @@ import wpds.interfaces.WPAUpdateListener;
 
 public abstract class WeightedPAutomaton<N extends Location, D extends State, W extends Weight>
         implements LabeledGraph<D, N> {
-    private Map<Transition<N, D>, W> transitionToWeights = new HashMap<>();
     // Set Q is implicit
     // Weighted Pushdown Systems and their Application to Interprocedural
     // Dataflow Analysis
-    protected Set<Transition<N, D>> transitions = Sets.newHashSet();
+    private final TransitionStore<N, D, W> store;
     // set F in paper [Reps2003]
     protected Set<D> finalState = Sets.newHashSet();
     // set P in paper [Reps2003]
     protected final D initialState;
-    protected Set<D> states = Sets.newHashSet();
-    private final Multimap<D, Transition<N, D>> transitionsOutOf = HashMultimap.create();
-    private final Multimap<D, Transition<N, D>> transitionsInto = HashMultimap.create();
-    private Set<WPAUpdateListener<N, D, W>> listeners = Sets.newHashSet();
-    private Multimap<D, WPAStateListener<N, D, W>> stateListeners = HashMultimap.create();
+    private ListenerSet<WPAUpdateListener<N, D, W>> listeners = new ListenerSet<>();
+    private Map<D, ListenerSet<WPAStateListener<N, D, W>>> stateListeners = Maps.newHashMap();
     private Map<D, ForwardDFSVisitor<N, D, W>> stateToDFS = Maps.newHashMap();
     private Map<D, ForwardDFSVisitor<N, D, W>> stateToEpsilonDFS = Maps.newHashMap();
     private Set<WeightedPAutomaton<N, D, W>> nestedAutomatons = Sets.newHashSet();
-    private Set<NestedAutomatonListener<N, D, W>> nestedAutomataListeners = Sets.newHashSet();
+    private ListenerSet<NestedAutomatonListener<N, D, W>> nestedAutomataListeners = new ListenerSet<>();
     private Map<D, ReachabilityListener<N, D>> stateToEpsilonReachabilityListener = Maps.newHashMap();
     private Map<D, ReachabilityListener<N, D>> stateToReachabilityListener = Maps.newHashMap();
     private Set<ReturnSiteWithWeights> connectedPushes = Sets.newHashSet();
-    private Set<ConnectPushListener<N, D, W>> conntectedPushListeners = Sets.newHashSet();
-    private Set<UnbalancedPopListener<N, D, W>> unbalancedPopListeners = Sets.newHashSet();
+    private ListenerSet<ConnectPushListener<N, D, W>> conntectedPushListeners = new ListenerSet<>();
+    private ListenerSet<UnbalancedPopListener<N, D, W>> unbalancedPopListeners = new ListenerSet<>();
     private Map<UnbalancedPopEntry, W> unbalancedPops = Maps.newHashMap();
     private Map<Transition<N, D>, W> transitionsToFinalWeights = Maps.newHashMap();
     private ForwardDFSVisitor<N, D, W> dfsVisitor;
@@ -80,11 +76,23 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
     public int failedDirectAdditions;
     private WeightedPAutomaton<N, D, W> initialAutomaton;
     private PathExpressionComputer<D, N> pathExpressionComputer;
+    // Path expressions computed since the last transition was added, keyed by (from, to)
+    private HashBasedTable<D, D, IRegEx<N>> pathExpressions = HashBasedTable.create();
     protected Set<D> unbalancedStates = Sets.newHashSet();
-    private int lastStates = 0;
+    private int lastTransitions = -1;
+    private boolean deferredDispatch;
+    private boolean dispatching;
+    private LinkedList<QueuedDispatch> dispatchQueue = Lists.newLinkedList();
+    private int maxDispatchQueueSize;
+    private WeightInterner<W> weightInterner;
 
     public WeightedPAutomaton(D initialState) {
+        this(initialState, new HashTransitionStore<N, D, W>());
+    }
+
+    public WeightedPAutomaton(D initialState, TransitionStore<N, D, W> store) {
         this.initialState = initialState;
+        this.store = store;
         this.unbalancedStates.add(initialState);
     }
 
@@ -93,7 +101,23 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
     public abstract boolean isGeneratedState(D d);
 
     public Collection<Transition<N, D>> getTransitions() {
-        return Lists.newArrayList(transitions);
+        return Lists.newArrayList(store.getTransitions());
+    }
+
+    /**
+     * Returns an unmodifiable view of the transitions out of the state. Copy it before adding transitions while
+     * iterating, the same holds for {@link #getTransitionsInto(State)}.
+     */
+    public Collection<Transition<N, D>> getTransitionsOutOf(D state) {
+        return store.getTransitionsOutOf(state);
+    }
+
+    public int getNumberOfTransitions() {
+        return store.size();
+    }
+
+    public Collection<Transition<N, D>> getTransitionsInto(D state) {
+        return store.getTransitionsInto(state);
     }
 
     public boolean addTransition(Transition<N, D> trans) {
@@ -117,7 +141,11 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
         s += "\tInitialStates:" + initialState + "\n";
         s += "\tFinalStates:" + finalState + "\n";
         s += "\tWeightToTransitions:\n\t\t";
-        s += Joiner.on("\n\t\t").join(transitionToWeights.entrySet());
+        List<String> weightToTransitions = Lists.newArrayList();
+        for (Transition<N, D> t : store.getTransitions()) {
+            weightToTransitions.add(t + "=" + store.getWeight(t));
+        }
+        s += Joiner.on("\n\t\t").join(weightToTransitions);
 
         for (WeightedPAutomaton<N, D, W> nested : nestedAutomatons) {
             s += "\n";
@@ -144,14 +172,14 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
         }
         String s = "digraph {\n";
         TreeSet<String> trans = new TreeSet<String>();
-        for (D source : states) {
-            Collection<Transition<N, D>> collection = transitionsOutOf.get(source);
+        for (D source : getStates()) {
+            Collection<Transition<N, D>> collection = store.getTransitionsOutOf(source);
 
-            for (D target : states) {
+            for (D target : getStates()) {
                 List<String> labels = Lists.newLinkedList();
                 for (Transition<N, D> t : collection) {
                     if (t.getTarget().equals(target)) {
-                        labels.add(escapeQuotes(t.getString().toString()) + " W: " + transitionToWeights.get(t));
+                        labels.add(escapeQuotes(t.getString().toString()) + " W: " + store.getWeight(t));
                     }
                 }
                 if (!labels.isEmpty()) {
@@ -165,7 +193,7 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
         }
         s += Joiner.on("").join(trans);
         s += "}\n";
-        s += "Transitions: " + transitions.size() + " Nested: " + nestedAutomatons.size() + "\n";
+        s += "Transitions: " + store.size() + " Nested: " + nestedAutomatons.size() + "\n";
         for (WeightedPAutomaton<N, D, W> nested : nestedAutomatons) {
             s += "NESTED -> \n";
             s += nested.toDotString(visited);
@@ -180,7 +208,7 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
 
     public String toLabelGroupedDotString() {
         HashBasedTable<D, N, Collection<D>> groupedByTargetAndLabel = HashBasedTable.create();
-        for (Transition<N, D> t : transitions) {
+        for (Transition<N, D> t : store.getTransitions()) {
             Collection<D> collection = groupedByTargetAndLabel.get(t.getTarget(), t.getLabel());
             if (collection == null)
                 collection = Sets.newHashSet();
@@ -199,7 +227,7 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
             }
         }
         s += "}\n";
-        s += "Transitions: " + transitions.size() + "\n";
+        s += "Transitions: " + store.size() + "\n";
         for (WeightedPAutomaton<N, D, W> nested : nestedAutomatons) {
             s += "NESTED -> \n";
             s += nested.toDotString();
@@ -210,10 +238,9 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
     public abstract N epsilon();
 
     public IRegEx<N> extractLanguage(D from) {
-        PathExpressionComputer<D, N> expr = new PathExpressionComputer<>(this);
         IRegEx<N> res = null;
         for (D finalState : getFinalState()) {
-            IRegEx<N> regEx = expr.getExpressionBetween(from, finalState);
+            IRegEx<N> regEx = getExpressionBetween(from, finalState);
             if (res == null) {
                 res = regEx;
             } else {
@@ -226,20 +253,36 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
     }
 
     public IRegEx<N> extractLanguage(D from, D to) {
-        PathExpressionComputer<D, N> expr = new PathExpressionComputer<>(this);
-        IRegEx<N> res = expr.getExpressionBetween(from, to);
-        if (res == null)
-            return new RegEx.EmptySet<N>();
+        return getExpressionBetween(from, to);
+    }
+
+    /**
+     * Path expressions are memoized per (from, to) pair. The memo and the {@link PathExpressionComputer} are shared by
+     * all queries and are only rebuilt once transitions were added to the automaton since the last query.
+     */
+    private IRegEx<N> getExpressionBetween(D from, D to) {
+        if (lastTransitions != store.size()) {
+            pathExpressionComputer = new PathExpressionComputer<D, N>(this);
+            pathExpressions.clear();
+            lastTransitions = store.size();
+        }
+        IRegEx<N> res = pathExpressions.get(from, to);
+        if (res == null) {
+            res = pathExpressionComputer.getExpressionBetween(from, to);
+            if (res == null)
+                res = new RegEx.EmptySet<N>();
+            pathExpressions.put(from, to, res);
+        }
         return res;
     }
 
     public Set<D> getStates() {
-        return states;
+        return store.getStates();
     }
 
     public Set<Edge<D, N>> getEdges() {
         Set<Edge<D, N>> trans = Sets.newHashSet();
-        for (Edge<D, N> tran : transitions) {
+        for (Edge<D, N> tran : store.getTransitions()) {
             if (!tran.getLabel().equals(epsilon())) {
                 trans.add(new Transition<N, D>(tran.getTarget(), tran.getLabel(), tran.getStart()));
             }
@@ -258,23 +301,25 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
             failedAdditions++;
             return false;
         }
-        transitionsOutOf.get(trans.getStart()).add(trans);
-        transitionsInto.get(trans.getTarget()).add(trans);
-        states.add(trans.getTarget());
-        states.add(trans.getStart());
-        boolean added = transitions.add(trans);
-        W oldWeight = transitionToWeights.get(trans);
-        W newWeight = (W) (oldWeight == null ? weight : oldWeight.combineWith(weight));
-        if (!newWeight.equals(oldWeight)) {
-            transitionToWeights.put(trans, newWeight);
-            for (WPAUpdateListener<N, D, W> l : Lists.newArrayList(listeners)) {
-                l.onWeightAdded(trans, newWeight, this);
-            }
-            for (WPAStateListener<N, D, W> l : Lists.newArrayList(stateListeners.get(trans.getStart()))) {
-                l.onOutTransitionAdded(trans, newWeight, this);
-            }
-            for (WPAStateListener<N, D, W> l : Lists.newArrayList(stateListeners.get(trans.getTarget()))) {
-                l.onInTransitionAdded(trans, newWeight, this);
+        boolean added = store.add(trans);
+        W oldWeight = store.getWeight(trans);
+        W newWeight;
+        boolean changed;
+        if (weightInterner != null) {
+            // Stored weights are canonical, so a reference comparison decides whether the weight changed.
+            newWeight = oldWeight == null ? weightInterner.intern(weight) : weightInterner.combine(oldWeight, weight);
+            changed = newWeight != oldWeight;
+        } else {
+            newWeight = (W) (oldWeight == null ? weight : oldWeight.combineWith(weight));
+            changed = !newWeight.equals(oldWeight);
+        }
+        if (changed) {
+            store.putWeight(trans, newWeight);
+            if (deferredDispatch) {
+                enqueue(new QueuedDispatch(trans, newWeight, null, null));
+                drainDispatchQueue();
+            } else {
+                dispatch(trans, newWeight);
             }
             return true;
         }
@@ -283,15 +328,143 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
         return added;
     }
 
+    private void dispatch(Transition<N, D> trans, W newWeight) {
+        // Indexed loops over the snapshots, this is the hot path and must not allocate.
+        List<WPAUpdateListener<N, D, W>> updateListeners = listeners.snapshot();
+        for (int i = 0; i < updateListeners.size(); i++) {
+            updateListeners.get(i).onWeightAdded(trans, newWeight, this);
+        }
+        List<WPAStateListener<N, D, W>> outListeners = stateListenersOf(trans.getStart());
+        for (int i = 0; i < outListeners.size(); i++) {
+            outListeners.get(i).onOutTransitionAdded(trans, newWeight, this);
+        }
+        List<WPAStateListener<N, D, W>> inListeners = stateListenersOf(trans.getTarget());
+        for (int i = 0; i < inListeners.size(); i++) {
+            inListeners.get(i).onInTransitionAdded(trans, newWeight, this);
+        }
+    }
+
+    private List<WPAStateListener<N, D, W>> stateListenersOf(D state) {
+        ListenerSet<WPAStateListener<N, D, W>> set = stateListeners.get(state);
+        if (set == null)
+            return Collections.emptyList();
+        return set.snapshot();
+    }
+
+    private void drainDispatchQueue() {
+        // Listeners that add transitions while we dispatch only enqueue them, the outermost call drains the queue.
+        if (dispatching)
+            return;
+        dispatching = true;
+        try {
+            while (!dispatchQueue.isEmpty()) {
+                dispatchQueue.poll().run();
+            }
+        } finally {
+            dispatching = false;
+        }
+    }
+
+    private void enqueue(QueuedDispatch e) {
+        dispatchQueue.add(e);
+        maxDispatchQueueSize = Math.max(maxDispatchQueueSize, dispatchQueue.size());
+    }
+
+    /**
+     * A weight update waiting in the dispatch queue. Without a listener it is dispatched to all listeners of the
+     * automaton. With a listener it replays an existing transition to that listener only, which is how listeners
+     * registered in deferred dispatch mode see the transitions added before them.
+     */
+    private class QueuedDispatch {
+        private final Transition<N, D> trans;
+        private final W weight;
+        private final WPAUpdateListener<N, D, W> updateListener;
+        private final WPAStateListener<N, D, W> stateListener;
+
+        QueuedDispatch(Transition<N, D> trans, W weight, WPAUpdateListener<N, D, W> updateListener,
+                WPAStateListener<N, D, W> stateListener) {
+            this.trans = trans;
+            this.weight = weight;
+            this.updateListener = updateListener;
+            this.stateListener = stateListener;
+        }
+
+        void run() {
+            if (updateListener != null) {
+                updateListener.onWeightAdded(trans, weight, WeightedPAutomaton.this);
+            } else if (stateListener != null) {
+                if (trans.getStart().equals(stateListener.getState()))
+                    stateListener.onOutTransitionAdded(trans, weight, WeightedPAutomaton.this);
+                if (trans.getTarget().equals(stateListener.getState()))
+                    stateListener.onInTransitionAdded(trans, weight, WeightedPAutomaton.this);
+            } else {
+                dispatch(trans, weight);
+            }
+        }
+    }
+
+    /**
+     * In deferred dispatch mode, weight updates are queued and listeners are notified from a loop instead of
+     * recursively from within {@link #addWeightForTransition(Transition, Weight)}. The stack depth then no longer grows
+     * with the length of a propagation chain. The fixed point is the same, only the order of notifications differs.
+     * Listeners registered in this mode are replayed the existing transitions from the queue as well. Nested automata
+     * inherit the mode of their parent.
+     */
+    public void setDeferredDispatch(boolean deferredDispatch) {
+        this.deferredDispatch = deferredDispatch;
+        for (WeightedPAutomaton<N, D, W> nested : Lists.newArrayList(nestedAutomatons)) {
+            nested.setDeferredDispatch(deferredDispatch);
+        }
+    }
+
+    public boolean isDeferredDispatch() {
+        return deferredDispatch;
+    }
+
+    /**
+     * Interns all weights stored in this automaton with the given interner, see {@link WeightInterner} for the
+     * requirements on the weight type. Weights that are already stored are interned as well. Nested automata inherit
+     * the interner of their parent.
+     */
+    public void setWeightInterner(WeightInterner<W> weightInterner) {
+        this.weightInterner = weightInterner;
+        if (weightInterner != null) {
+            for (Transition<N, D> t : store.getTransitions()) {
+                store.putWeight(t, weightInterner.intern(store.getWeight(t)));
+            }
+        }
+        for (WeightedPAutomaton<N, D, W> nested : Lists.newArrayList(nestedAutomatons)) {
+            nested.setWeightInterner(weightInterner);
+        }
+    }
+
+    public WeightInterner<W> getWeightInterner() {
+        return weightInterner;
+    }
+
+    /**
+     * @return the largest number of weight updates that were queued at once in deferred dispatch mode.
+     */
+    public int getMaxDispatchQueueSize() {
+        return maxDispatchQueueSize;
+    }
+
     public W getWeightFor(Transition<N, D> trans) {
-        return transitionToWeights.get(trans);
+        return store.getWeight(trans);
     }
 
     public void registerListener(WPAUpdateListener<N, D, W> listener) {
         if (!listeners.add(listener))
             return;
-        for (Entry<Transition<N, D>, W> transAndWeight : Lists.newArrayList(transitionToWeights.entrySet())) {
-            listener.onWeightAdded(transAndWeight.getKey(), transAndWeight.getValue(), this);
+        if (deferredDispatch) {
+            for (Transition<N, D> t : store.getTransitions()) {
+                enqueue(new QueuedDispatch(t, store.getWeight(t), listener, null));
+            }
+            drainDispatchQueue();
+        } else {
+            for (Transition<N, D> t : getTransitions()) {
+                listener.onWeightAdded(t, store.getWeight(t), this);
+            }
         }
         for (WeightedPAutomaton<N, D, W> nested : Lists.newArrayList(nestedAutomatons)) {
             nested.registerListener(listener);
@@ -311,15 +484,30 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
     }
 
     public void registerListener(WPAStateListener<N, D, W> l) {
-        if (!stateListeners.put(l.getState(), l)) {
+        ListenerSet<WPAStateListener<N, D, W>> set = stateListeners.get(l.getState());
+        if (set == null) {
+            set = new ListenerSet<>();
+            stateListeners.put(l.getState(), set);
+        }
+        if (!set.add(l)) {
             return;
         }
         increaseListenerCount(l);
-        for (Transition<N, D> t : Lists.newArrayList(transitionsOutOf.get(l.getState()))) {
-            l.onOutTransitionAdded(t, transitionToWeights.get(t), this);
-        }
-        for (Transition<N, D> t : Lists.newArrayList(transitionsInto.get(l.getState()))) {
-            l.onInTransitionAdded(t, transitionToWeights.get(t), this);
+        if (deferredDispatch) {
+            // A self loop is both out and in transition of the state, it is queued once and run() delivers both.
+            Set<Transition<N, D>> replay = Sets.newLinkedHashSet(store.getTransitionsOutOf(l.getState()));
+            replay.addAll(store.getTransitionsInto(l.getState()));
+            for (Transition<N, D> t : replay) {
+                enqueue(new QueuedDispatch(t, store.getWeight(t), null, l));
+            }
+            drainDispatchQueue();
+        } else {
+            for (Transition<N, D> t : Lists.newArrayList(store.getTransitionsOutOf(l.getState()))) {
+                l.onOutTransitionAdded(t, store.getWeight(t), this);
+            }
+            for (Transition<N, D> t : Lists.newArrayList(store.getTransitionsInto(l.getState()))) {
+                l.onInTransitionAdded(t, store.getWeight(t), this);
+            }
         }
 
         for (WeightedPAutomaton<N, D, W> nested : Lists.newArrayList(nestedAutomatons)) {
@@ -366,7 +554,7 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
     public abstract W getOne();
 
     public WeightedPAutomaton<N, D, W> createNestedAutomaton(D initialState) {
-        WeightedPAutomaton<N, D, W> nested = new WeightedPAutomaton<N, D, W>(initialState) {
+        WeightedPAutomaton<N, D, W> nested = new WeightedPAutomaton<N, D, W>(initialState, store.createEmpty()) {
 
             @Override
             public D createState(D d, N loc) {
@@ -413,6 +601,8 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
                 return "NESTED: \n" + super.toString();
             }
         };
+        nested.setDeferredDispatch(deferredDispatch);
+        nested.setWeightInterner(weightInterner);
         addNestedAutomaton(nested);
         return nested;
     }
@@ -421,8 +611,9 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
         WeightedPAutomaton<N, D, W>.ReturnSiteWithWeights returnSiteWithWeights = new ReturnSiteWithWeights(callSite,
                 returnSite, returnedFact, returnedWeight);
         if (connectedPushes.add(returnSiteWithWeights)) {
-            for (ConnectPushListener<N, D, W> l : Lists.newArrayList(conntectedPushListeners)) {
-                l.connect(returnSiteWithWeights.callSite, returnSiteWithWeights.returnSite,
+            List<ConnectPushListener<N, D, W>> snapshot = conntectedPushListeners.snapshot();
+            for (int i = 0; i < snapshot.size(); i++) {
+                snapshot.get(i).connect(returnSiteWithWeights.callSite, returnSiteWithWeights.returnSite,
                         returnSiteWithWeights.returnedFact, returnSiteWithWeights.returnedWeight);
             }
         }
@@ -451,8 +642,9 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
         W newVal = (oldVal == null ? weight : (W) oldVal.combineWith(weight));
         if (!newVal.equals(oldVal)) {
             unbalancedPops.put(t, newVal);
-            for (UnbalancedPopListener<N, D, W> l : Lists.newArrayList(unbalancedPopListeners)) {
-                l.unbalancedPop(targetState, trans, newVal);
+            List<UnbalancedPopListener<N, D, W>> snapshot = unbalancedPopListeners.snapshot();
+            for (int i = 0; i < snapshot.size(); i++) {
+                snapshot.get(i).unbalancedPop(targetState, trans, newVal);
             }
         }
     }
@@ -643,17 +835,19 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
     public void addNestedAutomaton(WeightedPAutomaton<N, D, W> nested) {
         if (!nestedAutomatons.add(nested))
             return;
-        for (WPAStateListener<N, D, W> e : Lists.newArrayList(stateListeners.values())) {
-            nested.registerListener(e);
+        for (ListenerSet<WPAStateListener<N, D, W>> set : Lists.newArrayList(stateListeners.values())) {
+            for (WPAStateListener<N, D, W> e : set.snapshot()) {
+                nested.registerListener(e);
+            }
         }
-        for (WPAUpdateListener<N, D, W> e : Lists.newArrayList(listeners)) {
+        for (WPAUpdateListener<N, D, W> e : listeners.snapshot()) {
             nested.registerListener(e);
         }
-        for (ConnectPushListener<N, D, W> e : Lists.newArrayList(conntectedPushListeners)) {
+        for (ConnectPushListener<N, D, W> e : conntectedPushListeners.snapshot()) {
             nested.registerConnectPushListener(e);
         }
 
-        for (UnbalancedPopListener<N, D, W> e : Lists.newArrayList(unbalancedPopListeners)) {
+        for (UnbalancedPopListener<N, D, W> e : unbalancedPopListeners.snapshot()) {
             nested.registerUnbalancedPopListener(e);
         }
 
@@ -668,12 +862,39 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
             nested.registerDFSListener(e.getKey(), e.getValue());
         }
 
-        for (NestedAutomatonListener<N, D, W> e : Lists.newArrayList(nestedAutomataListeners)) {
+        for (NestedAutomatonListener<N, D, W> e : nestedAutomataListeners.snapshot()) {
             e.nestedAutomaton(this, nested);
             nested.registerNestedAutomatonListener(e);
         }
     }
 
+    /**
+     * Removes the update and state listeners matching the filter from this automaton and, as listeners are propagated
+     * to them, from all its nested automata.
+     */
+    public void unregisterListeners(Predicate<Object> filter) {
+        unregisterListeners(filter, Sets.<WeightedPAutomaton<N, D, W>> newHashSet());
+    }
+
+    private void unregisterListeners(Predicate<Object> filter, Set<WeightedPAutomaton<N, D, W>> visited) {
+        if (!visited.add(this))
+            return;
+        listeners.removeIf(filter);
+        for (Iterator<ListenerSet<WPAStateListener<N, D, W>>> it = stateListeners.values().iterator(); it
+                .hasNext();) {
+            ListenerSet<WPAStateListener<N, D, W>> set = it.next();
+            if (set.removeIf(filter) && set.isEmpty())
+                it.remove();
+        }
+        for (WeightedPAutomaton<N, D, W> nested : Lists.newArrayList(nestedAutomatons)) {
+            nested.unregisterListeners(filter, visited);
+        }
+    }
+
+    public Set<WeightedPAutomaton<N, D, W>> getNestedAutomatons() {
+        return Collections.unmodifiableSet(nestedAutomatons);
+    }
+
     public void registerNestedAutomatonListener(NestedAutomatonListener<N, D, W> l) {
         if (!nestedAutomataListeners.add(l)) {
             return;
@@ -687,17 +908,16 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
         initialAutomaton = aut;
     }
 
+    /**
+     * Returns true if post* was started on this automaton and the given one is this automaton. Summary automata may be
+     * shared by several post* runs and do not refer to any of their initial automata, they always return false.
+     */
     public boolean isInitialAutomaton(WeightedPAutomaton<N, D, W> aut) {
-        return initialAutomaton.equals(aut);
+        return aut.equals(initialAutomaton);
     }
 
     public IRegEx<N> toRegEx(D start, D end) {
-        if (lastStates < states.size()) {
-            pathExpressionComputer = new PathExpressionComputer<D, N>(this);
-            lastStates = states.size();
-        }
-
-        return RegEx.reverse(pathExpressionComputer.getExpressionBetween(end, start));
+        return RegEx.reverse(getExpressionBetween(end, start));
     }
 
     public boolean containsLoop() {
@@ -708,7 +928,7 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
         while (!worklist.isEmpty()) {
             D pop = worklist.pop();
             visited.add(pop);
-            Collection<Transition<N, D>> inTrans = transitionsInto.get(pop);
+            Collection<Transition<N, D>> inTrans = store.getTransitionsInto(pop);
             for (Transition<N, D> t : inTrans) {
                 if (t.getLabel().equals(this.epsilon()))
                     continue;
@@ -731,7 +951,7 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
         while (!worklist.isEmpty()) {
             D pop = worklist.pop();
             Set<N> atCurr = getOrCreate(pathReachingD, pop);
-            Collection<Transition<N, D>> inTrans = transitionsInto.get(pop);
+            Collection<Transition<N, D>> inTrans = store.getTransitionsInto(pop);
             for (Transition<N, D> t : inTrans) {
                 if (t.getLabel().equals(this.epsilon()))
                     continue;
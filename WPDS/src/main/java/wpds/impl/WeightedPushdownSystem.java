@@ -17,8 +17,11 @@ import java.util.Map;
 import java.util.Set;
 
 import com.google.common.base.Joiner;
-import com.google.common.collect.Lists;
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
+import com.google.common.collect.Table;
 
 import wpds.interfaces.IPushdownSystem;
 import wpds.interfaces.Location;
@@ -31,13 +34,22 @@ public class WeightedPushdownSystem<N extends Location, D extends State, W exten
     protected final Set<PushRule<N, D, W>> pushRules = Sets.newHashSet();
     protected final Set<PopRule<N, D, W>> popRules = Sets.newHashSet();
     protected final Set<NormalRule<N, D, W>> normalRules = Sets.newHashSet();
-    protected final Set<WPDSUpdateListener<N, D, W>> listeners = Sets.newHashSet();
+    private final ListenerSet<WPDSUpdateListener<N, D, W>> listeners = new ListenerSet<>();
+    // Indices over the rules above, maintained in addRuleInternal. Rules with a wildcard as start label are kept in a
+    // separate bucket per start state, as they match any label.
+    private final Table<D, N, Set<Rule<N, D, W>>> rulesStarting = HashBasedTable.create();
+    private final Multimap<D, Rule<N, D, W>> wildcardRulesStarting = HashMultimap.create();
+    private final Table<D, N, Set<NormalRule<N, D, W>>> normalRulesEnding = HashBasedTable.create();
+    private final Table<D, N, Set<PushRule<N, D, W>>> pushRulesEnding = HashBasedTable.create();
+    private final Multimap<N, PushRule<N, D, W>> pushRulesWithCallSite = HashMultimap.create();
+    private final Set<PushRule<N, D, W>> wildcardCallSitePushRules = Sets.newHashSet();
 
     @Override
     public boolean addRule(Rule<N, D, W> rule) {
         if (addRuleInternal(rule)) {
-            for (WPDSUpdateListener<N, D, W> l : Lists.newArrayList(listeners)) {
-                l.onRuleAdded(rule);
+            List<WPDSUpdateListener<N, D, W>> snapshot = listeners.snapshot();
+            for (int i = 0; i < snapshot.size(); i++) {
+                snapshot.get(i).onRuleAdded(rule);
             }
             return true;
         }
@@ -45,13 +57,46 @@ public class WeightedPushdownSystem<N extends Location, D extends State, W exten
     }
 
     private boolean addRuleInternal(Rule<N, D, W> rule) {
+        boolean added;
         if (rule instanceof PushRule)
-            return pushRules.add((PushRule) rule);
+            added = pushRules.add((PushRule) rule);
         else if (rule instanceof PopRule)
-            return popRules.add((PopRule) rule);
+            added = popRules.add((PopRule) rule);
         else if (rule instanceof NormalRule)
-            return normalRules.add((NormalRule) rule);
-        throw new RuntimeException("Try to add a rule of wrong type");
+            added = normalRules.add((NormalRule) rule);
+        else
+            throw new RuntimeException("Try to add a rule of wrong type");
+        if (added)
+            index(rule);
+        return added;
+    }
+
+    private void index(Rule<N, D, W> rule) {
+        if (rule.getL1() instanceof Wildcard) {
+            wildcardRulesStarting.put(rule.getS1(), rule);
+        } else {
+            put(rulesStarting, rule.getS1(), rule.getL1(), rule);
+        }
+        if (rule instanceof NormalRule) {
+            put(normalRulesEnding, rule.getS2(), rule.getL2(), (NormalRule<N, D, W>) rule);
+        } else if (rule instanceof PushRule) {
+            PushRule<N, D, W> pushRule = (PushRule<N, D, W>) rule;
+            put(pushRulesEnding, rule.getS2(), rule.getL2(), pushRule);
+            if (pushRule.getCallSite() instanceof Wildcard) {
+                wildcardCallSitePushRules.add(pushRule);
+            } else {
+                pushRulesWithCallSite.put(pushRule.getCallSite(), pushRule);
+            }
+        }
+    }
+
+    private static <D, N, R> void put(Table<D, N, Set<R>> index, D state, N label, R rule) {
+        Set<R> rules = index.get(state, label);
+        if (rules == null) {
+            rules = Sets.newHashSet();
+            index.put(state, label, rules);
+        }
+        rules.add(rule);
     }
 
     public void registerUpdateListener(WPDSUpdateListener<N, D, W> listener) {
@@ -90,45 +135,45 @@ public class WeightedPushdownSystem<N extends Location, D extends State, W exten
     @Override
     public Set<Rule<N, D, W>> getRulesStarting(D start, N string) {
         Set<Rule<N, D, W>> result = new HashSet<>();
-        getRulesStartingWithinSet(start, string, popRules, result);
-        getRulesStartingWithinSet(start, string, normalRules, result);
-        getRulesStartingWithinSet(start, string, pushRules, result);
-        return result;
-    }
-
-    private void getRulesStartingWithinSet(D start, N string, Set<? extends Rule<N, D, W>> rules,
-            Set<Rule<N, D, W>> res) {
-        for (Rule<N, D, W> r : rules) {
-            if (r.getS1().equals(start) && (r.getL1().equals(string) || r.getL1() instanceof Wildcard))
-                res.add(r);
-            if (string instanceof Wildcard && r.getS1().equals(start)) {
-                res.add(r);
+        if (string instanceof Wildcard) {
+            for (Set<Rule<N, D, W>> rules : rulesStarting.row(start).values()) {
+                result.addAll(rules);
             }
+        } else {
+            addAll(rulesStarting.get(start, string), result);
         }
+        result.addAll(wildcardRulesStarting.get(start));
+        return result;
     }
 
     @Override
     public Set<NormalRule<N, D, W>> getNormalRulesEnding(D start, N string) {
-        Set<NormalRule<N, D, W>> allRules = getNormalRules();
         Set<NormalRule<N, D, W>> result = new HashSet<>();
-        for (NormalRule<N, D, W> r : allRules) {
-            if (r.getS2().equals(start) && r.getL2().equals(string))
-                result.add(r);
-        }
+        addAll(normalRulesEnding.get(start, string), result);
         return result;
     }
 
     @Override
     public Set<PushRule<N, D, W>> getPushRulesEnding(D start, N string) {
-        Set<PushRule<N, D, W>> allRules = getPushRules();
         Set<PushRule<N, D, W>> result = new HashSet<>();
-        for (PushRule<N, D, W> r : allRules) {
-            if (r.getS2().equals(start) && r.getL2().equals(string))
-                result.add(r);
-        }
+        addAll(pushRulesEnding.get(start, string), result);
         return result;
     }
 
+    /**
+     * Returns the push rules whose call site is the given location or a wildcard.
+     */
+    public Set<PushRule<N, D, W>> getPushRulesWithCallSite(N callSite) {
+        Set<PushRule<N, D, W>> result = new HashSet<>(wildcardCallSitePushRules);
+        result.addAll(pushRulesWithCallSite.get(callSite));
+        return result;
+    }
+
+    private static <R> void addAll(Set<? extends R> rules, Set<R> result) {
+        if (rules != null)
+            result.addAll(rules);
+    }
+
     @Override
     public Set<D> getStates() {
         Set<D> states = Sets.newHashSet();
@@ -0,0 +1,405 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package wpds.impl;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.LinkedList;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
+import com.google.common.collect.Table;
+
+import wpds.interfaces.Empty;
+import wpds.interfaces.IPushdownSystem;
+import wpds.interfaces.Location;
+import wpds.interfaces.State;
+import wpds.interfaces.WPAUpdateListener;
+import wpds.interfaces.WPDSUpdateListener;
+import wpds.wildcard.ExclusionWildcard;
+import wpds.wildcard.Wildcard;
+
+/**
+ * Computes the same saturated automaton as {@link PostStar}, but drives the saturation by an explicit worklist of
+ * weight updates instead of registering one {@link wpds.interfaces.WPAStateListener} per rule on the automaton. Rules
+ * are kept in indices keyed by their start configuration, the intermediate facts of the pop handling (reachable pop
+ * states, transitive pops and push return sites) in small per-state indices. Callbacks of the automaton only enqueue
+ * work, hence the stack depth does not grow with the length of the propagation chains.
+ *
+ * As {@link PostStar}, rules and transitions that are added after the saturation has started are processed
+ * incrementally. Summary automata ({@link WeightedPAutomaton#nested()}) are not supported.
+ */
+public class WorklistPostStar<N extends Location, D extends State, W extends Weight> {
+    private IPushdownSystem<N, D, W> pds;
+    private WeightedPAutomaton<N, D, W> fa;
+    private final LinkedList<Rule<N, D, W>> ruleWorklist = new LinkedList<>();
+    private final LinkedList<Entry<D, Pop>> popWorklist = new LinkedList<>();
+    private final LinkedList<Update> updateWorklist = new LinkedList<>();
+    private boolean saturating;
+
+    private final Table<D, N, Set<Rule<N, D, W>>> rulesStarting = HashBasedTable.create();
+    private final Multimap<D, Rule<N, D, W>> wildcardRulesStarting = HashMultimap.create();
+    private final Multimap<D, Pop> pops = HashMultimap.create();
+    private final Multimap<D, TransitivePop> transitivePops = HashMultimap.create();
+    private final Multimap<D, PushReturn> pushReturns = HashMultimap.create();
+
+    public void poststar(IPushdownSystem<N, D, W> pds, WeightedPAutomaton<N, D, W> initialAutomaton) {
+        if (initialAutomaton.nested())
+            throw new IllegalArgumentException("Summary automata are not supported, use PostStar instead");
+        this.pds = pds;
+        this.fa = initialAutomaton;
+        fa.setInitialAutomaton(fa);
+        saturating = true;
+        try {
+            this.fa.registerListener(new WPAUpdateListener<N, D, W>() {
+                @Override
+                public void onWeightAdded(Transition<N, D> t, W w, WeightedPAutomaton<N, D, W> aut) {
+                    updateWorklist.add(new Update(t, w));
+                    saturate();
+                }
+            });
+            this.pds.registerUpdateListener(new WPDSUpdateListener<N, D, W>() {
+                @Override
+                public void onRuleAdded(Rule<N, D, W> rule) {
+                    ruleWorklist.add(rule);
+                    saturate();
+                }
+            });
+        } finally {
+            saturating = false;
+        }
+        saturate();
+    }
+
+    private void saturate() {
+        if (saturating)
+            return;
+        saturating = true;
+        try {
+            while (!ruleWorklist.isEmpty() || !popWorklist.isEmpty() || !updateWorklist.isEmpty()) {
+                if (!ruleWorklist.isEmpty()) {
+                    addRule(ruleWorklist.removeFirst());
+                } else if (!popWorklist.isEmpty()) {
+                    Entry<D, Pop> e = popWorklist.removeFirst();
+                    for (Transition<N, D> t : Lists.newArrayList(fa.getTransitionsOutOf(e.getKey()))) {
+                        e.getValue().apply(t, fa.getWeightFor(t));
+                    }
+                } else {
+                    Update u = updateWorklist.removeFirst();
+                    onWeightAdded(u.transition, u.weight);
+                }
+            }
+        } finally {
+            saturating = false;
+        }
+    }
+
+    private void addRule(Rule<N, D, W> rule) {
+        if (rule instanceof PopRule) {
+            addPop(rule.getS1(), new Pop(rule.getL1(), rule.getS2(), rule.getWeight()));
+            return;
+        }
+        if (rule.getL1() instanceof Wildcard) {
+            if (!wildcardRulesStarting.put(rule.getS1(), rule))
+                return;
+        } else {
+            Set<Rule<N, D, W>> rules = rulesStarting.get(rule.getS1(), rule.getL1());
+            if (rules == null) {
+                rules = Sets.newHashSet();
+                rulesStarting.put(rule.getS1(), rule.getL1(), rules);
+            }
+            if (!rules.add(rule))
+                return;
+        }
+        for (Transition<N, D> t : Lists.newArrayList(fa.getTransitionsOutOf(rule.getS1()))) {
+            applyRule(rule, t, fa.getWeightFor(t));
+        }
+    }
+
+    private void onWeightAdded(Transition<N, D> t, W weight) {
+        // The indices are only modified while processing the worklists or for other states, iterating them here is safe.
+        D start = t.getStart();
+        Set<Rule<N, D, W>> rules = rulesStarting.get(start, t.getLabel());
+        if (rules != null) {
+            for (Rule<N, D, W> rule : rules) {
+                applyRule(rule, t, weight);
+            }
+        }
+        for (Rule<N, D, W> rule : wildcardRulesStarting.get(start)) {
+            applyRule(rule, t, weight);
+        }
+        for (Pop pop : pops.get(start)) {
+            pop.apply(t, weight);
+        }
+        if (!t.getLabel().equals(fa.epsilon())) {
+            for (TransitivePop transitivePop : transitivePops.get(start)) {
+                transitivePop.apply(t, weight);
+            }
+        } else {
+            for (PushReturn pushReturn : pushReturns.get(t.getTarget())) {
+                pushReturn.apply(t, weight);
+            }
+        }
+    }
+
+    private void applyRule(Rule<N, D, W> rule, Transition<N, D> t, W weight) {
+        if (rule instanceof NormalRule) {
+            applyNormal((NormalRule<N, D, W>) rule, t, weight);
+        } else if (rule instanceof PushRule) {
+            applyPush((PushRule<N, D, W>) rule, t, weight);
+        }
+    }
+
+    private void applyNormal(NormalRule<N, D, W> rule, Transition<N, D> t, W weight) {
+        if (!t.getLabel().equals(rule.getL1()) && !(rule.getL1() instanceof Wildcard))
+            return;
+        W newWeight = (W) weight.extendWith(rule.getWeight());
+        D p = rule.getS2();
+        N l2 = rule.getL2();
+        if (l2 instanceof ExclusionWildcard) {
+            ExclusionWildcard<N> ex = (ExclusionWildcard<N>) l2;
+            if (t.getString().equals(ex.excludes()))
+                return;
+        }
+        if (l2 instanceof Wildcard) {
+            l2 = t.getString();
+            if (l2.equals(fa.epsilon()))
+                return;
+        }
+        if (!rule.canBeApplied(t, weight)) {
+            return;
+        }
+        fa.addWeightForTransition(new Transition<N, D>(p, l2, t.getTarget()), newWeight);
+    }
+
+    private void applyPush(PushRule<N, D, W> rule, Transition<N, D> t, W weight) {
+        if (!t.getLabel().equals(rule.getL1()) && !(rule.getL1() instanceof Wildcard))
+            return;
+        if (rule.getCallSite() instanceof Wildcard) {
+            if (t.getLabel().equals(fa.epsilon()))
+                return;
+        }
+        D p = rule.getS2();
+        N gammaPrime = rule.getL2();
+        D irState = fa.createState(p, gammaPrime);
+        N transitionLabel = (rule.getCallSite() instanceof Wildcard ? t.getLabel() : rule.getCallSite());
+        fa.addWeightForTransition(new Transition<N, D>(irState, transitionLabel, t.getTarget()),
+                (W) weight.extendWith(rule.getWeight()));
+        fa.addWeightForTransition(new Transition<N, D>(p, gammaPrime, irState), fa.getOne());
+        PushReturn pushReturn = new PushReturn(rule.getL1(), transitionLabel);
+        if (pushReturns.put(irState, pushReturn)) {
+            for (Transition<N, D> in : Lists.newArrayList(fa.getTransitionsInto(irState))) {
+                if (in.getString().equals(fa.epsilon()))
+                    pushReturn.apply(in, fa.getWeightFor(in));
+            }
+        }
+    }
+
+    private void addPop(D state, Pop pop) {
+        // Pops follow chains of epsilon transitions, the existing transitions are visited from the worklist to not
+        // recurse along these chains.
+        if (pops.put(state, pop))
+            popWorklist.add(new SimpleEntry<>(state, pop));
+    }
+
+    private void addTransitivePop(D state, TransitivePop transitivePop) {
+        if (!transitivePops.put(state, transitivePop))
+            return;
+        for (Transition<N, D> t : Lists.newArrayList(fa.getTransitionsOutOf(state))) {
+            if (!t.getLabel().equals(fa.epsilon()))
+                transitivePop.apply(t, fa.getWeightFor(t));
+        }
+    }
+
+    private class Update {
+        private final Transition<N, D> transition;
+        private final W weight;
+
+        private Update(Transition<N, D> transition, W weight) {
+            this.transition = transition;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * A pop rule with the given label and target state that is applicable to the out transitions of a state.
+     */
+    private class Pop {
+        private final N popLabel;
+        private final D targetState;
+        private final W ruleWeight;
+
+        private Pop(N popLabel, D targetState, W ruleWeight) {
+            this.popLabel = popLabel;
+            this.targetState = targetState;
+            this.ruleWeight = ruleWeight;
+        }
+
+        private void apply(Transition<N, D> t, W weight) {
+            if (t.getLabel().equals(popLabel)) {
+                if (fa.isGeneratedState(t.getTarget()) || fa.isUnbalancedState(t.getTarget())) {
+                    if (popLabel instanceof Empty) {
+                        throw new RuntimeException("IllegalState");
+                    }
+                    W newWeight = (W) weight.extendWith(ruleWeight);
+                    fa.addWeightForTransition(new Transition<N, D>(targetState, fa.epsilon(), t.getTarget()),
+                            newWeight);
+                    addTransitivePop(t.getTarget(), new TransitivePop(targetState, newWeight));
+                }
+                if (fa.isUnbalancedState(t.getTarget())) {
+                    fa.unbalancedPop(targetState, t, weight);
+                }
+            }
+            if (t.getLabel() instanceof Empty) {
+                addPop(t.getTarget(), this);
+            }
+        }
+
+        @Override
+        public int hashCode() {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + ((popLabel == null) ? 0 : popLabel.hashCode());
+            result = prime * result + ((ruleWeight == null) ? 0 : ruleWeight.hashCode());
+            result = prime * result + ((targetState == null) ? 0 : targetState.hashCode());
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (obj == null)
+                return false;
+            if (getClass() != obj.getClass())
+                return false;
+            Pop other = (Pop) obj;
+            if (popLabel == null) {
+                if (other.popLabel != null)
+                    return false;
+            } else if (!popLabel.equals(other.popLabel))
+                return false;
+            if (ruleWeight == null) {
+                if (other.ruleWeight != null)
+                    return false;
+            } else if (!ruleWeight.equals(other.ruleWeight))
+                return false;
+            if (targetState == null) {
+                if (other.targetState != null)
+                    return false;
+            } else if (!targetState.equals(other.targetState))
+                return false;
+            return true;
+        }
+    }
+
+    /**
+     * An epsilon transition from popState with the given weight into the state the transitive pop is registered at.
+     */
+    private class TransitivePop {
+        private final D popState;
+        private final W weight;
+
+        private TransitivePop(D popState, W weight) {
+            this.popState = popState;
+            this.weight = weight;
+        }
+
+        private void apply(Transition<N, D> t, W w) {
+            fa.addWeightForTransition(new Transition<N, D>(popState, t.getLabel(), t.getTarget()),
+                    (W) w.extendWith(weight));
+        }
+
+        @Override
+        public int hashCode() {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + ((popState == null) ? 0 : popState.hashCode());
+            result = prime * result + ((weight == null) ? 0 : weight.hashCode());
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (obj == null)
+                return false;
+            if (getClass() != obj.getClass())
+                return false;
+            TransitivePop other = (TransitivePop) obj;
+            if (popState == null) {
+                if (other.popState != null)
+                    return false;
+            } else if (!popState.equals(other.popState))
+                return false;
+            if (weight == null) {
+                if (other.weight != null)
+                    return false;
+            } else if (!weight.equals(other.weight))
+                return false;
+            return true;
+        }
+    }
+
+    /**
+     * Reconnects a push once an epsilon transition reaches the intermediate state the push return is registered at.
+     */
+    private class PushReturn {
+        private final N callSite;
+        private final N succOfCallSite;
+
+        private PushReturn(N callSite, N succOfCallSite) {
+            this.callSite = callSite;
+            this.succOfCallSite = succOfCallSite;
+        }
+
+        private void apply(Transition<N, D> t, W weight) {
+            fa.reconnectPush(callSite, succOfCallSite, t.getStart(), weight);
+        }
+
+        @Override
+        public int hashCode() {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + ((callSite == null) ? 0 : callSite.hashCode());
+            result = prime * result + ((succOfCallSite == null) ? 0 : succOfCallSite.hashCode());
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (obj == null)
+                return false;
+            if (getClass() != obj.getClass())
+                return false;
+            PushReturn other = (PushReturn) obj;
+            if (callSite == null) {
+                if (other.callSite != null)
+                    return false;
+            } else if (!callSite.equals(other.callSite))
+                return false;
+            if (succOfCallSite == null) {
+                if (other.succOfCallSite != null)
+                    return false;
+            } else if (!succOfCallSite.equals(other.succOfCallSite))
+                return false;
+            return true;
+        }
+    }
+}
@@ -11,38 +11,71 @@
  *******************************************************************************/
 package wpds.interfaces;
 
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
-import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
-import com.google.common.collect.Table;
+import com.google.common.collect.Sets;
 
 import wpds.impl.Transition;
 import wpds.impl.Weight;
 import wpds.impl.WeightedPAutomaton;
 
+/**
+ * Reports to a {@link ReachabilityListener} registered for a state all transitions out of the states reachable from
+ * it. Instead of the transitive closure over all pairs of states, a reachability set is only kept for the states a
+ * listener is registered for. Such states that lie on a common cycle reach the same states and share a single
+ * {@link Component}, the sets are bitsets over dense state ids and are extended incrementally as edges are added. Each
+ * state is indexed with the components that reach it, so adding an edge only visits the components reaching its start.
+ */
 public class ForwardDFSVisitor<N extends Location, D extends State, W extends Weight>
         implements WPAUpdateListener<N, D, W> {
+    private static final int INITIAL_CAPACITY = 16;
+
     private Multimap<D, ReachabilityListener<N, D>> listeners = HashMultimap.create();
     protected WeightedPAutomaton<N, D, W> aut;
-    private Multimap<D, D> adjacent = HashMultimap.create();
-    private Multimap<D, D> reaches = HashMultimap.create();
-    private Multimap<D, D> inverseReaches = HashMultimap.create();
-    private Table<D, D, Integer> refCount = HashBasedTable.create();
+
+    private final Map<D, Integer> stateToId = Maps.newHashMap();
+    private final List<D> idToState = Lists.newArrayList();
+    private int[][] successors = new int[INITIAL_CAPACITY][];
+    private int[] successorsSize = new int[INITIAL_CAPACITY];
+    private final Set<Long> edges = Sets.newHashSet();
+    private final BitSet hasOutTransition = new BitSet();
+
+    private final Map<D, Component> sourceToComponent = Maps.newHashMap();
+    private final List<List<Component>> componentsReaching = Lists.newArrayList();
 
     public ForwardDFSVisitor(WeightedPAutomaton<N, D, W> aut) {
         this.aut = aut;
     }
 
     public void registerListener(D state, final ReachabilityListener<N, D> l) {
-        if (listeners.put(state, l)) {
-            for (D d : Lists.newArrayList(inverseReaches.get(state))) {
-                aut.registerListener(new TransitiveClosure(d, state, l));
+        if (!listeners.put(state, l))
+            return;
+        int id = internState(state);
+        Component c = sourceToComponent.get(state);
+        if (c == null) {
+            c = new Component(state);
+            sourceToComponent.put(state, c);
+            List<Integer> reached = Lists.newArrayList();
+            for (int i = 0; i < successorsSize[id]; i++) {
+                reached.addAll(propagate(c, successors[id][i]));
             }
+            mergeCycles(c, reached);
+        }
+        if (hasOutTransition.get(id)) {
+            aut.registerListener(new TransitiveClosure(state, state, l));
+        }
+        BitSet reach = (BitSet) find(c).reach.clone();
+        for (int d = reach.nextSetBit(0); d >= 0; d = reach.nextSetBit(d + 1)) {
+            aut.registerListener(new TransitiveClosure(idToState.get(d), state, l));
         }
     }
 
@@ -112,110 +145,169 @@ public class ForwardDFSVisitor<N extends Location, D extends State, W extends We
 
     @Override
     public void onWeightAdded(Transition<N, D> t, W w, WeightedPAutomaton<N, D, W> aut) {
-
         D a = t.getStart();
-        D b = t.getTarget();
-        inverseReaches(a, a);
-        // inverseReaches(b,b);
+        int from = internState(a);
+        if (!hasOutTransition.get(from)) {
+            hasOutTransition.set(from);
+            for (ReachabilityListener<N, D> l : Lists.newArrayList(listeners.get(a))) {
+                aut.registerListener(new TransitiveClosure(a, a, l));
+            }
+        }
         if (!continueWith(t))
             return;
-        insertEdge(a, b);
+        insertEdge(from, internState(t.getTarget()));
     }
 
-    private void insertEdge(D a, D b) {
-        LinkedList<Edge> worklist = Lists.newLinkedList();
-        if (refCount.get(a, b) == null) {
-            makeClosure(a, b);
-            worklist.add(new Edge(a, b));
-            refCount.put(a, b, 1);
+    private void insertEdge(int from, int to) {
+        if (!edges.add(((long) from << 32) | to))
+            return;
+        successors[from] = append(successors[from], successorsSize[from]++, to);
+
+        // Extend the reachability sets first and only then call back into the automaton, listeners may add
+        // transitions and re-enter this visitor.
+        List<Update> updates = Lists.newArrayList();
+        for (Component c : componentsReaching(from)) {
+            List<Integer> reached = propagate(c, to);
+            if (!reached.isEmpty())
+                updates.add(new Update(Lists.newArrayList(c.sources), reached));
         }
-        makeEdge(a, b);
-
-        for (D x : Lists.newArrayList(reaches.get(a))) {
-            if (refCount.get(x, b) == null) {
-                makeClosure(x, b);
-                worklist.add(new Edge(x, b));
-                refCount.put(x, b, 1);
-            }
+        for (Update u : updates) {
+            mergeCycles(sourceToComponent.get(u.sources.get(0)), u.reached);
         }
-        while (!worklist.isEmpty()) {
-            Edge e = worklist.poll();
-            D x = e.from;
-            D y = e.to;
-            for (D z : Lists.newArrayList(adjacent.get(y))) {
-                if (refCount.get(x, z) == null) {
-                    makeClosure(x, z);
-                    worklist.add(new Edge(x, z));
-                    refCount.put(x, z, 1);
+        for (Update u : updates) {
+            for (D s : u.sources) {
+                for (ReachabilityListener<N, D> l : Lists.newArrayList(listeners.get(s))) {
+                    for (Integer d : u.reached) {
+                        aut.registerListener(new TransitiveClosure(idToState.get(d), s, l));
+                    }
                 }
             }
         }
     }
 
-    private void makeEdge(D from, D to) {
-        adjacent.put(from, to);
-        inverseReaches(from, to);
+    /**
+     * Returns the components whose reachability set contains the state or that the state is a source of. Components
+     * merged into others are dropped from the index here, their states were indexed with the merged component.
+     */
+    private List<Component> componentsReaching(int id) {
+        List<Component> indexed = componentsReaching.get(id);
+        for (Iterator<Component> it = indexed.iterator(); it.hasNext();) {
+            if (it.next().mergedInto != null)
+                it.remove();
+        }
+        List<Component> result = Lists.newArrayList(indexed);
+        Component source = sourceToComponent.get(idToState.get(id));
+        if (source != null) {
+            source = find(source);
+            if (!source.reach.get(id))
+                result.add(source);
+        }
+        return result;
+    }
+
+    private void setReachable(Component c, int id) {
+        c.reach.set(id);
+        componentsReaching.get(id).add(c);
     }
 
-    private void inverseReaches(D from, D to) {
-        if (inverseReaches.put(from, to)) {
-            for (ReachabilityListener<N, D> l : Lists.newArrayList(listeners.get(from))) {
-                aut.registerListener(new TransitiveClosure(to, from, l));
+    /**
+     * Adds the given state and all states reachable from it to the reachability set of the component. Returns the
+     * states that were not contained before.
+     */
+    private List<Integer> propagate(Component c, int start) {
+        List<Integer> reached = Lists.newArrayList();
+        if (c.reach.get(start))
+            return reached;
+        setReachable(c, start);
+        reached.add(start);
+        for (int i = 0; i < reached.size(); i++) {
+            int x = reached.get(i);
+            for (int j = 0; j < successorsSize[x]; j++) {
+                int y = successors[x][j];
+                if (!c.reach.get(y)) {
+                    setReachable(c, y);
+                    reached.add(y);
+                }
             }
         }
-
+        return reached;
     }
 
-    private void makeClosure(D from, D to) {
-        if (reaches.put(to, from)) {
-            inverseReaches(from, to);
+    /**
+     * Merges the component with every component of a newly reached source that in turn reaches the component. Both
+     * lie on a cycle and therefore reach the same states.
+     */
+    private void mergeCycles(Component c, List<Integer> reached) {
+        c = find(c);
+        for (Integer d : reached) {
+            Component other = sourceToComponent.get(idToState.get(d));
+            if (other == null)
+                continue;
+            other = find(other);
+            if (other == c || !other.reach.get(stateToId.get(c.sources.get(0))))
+                continue;
+            c.sources.addAll(other.sources);
+            BitSet added = other.reach;
+            added.andNot(c.reach);
+            for (int i = added.nextSetBit(0); i >= 0; i = added.nextSetBit(i + 1)) {
+                setReachable(c, i);
+            }
+            other.mergedInto = c;
+            other.sources = null;
+            other.reach = null;
         }
     }
 
-    private class Index {
-        int refcount;
+    private Component find(Component c) {
+        while (c.mergedInto != null) {
+            c = c.mergedInto;
+        }
+        return c;
     }
 
-    private class Edge {
-        final D from;
-        final D to;
-
-        private Edge(D from, D to) {
-            this.from = from;
-            this.to = to;
+    private int internState(D state) {
+        Integer id = stateToId.get(state);
+        if (id != null)
+            return id;
+        int newId = idToState.size();
+        stateToId.put(state, newId);
+        idToState.add(state);
+        componentsReaching.add(Lists.<Component> newArrayList());
+        if (newId == successors.length) {
+            successors = Arrays.copyOf(successors, 2 * successors.length);
+            successorsSize = Arrays.copyOf(successorsSize, 2 * successorsSize.length);
         }
+        return newId;
+    }
 
-        @Override
-        public int hashCode() {
-            final int prime = 31;
-            int result = 1;
-            result = prime * result + ((from == null) ? 0 : from.hashCode());
-            result = prime * result + ((to == null) ? 0 : to.hashCode());
-            return result;
+    private static int[] append(int[] list, int length, int value) {
+        if (list == null) {
+            list = new int[2];
+        } else if (length == list.length) {
+            list = Arrays.copyOf(list, 2 * length);
         }
+        list[length] = value;
+        return list;
+    }
 
-        @Override
-        public boolean equals(Object obj) {
-            if (this == obj)
-                return true;
-            if (obj == null)
-                return false;
-            if (getClass() != obj.getClass())
-                return false;
-            Edge other = (Edge) obj;
-            if (from == null) {
-                if (other.from != null)
-                    return false;
-            } else if (!from.equals(other.from))
-                return false;
-            if (to == null) {
-                if (other.to != null)
-                    return false;
-            } else if (!to.equals(other.to))
-                return false;
-            return true;
+    private class Component {
+        List<D> sources = Lists.newArrayList();
+        BitSet reach = new BitSet();
+        Component mergedInto;
+
+        private Component(D source) {
+            sources.add(source);
         }
+    }
 
+    private class Update {
+        final List<D> sources;
+        final List<Integer> reached;
+
+        private Update(List<D> sources, List<Integer> reached) {
+            this.sources = sources;
+            this.reached = reached;
+        }
     }
 
     @Override
@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static tests.TestHelper.ACC;
+import static tests.TestHelper.a;
+import static tests.TestHelper.assertSameAutomaton;
+import static tests.TestHelper.chainRules;
+import static tests.TestHelper.onSmallStack;
+import static tests.TestHelper.poststar;
+import static tests.TestHelper.t;
+import static tests.TestHelper.twoCallRules;
+import static tests.TestHelper.w;
+import static tests.TestHelper.waccepts;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+import tests.TestHelper.Abstraction;
+import tests.TestHelper.StackSymbol;
+import wpds.impl.Transition;
+import wpds.impl.WeightedPAutomaton;
+import wpds.interfaces.WPAStateListener;
+import wpds.interfaces.WPAUpdateListener;
+
+public class DeferredDispatchTests {
+
+    @Test
+    public void sameFixedPoint() {
+        WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> direct = poststar(twoCallRules(),
+                automaton(1, "a", false));
+        WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> deferred = poststar(twoCallRules(),
+                automaton(1, "a", true));
+        assertSameAutomaton(direct, deferred);
+        assertEquals(w(35), deferred.getWeightFor(t(4, "h", ACC)));
+        assertEquals(0, direct.getMaxDispatchQueueSize());
+        assertTrue(deferred.getMaxDispatchQueueSize() > 0);
+    }
+
+    @Test
+    public void longChainWithSmallStack() throws InterruptedException {
+        final int length = 50000;
+        NumWeight weight = onSmallStack(new Callable<NumWeight>() {
+            @Override
+            public NumWeight call() {
+                return poststar(chainRules(length), automaton(0, "n", true)).getWeightFor(t(length, "n", ACC));
+            }
+        });
+        assertEquals(w(length), weight);
+    }
+
+    @Test
+    public void replayTargetsOnlyNewListener() {
+        final WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> fa = waccepts(1, "a", w(0));
+        fa.setDeferredDispatch(true);
+        fa.addWeightForTransition(t(2, "b", ACC), w(1));
+        final List<Transition<StackSymbol, Abstraction>> first = Lists.newArrayList();
+        final List<Transition<StackSymbol, Abstraction>> second = Lists.newArrayList();
+        final WPAUpdateListener<StackSymbol, Abstraction, NumWeight> secondListener = new WPAUpdateListener<StackSymbol, Abstraction, NumWeight>() {
+
+            @Override
+            public void onWeightAdded(Transition<StackSymbol, Abstraction> t, NumWeight w,
+                    WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> aut) {
+                second.add(t);
+            }
+        };
+        fa.registerListener(new WPAUpdateListener<StackSymbol, Abstraction, NumWeight>() {
+
+            @Override
+            public void onWeightAdded(Transition<StackSymbol, Abstraction> t, NumWeight w,
+                    WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> aut) {
+                first.add(t);
+                if (first.size() == 1) {
+                    aut.registerListener(secondListener);
+                    // The replay is queued behind the running dispatch instead of recursing into the new listener.
+                    assertTrue(second.isEmpty());
+                }
+            }
+        });
+        assertEquals(2, first.size());
+        assertEquals(new HashSet<>(first), new HashSet<>(second));
+        assertEquals(2, second.size());
+    }
+
+    @Test
+    public void replayToStateListener() {
+        WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> fa = waccepts(1, "a", w(0));
+        fa.setDeferredDispatch(true);
+        fa.addWeightForTransition(t(2, "b", 1), w(1));
+        fa.addWeightForTransition(t(1, "c", 1), w(2));
+        final List<Transition<StackSymbol, Abstraction>> out = Lists.newArrayList();
+        final List<Transition<StackSymbol, Abstraction>> in = Lists.newArrayList();
+        fa.registerListener(new WPAStateListener<StackSymbol, Abstraction, NumWeight>(a(1)) {
+
+            @Override
+            public void onOutTransitionAdded(Transition<StackSymbol, Abstraction> t, NumWeight w,
+                    WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> weightedPAutomaton) {
+                out.add(t);
+            }
+
+            @Override
+            public void onInTransitionAdded(Transition<StackSymbol, Abstraction> t, NumWeight w,
+                    WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> weightedPAutomaton) {
+                in.add(t);
+            }
+        });
+        assertEquals(new HashSet<>(Lists.newArrayList(t(1, "a", ACC), t(1, "c", 1))), new HashSet<>(out));
+        assertEquals(new HashSet<>(Lists.newArrayList(t(2, "b", 1), t(1, "c", 1))), new HashSet<>(in));
+        assertEquals(2, out.size());
+        assertEquals(2, in.size());
+    }
+
+    private static WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> automaton(int state, String label,
+            boolean deferredDispatch) {
+        WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> fa = waccepts(state, label, w(0));
+        fa.setDeferredDispatch(deferredDispatch);
+        return fa;
+    }
+}
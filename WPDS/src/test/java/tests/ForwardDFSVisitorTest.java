@@ -22,6 +22,9 @@ import static tests.TestHelper.s;
 import static tests.TestHelper.t;
 
 import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Random;
 import java.util.Set;
 
 import org.junit.Assert;
@@ -29,6 +32,8 @@ import org.junit.Before;
 import org.junit.Test;
 
 import com.google.common.base.Joiner;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 import tests.TestHelper.Abstraction;
@@ -116,6 +121,31 @@ public class ForwardDFSVisitorTest {
         Assert.assertTrue(reachableMinusTrans().isEmpty());
     }
 
+    @Test
+    public void cyclesMatchTransitiveClosure() {
+        Random rand = new Random(42);
+        Map<Integer, Set<Transition<StackSymbol, Abstraction>>> reported = Maps.newHashMap();
+        for (int i = 0; i < 400; i++) {
+            fa.addTransition(t(rand.nextInt(60), "n" + rand.nextInt(2), rand.nextInt(60)));
+            if (i % 20 == 0) {
+                int source = rand.nextInt(60);
+                if (!reported.containsKey(source)) {
+                    final Set<Transition<StackSymbol, Abstraction>> res = Sets.newHashSet();
+                    reported.put(source, res);
+                    fa.registerDFSListener(a(source), new ReachabilityListener<StackSymbol, Abstraction>() {
+                        @Override
+                        public void reachable(Transition<StackSymbol, Abstraction> t) {
+                            res.add(t);
+                        }
+                    });
+                }
+            }
+            for (Integer source : reported.keySet()) {
+                assertSetEquals(outOfReachable(a(source)), reported.get(source));
+            }
+        }
+    }
+
     private PushdownSystem<StackSymbol, Abstraction> pds;
 
     @Before
@@ -223,6 +253,21 @@ public class ForwardDFSVisitorTest {
         return reachable;
     }
 
+    private Set<Transition<StackSymbol, Abstraction>> outOfReachable(Abstraction source) {
+        Set<Transition<StackSymbol, Abstraction>> res = Sets.newHashSet();
+        Set<Abstraction> visited = Sets.newHashSet(source);
+        LinkedList<Abstraction> worklist = Lists.newLinkedList(visited);
+        while (!worklist.isEmpty()) {
+            Abstraction curr = worklist.poll();
+            for (Transition<StackSymbol, Abstraction> t : fa.getTransitionsOutOf(curr)) {
+                res.add(t);
+                if (visited.add(t.getTarget()))
+                    worklist.add(t.getTarget());
+            }
+        }
+        return res;
+    }
+
     private Set<Transition<StackSymbol, Abstraction>> reachableMinusTrans() {
         HashSet<Transition<StackSymbol, Abstraction>> res = Sets.newHashSet(fa.getTransitions());
         res.removeAll(reachables);
@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static tests.TestHelper.ACC;
+import static tests.TestHelper.a;
+import static tests.TestHelper.assertSameAutomaton;
+import static tests.TestHelper.poststar;
+import static tests.TestHelper.t;
+import static tests.TestHelper.twoCallRules;
+import static tests.TestHelper.w;
+import static tests.TestHelper.waccepts;
+
+import java.util.Collection;
+
+import org.junit.Test;
+
+import tests.TestHelper.Abstraction;
+import tests.TestHelper.StackSymbol;
+import wpds.impl.HashTransitionStore;
+import wpds.impl.IntTransitionStore;
+import wpds.impl.Transition;
+import wpds.impl.TransitionStore;
+import wpds.impl.WeightedPAutomaton;
+
+public class IntTransitionStoreTests {
+
+    @Test
+    public void storeSemantics() {
+        IntTransitionStore<StackSymbol, Abstraction, NumWeight> store = new IntTransitionStore<>();
+        assertTrue(store.add(t(1, "a", 2)));
+        assertTrue(store.add(t(1, "b", 2)));
+        assertTrue(store.add(t(2, "a", 1)));
+        assertFalse(store.add(t(1, "a", 2)));
+        assertEquals(3, store.size());
+        assertTrue(store.contains(t(1, "b", 2)));
+        assertFalse(store.contains(t(2, "b", 1)));
+        assertFalse(store.contains(t(3, "a", 1)));
+        assertEquals(null, store.getWeight(t(1, "a", 2)));
+        store.putWeight(t(1, "a", 2), w(4));
+        assertEquals(w(4), store.getWeight(t(1, "a", 2)));
+        assertEquals(2, store.getTransitionsOutOf(a(1)).size());
+        assertEquals(1, store.getTransitionsInto(a(1)).size());
+        assertEquals(0, store.getTransitionsInto(a(3)).size());
+        assertEquals(2, store.getStates().size());
+    }
+
+    @Test
+    public void manyTransitions() {
+        IntTransitionStore<StackSymbol, Abstraction, NumWeight> store = new IntTransitionStore<>();
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(store.add(t(i, "a", i + 1)));
+            store.putWeight(t(i, "a", i + 1), w(i));
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertFalse(store.add(t(i, "a", i + 1)));
+            assertEquals(w(i), store.getWeight(t(i, "a", i + 1)));
+        }
+        assertEquals(1000, store.size());
+        assertEquals(1001, store.getStates().size());
+    }
+
+    @Test
+    public void viewsReturnAddedTransitions() {
+        IntTransitionStore<StackSymbol, Abstraction, NumWeight> store = new IntTransitionStore<>();
+        Transition<StackSymbol, Abstraction> first = t(1, "a", 2);
+        store.add(first);
+        Collection<Transition<StackSymbol, Abstraction>> outOf = store.getTransitionsOutOf(a(1));
+        Collection<Transition<StackSymbol, Abstraction>> all = store.getTransitions();
+        for (int i = 0; i < 100; i++) {
+            store.add(t(1, "b" + i, 2));
+        }
+        assertEquals(1, outOf.size());
+        assertEquals(1, all.size());
+        assertEquals(first, outOf.iterator().next());
+        assertEquals(first, store.getTransitions().iterator().next());
+        assertEquals(101, store.getTransitionsOutOf(a(1)).size());
+        assertEquals(101, store.getTransitionsInto(a(2)).size());
+    }
+
+    @Test
+    public void poststarMatchesHashStore() {
+        WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> hashAut = twoCall(
+                new HashTransitionStore<StackSymbol, Abstraction, NumWeight>());
+        WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> intAut = twoCall(
+                new IntTransitionStore<StackSymbol, Abstraction, NumWeight>());
+        assertSameAutomaton(hashAut, intAut);
+        assertEquals(hashAut.getStates(), intAut.getStates());
+        assertEquals(w(35), intAut.getWeightFor(t(4, "h", ACC)));
+    }
+
+    private static WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> twoCall(
+            TransitionStore<StackSymbol, Abstraction, NumWeight> store) {
+        return poststar(twoCallRules(), waccepts(1, "a", w(0), store));
+    }
+}
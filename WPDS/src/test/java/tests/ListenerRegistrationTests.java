@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static tests.TestHelper.ACC;
+import static tests.TestHelper.a;
+import static tests.TestHelper.t;
+import static tests.TestHelper.w;
+import static tests.TestHelper.waccepts;
+import static tests.TestHelper.wnormal;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.common.base.Predicates;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import tests.TestHelper.Abstraction;
+import tests.TestHelper.StackSymbol;
+import wpds.impl.Rule;
+import wpds.impl.Transition;
+import wpds.impl.WeightedPAutomaton;
+import wpds.impl.WeightedPushdownSystem;
+import wpds.interfaces.WPAStateListener;
+import wpds.interfaces.WPAUpdateListener;
+import wpds.interfaces.WPDSUpdateListener;
+
+public class ListenerRegistrationTests {
+
+    @Test
+    public void stateListenerRegisteredDuringDispatch() {
+        WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> fa = waccepts(1, "a", w(1));
+        final List<Transition<StackSymbol, Abstraction>> seen = Lists.newArrayList();
+        final WPAStateListener<StackSymbol, Abstraction, NumWeight> recording = new RecordingListener(a(1), seen);
+        fa.registerListener(new WPAStateListener<StackSymbol, Abstraction, NumWeight>(a(1)) {
+            @Override
+            public void onOutTransitionAdded(Transition<StackSymbol, Abstraction> t, NumWeight w,
+                    WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> aut) {
+                aut.registerListener(recording);
+            }
+
+            @Override
+            public void onInTransitionAdded(Transition<StackSymbol, Abstraction> t, NumWeight w,
+                    WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> aut) {
+            }
+        });
+        fa.addWeightForTransition(t(1, "b", ACC), w(1));
+        fa.addWeightForTransition(t(1, "c", ACC), w(1));
+        assertEquals(Lists.newArrayList(t(1, "a", ACC), t(1, "b", ACC), t(1, "c", ACC)), seen);
+    }
+
+    @Test
+    public void ruleListenerRegisteredDuringDispatch() {
+        final WeightedPushdownSystem<StackSymbol, Abstraction, NumWeight> pds = new WeightedPushdownSystem<>();
+        final List<Rule<StackSymbol, Abstraction, NumWeight>> seen = Lists.newArrayList();
+        pds.registerUpdateListener(new WPDSUpdateListener<StackSymbol, Abstraction, NumWeight>() {
+            @Override
+            public void onRuleAdded(Rule<StackSymbol, Abstraction, NumWeight> rule) {
+                pds.registerUpdateListener(new WPDSUpdateListener<StackSymbol, Abstraction, NumWeight>() {
+                    @Override
+                    public void onRuleAdded(Rule<StackSymbol, Abstraction, NumWeight> rule) {
+                        seen.add(rule);
+                    }
+                });
+            }
+        });
+        pds.addRule(wnormal(1, "a", 1, "b", w(1)));
+        pds.addRule(wnormal(1, "b", 1, "c", w(1)));
+        // One listener per added rule, each is replayed the rules added so far and then sees only the later rules.
+        assertEquals(4, seen.size());
+    }
+
+    @Test
+    public void unregisteredListenersAreNotNotified() {
+        WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> fa = waccepts(1, "a", w(1));
+        final List<Transition<StackSymbol, Abstraction>> seen = Lists.newArrayList();
+        final List<Transition<StackSymbol, Abstraction>> kept = Lists.newArrayList();
+        final RecordingListener removed = new RecordingListener(a(1), seen);
+        fa.registerListener(removed);
+        fa.registerListener(new WPAUpdateListener<StackSymbol, Abstraction, NumWeight>() {
+            @Override
+            public void onWeightAdded(Transition<StackSymbol, Abstraction> t, NumWeight w,
+                    WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> aut) {
+                kept.add(t);
+            }
+        });
+        fa.unregisterListeners(Predicates.<Object> equalTo(removed));
+        fa.addWeightForTransition(t(1, "b", ACC), w(1));
+        assertEquals(Lists.newArrayList(t(1, "a", ACC)), seen);
+        assertEquals(Lists.newArrayList(t(1, "a", ACC), t(1, "b", ACC)), kept);
+
+        // A removed listener can be registered again and is replayed all transitions
+        fa.registerListener(removed);
+        assertEquals(3, seen.size());
+        assertEquals(Sets.newHashSet(t(1, "a", ACC), t(1, "b", ACC)), Sets.newHashSet(seen.subList(1, 3)));
+    }
+
+    @Test
+    public void unregisterListenersFromNestedAutomata() {
+        WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> fa = waccepts(1, "a", w(1));
+        WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> nested = waccepts(2, "a", w(1));
+        final List<Transition<StackSymbol, Abstraction>> seen = Lists.newArrayList();
+        final RecordingListener listener = new RecordingListener(a(2), seen);
+        fa.addNestedAutomaton(nested);
+        fa.registerListener(listener);
+        fa.unregisterListeners(Predicates.instanceOf(RecordingListener.class));
+        nested.addWeightForTransition(t(2, "b", ACC), w(1));
+        assertEquals(Lists.newArrayList(t(2, "a", ACC)), seen);
+    }
+
+    private static class RecordingListener extends WPAStateListener<StackSymbol, Abstraction, NumWeight> {
+        private final List<Transition<StackSymbol, Abstraction>> seen;
+
+        RecordingListener(Abstraction state, List<Transition<StackSymbol, Abstraction>> seen) {
+            super(state);
+            this.seen = seen;
+        }
+
+        @Override
+        public void onOutTransitionAdded(Transition<StackSymbol, Abstraction> t, NumWeight w,
+                WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> aut) {
+            seen.add(t);
+        }
+
+        @Override
+        public void onInTransitionAdded(Transition<StackSymbol, Abstraction> t, NumWeight w,
+                WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> aut) {
+        }
+    }
+}
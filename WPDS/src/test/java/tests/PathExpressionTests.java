@@ -0,0 +1,57 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static tests.TestHelper.ACC;
+import static tests.TestHelper.a;
+import static tests.TestHelper.s;
+import static tests.TestHelper.t;
+import static tests.TestHelper.waccepts;
+
+import org.junit.Test;
+
+import pathexpression.IRegEx;
+import pathexpression.RegEx;
+import tests.TestHelper.Abstraction;
+import tests.TestHelper.StackSymbol;
+import wpds.impl.WeightedPAutomaton;
+
+public class PathExpressionTests {
+
+    @Test
+    public void singleTransition() {
+        WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> aut = waccepts(1, "a", NumWeight.one());
+        IRegEx<StackSymbol> a = new RegEx.Plain<StackSymbol>(s("a"));
+        assertEquals(a, aut.extractLanguage(ACC, a(1)));
+        assertEquals(a, aut.toRegEx(a(1), ACC));
+    }
+
+    @Test
+    public void transitionBetweenKnownStates() {
+        WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> aut = waccepts(1, "a", NumWeight.one());
+        IRegEx<StackSymbol> a = new RegEx.Plain<StackSymbol>(s("a"));
+        assertEquals(a, aut.toRegEx(a(1), ACC));
+        aut.addTransition(t(1, "b", ACC));
+        assertFalse(a.equals(aut.toRegEx(a(1), ACC)));
+        assertFalse(a.equals(aut.extractLanguage(ACC, a(1))));
+    }
+
+    @Test
+    public void unconnectedStates() {
+        WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> aut = waccepts(1, "a", NumWeight.one());
+        aut.addTransition(t(2, "b", a(3)));
+        assertEquals(new RegEx.EmptySet<StackSymbol>(), aut.extractLanguage(a(2), ACC));
+        assertEquals(new RegEx.EmptySet<StackSymbol>(), aut.extractLanguage(a(2)));
+    }
+}
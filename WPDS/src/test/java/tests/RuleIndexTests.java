@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static tests.TestHelper.a;
+import static tests.TestHelper.s;
+
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import tests.TestHelper.Abstraction;
+import tests.TestHelper.StackSymbol;
+import wpds.impl.NormalRule;
+import wpds.impl.PopRule;
+import wpds.impl.PushRule;
+import wpds.impl.Rule;
+import wpds.impl.WeightedPushdownSystem;
+import wpds.wildcard.Wildcard;
+
+public class RuleIndexTests {
+    private static final StackSymbol ANY = new AnySymbol();
+
+    private WeightedPushdownSystem<StackSymbol, Abstraction, NumWeight> pds;
+
+    @Before
+    public void init() {
+        pds = new WeightedPushdownSystem<StackSymbol, Abstraction, NumWeight>();
+    }
+
+    @Test
+    public void rulesStarting() {
+        NormalRule<StackSymbol, Abstraction, NumWeight> n = normal(1, s("a"), 2, s("b"));
+        NormalRule<StackSymbol, Abstraction, NumWeight> wildcard = normal(1, ANY, 3, ANY);
+        PushRule<StackSymbol, Abstraction, NumWeight> push = push(1, s("b"), 2, s("c"), s("d"));
+        PopRule<StackSymbol, Abstraction, NumWeight> pop = new PopRule<>(a(2), s("a"), a(1), NumWeight.one());
+        pds.addRule(n);
+        pds.addRule(wildcard);
+        pds.addRule(push);
+        pds.addRule(pop);
+
+        Set<Rule<StackSymbol, Abstraction, NumWeight>> startingA = pds.getRulesStarting(a(1), s("a"));
+        assertEquals(2, startingA.size());
+        assertTrue(startingA.contains(n));
+        assertTrue(startingA.contains(wildcard));
+
+        assertEquals(1, pds.getRulesStarting(a(1), s("x")).size());
+        assertEquals(3, pds.getRulesStarting(a(1), ANY).size());
+        assertEquals(1, pds.getRulesStarting(a(2), s("a")).size());
+        assertEquals(0, pds.getRulesStarting(a(3), s("a")).size());
+    }
+
+    @Test
+    public void rulesEnding() {
+        NormalRule<StackSymbol, Abstraction, NumWeight> n1 = normal(1, s("a"), 2, s("b"));
+        NormalRule<StackSymbol, Abstraction, NumWeight> n2 = normal(3, s("c"), 2, s("b"));
+        PushRule<StackSymbol, Abstraction, NumWeight> push = push(1, s("b"), 2, s("b"), s("d"));
+        pds.addRule(n1);
+        pds.addRule(n2);
+        pds.addRule(push);
+        pds.addRule(normal(1, s("a"), 2, s("c")));
+
+        assertEquals(2, pds.getNormalRulesEnding(a(2), s("b")).size());
+        assertEquals(0, pds.getNormalRulesEnding(a(1), s("b")).size());
+        assertEquals(1, pds.getPushRulesEnding(a(2), s("b")).size());
+        assertEquals(0, pds.getPushRulesEnding(a(2), s("c")).size());
+    }
+
+    @Test
+    public void pushRulesWithCallSite() {
+        PushRule<StackSymbol, Abstraction, NumWeight> push = push(1, s("b"), 2, s("c"), s("d"));
+        PushRule<StackSymbol, Abstraction, NumWeight> wildcard = push(1, s("b"), 2, s("c"), ANY);
+        pds.addRule(push);
+        pds.addRule(wildcard);
+
+        assertEquals(2, pds.getPushRulesWithCallSite(s("d")).size());
+        assertEquals(1, pds.getPushRulesWithCallSite(s("e")).size());
+        assertTrue(pds.getPushRulesWithCallSite(s("e")).contains(wildcard));
+    }
+
+    private static NormalRule<StackSymbol, Abstraction, NumWeight> normal(int a, StackSymbol n, int b,
+            StackSymbol m) {
+        return new NormalRule<StackSymbol, Abstraction, NumWeight>(a(a), n, a(b), m, NumWeight.one());
+    }
+
+    private static PushRule<StackSymbol, Abstraction, NumWeight> push(int a, StackSymbol n, int b, StackSymbol m,
+            StackSymbol callSite) {
+        return new PushRule<StackSymbol, Abstraction, NumWeight>(a(a), n, a(b), m, callSite, NumWeight.one());
+    }
+
+    private static class AnySymbol extends StackSymbol implements Wildcard {
+        AnySymbol() {
+            super("*");
+        }
+    }
+}
@@ -11,15 +11,28 @@
  *******************************************************************************/
 package tests;
 
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.google.common.collect.Lists;
+
+import wpds.impl.HashTransitionStore;
 import wpds.impl.NormalRule;
 import wpds.impl.PAutomaton;
 import wpds.impl.PopRule;
 import wpds.impl.PushRule;
+import wpds.impl.Rule;
 import wpds.impl.Transition;
+import wpds.impl.TransitionStore;
 import wpds.impl.UNormalRule;
 import wpds.impl.UPopRule;
 import wpds.impl.UPushRule;
 import wpds.impl.WeightedPAutomaton;
+import wpds.impl.WeightedPushdownSystem;
 import wpds.interfaces.Location;
 import wpds.interfaces.State;
 
@@ -50,8 +63,13 @@ public class TestHelper {
     }
 
     static WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> waccepts(int a, String c, NumWeight weight) {
+        return waccepts(a, c, weight, new HashTransitionStore<StackSymbol, Abstraction, NumWeight>());
+    }
+
+    static WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> waccepts(int a, String c, NumWeight weight,
+            TransitionStore<StackSymbol, Abstraction, NumWeight> store) {
         WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> aut = new WeightedPAutomaton<StackSymbol, Abstraction, NumWeight>(
-                a(a)) {
+                a(a), store) {
 
             @Override
             public Abstraction createState(Abstraction d, StackSymbol loc) {
@@ -70,7 +88,7 @@ public class TestHelper {
 
             @Override
             public NumWeight getZero() {
-                return getZero();
+                return NumWeight.zero();
             }
 
             @Override
@@ -84,6 +102,72 @@ public class TestHelper {
         return aut;
     }
 
+    static NumWeight w(int i) {
+        return new NumWeight(i);
+    }
+
+    /**
+     * Rules of a procedure called from two call sites, post* from (1, a) with weight 0 reaches (4, h) with weight 35.
+     */
+    static List<Rule<StackSymbol, Abstraction, NumWeight>> twoCallRules() {
+        return Lists.<Rule<StackSymbol, Abstraction, NumWeight>> newArrayList(wnormal(1, "a", 1, "b", w(1)),
+                wpush(1, "b", 2, "call", "d", w(2)), wnormal(2, "call", 2, "e", w(3)), wpop(2, "e", 3, w(4)),
+                wnormal(3, "d", 1, "f", w(5)), wpush(1, "f", 2, "call", "g", w(6)), wnormal(3, "g", 4, "h", w(7)));
+    }
+
+    /**
+     * A chain of normal rules from (0, n) to (length, n), each with weight 1.
+     */
+    static List<Rule<StackSymbol, Abstraction, NumWeight>> chainRules(int length) {
+        List<Rule<StackSymbol, Abstraction, NumWeight>> rules = Lists.newArrayList();
+        for (int i = 0; i < length; i++) {
+            rules.add(wnormal(i, "n", i + 1, "n", w(1)));
+        }
+        return rules;
+    }
+
+    /**
+     * Runs the computation on a thread with a stack of 1 MB, which a solver recursing once per rule of a long chain
+     * overflows.
+     */
+    static <T> T onSmallStack(final Callable<T> computation) throws InterruptedException {
+        final AtomicReference<T> result = new AtomicReference<>();
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        Thread thread = new Thread(null, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    result.set(computation.call());
+                } catch (Throwable e) {
+                    error.set(e);
+                }
+            }
+        }, "poststar", 1 << 20);
+        thread.start();
+        thread.join();
+        assertEquals(null, error.get());
+        return result.get();
+    }
+
+    static WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> poststar(
+            List<Rule<StackSymbol, Abstraction, NumWeight>> rules,
+            WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> fa) {
+        WeightedPushdownSystem<StackSymbol, Abstraction, NumWeight> pds = new WeightedPushdownSystem<>();
+        for (Rule<StackSymbol, Abstraction, NumWeight> r : rules) {
+            pds.addRule(r);
+        }
+        pds.poststar(fa);
+        return fa;
+    }
+
+    static void assertSameAutomaton(WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> expected,
+            WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> actual) {
+        assertEquals(new HashSet<>(expected.getTransitions()), new HashSet<>(actual.getTransitions()));
+        for (Transition<StackSymbol, Abstraction> t : expected.getTransitions()) {
+            assertEquals(expected.getWeightFor(t), actual.getWeightFor(t));
+        }
+    }
+
     static Abstraction a(int a) {
         return new Abstraction(a);
     }
@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static tests.TestHelper.ACC;
+import static tests.TestHelper.a;
+import static tests.TestHelper.poststar;
+import static tests.TestHelper.t;
+import static tests.TestHelper.twoCallRules;
+import static tests.TestHelper.w;
+import static tests.TestHelper.waccepts;
+
+import java.util.HashSet;
+
+import org.junit.Test;
+
+import tests.TestHelper.Abstraction;
+import tests.TestHelper.StackSymbol;
+import wpds.impl.Transition;
+import wpds.impl.WeightInterner;
+import wpds.impl.WeightedPAutomaton;
+
+public class WeightInternerTests {
+
+    @Test
+    public void equalWeightsAreIdentical() {
+        WeightInterner<NumWeight> interner = new WeightInterner<>();
+        NumWeight first = interner.intern(w(3));
+        assertSame(first, interner.intern(w(3)));
+        assertSame(first, interner.extend(interner.intern(w(1)), interner.intern(w(2))));
+        assertSame(first, interner.combine(first, interner.intern(w(3))));
+    }
+
+    @Test
+    public void cachedResults() {
+        WeightInterner<NumWeight> interner = new WeightInterner<>();
+        NumWeight one = interner.intern(w(1));
+        NumWeight two = interner.intern(w(2));
+        NumWeight result = interner.extend(one, two);
+        assertSame(result, interner.extend(one, two));
+        assertEquals(w(3), result);
+        assertSame(NumWeight.zero(), interner.combine(one, two));
+    }
+
+    @Test
+    public void poststarWithInterner() {
+        WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> plain = twoCall(null);
+        WeightInterner<NumWeight> interner = new WeightInterner<>();
+        WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> interned = twoCall(interner);
+        assertEquals(new HashSet<>(plain.getTransitions()), new HashSet<>(interned.getTransitions()));
+        for (Transition<StackSymbol, Abstraction> t : plain.getTransitions()) {
+            assertEquals(plain.getWeightFor(t), interned.getWeightFor(t));
+            assertSame(interner.intern(plain.getWeightFor(t)), interned.getWeightFor(t));
+        }
+    }
+
+    @Test
+    public void nestedAutomatonInheritsInterner() {
+        WeightInterner<NumWeight> interner = new WeightInterner<>();
+        WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> fa = waccepts(1, "a", w(0));
+        WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> before = fa.createNestedAutomaton(a(2));
+        before.addWeightForTransition(t(2, "b", 3), w(4));
+        fa.setWeightInterner(interner);
+        WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> after = fa.createNestedAutomaton(a(4));
+        after.addWeightForTransition(t(4, "c", 5), w(4));
+        assertSame(interner, before.getWeightInterner());
+        assertSame(interner, after.getWeightInterner());
+        assertSame(interner.intern(w(4)), before.getWeightFor(t(2, "b", 3)));
+        assertSame(interner.intern(w(4)), after.getWeightFor(t(4, "c", 5)));
+    }
+
+    private static WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> twoCall(WeightInterner<NumWeight> interner) {
+        WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> fa = waccepts(1, "a", w(0));
+        fa.setWeightInterner(interner);
+        poststar(twoCallRules(), fa);
+        assertEquals(w(35), fa.getWeightFor(t(4, "h", ACC)));
+        return fa;
+    }
+}
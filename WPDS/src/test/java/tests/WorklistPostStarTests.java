@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static tests.TestHelper.ACC;
+import static tests.TestHelper.accepts;
+import static tests.TestHelper.assertSameAutomaton;
+import static tests.TestHelper.chainRules;
+import static tests.TestHelper.normal;
+import static tests.TestHelper.onSmallStack;
+import static tests.TestHelper.pop;
+import static tests.TestHelper.poststar;
+import static tests.TestHelper.push;
+import static tests.TestHelper.t;
+import static tests.TestHelper.twoCallRules;
+import static tests.TestHelper.w;
+import static tests.TestHelper.waccepts;
+import static tests.TestHelper.wnormal;
+import static tests.TestHelper.wpop;
+import static tests.TestHelper.wpush;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+import tests.TestHelper.Abstraction;
+import tests.TestHelper.StackSymbol;
+import wpds.impl.PAutomaton;
+import wpds.impl.PushdownSystem;
+import wpds.impl.Rule;
+import wpds.impl.Weight.NoWeight;
+import wpds.impl.WeightedPAutomaton;
+import wpds.impl.WeightedPushdownSystem;
+import wpds.impl.WorklistPostStar;
+
+public class WorklistPostStarTests {
+
+    @Test
+    public void pushAndPop() {
+        assertMatchesClassic(Lists.newArrayList(wnormal(1, "a", 2, "b", w(1)), wpush(2, "b", 3, "c", "d", w(2)),
+                wnormal(3, "c", 4, "e", w(1)), wpop(4, "e", 5, w(1)), wnormal(5, "d", 2, "f", w(10))));
+    }
+
+    @Test
+    public void twoCall() {
+        assertMatchesClassic(twoCallRules());
+    }
+
+    @Test
+    public void recursion() {
+        assertMatchesClassic(Lists.newArrayList(wnormal(1, "a", 1, "b", w(1)), wnormal(1, "b", 1, "c", w(1)),
+                wpush(1, "c", 1, "d", "e", w(1)), wnormal(1, "d", 1, "f", w(2)), wpush(1, "f", 1, "d", "h", w(1)),
+                wpop(1, "d", 1, w(3)), wnormal(1, "e", 1, "k", w(1))));
+    }
+
+    @Test
+    public void unweightedPaperExample() {
+        List<Rule<StackSymbol, Abstraction, NoWeight>> rules = Lists.newArrayList(normal(1, "n1", 1, "n2"),
+                normal(1, "n1", 1, "n3"), push(1, "n2", 1, "n7", "n4"), push(1, "n3", 1, "n7", "n5"),
+                normal(1, "n4", 1, "n6"), normal(1, "n5", 1, "n6"), normal(1, "n7", 1, "n8"), pop(1, "n8", 1));
+        PushdownSystem<StackSymbol, Abstraction> classicPds = new PushdownSystem<StackSymbol, Abstraction>() {
+        };
+        PushdownSystem<StackSymbol, Abstraction> worklistPds = new PushdownSystem<StackSymbol, Abstraction>() {
+        };
+        for (Rule<StackSymbol, Abstraction, NoWeight> r : rules) {
+            classicPds.addRule(r);
+            worklistPds.addRule(r);
+        }
+        PAutomaton<StackSymbol, Abstraction> classic = accepts(1, "n1");
+        classicPds.poststar(classic);
+        PAutomaton<StackSymbol, Abstraction> worklist = accepts(1, "n1");
+        new WorklistPostStar<StackSymbol, Abstraction, NoWeight>().poststar(worklistPds, worklist);
+        assertEquals(new HashSet<>(classic.getTransitions()), new HashSet<>(worklist.getTransitions()));
+    }
+
+    @Test
+    public void incremental() {
+        List<Rule<StackSymbol, Abstraction, NumWeight>> rules = twoCallRules();
+        WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> classic = poststar(rules, waccepts(1, "a", w(0)));
+
+        WeightedPushdownSystem<StackSymbol, Abstraction, NumWeight> pds = new WeightedPushdownSystem<>();
+        WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> worklist = waccepts(1, "a", w(0));
+        new WorklistPostStar<StackSymbol, Abstraction, NumWeight>().poststar(pds, worklist);
+        for (Rule<StackSymbol, Abstraction, NumWeight> r : Lists.reverse(rules)) {
+            pds.addRule(r);
+        }
+        assertSameAutomaton(classic, worklist);
+    }
+
+    @Test
+    public void longChainWithSmallStack() throws InterruptedException {
+        final int length = 50000;
+        NumWeight weight = onSmallStack(new Callable<NumWeight>() {
+            @Override
+            public NumWeight call() {
+                return worklist(chainRules(length), 0, "n").getWeightFor(t(length, "n", ACC));
+            }
+        });
+        assertEquals(w(length), weight);
+    }
+
+    private static void assertMatchesClassic(List<Rule<StackSymbol, Abstraction, NumWeight>> rules) {
+        assertSameAutomaton(poststar(rules, waccepts(1, "a", w(0))), worklist(rules, 1, "a"));
+    }
+
+    private static WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> worklist(
+            List<Rule<StackSymbol, Abstraction, NumWeight>> rules, int state, String label) {
+        WeightedPushdownSystem<StackSymbol, Abstraction, NumWeight> pds = new WeightedPushdownSystem<>();
+        for (Rule<StackSymbol, Abstraction, NumWeight> r : rules) {
+            pds.addRule(r);
+        }
+        WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> fa = waccepts(state, label, w(0));
+        new WorklistPostStar<StackSymbol, Abstraction, NumWeight>().poststar(pds, fa);
+        return fa;
+    }
+}
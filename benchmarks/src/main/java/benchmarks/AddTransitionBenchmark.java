@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.Lists;
+
+import benchmarks.SyntheticProgram.Fact;
+import benchmarks.SyntheticProgram.Stmt;
+import benchmarks.SyntheticProgram.Weights;
+import wpds.impl.Transition;
+import wpds.impl.Weight;
+import wpds.impl.WeightedPAutomaton;
+
+/**
+ * Adds weighted transitions to an automaton without rules involved. Every transition is added twice, the second
+ * addition goes through the combine path of {@link WeightedPAutomaton#addWeightForTransition}.
+ * The transitions form <code>fanOut</code> parallel chains, so that states have several outgoing transitions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class AddTransitionBenchmark {
+
+    @Param({ "1000", "10000" })
+    public int transitions;
+
+    @Param({ "1", "8" })
+    public int fanOut;
+
+    @Param({ "MIN", "NONE" })
+    public String semiring;
+
+    private SyntheticProgram program;
+    private Weights weights;
+    private List<Transition<Stmt, Fact>> added;
+    private Weight first;
+    private Weight second;
+    private WeightedPAutomaton<Stmt, Fact, Weight> automaton;
+
+    @Setup(Level.Trial)
+    public void setupTransitions() {
+        int states = Math.max(1, transitions / fanOut);
+        program = new SyntheticProgram(1, fanOut + 4, states + 1, SyntheticProgram.Shape.CHAIN);
+        weights = SyntheticProgram.weights(semiring);
+        added = Lists.newArrayListWithCapacity(transitions);
+        for (int i = 0; i < transitions; i++) {
+            int state = i / fanOut;
+            added.add(new Transition<Stmt, Fact>(program.fact(state), program.stmt(0, i % fanOut),
+                    program.fact(state + 1)));
+        }
+        first = weights.rule();
+        second = weights.rule().extendWith(weights.rule());
+    }
+
+    @Setup(Level.Invocation)
+    public void setupAutomaton() {
+        automaton = program.createAutomaton(program.fact(0), weights);
+    }
+
+    @Benchmark
+    public WeightedPAutomaton<Stmt, Fact, Weight> addWeightForTransition() {
+        for (int i = 0; i < added.size(); i++) {
+            automaton.addWeightForTransition(added.get(i), first);
+        }
+        for (int i = 0; i < added.size(); i++) {
+            automaton.addWeightForTransition(added.get(i), second);
+        }
+        return automaton;
+    }
+}
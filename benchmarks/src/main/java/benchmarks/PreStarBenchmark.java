@@ -0,0 +1,63 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+import benchmarks.SyntheticProgram.Fact;
+import benchmarks.SyntheticProgram.Stmt;
+import wpds.impl.Weight;
+import wpds.impl.WeightedPAutomaton;
+import wpds.impl.WeightedPushdownSystem;
+
+/**
+ * Saturates the initial automaton of the synthetic program with pre*. Pre* only reads the pushdown system, so it is
+ * shared by all invocations while the automaton is created anew for every invocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xss128m")
+public class PreStarBenchmark extends ProgramBenchmark {
+
+    private SyntheticProgram program;
+    private WeightedPushdownSystem<Stmt, Fact, Weight> pds;
+    private WeightedPAutomaton<Stmt, Fact, Weight> automaton;
+
+    @Setup(Level.Trial)
+    public void setupPDS() {
+        program = program();
+        pds = program.createPDS(weights());
+    }
+
+    @Setup(Level.Invocation)
+    public void setupAutomaton() {
+        automaton = program.createPreStarAutomaton(weights());
+    }
+
+    @Benchmark
+    public WeightedPAutomaton<Stmt, Fact, Weight> prestar() {
+        pds.prestar(automaton);
+        return automaton;
+    }
+}
@@ -0,0 +1,50 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import benchmarks.SyntheticProgram.Shape;
+import benchmarks.SyntheticProgram.Weights;
+
+/**
+ * The parameters of the {@link SyntheticProgram} the benchmarks run on. Override them on the command line, e.g.
+ * <code>-p methods=200 -p shape=CHAIN</code>.
+ */
+@State(Scope.Thread)
+public abstract class ProgramBenchmark {
+
+    @Param({ "10", "50" })
+    public int methods;
+
+    @Param({ "20" })
+    public int statements;
+
+    @Param({ "2" })
+    public int facts;
+
+    @Param({ "CHAIN", "SELF_RECURSIVE", "MUTUAL_RECURSIVE" })
+    public Shape shape;
+
+    @Param({ "MIN", "NONE" })
+    public String semiring;
+
+    protected SyntheticProgram program() {
+        return new SyntheticProgram(methods, statements, facts, shape);
+    }
+
+    protected Weights weights() {
+        return SyntheticProgram.weights(semiring);
+    }
+}
@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package benchmarks;
+
+import wpds.impl.Weight;
+
+/**
+ * The length of the shortest path, extend adds and combine takes the minimum. Zero is the infinite length.
+ */
+public class ShortestPathWeight extends Weight {
+    private static final ShortestPathWeight ONE = new ShortestPathWeight(0);
+    private static final ShortestPathWeight ZERO = new ShortestPathWeight(Integer.MAX_VALUE);
+
+    private final int length;
+
+    public ShortestPathWeight(int length) {
+        this.length = length;
+    }
+
+    public static ShortestPathWeight one() {
+        return ONE;
+    }
+
+    public static ShortestPathWeight zero() {
+        return ZERO;
+    }
+
+    @Override
+    public Weight extendWith(Weight other) {
+        ShortestPathWeight o = (ShortestPathWeight) other;
+        if (this == ZERO || o == ZERO)
+            return ZERO;
+        return new ShortestPathWeight(length + o.length);
+    }
+
+    @Override
+    public Weight combineWith(Weight other) {
+        ShortestPathWeight o = (ShortestPathWeight) other;
+        return length <= o.length ? this : o;
+    }
+
+    @Override
+    public String toString() {
+        return this == ZERO ? "<ZERO>" : Integer.toString(length);
+    }
+
+    @Override
+    public int hashCode() {
+        return length;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+        ShortestPathWeight other = (ShortestPathWeight) obj;
+        return length == other.length;
+    }
+}
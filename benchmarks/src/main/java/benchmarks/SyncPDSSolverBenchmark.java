@@ -0,0 +1,243 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+import benchmarks.SyntheticProgram.Fact;
+import benchmarks.SyntheticProgram.Stmt;
+import benchmarks.SyntheticProgram.Weights;
+import sync.pds.solver.OneWeightFunctions;
+import sync.pds.solver.SyncPDSSolver;
+import sync.pds.solver.WeightFunctions;
+import sync.pds.solver.nodes.CallPopNode;
+import sync.pds.solver.nodes.INode;
+import sync.pds.solver.nodes.Node;
+import sync.pds.solver.nodes.NodeWithLocation;
+import sync.pds.solver.nodes.PopNode;
+import sync.pds.solver.nodes.PushNode;
+import sync.pds.solver.nodes.SingleNode;
+import wpds.impl.SummaryNestedWeightedPAutomatons;
+import wpds.impl.Weight;
+import wpds.interfaces.Location;
+import wpds.wildcard.ExclusionWildcard;
+import wpds.wildcard.Wildcard;
+
+/**
+ * Runs a {@link SyncPDSSolver} over the synthetic program. Additionally to the call structure, every method writes its
+ * own field after the entry and reads it again before the exit, so the field automaton grows with the call depth.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xss128m")
+public class SyncPDSSolverBenchmark extends ProgramBenchmark {
+
+    private SyntheticProgram program;
+    private SyncPDSSolver<Stmt, Fact, FieldRef, Weight> solver;
+
+    @Setup(Level.Invocation)
+    public void setup() {
+        program = program();
+        solver = new SyntheticSolver(program, weights());
+    }
+
+    @Benchmark
+    public SyncPDSSolver<Stmt, Fact, FieldRef, Weight> solve() {
+        solver.solve(new Node<Stmt, Fact>(program.entry(0), program.fact(0)));
+        return solver;
+    }
+
+    private static class SyntheticSolver extends SyncPDSSolver<Stmt, Fact, FieldRef, Weight> {
+        private final SyntheticProgram program;
+        private final WeightFunctions<Stmt, Fact, FieldRef, Weight> fieldWeights;
+        private final WeightFunctions<Stmt, Fact, Stmt, Weight> callWeights;
+
+        SyntheticSolver(SyntheticProgram program, Weights weights) {
+            super(new SingleNode<Fact>(program.fact(0)),
+                    new SingleNode<Node<Stmt, Fact>>(new Node<Stmt, Fact>(program.entry(0), program.fact(0))), false,
+                    new SummaryNestedWeightedPAutomatons<Stmt, INode<Fact>, Weight>(), false,
+                    new SummaryNestedWeightedPAutomatons<FieldRef, INode<Node<Stmt, Fact>>, Weight>());
+            this.program = program;
+            this.fieldWeights = new OneWeightFunctions<Stmt, Fact, FieldRef, Weight>(weights.zero(), weights.one());
+            this.callWeights = new OneWeightFunctions<Stmt, Fact, Stmt, Weight>(weights.zero(), weights.one());
+        }
+
+        @Override
+        public void computeSuccessor(Node<Stmt, Fact> node) {
+            Stmt curr = node.stmt();
+            Fact fact = node.fact();
+            if (program.isExit(curr)) {
+                for (Stmt callSite : program.callSitesOf(curr.method())) {
+                    Stmt returnSite = program.stmt(callSite.method(), callSite.index() + 1);
+                    propagate(node, new CallPopNode<Fact, Stmt>(fact, PDSSystem.CALLS, returnSite));
+                }
+                return;
+            }
+            Stmt succ = program.stmt(curr.method(), curr.index() + 1);
+            for (int callee : program.callees(curr)) {
+                propagate(node, new PushNode<Stmt, Fact, Stmt>(program.entry(callee), fact, succ, PDSSystem.CALLS));
+            }
+            FieldRef field = new FieldRef("f" + curr.method());
+            if (curr.index() == 0) {
+                propagate(node, new PushNode<Stmt, Fact, FieldRef>(succ, fact, field, PDSSystem.FIELDS));
+            } else if (curr.index() == program.statements() - 2) {
+                propagate(node, new PopNode<NodeWithLocation<Stmt, Fact, FieldRef>>(
+                        new NodeWithLocation<Stmt, Fact, FieldRef>(succ, fact, field), PDSSystem.FIELDS));
+            } else {
+                propagate(node, new Node<Stmt, Fact>(succ, fact));
+                if (program.callees(curr).isEmpty() && program.facts() > 1) {
+                    propagate(node, new Node<Stmt, Fact>(succ, program.fact((fact.id + 1) % program.facts())));
+                }
+            }
+        }
+
+        @Override
+        public FieldRef epsilonField() {
+            return FieldRef.EPSILON;
+        }
+
+        @Override
+        public FieldRef emptyField() {
+            return FieldRef.EMPTY;
+        }
+
+        @Override
+        public Stmt epsilonStmt() {
+            return SyntheticProgram.EPSILON;
+        }
+
+        @Override
+        public FieldRef exclusionFieldWildCard(FieldRef exclusion) {
+            return new ExclusionWildcardField(exclusion);
+        }
+
+        @Override
+        public FieldRef fieldWildCard() {
+            return FieldWildcard.WILDCARD;
+        }
+
+        @Override
+        protected WeightFunctions<Stmt, Fact, FieldRef, Weight> getFieldWeights() {
+            return fieldWeights;
+        }
+
+        @Override
+        protected WeightFunctions<Stmt, Fact, Stmt, Weight> getCallWeights() {
+            return callWeights;
+        }
+    }
+
+    public static class FieldRef implements Location {
+        static final FieldRef EPSILON = new FieldRef("eps_f");
+        static final FieldRef EMPTY = new FieldRef("EMPTY_F");
+
+        final String name;
+
+        FieldRef(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public int hashCode() {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + ((name == null) ? 0 : name.hashCode());
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (obj == null)
+                return false;
+            if (getClass() != obj.getClass())
+                return false;
+            FieldRef other = (FieldRef) obj;
+            if (name == null) {
+                if (other.name != null)
+                    return false;
+            } else if (!name.equals(other.name))
+                return false;
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private static class FieldWildcard extends FieldRef implements Wildcard {
+        static final FieldWildcard WILDCARD = new FieldWildcard();
+
+        FieldWildcard() {
+            super("*");
+        }
+    }
+
+    private static class ExclusionWildcardField extends FieldRef implements ExclusionWildcard<FieldRef> {
+        private final FieldRef excludes;
+
+        ExclusionWildcardField(FieldRef excludes) {
+            super(excludes.name);
+            this.excludes = excludes;
+        }
+
+        @Override
+        public FieldRef excludes() {
+            return excludes;
+        }
+
+        @Override
+        public int hashCode() {
+            final int prime = 31;
+            int result = super.hashCode();
+            result = prime * result + ((excludes == null) ? 0 : excludes.hashCode());
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!super.equals(obj))
+                return false;
+            if (getClass() != obj.getClass())
+                return false;
+            ExclusionWildcardField other = (ExclusionWildcardField) obj;
+            if (excludes == null) {
+                if (other.excludes != null)
+                    return false;
+            } else if (!excludes.equals(other.excludes))
+                return false;
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return "not " + name;
+        }
+    }
+}
@@ -0,0 +1,369 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package benchmarks;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Multimap;
+
+import wpds.impl.NormalRule;
+import wpds.impl.PopRule;
+import wpds.impl.PushRule;
+import wpds.impl.Transition;
+import wpds.impl.Weight;
+import wpds.impl.Weight.NoWeight;
+import wpds.impl.WeightedPAutomaton;
+import wpds.impl.WeightedPushdownSystem;
+import wpds.interfaces.Location;
+import wpds.interfaces.State;
+
+/**
+ * A synthetic program of <code>methods</code> methods with <code>statements</code> statements each. Statement 0 is the
+ * entry and the last statement the exit of a method, statement 1 calls the next method and statement 2 calls the
+ * method itself, depending on the {@link Shape}. Each non-call statement flows a fact to itself and to the next fact,
+ * a call site additionally flows the fact to its return site, which terminates the recursive shapes.
+ */
+public class SyntheticProgram {
+
+    public enum Shape {
+        /**
+         * Method i calls method i + 1, the last method calls nothing.
+         */
+        CHAIN,
+        /**
+         * As {@link #CHAIN}, and every method calls itself.
+         */
+        SELF_RECURSIVE,
+        /**
+         * As {@link #CHAIN}, and the last method calls the first one.
+         */
+        MUTUAL_RECURSIVE
+    }
+
+    /**
+     * The semiring the rules of the generated pushdown system are weighted with.
+     */
+    public interface Weights {
+        Weight one();
+
+        Weight zero();
+
+        /**
+         * The weight of every rule of the generated pushdown system.
+         */
+        Weight rule();
+    }
+
+    /**
+     * {@link NoWeight}, which measures the solvers without any cost of the weights.
+     */
+    public static final Weights NONE = new Weights() {
+        @Override
+        public Weight one() {
+            return Weight.NO_WEIGHT_ONE;
+        }
+
+        @Override
+        public Weight zero() {
+            return Weight.NO_WEIGHT_ZERO;
+        }
+
+        @Override
+        public Weight rule() {
+            return Weight.NO_WEIGHT_ONE;
+        }
+    };
+
+    public static final Weights MIN = new Weights() {
+        @Override
+        public Weight one() {
+            return ShortestPathWeight.one();
+        }
+
+        @Override
+        public Weight zero() {
+            return ShortestPathWeight.zero();
+        }
+
+        @Override
+        public Weight rule() {
+            return new ShortestPathWeight(1);
+        }
+    };
+
+    public static final Stmt EPSILON = new Stmt(-1, -1);
+    public static final Fact ACCEPT = new Fact(-1);
+
+    private final int methods;
+    private final int statements;
+    private final int facts;
+    private final Shape shape;
+    private final Multimap<Integer, Stmt> callSitesOf = ArrayListMultimap.create();
+
+    public SyntheticProgram(int methods, int statements, int facts, Shape shape) {
+        if (methods < 1 || statements < 4 || facts < 1)
+            throw new IllegalArgumentException("Need at least one method, four statements and one fact: " + methods
+                    + ", " + statements + ", " + facts);
+        this.methods = methods;
+        this.statements = statements;
+        this.facts = facts;
+        this.shape = shape;
+        for (int m = 0; m < methods; m++) {
+            for (int i = 0; i < statements; i++) {
+                for (int callee : callees(m, i)) {
+                    callSitesOf.put(callee, stmt(m, i));
+                }
+            }
+        }
+    }
+
+    public static Weights weights(String semiring) {
+        if (semiring.equals("NONE"))
+            return NONE;
+        if (semiring.equals("MIN"))
+            return MIN;
+        throw new IllegalArgumentException("Unknown semiring " + semiring);
+    }
+
+    public int methods() {
+        return methods;
+    }
+
+    public int statements() {
+        return statements;
+    }
+
+    public int facts() {
+        return facts;
+    }
+
+    public Stmt stmt(int method, int index) {
+        return new Stmt(method, index);
+    }
+
+    public Stmt entry(int method) {
+        return stmt(method, 0);
+    }
+
+    public Stmt exit(int method) {
+        return stmt(method, statements - 1);
+    }
+
+    public Fact fact(int i) {
+        return new Fact(i);
+    }
+
+    public boolean isExit(Stmt s) {
+        return s.index == statements - 1;
+    }
+
+    /**
+     * @return the methods called at the statement, empty if the statement is no call site.
+     */
+    public List<Integer> callees(int method, int index) {
+        if (index == 1) {
+            if (method + 1 < methods)
+                return Collections.singletonList(method + 1);
+            if (shape == Shape.MUTUAL_RECURSIVE)
+                return Collections.singletonList(0);
+        }
+        if (index == 2 && shape == Shape.SELF_RECURSIVE)
+            return Collections.singletonList(method);
+        return Collections.emptyList();
+    }
+
+    public List<Integer> callees(Stmt s) {
+        return callees(s.method, s.index);
+    }
+
+    public List<Stmt> callSitesOf(int method) {
+        return Lists.newArrayList(callSitesOf.get(method));
+    }
+
+    public WeightedPushdownSystem<Stmt, Fact, Weight> createPDS(Weights weights) {
+        WeightedPushdownSystem<Stmt, Fact, Weight> pds = new WeightedPushdownSystem<Stmt, Fact, Weight>();
+        for (int m = 0; m < methods; m++) {
+            for (int i = 0; i < statements - 1; i++) {
+                List<Integer> callees = callees(m, i);
+                for (int f = 0; f < facts; f++) {
+                    pds.addRule(new NormalRule<Stmt, Fact, Weight>(fact(f), stmt(m, i), fact(f), stmt(m, i + 1),
+                            weights.rule()));
+                    if (callees.isEmpty() && facts > 1)
+                        pds.addRule(new NormalRule<Stmt, Fact, Weight>(fact(f), stmt(m, i), fact((f + 1) % facts),
+                                stmt(m, i + 1), weights.rule()));
+                    for (int callee : callees) {
+                        pds.addRule(new PushRule<Stmt, Fact, Weight>(fact(f), stmt(m, i), fact(f), entry(callee),
+                                stmt(m, i + 1), weights.rule()));
+                    }
+                }
+            }
+            for (int f = 0; f < facts; f++) {
+                pds.addRule(new PopRule<Stmt, Fact, Weight>(fact(f), exit(m), fact(f), weights.rule()));
+            }
+        }
+        return pds;
+    }
+
+    public WeightedPAutomaton<Stmt, Fact, Weight> createAutomaton(Fact initialState, final Weights weights) {
+        WeightedPAutomaton<Stmt, Fact, Weight> aut = new WeightedPAutomaton<Stmt, Fact, Weight>(initialState) {
+            @Override
+            public Fact createState(Fact d, Stmt loc) {
+                return new Fact(d, loc);
+            }
+
+            @Override
+            public Stmt epsilon() {
+                return EPSILON;
+            }
+
+            @Override
+            public Weight getOne() {
+                return weights.one();
+            }
+
+            @Override
+            public Weight getZero() {
+                return weights.zero();
+            }
+
+            @Override
+            public boolean isGeneratedState(Fact d) {
+                return d.generatedBy != null;
+            }
+        };
+        aut.addFinalState(ACCEPT);
+        return aut;
+    }
+
+    /**
+     * The initial automaton of a post* query, accepting the entry of the first method with an empty call stack.
+     */
+    public WeightedPAutomaton<Stmt, Fact, Weight> createPostStarAutomaton(Weights weights) {
+        WeightedPAutomaton<Stmt, Fact, Weight> aut = createAutomaton(fact(0), weights);
+        aut.addWeightForTransition(new Transition<Stmt, Fact>(fact(0), entry(0), ACCEPT), weights.one());
+        return aut;
+    }
+
+    /**
+     * The initial automaton of a pre* query, accepting the exit of the last method under any call stack.
+     */
+    public WeightedPAutomaton<Stmt, Fact, Weight> createPreStarAutomaton(Weights weights) {
+        WeightedPAutomaton<Stmt, Fact, Weight> aut = createAutomaton(fact(0), weights);
+        aut.addWeightForTransition(new Transition<Stmt, Fact>(fact(0), exit(methods - 1), ACCEPT), weights.one());
+        for (int m = 0; m < methods; m++) {
+            for (int i = 0; i < statements; i++) {
+                aut.addWeightForTransition(new Transition<Stmt, Fact>(ACCEPT, stmt(m, i), ACCEPT), weights.one());
+            }
+        }
+        return aut;
+    }
+
+    public static class Stmt implements Location {
+        final int method;
+        final int index;
+
+        Stmt(int method, int index) {
+            this.method = method;
+            this.index = index;
+        }
+
+        public int method() {
+            return method;
+        }
+
+        public int index() {
+            return index;
+        }
+
+        @Override
+        public int hashCode() {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + index;
+            result = prime * result + method;
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (obj == null)
+                return false;
+            if (getClass() != obj.getClass())
+                return false;
+            Stmt other = (Stmt) obj;
+            if (index != other.index)
+                return false;
+            if (method != other.method)
+                return false;
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return method < 0 ? "EPS" : "m" + method + "s" + index;
+        }
+    }
+
+    public static class Fact implements State {
+        final int id;
+        final Stmt generatedBy;
+
+        Fact(int id) {
+            this.id = id;
+            this.generatedBy = null;
+        }
+
+        Fact(Fact fact, Stmt generatedBy) {
+            this.id = fact.id;
+            this.generatedBy = generatedBy;
+        }
+
+        @Override
+        public int hashCode() {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + ((generatedBy == null) ? 0 : generatedBy.hashCode());
+            result = prime * result + id;
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (obj == null)
+                return false;
+            if (getClass() != obj.getClass())
+                return false;
+            Fact other = (Fact) obj;
+            if (generatedBy == null) {
+                if (other.generatedBy != null)
+                    return false;
+            } else if (!generatedBy.equals(other.generatedBy))
+                return false;
+            if (id != other.id)
+                return false;
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            String name = id < 0 ? "ACC" : "f" + id;
+            return generatedBy == null ? name : "<" + name + "," + generatedBy + ">";
+        }
+    }
+}
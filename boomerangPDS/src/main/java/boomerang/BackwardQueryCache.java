@@ -0,0 +1,173 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package boomerang;
+
+import java.util.Set;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Multimap;
+
+import boomerang.callgraph.ObservableDynamicICFG;
+import boomerang.results.BackwardBoomerangResults;
+import boomerang.util.AccessPath;
+import soot.SootMethod;
+import soot.Unit;
+
+/**
+ * Caches the allocation sites and aliases of {@link BackwardQuery}s across {@link WeightedBoomerang} instances that
+ * share an ICFG, e.g. the solvers of the seeds of an IDEal analysis. Only the extracted sets are kept, never the
+ * results or the solver that computed them. The cache holds at most a fixed number of queries and evicts the least
+ * recently used ones. Results of timed out queries are not cached. The cache is not thread-safe.
+ * <p>
+ * Each entry remembers the methods its query visited, see {@link BackwardBoomerangResults#getVisitedMethods()}. An
+ * ICFG that builds its call graph on the fly reports every call it adds through
+ * {@link #callAdded(SootMethod, Unit, SootMethod)}, which drops the entries that visited the caller or the callee. A
+ * call that was reported before, e.g. one added again after the call graph was reset, drops nothing.
+ * {@link ObservableDynamicICFG#setBackwardQueryCache(BackwardQueryCache)} connects a cache to such an ICFG. A
+ * precomputed call graph never changes.
+ */
+public class BackwardQueryCache {
+
+    private final Cache<BackwardQuery, Entry> entries;
+    private final Multimap<SootMethod, BackwardQuery> queriesByMethod = HashMultimap.create();
+    private final Multimap<Unit, SootMethod> knownCalls = HashMultimap.create();
+    private int hits;
+    private int misses;
+
+    /**
+     * @param maximumSize
+     *            The maximal number of cached queries.
+     */
+    public BackwardQueryCache(long maximumSize) {
+        this.entries = CacheBuilder.newBuilder().maximumSize(maximumSize)
+                .removalListener(new RemovalListener<BackwardQuery, Entry>() {
+                    @Override
+                    public void onRemoval(RemovalNotification<BackwardQuery, Entry> notification) {
+                        for (SootMethod m : notification.getValue().visitedMethods) {
+                            queriesByMethod.remove(m, notification.getKey());
+                        }
+                    }
+                }).build();
+    }
+
+    /**
+     * Returns the allocation sites of the query, the query is solved by the given solver if it is not cached.
+     */
+    public Set<ForwardQuery> getAllocationSites(WeightedBoomerang<?> solver, BackwardQuery query) {
+        Set<ForwardQuery> allocationSites = getIfPresent(query);
+        if (allocationSites != null) {
+            return allocationSites;
+        }
+        BackwardBoomerangResults<?> results = solver.solve(query);
+        put(query, results);
+        return ImmutableSet.copyOf(results.getAllocationSites().keySet());
+    }
+
+    /**
+     * Returns the aliases of the query, the query is solved by the given solver if its aliases are not cached.
+     */
+    public Set<AccessPath> getAllAliases(WeightedBoomerang<?> solver, BackwardQuery query) {
+        Entry entry = entries.getIfPresent(query);
+        if (entry != null && entry.aliases != null) {
+            hits++;
+            return entry.aliases;
+        }
+        misses++;
+        BackwardBoomerangResults<?> results = solver.solve(query);
+        Set<AccessPath> aliases = ImmutableSet.copyOf(results.getAllAliases());
+        store(query, results, aliases);
+        return aliases;
+    }
+
+    /**
+     * Returns the cached allocation sites of the query, or null if the query is not cached.
+     */
+    public Set<ForwardQuery> getIfPresent(BackwardQuery query) {
+        Entry entry = entries.getIfPresent(query);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.allocationSites;
+    }
+
+    /**
+     * Caches the allocation sites of the results of the query. The results must be complete, i.e. no later query of
+     * the solver may add allocation sites to them without adding a call at one of the methods the query visited.
+     */
+    public void put(BackwardQuery query, BackwardBoomerangResults<?> results) {
+        store(query, results, null);
+    }
+
+    /**
+     * Reports a call added to the call graph. Drops the entries of the queries that visited the caller or the callee,
+     * unless the call was reported before.
+     */
+    public void callAdded(SootMethod caller, Unit callSite, SootMethod callee) {
+        if (!knownCalls.put(callSite, callee)) {
+            return;
+        }
+        invalidateQueriesVisiting(caller);
+        invalidateQueriesVisiting(callee);
+    }
+
+    public void invalidateAll() {
+        entries.invalidateAll();
+    }
+
+    public int getHits() {
+        return hits;
+    }
+
+    public int getMisses() {
+        return misses;
+    }
+
+    private void invalidateQueriesVisiting(SootMethod m) {
+        if (queriesByMethod.containsKey(m)) {
+            entries.invalidateAll(Lists.newArrayList(queriesByMethod.get(m)));
+        }
+    }
+
+    private void store(BackwardQuery query, BackwardBoomerangResults<?> results, Set<AccessPath> aliases) {
+        if (results.isTimedout()) {
+            return;
+        }
+        // Drop the previous entry first, so its removal does not unindex the methods of the new one
+        entries.invalidate(query);
+        Entry entry = new Entry(ImmutableSet.copyOf(results.getAllocationSites().keySet()), aliases,
+                ImmutableSet.copyOf(results.getVisitedMethods()));
+        for (SootMethod m : entry.visitedMethods) {
+            queriesByMethod.put(m, query);
+        }
+        entries.put(query, entry);
+    }
+
+    private static class Entry {
+        private final Set<ForwardQuery> allocationSites;
+        private final Set<AccessPath> aliases;
+        private final Set<SootMethod> visitedMethods;
+
+        private Entry(Set<ForwardQuery> allocationSites, Set<AccessPath> aliases, Set<SootMethod> visitedMethods) {
+            this.allocationSites = allocationSites;
+            this.aliases = aliases;
+            this.visitedMethods = visitedMethods;
+        }
+    }
+}
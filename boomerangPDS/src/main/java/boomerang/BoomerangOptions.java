@@ -38,6 +38,35 @@ public interface BoomerangOptions {
 
     public boolean fieldSummaries();
 
+    /**
+     * @return If set to true, the call and field automata queue weight updates and notify their listeners from a loop
+     *         (see {@link wpds.impl.WeightedPAutomaton#setDeferredDispatch(boolean)}). This bounds the stack depth on
+     *         deep call chains.
+     */
+    public boolean deferredDispatch();
+
+    /**
+     * @return Upper bound on the summed size (rules plus automaton transitions) of all solvers kept alive by a
+     *         {@link WeightedBoomerang} instance. When exceeded, the solvers of the least recently used completed
+     *         queries are evicted before the next query starts and recomputed on demand. A value of zero or less
+     *         disables eviction.
+     */
+    public long solverSizeBudget();
+
+    /**
+     * @return If true, the call and field automata of the solvers keep their transitions in an
+     *         {@link wpds.impl.IntTransitionStore}, which needs less memory than the default hash based store on
+     *         large automata.
+     */
+    public boolean compactTransitionStores();
+
+    /**
+     * @return If true, the call and field automata of a solver share one {@link wpds.impl.WeightInterner}, so equal
+     *         weights are stored as a single instance (see
+     *         {@link wpds.impl.WeightedPAutomaton#setWeightInterner(wpds.impl.WeightInterner)}).
+     */
+    public boolean internWeights();
+
     public int analysisTimeoutMS();
 
     public boolean isAllocationVal(Value val);
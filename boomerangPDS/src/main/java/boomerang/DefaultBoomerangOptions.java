@@ -106,6 +106,26 @@ public class DefaultBoomerangOptions implements BoomerangOptions {
         return false;
     }
 
+    @Override
+    public boolean deferredDispatch() {
+        return false;
+    }
+
+    @Override
+    public long solverSizeBudget() {
+        return 0;
+    }
+
+    @Override
+    public boolean compactTransitionStores() {
+        return false;
+    }
+
+    @Override
+    public boolean internWeights() {
+        return false;
+    }
+
     public boolean trackAnySubclassOfThrowable() {
         return false;
     }
@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package boomerang;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * Solves independent queries on a fixed thread pool. The {@link QuerySolver} is called on the worker threads and has to
+ * use a separate {@link WeightedBoomerang} instance per thread or per query, instances are not thread-safe.
+ * <p>
+ * If a query timeout is set, the worker thread is interrupted once a query exceeds it.
+ * {@link WeightedBoomerang#checkTimeout()} treats the interrupt as a timeout, so the query ends with a
+ * {@link BoomerangTimeoutException} and reports timed out results.
+ */
+public class ParallelQueryScheduler {
+
+    public interface QuerySolver<Q extends Query, R> {
+        R solve(Q query);
+    }
+
+    private final int parallelism;
+    private final long queryTimeoutMS;
+    private final Set<Query> timedOutQueries = Sets.newConcurrentHashSet();
+
+    /**
+     * @param parallelism
+     *            the number of worker threads.
+     * @param queryTimeoutMS
+     *            the time budget per query, 0 disables the timeout.
+     */
+    public ParallelQueryScheduler(int parallelism, long queryTimeoutMS) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("Parallelism must be at least 1, was " + parallelism);
+        this.parallelism = parallelism;
+        this.queryTimeoutMS = queryTimeoutMS;
+    }
+
+    /**
+     * Solves all queries and waits for them to finish.
+     *
+     * @return the results in the iteration order of the given queries.
+     */
+    public <Q extends Query, R> Map<Q, R> solve(Collection<? extends Q> queries, final QuerySolver<Q, R> solver) {
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism);
+        final ScheduledExecutorService watchdog = queryTimeoutMS > 0 ? Executors.newSingleThreadScheduledExecutor()
+                : null;
+        Map<Q, Future<R>> futures = Maps.newLinkedHashMap();
+        try {
+            for (final Q query : queries) {
+                futures.put(query, workers.submit(new Callable<R>() {
+                    @Override
+                    public R call() throws Exception {
+                        return solveWithTimeout(query, solver, watchdog);
+                    }
+                }));
+            }
+            Map<Q, R> results = Maps.newLinkedHashMap();
+            for (Map.Entry<Q, Future<R>> e : futures.entrySet()) {
+                results.put(e.getKey(), e.getValue().get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for queries", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Query failed", e.getCause());
+        } finally {
+            workers.shutdownNow();
+            if (watchdog != null)
+                watchdog.shutdownNow();
+        }
+    }
+
+    private <Q extends Query, R> R solveWithTimeout(Q query, QuerySolver<Q, R> solver,
+            ScheduledExecutorService watchdog) {
+        if (watchdog == null)
+            return solver.solve(query);
+        final Thread worker = Thread.currentThread();
+        final boolean[] fired = new boolean[1];
+        ScheduledFuture<?> timeout = watchdog.schedule(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (fired) {
+                    fired[0] = true;
+                    worker.interrupt();
+                }
+            }
+        }, queryTimeoutMS, TimeUnit.MILLISECONDS);
+        try {
+            return solver.solve(query);
+        } finally {
+            timeout.cancel(false);
+            synchronized (fired) {
+                if (fired[0]) {
+                    timedOutQueries.add(query);
+                    // Do not leak the interrupt into the next query of this worker.
+                    Thread.interrupted();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the queries that exceeded the query timeout.
+     */
+    public Set<Query> getTimedOutQueries() {
+        return Collections.unmodifiableSet(timedOutQueries);
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+}
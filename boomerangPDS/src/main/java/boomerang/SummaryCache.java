@@ -0,0 +1,65 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package boomerang;
+
+import java.util.LinkedList;
+import java.util.Set;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import boomerang.jimple.Statement;
+import boomerang.jimple.Val;
+import sync.pds.solver.OneWeightFunctions;
+import sync.pds.solver.nodes.INode;
+import wpds.impl.SummaryNestedWeightedPAutomatons;
+import wpds.impl.Weight;
+import wpds.impl.WeightedPAutomaton;
+
+/**
+ * Call summary automata that are shared by several {@link WeightedBoomerang} instances, e.g. by the seeds of an IDEal
+ * analysis. A summary is keyed by the generated state of the callee entry, i.e. by the method and the entry fact. Only
+ * solvers with {@link OneWeightFunctions} use the shared summaries, their summaries do not depend on the query.
+ * Summaries are only computed if {@link BoomerangOptions#callSummaries()} is enabled. The cache is not thread-safe.
+ */
+public class SummaryCache<W extends Weight> {
+
+    private final SummaryNestedWeightedPAutomatons<Statement, INode<Val>, W> forwardCallSummaries = new SummaryNestedWeightedPAutomatons<>();
+    private final SummaryNestedWeightedPAutomatons<Statement, INode<Val>, W> backwardCallSummaries = new SummaryNestedWeightedPAutomatons<>();
+
+    public SummaryNestedWeightedPAutomatons<Statement, INode<Val>, W> getForwardCallSummaries() {
+        return forwardCallSummaries;
+    }
+
+    public SummaryNestedWeightedPAutomatons<Statement, INode<Val>, W> getBackwardCallSummaries() {
+        return backwardCallSummaries;
+    }
+
+    /**
+     * Removes the listeners of the solvers of a finished analysis or analysis phase from all summaries and the
+     * automata nested in them. Solvers created afterwards re-register their listeners when they first reach a
+     * summary, the finished solvers are no longer updated.
+     */
+    public void detachListeners() {
+        Set<WeightedPAutomaton<Statement, INode<Val>, W>> visited = Sets.newHashSet();
+        LinkedList<WeightedPAutomaton<Statement, INode<Val>, W>> worklist = Lists
+                .newLinkedList(forwardCallSummaries.getSummaryAutomata());
+        worklist.addAll(backwardCallSummaries.getSummaryAutomata());
+        while (!worklist.isEmpty()) {
+            WeightedPAutomaton<Statement, INode<Val>, W> aut = worklist.poll();
+            if (!visited.add(aut))
+                continue;
+            aut.clearListener();
+            worklist.addAll(aut.getNestedAutomatons());
+        }
+    }
+}
@@ -31,8 +31,10 @@ import com.google.common.base.Optional;
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.HashMultimap;
+import com.google.common.collect.HashMultiset;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.Multiset;
 import com.google.common.collect.Sets;
 import com.google.common.collect.Table;
 
@@ -54,6 +56,7 @@ import boomerang.solver.AbstractBoomerangSolver;
 import boomerang.solver.BackwardBoomerangSolver;
 import boomerang.solver.ForwardBoomerangSolver;
 import boomerang.solver.ReachableMethodListener;
+import boomerang.solver.SolverDependentListener;
 import boomerang.solver.StatementBasedCallTransitionListener;
 import boomerang.stats.IBoomerangStats;
 import com.google.common.base.Joiner;
@@ -68,6 +71,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import soot.*;
 import soot.jimple.*;
+import sync.pds.solver.OneWeightFunctions;
 import sync.pds.solver.SyncPDSUpdateListener;
 import sync.pds.solver.WeightFunctions;
 import sync.pds.solver.nodes.*;
@@ -119,8 +123,37 @@ public abstract class WeightedBoomerang<W extends Weight> {
     private Set<SolverCreationListener<W>> solverCreationListeners = Sets.newHashSet();
     private Multimap<SolverPair, ExecuteImportFieldStmtPOI<W>> poiListeners = HashMultimap.create();
     private Multimap<SolverPair, INode<Node<Statement, Val>>> activatedPoi = HashMultimap.create();
+    // Bounded-memory mode: the solver keys each top-level query used, in least recently used order
+    private final Map<Query, Set<Query>> solversOfQuery = new LinkedHashMap<>(16, 0.75f, true);
+    private final Multiset<Query> solverUsers = HashMultiset.create();
+    private final Map<Query, Query> evictedSolverToQuery = new HashMap<>();
+    // Bounded-memory mode: how each top-level query is solved again, including the scope of scoped backward queries
+    private final Map<Query, Runnable> queryRecomputations = new HashMap<>();
+    private Query currentQuery;
+    private int activeQueries;
+    /**
+     * In bounded-memory mode, getOrCreate() of an evicted solver solves the query it was evicted with again, see
+     * {@link #recomputeIfEvicted(Query)}. get() never recomputes and returns null for evicted solvers.
+     */
     private final DefaultValueMap<Query, AbstractBoomerangSolver<W>> queryToSolvers = new DefaultValueMap<Query, AbstractBoomerangSolver<W>>() {
 
+        @Override
+        public AbstractBoomerangSolver<W> getOrCreate(Query key) {
+            recomputeIfEvicted(key);
+            AbstractBoomerangSolver<W> solver = super.getOrCreate(key);
+            attachToCurrentQuery(key);
+            return solver;
+        }
+
+        @Override
+        public AbstractBoomerangSolver<W> get(Object key) {
+            AbstractBoomerangSolver<W> solver = super.get(key);
+            if (solver != null) {
+                attachToCurrentQuery((Query) key);
+            }
+            return solver;
+        }
+
         @Override
         protected AbstractBoomerangSolver<W> createItem(final Query key) {
             final AbstractBoomerangSolver<W> solver;
@@ -206,6 +239,12 @@ public abstract class WeightedBoomerang<W extends Weight> {
     }
 
     public void checkTimeout() {
+        if (Thread.currentThread().isInterrupted()) {
+            // The ParallelQueryScheduler interrupts workers whose query exceeded its time budget.
+            if (analysisWatch.isRunning())
+                analysisWatch.stop();
+            throw new BoomerangTimeoutException(analysisWatch.elapsed(TimeUnit.MILLISECONDS), stats);
+        }
         if (options.analysisTimeoutMS() > 0) {
             long elapsed = analysisWatch.elapsed(TimeUnit.MILLISECONDS);
             if (elapsed - lastTick > 15000) {
@@ -274,8 +313,11 @@ public abstract class WeightedBoomerang<W extends Weight> {
     }
 
     protected AbstractBoomerangSolver<W> createBackwardSolver(final BackwardQuery backwardQuery) {
+        SummaryCache<W> summaryCache = getSummaryCache();
+        boolean shareSummaries = summaryCache != null && getBackwardCallWeights() instanceof OneWeightFunctions;
         BackwardBoomerangSolver<W> solver = new BackwardBoomerangSolver<W>(bwicfg(), backwardQuery, genField, options,
-                createCallSummaries(backwardQuery, backwardCallSummaries),
+                createCallSummaries(backwardQuery,
+                        shareSummaries ? summaryCache.getBackwardCallSummaries() : backwardCallSummaries),
                 createFieldSummaries(backwardQuery, backwardFieldSummaries)) {
 
             @Override
@@ -394,8 +436,12 @@ public abstract class WeightedBoomerang<W extends Weight> {
     }
 
     protected ForwardBoomerangSolver<W> createForwardSolver(final ForwardQuery sourceQuery) {
+        SummaryCache<W> summaryCache = getSummaryCache();
+        boolean shareSummaries = summaryCache != null
+                && getForwardCallWeights(sourceQuery) instanceof OneWeightFunctions;
         final ForwardBoomerangSolver<W> solver = new ForwardBoomerangSolver<W>(icfg(), sourceQuery, genField, options,
-                createCallSummaries(sourceQuery, forwardCallSummaries),
+                createCallSummaries(sourceQuery,
+                        shareSummaries ? summaryCache.getForwardCallSummaries() : forwardCallSummaries),
                 createFieldSummaries(sourceQuery, forwardFieldSummaries)) {
 
             @Override
@@ -496,6 +542,14 @@ public abstract class WeightedBoomerang<W extends Weight> {
         };
     }
 
+    /**
+     * Call summaries shared with other instances, see {@link SummaryCache}. By default summaries are only shared among
+     * the solvers of this instance.
+     */
+    protected SummaryCache<W> getSummaryCache() {
+        return null;
+    }
+
     public boolean preventCallRuleAdd(ForwardQuery sourceQuery, Rule<Statement, INode<Val>, W> rule) {
         return false;
     }
@@ -604,45 +658,83 @@ public abstract class WeightedBoomerang<W extends Weight> {
         }
     }
 
-    public BackwardBoomerangResults<W> backwardSolveUnderScope(BackwardQuery backwardQuery, ForwardQuery forwardQuery,
-            Node<Statement, Val> node) {
+    public BackwardBoomerangResults<W> backwardSolveUnderScope(final BackwardQuery backwardQuery,
+            final ForwardQuery forwardQuery, final Node<Statement, Val> node) {
         scopedQueries.add(backwardQuery);
         boolean timedout = false;
+        beginQuery(backwardQuery, new Runnable() {
+            @Override
+            public void run() {
+                solveUnderScope(backwardQuery, forwardQuery, node);
+            }
+        });
         try {
-            backwardSolve(backwardQuery);
-            final AbstractBoomerangSolver<W> bwSolver = queryToSolvers.getOrCreate(backwardQuery);
-            AbstractBoomerangSolver<W> fwSolver = queryToSolvers.getOrCreate(forwardQuery);
-            fwSolver.registerReachableMethodListener(new ReachableMethodListener<W>() {
-                @Override
-                public void reachable(SootMethod m) {
-                    bwSolver.addReachable(m);
-                }
-            });
-
-            fwSolver.getCallAutomaton().registerListener(new StackListener<Statement, INode<Val>, W>(
-                    fwSolver.getCallAutomaton(), new SingleNode<>(node.fact()), node.stmt()) {
-
-                @Override
-                public void stackElement(Statement callSite) {
-                    triggerUnbalancedPop(new Node<Statement, AbstractBoomerangSolver<W>>(callSite, bwSolver));
-                }
-
-                @Override
-                public void anyContext(Statement end) {
-                    for (Unit sP : icfg().getStartPointsOf(end.getMethod())) {
-                        bwSolver.registerStatementCallTransitionListener(new CanUnbalancedReturn(end.getMethod(),
-                                new Statement((Stmt) sP, end.getMethod()), bwSolver));
-                    }
-                }
-            });
+            solveUnderScope(backwardQuery, forwardQuery, node);
         } catch (BoomerangTimeoutException e) {
             timedout = true;
             cleanup();
+        } finally {
+            endQuery();
         }
 
         return new BackwardBoomerangResults<W>(backwardQuery, timedout, this.queryToSolvers, getStats(), analysisWatch);
     }
 
+    private void solveUnderScope(BackwardQuery backwardQuery, ForwardQuery forwardQuery, Node<Statement, Val> node) {
+        backwardSolve(backwardQuery);
+        AbstractBoomerangSolver<W> bwSolver = queryToSolvers.getOrCreate(backwardQuery);
+        AbstractBoomerangSolver<W> fwSolver = queryToSolvers.getOrCreate(forwardQuery);
+        fwSolver.registerReachableMethodListener(new AddReachableToScopedSolver(bwSolver));
+        fwSolver.getCallAutomaton().registerListener(new ScopedUnbalancedPop(fwSolver, node, bwSolver));
+    }
+
+    private class AddReachableToScopedSolver implements ReachableMethodListener<W>, SolverDependentListener {
+        private final AbstractBoomerangSolver<W> bwSolver;
+
+        private AddReachableToScopedSolver(AbstractBoomerangSolver<W> bwSolver) {
+            this.bwSolver = bwSolver;
+        }
+
+        @Override
+        public void reachable(SootMethod m) {
+            bwSolver.addReachable(m);
+        }
+
+        @Override
+        public boolean dependsOn(AbstractBoomerangSolver<?> solver) {
+            return bwSolver == solver;
+        }
+    }
+
+    private class ScopedUnbalancedPop extends StackListener<Statement, INode<Val>, W>
+            implements SolverDependentListener {
+        private final AbstractBoomerangSolver<W> bwSolver;
+
+        private ScopedUnbalancedPop(AbstractBoomerangSolver<W> fwSolver, Node<Statement, Val> node,
+                AbstractBoomerangSolver<W> bwSolver) {
+            super(fwSolver.getCallAutomaton(), new SingleNode<>(node.fact()), node.stmt());
+            this.bwSolver = bwSolver;
+        }
+
+        @Override
+        public void stackElement(Statement callSite) {
+            triggerUnbalancedPop(new Node<Statement, AbstractBoomerangSolver<W>>(callSite, bwSolver));
+        }
+
+        @Override
+        public void anyContext(Statement end) {
+            for (Unit sP : icfg().getStartPointsOf(end.getMethod())) {
+                bwSolver.registerStatementCallTransitionListener(
+                        new CanUnbalancedReturn(end.getMethod(), new Statement((Stmt) sP, end.getMethod()), bwSolver));
+            }
+        }
+
+        @Override
+        public boolean dependsOn(AbstractBoomerangSolver<?> solver) {
+            return bwSolver == solver;
+        }
+    }
+
     private void cleanup() {
         for (AbstractBoomerangSolver<W> solver : queryToSolvers.values()) {
             solver.cleanup();
@@ -651,34 +743,190 @@ public abstract class WeightedBoomerang<W extends Weight> {
         this.unbalancedListeners.clear();
     }
 
-    public BackwardBoomerangResults<W> backwardSolveUnderScope(BackwardQuery backwardQuery,
-            IContextRequester requester) {
+    private boolean isMemoryBounded() {
+        return options.solverSizeBudget() > 0;
+    }
+
+    /**
+     * Starts a top-level query. In bounded-memory mode, solvers of least recently used earlier queries are evicted
+     * first until the summed solver size fits the budget. Queries started while another one is running are solved as
+     * part of that one. The recomputation solves the query again without starting a new top-level query.
+     */
+    private void beginQuery(Query query, Runnable recomputation) {
+        if (!isMemoryBounded() || activeQueries++ > 0)
+            return;
+        evictSolvers(query);
+        // The query is solved from scratch and must not trigger a recomputation of the query it was evicted with. It
+        // also recreates the solvers that were evicted together with it.
+        Query evictedWith = evictedSolverToQuery.remove(query);
+        evictedSolverToQuery.values().removeAll(Collections.singleton(query));
+        if (evictedWith != null)
+            releaseIfUnused(evictedWith);
+        queryRecomputations.put(query, recomputation);
+        currentQuery = query;
+        if (!solversOfQuery.containsKey(query)) {
+            solversOfQuery.put(query, Sets.<Query> newHashSet());
+        }
+    }
+
+    private void endQuery() {
+        if (isMemoryBounded())
+            activeQueries--;
+    }
+
+    private void attachToCurrentQuery(Query key) {
+        if (currentQuery == null)
+            return;
+        if (solversOfQuery.get(currentQuery).add(key)) {
+            solverUsers.add(key);
+        }
+    }
+
+    private void evictSolvers(Query nextQuery) {
+        long budget = options.solverSizeBudget();
+        long size = 0;
+        for (AbstractBoomerangSolver<W> solver : queryToSolvers.values()) {
+            size += solver.getApproximateSize();
+        }
+        Iterator<Entry<Query, Set<Query>>> it = solversOfQuery.entrySet().iterator();
+        while (size > budget && it.hasNext()) {
+            Entry<Query, Set<Query>> e = it.next();
+            if (e.getKey().equals(nextQuery))
+                continue;
+            it.remove();
+            for (Query key : e.getValue()) {
+                // A solver shared with a query that is kept stays alive
+                if (solverUsers.remove(key, 1) > 1)
+                    continue;
+                AbstractBoomerangSolver<W> solver = queryToSolvers.remove(key);
+                if (solver == null)
+                    continue;
+                size -= solver.getApproximateSize();
+                evictSolver(key, solver, e.getKey());
+            }
+            releaseIfUnused(e.getKey());
+        }
+    }
+
+    /**
+     * Forgets the recomputation of an evicted query once none of the evicted solvers maps to it anymore, as nothing
+     * can trigger it then. A scoped query is forgotten as well if it neither has a solver nor is recomputed.
+     */
+    private void releaseIfUnused(Query query) {
+        if (solversOfQuery.containsKey(query) || evictedSolverToQuery.containsValue(query))
+            return;
+        queryRecomputations.remove(query);
+        if (!queryToSolvers.containsKey(query) && !evictedSolverToQuery.containsKey(query))
+            scopedQueries.remove(query);
+    }
+
+    /**
+     * Drops the solver together with everything that connects it to the remaining solvers. The listeners it registered
+     * on other solvers and those other solvers registered on it are unregistered. The key is removed from all POIs, such
+     * that pairs of allocations are executed again once the solver is recomputed.
+     */
+    private void evictSolver(Query key, AbstractBoomerangSolver<W> solver, Query query) {
+        solver.cleanup();
+        evictedSolverToQuery.put(key, query);
+        for (AbstractBoomerangSolver<W> remaining : queryToSolvers.values()) {
+            remaining.unregisterListenersDependingOn(solver);
+        }
+        for (Iterator<Entry<SolverPair, ExecuteImportFieldStmtPOI<W>>> it = poiListeners.entries().iterator(); it
+                .hasNext();) {
+            Entry<SolverPair, ExecuteImportFieldStmtPOI<W>> e = it.next();
+            if (e.getKey().contains(solver)) {
+                e.getValue().detach();
+                it.remove();
+            }
+        }
+        for (FieldWritePOI poi : fieldWrites.values()) {
+            poi.removeAllocation(key);
+        }
+        for (FieldReadPOI poi : fieldReads.values()) {
+            poi.removeAllocation(key);
+        }
+        for (Iterator<SolverPair> it = activatedPoi.keySet().iterator(); it.hasNext();) {
+            if (it.next().contains(solver))
+                it.remove();
+        }
+        for (Iterator<Node<Statement, AbstractBoomerangSolver<W>>> it = unbalancedListeners.keySet().iterator(); it
+                .hasNext();) {
+            if (it.next().fact() == solver)
+                it.remove();
+        }
+        for (Iterator<Node<Statement, AbstractBoomerangSolver<W>>> it = unbalancedPopPairs.iterator(); it.hasNext();) {
+            if (it.next().fact() == solver)
+                it.remove();
+        }
+        stats.evictedSolver(key, solver);
+    }
+
+    /**
+     * Recomputes an evicted solver by solving again the query it was evicted with, which recreates all solvers evicted
+     * together with it. Scoped backward queries are solved again under the same scope.
+     */
+    private void recomputeIfEvicted(Query key) {
+        if (evictedSolverToQuery.isEmpty() || queryToSolvers.containsKey(key))
+            return;
+        Query query = evictedSolverToQuery.get(key);
+        if (query == null)
+            return;
+        evictedSolverToQuery.values().removeAll(Collections.singleton(query));
+        boolean nested = activeQueries > 0;
+        Query previous = currentQuery;
+        activeQueries++;
+        currentQuery = query;
+        if (!solversOfQuery.containsKey(query)) {
+            solversOfQuery.put(query, Sets.<Query> newHashSet());
+        }
+        try {
+            queryRecomputations.get(query).run();
+        } finally {
+            activeQueries--;
+            if (nested)
+                currentQuery = previous;
+        }
+    }
+
+    public BackwardBoomerangResults<W> backwardSolveUnderScope(final BackwardQuery backwardQuery,
+            final IContextRequester requester) {
         scopedQueries.add(backwardQuery);
         boolean timedout = false;
+        beginQuery(backwardQuery, new Runnable() {
+            @Override
+            public void run() {
+                solveUnderScope(backwardQuery, requester);
+            }
+        });
         try {
             if (analysisWatch.isRunning()) {
                 analysisWatch.stop();
             }
             analysisWatch = Stopwatch.createStarted();
-            backwardSolve(backwardQuery);
-
-            final AbstractBoomerangSolver<W> bwSolver = queryToSolvers.getOrCreate(backwardQuery);
-            Collection<Context> callSiteOf = requester.getCallSiteOf(requester.initialContext(backwardQuery.stmt()));
-            for (Context c : callSiteOf) {
-                bwSolver.registerListener(
-                        new CanUnbalancedReturnToCallSite(backwardQuery.stmt().getMethod(), c, bwSolver, requester));
-            }
+            solveUnderScope(backwardQuery, requester);
             if (analysisWatch.isRunning()) {
                 analysisWatch.stop();
             }
         } catch (BoomerangTimeoutException e) {
             timedout = true;
             cleanup();
+        } finally {
+            endQuery();
         }
 
         return new BackwardBoomerangResults<W>(backwardQuery, timedout, this.queryToSolvers, getStats(), analysisWatch);
     }
 
+    private void solveUnderScope(BackwardQuery backwardQuery, IContextRequester requester) {
+        backwardSolve(backwardQuery);
+        AbstractBoomerangSolver<W> bwSolver = queryToSolvers.getOrCreate(backwardQuery);
+        Collection<Context> callSiteOf = requester.getCallSiteOf(requester.initialContext(backwardQuery.stmt()));
+        for (Context c : callSiteOf) {
+            bwSolver.registerListener(
+                    new CanUnbalancedReturnToCallSite(backwardQuery.stmt().getMethod(), c, bwSolver, requester));
+        }
+    }
+
     private final class UnbalancedPopCallerListener implements CallerListener<Unit, SootMethod> {
         private final SootMethod callee;
         private final UnbalancedPopHandler<W> info;
@@ -1074,11 +1322,17 @@ public abstract class WeightedBoomerang<W extends Weight> {
         return bwicfg;
     }
 
-    public ForwardBoomerangResults<W> solve(ForwardQuery query) {
+    public ForwardBoomerangResults<W> solve(final ForwardQuery query) {
         if (!analysisWatch.isRunning()) {
             analysisWatch.start();
         }
         boolean timedout = false;
+        beginQuery(query, new Runnable() {
+            @Override
+            public void run() {
+                forwardSolve(query);
+            }
+        });
         try {
             logger.debug("Starting forward analysis of: {}", query);
             forwardSolve(query);
@@ -1087,6 +1341,8 @@ public abstract class WeightedBoomerang<W extends Weight> {
             timedout = true;
             cleanup();
             logger.debug("Timeout of query: {}", query);
+        } finally {
+            endQuery();
         }
 
         if (analysisWatch.isRunning()) {
@@ -1100,11 +1356,17 @@ public abstract class WeightedBoomerang<W extends Weight> {
         return solve(query, true);
     }
 
-    public BackwardBoomerangResults<W> solve(BackwardQuery query, boolean timing) {
+    public BackwardBoomerangResults<W> solve(final BackwardQuery query, boolean timing) {
         if (timing && !analysisWatch.isRunning()) {
             analysisWatch.start();
         }
         boolean timedout = false;
+        beginQuery(query, new Runnable() {
+            @Override
+            public void run() {
+                backwardSolve(query);
+            }
+        });
         try {
             logger.debug("Starting backward analysis of: {}", query);
             backwardSolve(query);
@@ -1113,6 +1375,8 @@ public abstract class WeightedBoomerang<W extends Weight> {
             timedout = true;
             cleanup();
             logger.debug("Timeout of query: {}", query);
+        } finally {
+            endQuery();
         }
         if (timing && analysisWatch.isRunning()) {
             analysisWatch.stop();
@@ -1303,6 +1567,10 @@ public abstract class WeightedBoomerang<W extends Weight> {
             this.baseSolver = baseSolver;
         }
 
+        private boolean contains(AbstractBoomerangSolver<W> solver) {
+            return flowSolver == solver || baseSolver == solver;
+        }
+
         @Override
         public int hashCode() {
             final int prime = 31;
@@ -69,6 +69,11 @@ public abstract class WholeProgramBoomerang<W extends Weight> extends WeightedBo
         return seedFactory;
     }
 
+    /**
+     * Solves a forward query for every seed. Seeds are solved sequentially: all of them share the solvers of this
+     * instance, which are not thread-safe and can not be merged from separate instances. Independent queries that do
+     * not need to share solvers can be run in parallel with {@link ParallelQueryScheduler}.
+     */
     public void wholeProgramAnalysis() {
         long before = System.currentTimeMillis();
 
@@ -0,0 +1,264 @@
+package boomerang.callgraph;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import soot.Kind;
+import soot.Scene;
+import soot.SootMethod;
+import soot.Unit;
+import soot.jimple.Stmt;
+import soot.jimple.toolkits.callgraph.Edge;
+
+/**
+ * The call edges and queried call sites of an {@link ObservableDynamicICFG} in a compact binary file, so a later run
+ * on the same program can pre-seed its demand-driven call graph. A call site is stored as the signature of its method
+ * and its index in the method's body, all signatures and edge kinds are written once into a string table. Each
+ * method with a stored call site is written with a fingerprint of its body, the number of units and the signatures of
+ * the invoked methods. Entries of methods whose fingerprint no longer matches, or that do not resolve in the current
+ * scene, e.g. because the program changed, are skipped when reading.
+ */
+public class CallGraphEdgeCache {
+
+    private static final int MAGIC = 0x42434743;
+    private static final int VERSION = 2;
+
+    private final List<Edge> edges;
+    private final Set<Unit> queriedCallSites;
+
+    public CallGraphEdgeCache(Collection<Edge> edges, Collection<Unit> queriedCallSites) {
+        this.edges = Collections.unmodifiableList(Lists.newArrayList(edges));
+        this.queriedCallSites = Collections.unmodifiableSet(Sets.newLinkedHashSet(queriedCallSites));
+    }
+
+    public List<Edge> getEdges() {
+        return edges;
+    }
+
+    /**
+     * The call sites whose receivers were queried. All callees the query found are among the edges.
+     */
+    public Set<Unit> getQueriedCallSites() {
+        return queriedCallSites;
+    }
+
+    public void write(File file, ObservableICFG<Unit, SootMethod> icfg) {
+        Map<String, Integer> strings = Maps.newLinkedHashMap();
+        Map<SootMethod, Map<Unit, Integer>> unitIndices = Maps.newHashMap();
+        List<int[]> edgeRecords = Lists.newArrayList();
+        for (Edge e : edges) {
+            SootMethod src = e.src();
+            if (src == null || e.srcUnit() == null)
+                continue;
+            Integer index = unitIndices(src, unitIndices).get(e.srcUnit());
+            if (index == null)
+                continue;
+            edgeRecords.add(new int[] { id(src.getSignature(), strings), index, id(e.tgt().getSignature(), strings),
+                    id(e.kind().name(), strings) });
+        }
+        List<int[]> callSiteRecords = Lists.newArrayList();
+        for (Unit u : queriedCallSites) {
+            SootMethod m = icfg.getMethodOf(u);
+            if (m == null)
+                continue;
+            Integer index = unitIndices(m, unitIndices).get(u);
+            if (index == null)
+                continue;
+            callSiteRecords.add(new int[] { id(m.getSignature(), strings), index });
+        }
+        List<int[]> fingerprintRecords = Lists.newArrayList();
+        for (SootMethod m : unitIndices.keySet()) {
+            if (!m.hasActiveBody())
+                continue;
+            BodyFingerprint fingerprint = BodyFingerprint.of(m);
+            int[] r = new int[fingerprint.invokedMethods.size() + 2];
+            r[0] = id(m.getSignature(), strings);
+            r[1] = fingerprint.numberOfUnits;
+            for (int i = 0; i < fingerprint.invokedMethods.size(); i++) {
+                r[i + 2] = id(fingerprint.invokedMethods.get(i), strings);
+            }
+            fingerprintRecords.add(r);
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(strings.size());
+            for (String s : strings.keySet()) {
+                out.writeUTF(s);
+            }
+            out.writeInt(fingerprintRecords.size());
+            for (int[] r : fingerprintRecords) {
+                out.writeInt(r[0]);
+                out.writeInt(r[1]);
+                out.writeInt(r.length - 2);
+                for (int i = 2; i < r.length; i++) {
+                    out.writeInt(r[i]);
+                }
+            }
+            out.writeInt(edgeRecords.size());
+            for (int[] r : edgeRecords) {
+                for (int i : r) {
+                    out.writeInt(i);
+                }
+            }
+            out.writeInt(callSiteRecords.size());
+            for (int[] r : callSiteRecords) {
+                out.writeInt(r[0]);
+                out.writeInt(r[1]);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not write call graph edges to " + file, e);
+        }
+    }
+
+    public static CallGraphEdgeCache read(File file) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION)
+                throw new RuntimeException("Unsupported call graph edge file " + file);
+            String[] strings = new String[in.readInt()];
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = in.readUTF();
+            }
+            Map<String, BodyFingerprint> fingerprints = Maps.newHashMap();
+            int numberOfFingerprints = in.readInt();
+            for (int i = 0; i < numberOfFingerprints; i++) {
+                String method = strings[in.readInt()];
+                int numberOfUnits = in.readInt();
+                List<String> invokedMethods = Lists.newArrayList();
+                int numberOfInvokes = in.readInt();
+                for (int j = 0; j < numberOfInvokes; j++) {
+                    invokedMethods.add(strings[in.readInt()]);
+                }
+                fingerprints.put(method, new BodyFingerprint(numberOfUnits, invokedMethods));
+            }
+            Map<String, List<Unit>> units = Maps.newHashMap();
+            List<Edge> edges = Lists.newArrayList();
+            int numberOfEdges = in.readInt();
+            for (int i = 0; i < numberOfEdges; i++) {
+                String src = strings[in.readInt()];
+                int index = in.readInt();
+                String tgt = strings[in.readInt()];
+                String kind = strings[in.readInt()];
+                Unit srcUnit = callSite(src, index, units, fingerprints);
+                if (srcUnit == null || !Scene.v().containsMethod(tgt))
+                    continue;
+                edges.add(new Edge(Scene.v().getMethod(src), srcUnit, Scene.v().getMethod(tgt), Kind.valueOf(kind)));
+            }
+            List<Unit> queriedCallSites = Lists.newArrayList();
+            int numberOfCallSites = in.readInt();
+            for (int i = 0; i < numberOfCallSites; i++) {
+                Unit callSite = callSite(strings[in.readInt()], in.readInt(), units, fingerprints);
+                if (callSite != null)
+                    queriedCallSites.add(callSite);
+            }
+            return new CallGraphEdgeCache(edges, queriedCallSites);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read call graph edges from " + file, e);
+        }
+    }
+
+    private static Unit callSite(String signature, int index, Map<String, List<Unit>> cache,
+            Map<String, BodyFingerprint> fingerprints) {
+        List<Unit> units = cache.get(signature);
+        if (units == null) {
+            units = Collections.emptyList();
+            if (Scene.v().containsMethod(signature)) {
+                SootMethod m = Scene.v().getMethod(signature);
+                // Unit indices only denote the same statements in an unchanged body
+                if (m.hasActiveBody() && BodyFingerprint.of(m).equals(fingerprints.get(signature)))
+                    units = Lists.newArrayList(m.getActiveBody().getUnits());
+            }
+            cache.put(signature, units);
+        }
+        if (index < 0 || index >= units.size())
+            return null;
+        Unit u = units.get(index);
+        return ((Stmt) u).containsInvokeExpr() ? u : null;
+    }
+
+    private static int id(String s, Map<String, Integer> strings) {
+        Integer id = strings.get(s);
+        if (id == null) {
+            id = strings.size();
+            strings.put(s, id);
+        }
+        return id;
+    }
+
+    private static Map<Unit, Integer> unitIndices(SootMethod m, Map<SootMethod, Map<Unit, Integer>> cache) {
+        Map<Unit, Integer> indices = cache.get(m);
+        if (indices == null) {
+            indices = Maps.newHashMap();
+            if (m.hasActiveBody()) {
+                int i = 0;
+                for (Unit u : m.getActiveBody().getUnits()) {
+                    indices.put(u, i++);
+                }
+            }
+            cache.put(m, indices);
+        }
+        return indices;
+    }
+
+    private static class BodyFingerprint {
+        private final int numberOfUnits;
+        private final List<String> invokedMethods;
+
+        private BodyFingerprint(int numberOfUnits, List<String> invokedMethods) {
+            this.numberOfUnits = numberOfUnits;
+            this.invokedMethods = invokedMethods;
+        }
+
+        private static BodyFingerprint of(SootMethod m) {
+            List<String> invokedMethods = Lists.newArrayList();
+            for (Unit u : m.getActiveBody().getUnits()) {
+                if (((Stmt) u).containsInvokeExpr())
+                    invokedMethods.add(((Stmt) u).getInvokeExpr().getMethodRef().getSignature());
+            }
+            return new BodyFingerprint(m.getActiveBody().getUnits().size(), invokedMethods);
+        }
+
+        @Override
+        public int hashCode() {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + ((invokedMethods == null) ? 0 : invokedMethods.hashCode());
+            result = prime * result + numberOfUnits;
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (obj == null)
+                return false;
+            if (getClass() != obj.getClass())
+                return false;
+            BodyFingerprint other = (BodyFingerprint) obj;
+            if (invokedMethods == null) {
+                if (other.invokedMethods != null)
+                    return false;
+            } else if (!invokedMethods.equals(other.invokedMethods))
+                return false;
+            if (numberOfUnits != other.numberOfUnits)
+                return false;
+            return true;
+        }
+    }
+}
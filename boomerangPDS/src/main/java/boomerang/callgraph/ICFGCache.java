@@ -0,0 +1,155 @@
+package boomerang.callgraph;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Maps;
+
+import heros.SynchronizedBy;
+import heros.solver.IDESolver;
+import soot.Body;
+import soot.MethodOrMethodContext;
+import soot.Scene;
+import soot.SootMethod;
+import soot.Unit;
+import soot.Value;
+import soot.jimple.Stmt;
+import soot.toolkits.exceptions.UnitThrowAnalysis;
+import soot.toolkits.graph.BriefUnitGraph;
+import soot.toolkits.graph.DirectedGraph;
+import soot.toolkits.graph.ExceptionalUnitGraph;
+
+/**
+ * The intraprocedural part of an ICFG: unit owners, unit graphs, parameter refs and calls within a method. None of it
+ * depends on the call graph, so one instance can be shared by all {@link ObservableDynamicICFG}s of a scene and be
+ * read concurrently by solvers on different threads. Unit graphs are built once per body and cached.
+ */
+public class ICFGCache {
+
+    private static ICFGCache withExceptions;
+    private static ICFGCache withoutExceptions;
+    private static Scene scene;
+
+    private final boolean enableExceptions;
+
+    @SynchronizedBy("populated in the constructor and read-only afterwards")
+    private final Map<Unit, Body> unitToOwner;
+
+    @SynchronizedBy("by use of synchronized LoadingCache class")
+    private final LoadingCache<Body, DirectedGraph<Unit>> bodyToUnitGraph = IDESolver.DEFAULT_CACHE_BUILDER
+            .build(new CacheLoader<Body, DirectedGraph<Unit>>() {
+                @Override
+                public DirectedGraph<Unit> load(Body body) {
+                    return enableExceptions ? new ExceptionalUnitGraph(body, UnitThrowAnalysis.v(), true)
+                            : new BriefUnitGraph(body);
+                }
+            });
+
+    @SynchronizedBy("by use of synchronized LoadingCache class")
+    private final LoadingCache<SootMethod, List<Value>> methodToParameterRefs = IDESolver.DEFAULT_CACHE_BUILDER
+            .build(new CacheLoader<SootMethod, List<Value>>() {
+                @Override
+                public List<Value> load(SootMethod m) {
+                    return Collections.unmodifiableList(m.getActiveBody().getParameterRefs());
+                }
+            });
+
+    @SynchronizedBy("by use of synchronized LoadingCache class")
+    private final LoadingCache<SootMethod, Set<Unit>> methodToCallsFromWithin = IDESolver.DEFAULT_CACHE_BUILDER
+            .build(new CacheLoader<SootMethod, Set<Unit>>() {
+                @Override
+                public Set<Unit> load(SootMethod m) {
+                    Set<Unit> res = null;
+                    for (Unit u : m.getActiveBody().getUnits()) {
+                        if (isCallStmt(u)) {
+                            if (res == null)
+                                res = new LinkedHashSet<>();
+                            res.add(u);
+                        }
+                    }
+                    return res == null ? Collections.emptySet() : Collections.unmodifiableSet(res);
+                }
+            });
+
+    public ICFGCache(boolean enableExceptions) {
+        this.enableExceptions = enableExceptions;
+        Map<Unit, Body> owners = Maps.newHashMap();
+        for (Iterator<MethodOrMethodContext> iter = Scene.v().getReachableMethods().listener(); iter.hasNext();) {
+            SootMethod m = iter.next().method();
+            if (m.hasActiveBody()) {
+                Body b = m.getActiveBody();
+                for (Unit unit : b.getUnits()) {
+                    owners.put(unit, b);
+                }
+            }
+        }
+        this.unitToOwner = Collections.unmodifiableMap(owners);
+    }
+
+    /**
+     * Returns the cache shared by all ICFGs of the current scene. A new cache is created whenever the scene changed.
+     */
+    public static synchronized ICFGCache v(boolean enableExceptions) {
+        if (scene != Scene.v()) {
+            scene = Scene.v();
+            withExceptions = null;
+            withoutExceptions = null;
+        }
+        if (enableExceptions) {
+            if (withExceptions == null)
+                withExceptions = new ICFGCache(true);
+            return withExceptions;
+        }
+        if (withoutExceptions == null)
+            withoutExceptions = new ICFGCache(false);
+        return withoutExceptions;
+    }
+
+    /**
+     * Drops the caches of the current scene. Call it together with {@code G.reset()}, the caches otherwise keep the
+     * bodies of the old scene alive until the next call to {@link #v(boolean)}.
+     */
+    public static synchronized void reset() {
+        scene = null;
+        withExceptions = null;
+        withoutExceptions = null;
+    }
+
+    public boolean isEnableExceptions() {
+        return enableExceptions;
+    }
+
+    public Body getOwner(Unit unit) {
+        return unitToOwner.get(unit);
+    }
+
+    public boolean isReachable(Unit unit) {
+        return unitToOwner.containsKey(unit);
+    }
+
+    public Set<Unit> getReachableUnits() {
+        return unitToOwner.keySet();
+    }
+
+    public DirectedGraph<Unit> getUnitGraph(Body body) {
+        return bodyToUnitGraph.getUnchecked(body);
+    }
+
+    public List<Value> getParameterRefs(SootMethod sootMethod) {
+        return methodToParameterRefs.getUnchecked(sootMethod);
+    }
+
+    public Set<Unit> getCallsFromWithin(SootMethod sootMethod) {
+        return methodToCallsFromWithin.getUnchecked(sootMethod);
+    }
+
+    static boolean isCallStmt(Unit unit) {
+        return ((Stmt) unit).containsInvokeExpr();
+    }
+}
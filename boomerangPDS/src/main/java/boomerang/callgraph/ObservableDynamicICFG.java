@@ -2,7 +2,6 @@ package boomerang.callgraph;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
@@ -11,13 +10,13 @@ import java.util.Map;
 import java.util.Set;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
 import boomerang.BackwardQuery;
+import boomerang.BackwardQueryCache;
 import boomerang.Boomerang;
 import boomerang.ForwardQuery;
 import boomerang.Query;
@@ -25,17 +24,14 @@ import boomerang.SolverCreationListener;
 import boomerang.WeightedBoomerang;
 import boomerang.jimple.Statement;
 import boomerang.jimple.Val;
+import boomerang.results.BackwardBoomerangResults;
 import boomerang.results.ExtractAllocationSiteStateListener;
 import boomerang.solver.AbstractBoomerangSolver;
 import boomerang.solver.ForwardBoomerangSolver;
-import heros.DontSynchronize;
 import heros.SynchronizedBy;
-import heros.solver.IDESolver;
 import soot.ArrayType;
 import soot.Body;
 import soot.Kind;
-import soot.MethodOrMethodContext;
-import soot.PatchingChain;
 import soot.RefType;
 import soot.Scene;
 import soot.SootClass;
@@ -49,10 +45,7 @@ import soot.jimple.SpecialInvokeExpr;
 import soot.jimple.Stmt;
 import soot.jimple.toolkits.callgraph.CallGraph;
 import soot.jimple.toolkits.callgraph.Edge;
-import soot.toolkits.exceptions.UnitThrowAnalysis;
-import soot.toolkits.graph.BriefUnitGraph;
 import soot.toolkits.graph.DirectedGraph;
-import soot.toolkits.graph.ExceptionalUnitGraph;
 import sync.pds.solver.nodes.INode;
 import sync.pds.solver.nodes.Node;
 import wpds.impl.Weight;
@@ -92,21 +85,7 @@ public class ObservableDynamicICFG implements ObservableICFG<Unit, SootMethod> {
               protected void allocationSiteFound(ForwardQuery allocationSite,
                   BackwardQuery query) {
                 logger.debug("Found AllocationSite '{}'.", forwardQuery);
-                Type type = forwardQuery.getType();
-                if (type instanceof RefType) {
-                    for (SootMethod calleeMethod : getMethodFromClassOrFromSuperclass(invokeExpr.getMethod(),
-                            ((RefType) type).getSootClass())) {
-                        addCallIfNotInGraph(unit, calleeMethod, Kind.VIRTUAL);
-                    }
-                } else if (type instanceof ArrayType) {
-                    Type base = ((ArrayType) type).baseType;
-                    if (base instanceof RefType) {
-                        for (SootMethod calleeMethod : getMethodFromClassOrFromSuperclass(invokeExpr.getMethod(),
-                                ((RefType) base).getSootClass())) {
-                            addCallIfNotInGraph(unit, calleeMethod, Kind.VIRTUAL);
-                        }
-                    }
-                }
+                addCallsForAllocationSite(unit, invokeExpr, forwardQuery);
               };
         });
       }
@@ -157,58 +136,24 @@ public class ObservableDynamicICFG implements ObservableICFG<Unit, SootMethod> {
     private CallGraph demandDrivenCallGraph = new CallGraph();
     private CallGraph precomputedCallGraph;
     private WeightedBoomerang<? extends Weight> solver;
-    private Set<SootMethod> unbalancedMethods = Sets.newHashSet();
+    private Set<SootMethod> unbalancedMethods = Sets.newConcurrentHashSet();
+    // Call sites whose receiver was already queried, the listeners of that query keep adding the callees they find
+    private Set<Unit> queriedCallSites = Sets.newHashSet();
+    // Queried call sites whose receiver queries all terminated without a timeout
+    private Set<Unit> completedCallSites = Sets.newHashSet();
+    private CallGraphEdgeCache preseededEdges;
+    private BackwardQueryCache backwardQueryCache;
+    // Per call site, the precomputed edges that are not in the demand-driven call graph yet
+    private Map<Unit, Set<Edge>> uncoveredPrecomputedEdges = Maps.newHashMap();
 
     private Multimap<Unit, CalleeListener<Unit, SootMethod>> calleeListeners = HashMultimap.create();
     private Multimap<SootMethod, CallerListener<Unit, SootMethod>> callerListeners = HashMultimap.create();
 
-    private final boolean enableExceptions;
-
-    @DontSynchronize("written by single thread; read afterwards")
-    private final Map<Unit, Body> unitToOwner = new HashMap<>();
-
-    @SynchronizedBy("by use of synchronized LoadingCache class")
-    private final LoadingCache<Body, DirectedGraph<Unit>> bodyToUnitGraph = IDESolver.DEFAULT_CACHE_BUILDER
-            .build(new CacheLoader<Body, DirectedGraph<Unit>>() {
-                @Override
-                public DirectedGraph<Unit> load(Body body) {
-                    return makeGraph(body);
-                }
-
-                private DirectedGraph<Unit> makeGraph(Body body) {
-                    return enableExceptions ? new ExceptionalUnitGraph(body, UnitThrowAnalysis.v(), true)
-                            : new BriefUnitGraph(body);
-                }
-            });
-
-    @SynchronizedBy("by use of synchronized LoadingCache class")
-    private final LoadingCache<SootMethod, List<Value>> methodToParameterRefs = IDESolver.DEFAULT_CACHE_BUILDER
-            .build(new CacheLoader<SootMethod, List<Value>>() {
-                @Override
-                public List<Value> load(SootMethod m) {
-                    return m.getActiveBody().getParameterRefs();
-                }
-            });
-
-    @SynchronizedBy("by use of synchronized LoadingCache class")
-    private final LoadingCache<SootMethod, Set<Unit>> methodToCallsFromWithin = IDESolver.DEFAULT_CACHE_BUILDER
-            .build(new CacheLoader<SootMethod, Set<Unit>>() {
-                @Override
-                public Set<Unit> load(SootMethod m) {
-                    Set<Unit> res = null;
-                    for (Unit u : m.getActiveBody().getUnits()) {
-                        if (isCallStmt(u)) {
-                            if (res == null)
-                                res = new LinkedHashSet<>();
-                            res.add(u);
-                        }
-                    }
-                    return res == null ? Collections.emptySet() : res;
-                }
-            });
+    @SynchronizedBy("shared read-only caches, see ICFGCache")
+    private final ICFGCache cache;
 
     public ObservableDynamicICFG(boolean enableExceptions) {
-        this.enableExceptions = enableExceptions;
+        this.cache = ICFGCache.v(enableExceptions);
         this.solver = new Boomerang() {
             @Override
             public ObservableICFG<Unit, SootMethod> icfg() {
@@ -217,8 +162,6 @@ public class ObservableDynamicICFG implements ObservableICFG<Unit, SootMethod> {
         };
 
         this.precomputedCallGraph = Scene.v().getCallGraph();
-
-        initializeUnitToOwner();
     }
 
     public ObservableDynamicICFG(WeightedBoomerang<? extends Weight> solver) {
@@ -226,32 +169,38 @@ public class ObservableDynamicICFG implements ObservableICFG<Unit, SootMethod> {
     }
 
     public ObservableDynamicICFG(WeightedBoomerang<? extends Weight> solver, boolean enableExceptions) {
+        this(solver, ICFGCache.v(enableExceptions));
+    }
+
+    /**
+     * Creates an ICFG that reads all intraprocedural information from the given cache. The cache may be shared with
+     * ICFGs of other solvers, also across threads.
+     */
+    public ObservableDynamicICFG(WeightedBoomerang<? extends Weight> solver, ICFGCache cache) {
         this.solver = solver;
-        this.enableExceptions = enableExceptions;
+        this.cache = cache;
 
         this.precomputedCallGraph = Scene.v().getCallGraph();
-
-        initializeUnitToOwner();
     }
 
     @Override
     public SootMethod getMethodOf(Unit unit) {
-        assert unitToOwner.containsKey(unit) : "Statement " + unit + " not in unit-to-owner mapping";
-        Body b = unitToOwner.get(unit);
+        assert cache.isReachable(unit) : "Statement " + unit + " not in unit-to-owner mapping";
+        Body b = cache.getOwner(unit);
         return b == null ? null : b.getMethod();
     }
 
     @Override
     public List<Unit> getPredsOf(Unit unit) {
         assert unit != null;
-        Body body = unitToOwner.get(unit);
+        Body body = cache.getOwner(unit);
         DirectedGraph<Unit> unitGraph = getOrCreateUnitGraph(body);
         return unitGraph.getPredsOf(unit);
     }
 
     @Override
     public List<Unit> getSuccsOf(Unit unit) {
-        Body body = unitToOwner.get(unit);
+        Body body = cache.getOwner(unit);
         if (body == null)
             return Collections.emptyList();
         DirectedGraph<Unit> unitGraph = getOrCreateUnitGraph(body);
@@ -259,7 +208,7 @@ public class ObservableDynamicICFG implements ObservableICFG<Unit, SootMethod> {
     }
 
     private DirectedGraph<Unit> getOrCreateUnitGraph(Body body) {
-        return bodyToUnitGraph.getUnchecked(body);
+        return cache.getUnitGraph(body);
     }
 
     @Override
@@ -285,8 +234,8 @@ public class ObservableDynamicICFG implements ObservableICFG<Unit, SootMethod> {
                 // If it was a special invoke, there is a single target
                 addCallIfNotInGraph(unit, ie.getMethod(), Kind.SPECIAL);
                 // If the precomputed graph has more edges than our graph, there may be more edges to find
-            } else if (precomputedCallGraph != null && potentiallyHasMoreEdges(precomputedCallGraph.edgesOutOf(unit),
-                    demandDrivenCallGraph.edgesOutOf(unit))) {
+            } else if (precomputedCallGraph != null && !queriedCallSites.contains(unit)
+                    && potentiallyHasMoreEdges(unit)) {
                 // Query for callees of the unit and add edges to the graph
                 queryForCallees(unit);
             }
@@ -299,18 +248,35 @@ public class ObservableDynamicICFG implements ObservableICFG<Unit, SootMethod> {
     private void queryForCallees(Unit unit) {
         // Construct BackwardQuery, so we know which types the object might have
         logger.debug("Queried for callees of '{}'.", unit);
+        queriedCallSites.add(unit);
         Stmt stmt = (Stmt) unit;
         InvokeExpr invokeExpr = stmt.getInvokeExpr();
         Value value = ((InstanceInvokeExpr) invokeExpr).getBase();
         Val val = new Val(value, getMethodOf(stmt));
+        boolean timedout = false;
         for (Unit pred : getPredsOf(stmt)) {
             Statement statement = new Statement((Stmt) pred, getMethodOf(unit));
 
             BackwardQuery query = new BackwardQuery(statement, val);
 
+            Set<ForwardQuery> cachedAllocationSites = backwardQueryCache == null ? null
+                    : backwardQueryCache.getIfPresent(query);
+            if (cachedAllocationSites != null) {
+                for (ForwardQuery allocationSite : cachedAllocationSites) {
+                    addCallsForAllocationSite(stmt, invokeExpr, allocationSite);
+                }
+                continue;
+            }
+
             // Execute that query
-            solver.solve(query, false);
+            BackwardBoomerangResults<? extends Weight> results = solver.solve(query, false);
+            timedout |= results.isTimedout();
             forAnyAllocationSiteOfQuery(query, invokeExpr, stmt);
+            if (backwardQueryCache != null) {
+                // The allocation sites found so far are already added as edges, later edges at the methods the query
+                // visited drop the entry again
+                backwardQueryCache.put(query, results);
+            }
             
             // Go through possible types an add edges to implementations in possible types
 //            Set<ForwardQuery> keySet = results.getAllocationSites().keySet();
@@ -329,6 +295,9 @@ public class ObservableDynamicICFG implements ObservableICFG<Unit, SootMethod> {
 //                }
 //            }
         }
+        if (!timedout) {
+            completedCallSites.add(unit);
+        }
     }
 
     
@@ -337,6 +306,24 @@ public class ObservableDynamicICFG implements ObservableICFG<Unit, SootMethod> {
       solver.registerSolverCreationListener(new IterateSolvers(query, unit, invokeExpr));
     }
 
+    private void addCallsForAllocationSite(Stmt unit, InvokeExpr invokeExpr, ForwardQuery allocationSite) {
+        Type type = allocationSite.getType();
+        if (type instanceof RefType) {
+            for (SootMethod calleeMethod : getMethodFromClassOrFromSuperclass(invokeExpr.getMethod(),
+                    ((RefType) type).getSootClass())) {
+                addCallIfNotInGraph(unit, calleeMethod, Kind.VIRTUAL);
+            }
+        } else if (type instanceof ArrayType) {
+            Type base = ((ArrayType) type).baseType;
+            if (base instanceof RefType) {
+                for (SootMethod calleeMethod : getMethodFromClassOrFromSuperclass(invokeExpr.getMethod(),
+                        ((RefType) base).getSootClass())) {
+                    addCallIfNotInGraph(unit, calleeMethod, Kind.VIRTUAL);
+                }
+            }
+        }
+    }
+
     private Collection<SootMethod> getMethodFromClassOrFromSuperclass(SootMethod method, SootClass sootClass) {
         Set<SootMethod> res = Sets.newHashSet();
         SootClass originalClass = sootClass;
@@ -392,28 +379,20 @@ public class ObservableDynamicICFG implements ObservableICFG<Unit, SootMethod> {
         }
     }
 
-    private boolean potentiallyHasMoreEdges(Iterator<Edge> chaEdgeIterator, Iterator<Edge> knownEdgeIterator) {
-        // Make a map checking for every edge in the CHA call graph whether it is in the known edges
-
-        // Start by assuming no edge is covered
-        HashMap<Edge, Boolean> wasEdgeCovered = new HashMap<>();
-        while (chaEdgeIterator.hasNext()) {
-            wasEdgeCovered.put(chaEdgeIterator.next(), false);
-        }
-
-        // Put true for all known edges
-        while (knownEdgeIterator.hasNext()) {
-            wasEdgeCovered.put(knownEdgeIterator.next(), true);
-        }
-
-        // If any single edge is not covered, return false
-        for (Boolean edgeWasCovered : wasEdgeCovered.values()) {
-            if (!edgeWasCovered) {
-                return true;
+    /**
+     * Returns true if the precomputed call graph has an edge out of the call site that is not in the demand-driven call
+     * graph. The uncovered edges of a call site are collected on its first check and removed as edges are added.
+     */
+    private boolean potentiallyHasMoreEdges(Unit unit) {
+        Set<Edge> uncovered = uncoveredPrecomputedEdges.get(unit);
+        if (uncovered == null) {
+            uncovered = Sets.newHashSet(precomputedCallGraph.edgesOutOf(unit));
+            for (Iterator<Edge> known = demandDrivenCallGraph.edgesOutOf(unit); known.hasNext();) {
+                uncovered.remove(known.next());
             }
+            uncoveredPrecomputedEdges.put(unit, uncovered);
         }
-        // All edges were covered
-        return false;
+        return !uncovered.isEmpty();
     }
 
     @Override
@@ -450,6 +429,13 @@ public class ObservableDynamicICFG implements ObservableICFG<Unit, SootMethod> {
         if (!demandDrivenCallGraph.addEdge(edge)) {
             return false;
         }
+        if (backwardQueryCache != null) {
+            backwardQueryCache.callAdded(edge.src(), caller, callee);
+        }
+        Set<Edge> uncovered = uncoveredPrecomputedEdges.get(caller);
+        if (uncovered != null) {
+            uncovered.remove(edge);
+        }
         logger.debug("Added call from unit '{}' to method '{}'", caller, callee);
         // Notify all interested listeners, so ..
         // .. CalleeListeners interested in callees of the caller or the CallGraphExtractor that is interested in any
@@ -465,7 +451,7 @@ public class ObservableDynamicICFG implements ObservableICFG<Unit, SootMethod> {
 
     @Override
     public Set<Unit> getCallsFromWithin(SootMethod sootMethod) {
-        return methodToCallsFromWithin.getUnchecked(sootMethod);
+        return cache.getCallsFromWithin(sootMethod);
     }
 
     @Override
@@ -480,26 +466,26 @@ public class ObservableDynamicICFG implements ObservableICFG<Unit, SootMethod> {
 
     @Override
     public boolean isCallStmt(Unit unit) {
-        return ((Stmt) unit).containsInvokeExpr();
+        return ICFGCache.isCallStmt(unit);
     }
 
     @Override
     public boolean isExitStmt(Unit unit) {
-        Body body = unitToOwner.get(unit);
+        Body body = cache.getOwner(unit);
         DirectedGraph<Unit> unitGraph = getOrCreateUnitGraph(body);
         return unitGraph.getTails().contains(unit);
     }
 
     @Override
     public boolean isStartPoint(Unit unit) {
-        Body body = unitToOwner.get(unit);
+        Body body = cache.getOwner(unit);
         DirectedGraph<Unit> unitGraph = getOrCreateUnitGraph(body);
         return unitGraph.getHeads().contains(unit);
     }
 
     @Override
     public Set<Unit> allNonCallStartNodes() {
-        Set<Unit> res = new LinkedHashSet<>(unitToOwner.keySet());
+        Set<Unit> res = new LinkedHashSet<>(cache.getReachableUnits());
         res.removeIf(u -> isStartPoint(u) || isCallStmt(u));
         return res;
     }
@@ -516,32 +502,19 @@ public class ObservableDynamicICFG implements ObservableICFG<Unit, SootMethod> {
 
     @Override
     public Set<Unit> allNonCallEndNodes() {
-        Set<Unit> res = new LinkedHashSet<>(unitToOwner.keySet());
+        Set<Unit> res = new LinkedHashSet<>(cache.getReachableUnits());
         res.removeIf(u -> isExitStmt(u) || isCallStmt(u));
         return res;
     }
 
     @Override
     public List<Value> getParameterRefs(SootMethod sootMethod) {
-        return methodToParameterRefs.getUnchecked(sootMethod);
+        return cache.getParameterRefs(sootMethod);
     }
 
     @Override
     public boolean isReachable(Unit u) {
-        return unitToOwner.containsKey(u);
-    }
-
-    private void initializeUnitToOwner() {
-        for (Iterator<MethodOrMethodContext> iter = Scene.v().getReachableMethods().listener(); iter.hasNext();) {
-            SootMethod m = iter.next().method();
-            if (m.hasActiveBody()) {
-                Body b = m.getActiveBody();
-                PatchingChain<Unit> units = b.getUnits();
-                for (Unit unit : units) {
-                    unitToOwner.put(unit, b);
-                }
-            }
-        }
+        return cache.isReachable(u);
     }
 
     public CallGraph getCallGraphCopy() {
@@ -568,6 +541,50 @@ public class ObservableDynamicICFG implements ObservableICFG<Unit, SootMethod> {
         return numberOfEdgesTakenFromPrecomputedCallGraph;
     }
 
+    /**
+     * Returns the edges found so far together with the call sites whose receivers were queried, e.g. to be written to
+     * disk and pre-seed the call graph of a later run on the same program. Call sites whose receiver query timed out
+     * are left out together with their edges, a later run queries them again.
+     */
+    public CallGraphEdgeCache getCallGraphEdgeCache() {
+        List<Edge> edges = Lists.newArrayList();
+        for (Edge e : demandDrivenCallGraph) {
+            if (queriedCallSites.contains(e.srcUnit()) && !completedCallSites.contains(e.srcUnit()))
+                continue;
+            edges.add(e);
+        }
+        return new CallGraphEdgeCache(edges, completedCallSites);
+    }
+
+    /**
+     * Answers the backward queries for the receivers of call sites from the given cache where possible and reports each
+     * new call to it. The cache must only be used with this ICFG. Its entries are kept across {@link #resetCallGraph()},
+     * receiver queries complete the call graph they depend on by themselves, so their results do not depend on the
+     * edges present when they were issued.
+     */
+    public void setBackwardQueryCache(BackwardQueryCache backwardQueryCache) {
+        this.backwardQueryCache = backwardQueryCache;
+    }
+
+    /**
+     * Adds the edges of an earlier run to the call graph and marks their queried call sites, so no receiver query is
+     * issued for them again. The edges are added again after each {@link #resetCallGraph()}.
+     */
+    public void preseed(CallGraphEdgeCache edges) {
+        this.preseededEdges = edges;
+        addPreseededEdges();
+    }
+
+    private void addPreseededEdges() {
+        if (preseededEdges == null)
+            return;
+        for (Edge e : preseededEdges.getEdges()) {
+            addCallIfNotInGraph(e.srcUnit(), e.tgt(), e.kind());
+        }
+        queriedCallSites.addAll(preseededEdges.getQueriedCallSites());
+        completedCallSites.addAll(preseededEdges.getQueriedCallSites());
+    }
+
     @Override
     public void resetCallGraph() {
         demandDrivenCallGraph = new CallGraph();
@@ -575,6 +592,10 @@ public class ObservableDynamicICFG implements ObservableICFG<Unit, SootMethod> {
         unbalancedMethods.clear();
         calleeListeners.clear();
         callerListeners.clear();
+        queriedCallSites.clear();
+        completedCallSites.clear();
+        uncoveredPrecomputedEdges.clear();
+        addPreseededEdges();
     }
 
 }
@@ -14,6 +14,7 @@ package boomerang.example;
 import boomerang.BackwardQuery;
 import boomerang.Boomerang;
 import boomerang.DefaultBoomerangOptions;
+import boomerang.callgraph.ICFGCache;
 import boomerang.callgraph.ObservableDynamicICFG;
 import boomerang.callgraph.ObservableICFG;
 import boomerang.jimple.Statement;
@@ -62,6 +63,7 @@ public class ExampleMain {
 
     private static void setupSoot(String sootClassPath, String mainClass) {
         G.v().reset();
+        ICFGCache.reset();
         Options.v().set_whole_program(true);
         Options.v().setPhaseOption("cg.spark", "on");
         Options.v().set_output_format(Options.output_format_none);
@@ -11,8 +11,10 @@
  *******************************************************************************/
 package boomerang.jimple;
 
-import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import com.google.common.collect.Maps;
 
 import soot.SootField;
@@ -22,10 +24,11 @@ import wpds.wildcard.ExclusionWildcard;
 import wpds.wildcard.Wildcard;
 
 public class Field implements Location {
-    private static Field wildcard;
-    private static Field epsilon;
-    private static Field empty;
-    private static Field array;
+    private static final Field WILDCARD = new WildcardField();
+    private static final Field EPSILON = new EmptyField("eps_f");
+    private static final Field EMPTY = new EmptyField("{}");
+    private static final Field ARRAY = new Field("array");
+    private static final Interner<Field> INTERNER = Interners.newWeakInterner();
     private final SootField delegate;
     private final String rep;
 
@@ -39,6 +42,14 @@ public class Field implements Location {
         this.delegate = null;
     }
 
+    /**
+     * Returns the canonical field, equal fields created by this method are reference-equal. Canonical fields are only
+     * weakly referenced.
+     */
+    public static Field of(SootField delegate) {
+        return INTERNER.intern(new Field(delegate));
+    }
+
     @Override
     public int hashCode() {
         final int prime = 31;
@@ -92,17 +103,11 @@ public class Field implements Location {
     }
 
     public static Field wildcard() {
-        if (wildcard == null) {
-            wildcard = new WildcardField();
-        }
-        return wildcard;
+        return WILDCARD;
     }
 
     public static Field empty() {
-        if (empty == null) {
-            empty = new EmptyField("{}");
-        }
-        return empty;
+        return EMPTY;
     }
 
     private static class EmptyField extends Field implements Empty {
@@ -112,17 +117,11 @@ public class Field implements Location {
     }
 
     public static Field epsilon() {
-        if (epsilon == null) {
-            epsilon = new EmptyField("eps_f");
-        }
-        return epsilon;
+        return EPSILON;
     }
 
     public static Field array() {
-        if (array == null) {
-            array = new Field("array");
-        }
-        return array;
+        return ARRAY;
     }
 
     private static class WildcardField extends Field implements Wildcard {
@@ -181,13 +180,15 @@ public class Field implements Location {
 
     }
 
-    private static Map<Field, ExclusionWildcardField> exclusionWildcards = Maps.newHashMap();
+    private static ConcurrentMap<Field, ExclusionWildcardField> exclusionWildcards = Maps.newConcurrentMap();
 
     public static Field exclusionWildcard(Field exclusion) {
-        if (!exclusionWildcards.containsKey(exclusion)) {
-            exclusionWildcards.put(exclusion, new ExclusionWildcardField(exclusion));
+        ExclusionWildcardField wildcard = exclusionWildcards.get(exclusion);
+        if (wildcard == null) {
+            exclusionWildcards.putIfAbsent(exclusion, new ExclusionWildcardField(exclusion));
+            wildcard = exclusionWildcards.get(exclusion);
         }
-        return exclusionWildcards.get(exclusion);
+        return wildcard;
     }
 
     public SootField getSootField() {
@@ -16,6 +16,8 @@ import java.util.Map;
 
 import com.google.common.base.Joiner;
 import com.google.common.base.Optional;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 
 import soot.SootMethod;
 import soot.jimple.AssignStmt;
@@ -29,10 +31,12 @@ import wpds.interfaces.Location;
 
 public class Statement implements Location {
     // Wrapper for stmt so we know the method
-    private static Statement epsilon;
+    private static final Statement EPSILON = new EpsStatement();
+    private static final Interner<Statement> INTERNER = Interners.newWeakInterner();
     private final Stmt delegate;
     private final SootMethod method;
     private final String rep;
+    private int hashCode;
 
     public Statement(Stmt delegate, SootMethod m) {
         this.delegate = delegate;
@@ -46,6 +50,14 @@ public class Statement implements Location {
         this.method = null;
     }
 
+    /**
+     * Returns the canonical statement for the stmt, equal statements created by this method are reference-equal.
+     * Canonical statements are only weakly referenced.
+     */
+    public static Statement of(Stmt delegate, SootMethod m) {
+        return INTERNER.intern(new Statement(delegate, m));
+    }
+
     public Optional<Stmt> getUnit() {
         if (delegate == null)
             return Optional.absent();
@@ -58,10 +70,13 @@ public class Statement implements Location {
 
     @Override
     public int hashCode() {
+        if (hashCode != 0)
+            return hashCode;
         final int prime = 31;
         int result = 1;
         result = prime * result + ((delegate == null) ? 0 : delegate.hashCode());
         result = prime * result + ((rep == null) ? 0 : rep.hashCode());
+        hashCode = result;
         return result;
     }
 
@@ -88,10 +103,7 @@ public class Statement implements Location {
     }
 
     public static Statement epsilon() {
-        if (epsilon == null) {
-            epsilon = new EpsStatement();
-        }
-        return epsilon;
+        return EPSILON;
     }
 
     private static class EpsStatement extends Statement implements Empty {
@@ -153,17 +165,21 @@ public class Statement implements Location {
     private static Map<Stmt, Integer> statementToInteger = new HashMap<>();
 
     public int stmtToInt(Stmt s) {
-        if (!statementToInteger.containsKey(s)) {
-            statementToInteger.put(s, statementToInteger.size());
+        synchronized (statementToInteger) {
+            if (!statementToInteger.containsKey(s)) {
+                statementToInteger.put(s, statementToInteger.size());
+            }
+            return statementToInteger.get(s);
         }
-        return statementToInteger.get(s);
     }
 
     public int methodToInt(SootMethod method) {
-        if (!methodToInteger.containsKey(method)) {
-            methodToInteger.put(method, methodToInteger.size());
+        synchronized (methodToInteger) {
+            if (!methodToInteger.containsKey(method)) {
+                methodToInteger.put(method, methodToInteger.size());
+            }
+            return methodToInteger.get(method);
         }
-        return methodToInteger.get(method);
     }
 
     public SootMethod getMethod() {
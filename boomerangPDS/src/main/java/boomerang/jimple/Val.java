@@ -11,6 +11,9 @@
  *******************************************************************************/
 package boomerang.jimple;
 
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
 import soot.Local;
 import soot.NullType;
 import soot.SootMethod;
@@ -22,8 +25,12 @@ public class Val {
     private final Value v;
     private final String rep;
     protected final Statement unbalancedStmt;
+    private int hashCode;
 
-    private static Val zeroInstance;
+    private static final Val ZERO = new Val("ZERO");
+    // Only holds locals wrapped in instances of Val itself, the subclasses are equal to a Val of the same value. Other
+    // values, e.g. constants, are equal across methods and equals ignores the method.
+    private static final Interner<Val> INTERNER = Interners.newWeakInterner();
 
     public Val(Value v, SootMethod m) {
         this(v, m, null);
@@ -52,6 +59,18 @@ public class Val {
         this.unbalancedStmt = null;
     }
 
+    /**
+     * Returns the canonical value of a local, equal locals created by this method are reference-equal. Canonical values
+     * are only weakly referenced. Values other than locals are not canonicalized, as an equal value of another method
+     * could be returned otherwise.
+     */
+    public static Val of(Value v, SootMethod m) {
+        Val val = new Val(v, m);
+        if (!(v instanceof Local))
+            return val;
+        return INTERNER.intern(val);
+    }
+
     public Value value() {
         return v;
     }
@@ -66,12 +85,15 @@ public class Val {
 
     @Override
     public int hashCode() {
+        if (hashCode != 0)
+            return hashCode;
         final int prime = 31;
         int result = 1;
         // result = prime * result + ((m == null) ? 0 : m.hashCode());
         result = prime * result + ((rep == null) ? 0 : rep.hashCode());
         result = prime * result + ((v == null) ? 0 : v.hashCode());
         result = prime * result + ((unbalancedStmt == null) ? 0 : unbalancedStmt.hashCode());
+        hashCode = result;
         return result;
     }
 
@@ -112,9 +134,7 @@ public class Val {
     }
 
     public static Val zero() {
-        if (zeroInstance == null)
-            zeroInstance = new Val("ZERO");
-        return zeroInstance;
+        return ZERO;
     }
 
     public boolean isStatic() {
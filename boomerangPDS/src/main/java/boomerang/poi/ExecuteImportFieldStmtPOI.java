@@ -6,6 +6,7 @@ import boomerang.jimple.Statement;
 import boomerang.jimple.Val;
 import boomerang.solver.AbstractBoomerangSolver;
 import boomerang.solver.BackwardBoomerangSolver;
+import boomerang.solver.SolverDependentListener;
 import boomerang.solver.StatementBasedCallTransitionListener;
 import boomerang.solver.StatementBasedFieldTransitionListener;
 import sync.pds.solver.SyncPDSUpdateListener;
@@ -20,7 +21,7 @@ import wpds.interfaces.WPAStateListener;
 import wpds.interfaces.WPAUpdateListener;
 
 public abstract class ExecuteImportFieldStmtPOI<W extends Weight> {
-    private final class ImportTransitionFromCall extends StatementBasedCallTransitionListener<W> {
+    private final class ImportTransitionFromCall extends ImportCallTransitionListener {
         private AbstractBoomerangSolver<W> flowSolver;
         private INode<Val> target;
         private W w;
@@ -80,7 +81,7 @@ public abstract class ExecuteImportFieldStmtPOI<W extends Weight> {
 
     }
 
-    private final class ImportOnReachStatement extends StatementBasedCallTransitionListener<W> {
+    private final class ImportOnReachStatement extends ImportCallTransitionListener {
         private final Statement callSiteOrExitStmt;
         private AbstractBoomerangSolver<W> flowSolver;
 
@@ -134,7 +135,8 @@ public abstract class ExecuteImportFieldStmtPOI<W extends Weight> {
 
     }
 
-    private class ForAnyCallSiteOrExitStmt implements WPAUpdateListener<Statement, INode<Val>, W> {
+    private class ForAnyCallSiteOrExitStmt
+            implements WPAUpdateListener<Statement, INode<Val>, W>, SolverDependentListener {
         private AbstractBoomerangSolver<W> baseSolver;
 
         public ForAnyCallSiteOrExitStmt(AbstractBoomerangSolver<W> baseSolver) {
@@ -173,6 +175,8 @@ public abstract class ExecuteImportFieldStmtPOI<W extends Weight> {
 
                 @Override
                 public void run() {
+                    if (detached)
+                        return;
                     baseSolver.registerStatementCallTransitionListener(
                             new ImportOnReachStatement(flowSolver, callSiteOrExitStmt));
                     baseSolver.registerStatementCallTransitionListener(
@@ -182,6 +186,11 @@ public abstract class ExecuteImportFieldStmtPOI<W extends Weight> {
             });
         }
 
+        @Override
+        public boolean dependsOn(AbstractBoomerangSolver<?> solver) {
+            return ExecuteImportFieldStmtPOI.this.dependsOn(solver);
+        }
+
         @Override
         public int hashCode() {
             final int prime = 31;
@@ -219,6 +228,7 @@ public abstract class ExecuteImportFieldStmtPOI<W extends Weight> {
     private final Val storedVar;
     private final Field field;
     boolean active = false;
+    private boolean detached = false;
     private WeightedBoomerang<W> boomerang;
 
     public ExecuteImportFieldStmtPOI(WeightedBoomerang<W> boomerang, final AbstractBoomerangSolver<W> baseSolver,
@@ -235,6 +245,51 @@ public abstract class ExecuteImportFieldStmtPOI<W extends Weight> {
         this.field = poi.getField();
     }
 
+    public boolean dependsOn(AbstractBoomerangSolver<?> solver) {
+        return baseSolver == solver || flowSolver == solver;
+    }
+
+    /**
+     * Base of the listeners this POI registers on its base and flow solver, they are unregistered together with either
+     * solver.
+     */
+    private abstract class ImportCallTransitionListener extends StatementBasedCallTransitionListener<W>
+            implements SolverDependentListener {
+
+        public ImportCallTransitionListener(Statement stmt) {
+            super(stmt);
+        }
+
+        @Override
+        public boolean dependsOn(AbstractBoomerangSolver<?> solver) {
+            return ExecuteImportFieldStmtPOI.this.dependsOn(solver);
+        }
+    }
+
+    /**
+     * See {@link ImportCallTransitionListener}.
+     */
+    private abstract class ImportFieldTransitionListener extends StatementBasedFieldTransitionListener<W>
+            implements SolverDependentListener {
+
+        public ImportFieldTransitionListener(Statement stmt) {
+            super(stmt);
+        }
+
+        @Override
+        public boolean dependsOn(AbstractBoomerangSolver<?> solver) {
+            return ExecuteImportFieldStmtPOI.this.dependsOn(solver);
+        }
+    }
+
+    /**
+     * Called when the base or the flow solver is evicted. Imports that are still queued until a method becomes
+     * reachable are dropped, the solvers unregister the listeners of this POI themselves.
+     */
+    public void detach() {
+        detached = true;
+    }
+
     public void solve() {
         if (baseSolver.equals(flowSolver)) {
             return;
@@ -242,7 +297,7 @@ public abstract class ExecuteImportFieldStmtPOI<W extends Weight> {
         baseSolver.registerStatementFieldTransitionListener(new BaseVarPointsTo(curr, this));
     }
 
-    private class BaseVarPointsTo extends StatementBasedFieldTransitionListener<W> {
+    private class BaseVarPointsTo extends ImportFieldTransitionListener {
 
         private ExecuteImportFieldStmtPOI<W> poi;
 
@@ -309,7 +364,7 @@ public abstract class ExecuteImportFieldStmtPOI<W extends Weight> {
         flowSolver.getCallAutomaton().registerListener(new ForAnyCallSiteOrExitStmt(this.baseSolver));
     }
 
-    private final class ImportIndirectCallAliases extends StatementBasedCallTransitionListener<W> {
+    private final class ImportIndirectCallAliases extends ImportCallTransitionListener {
 
         private AbstractBoomerangSolver<W> flowSolver;
 
@@ -352,7 +407,7 @@ public abstract class ExecuteImportFieldStmtPOI<W extends Weight> {
         }
     }
 
-    private final class ImportIndirectCallAliasesAtSucc extends StatementBasedCallTransitionListener<W> {
+    private final class ImportIndirectCallAliasesAtSucc extends ImportCallTransitionListener {
 
         private INode<Val> target;
         private W w;
@@ -406,7 +461,7 @@ public abstract class ExecuteImportFieldStmtPOI<W extends Weight> {
         return flowSolver instanceof BackwardBoomerangSolver;
     }
 
-    private final class ImportIndirectAliases extends StatementBasedFieldTransitionListener<W> {
+    private final class ImportIndirectAliases extends ImportFieldTransitionListener {
 
         private AbstractBoomerangSolver<W> flowSolver;
         private AbstractBoomerangSolver<W> baseSolver;
@@ -461,7 +516,7 @@ public abstract class ExecuteImportFieldStmtPOI<W extends Weight> {
 
     }
 
-    private final class CallSiteOrExitStmtImport extends StatementBasedFieldTransitionListener<W> {
+    private final class CallSiteOrExitStmtImport extends ImportFieldTransitionListener {
 
         private AbstractBoomerangSolver<W> flowSolver;
         private AbstractBoomerangSolver<W> baseSolver;
@@ -556,7 +611,8 @@ public abstract class ExecuteImportFieldStmtPOI<W extends Weight> {
                 .addTransition(new Transition<Field, INode<Node<Statement, Val>>>(start, field, intermediateState));
     }
 
-    private final class ImportToSolver extends WPAStateListener<Field, INode<Node<Statement, Val>>, W> {
+    private final class ImportToSolver extends WPAStateListener<Field, INode<Node<Statement, Val>>, W>
+            implements SolverDependentListener {
 
         private AbstractBoomerangSolver<W> flowSolver;
 
@@ -578,6 +634,11 @@ public abstract class ExecuteImportFieldStmtPOI<W extends Weight> {
                 WeightedPAutomaton<Field, INode<Node<Statement, Val>>, W> weightedPAutomaton) {
         }
 
+        @Override
+        public boolean dependsOn(AbstractBoomerangSolver<?> solver) {
+            return ExecuteImportFieldStmtPOI.this.dependsOn(solver);
+        }
+
         @Override
         public int hashCode() {
             final int prime = 31;
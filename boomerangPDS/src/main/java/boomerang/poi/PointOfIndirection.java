@@ -42,5 +42,13 @@ public abstract class PointOfIndirection<Statement, Val, Field> {
         }
     }
 
+    /**
+     * Forgets the query as base and flow allocation, adding it again executes all its pairs again.
+     */
+    public void removeAllocation(Query query) {
+        actualBaseAllocations.remove(query);
+        flowAllocations.remove(query);
+    }
+
     public abstract Statement getStmt();
 }
@@ -15,7 +15,13 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 
 import soot.Body;
@@ -24,6 +30,7 @@ import soot.Local;
 import soot.MethodOrMethodContext;
 import soot.Scene;
 import soot.SootMethod;
+import soot.Type;
 import soot.Unit;
 import soot.Value;
 import soot.ValueBox;
@@ -46,9 +53,14 @@ import soot.util.queue.QueueReader;
 public class BoomerangPretransformer extends BodyTransformer {
 
     public static boolean TRANSFORM_CONSTANTS = true;
+    /**
+     * The number of threads {@link #apply()} transforms the bodies on. The default of 1 transforms them on the calling
+     * thread, set it to e.g. the number of available processors to opt in.
+     */
+    public static int PARALLELISM = 1;
+    private static final String BIG_INTEGER_VALUE_OF = "java.math.BigInteger valueOf(long)";
     private static BoomerangPretransformer instance;
-    private int replaceCounter;
-    private boolean applied;
+    private volatile boolean applied;
 
     @Override
     protected void internalTransform(Body b, String phaseName, Map<String, String> options) {
@@ -59,13 +71,16 @@ public class BoomerangPretransformer extends BodyTransformer {
 
     private void transformConstantAtFieldWrites(Body body) {
         Set<Unit> cwnc = getStmtsWithConstants(body);
+        if (cwnc.isEmpty())
+            return;
+        // Locals are named per body, so the names do not depend on the order bodies are transformed in.
+        ReplacerLocals replacerLocals = new ReplacerLocals(body);
         for (Unit u : cwnc) {
             if (u instanceof AssignStmt) {
                 AssignStmt assignStmt = (AssignStmt) u;
                 if (isFieldRef(assignStmt.getLeftOp()) && assignStmt.getRightOp() instanceof Constant
                         && !(assignStmt.getRightOp() instanceof ClassConstant)) {
-                    String label = "varReplacer" + new Integer(replaceCounter++).toString();
-                    Local paramVal = new JimpleLocal(label, assignStmt.getRightOp().getType());
+                    Local paramVal = replacerLocals.create(assignStmt.getRightOp().getType());
                     AssignStmt newUnit = new JAssignStmt(paramVal, assignStmt.getRightOp());
                     body.getLocals().add(paramVal);
                     body.getUnits().insertBefore(newUnit, u);
@@ -77,15 +92,13 @@ public class BoomerangPretransformer extends BodyTransformer {
             if (u instanceof Stmt && ((Stmt) u).containsInvokeExpr()
                     && !u.toString().contains("test.assertions.Assertions:") && !u.toString().contains("intQueryFor")) {
                 Stmt stmt = (Stmt) u;
-                if (stmt.getInvokeExpr().getMethod().getSignature()
-                        .equals("<java.math.BigInteger: java.math.BigInteger valueOf(long)>")) {
+                if (isBigIntegerValueOf(stmt)) {
                     continue;
                 }
                 List<ValueBox> useBoxes = stmt.getInvokeExpr().getUseBoxes();
                 for (Value v : stmt.getInvokeExpr().getArgs()) {
                     if (v instanceof Constant && !(v instanceof ClassConstant)) {
-                        String label = "varReplacer" + new Integer(replaceCounter++).toString();
-                        Local paramVal = new JimpleLocal(label, v.getType());
+                        Local paramVal = replacerLocals.create(v.getType());
                         AssignStmt newUnit = new JAssignStmt(paramVal, v);
                         body.getLocals().add(paramVal);
                         body.getUnits().insertBefore(newUnit, u);
@@ -99,8 +112,7 @@ public class BoomerangPretransformer extends BodyTransformer {
             }
             if (u instanceof ReturnStmt) {
                 ReturnStmt returnStmt = (ReturnStmt) u;
-                String label = "varReplacer" + new Integer(replaceCounter++).toString();
-                Local paramVal = new JimpleLocal(label, returnStmt.getOp().getType());
+                Local paramVal = replacerLocals.create(returnStmt.getOp().getType());
                 AssignStmt newUnit = new JAssignStmt(paramVal, returnStmt.getOp());
                 body.getLocals().add(paramVal);
                 body.getUnits().insertBefore(newUnit, u);
@@ -111,6 +123,17 @@ public class BoomerangPretransformer extends BodyTransformer {
         }
     }
 
+    /**
+     * Only resolves the invoked method if the reference may point to BigInteger.valueOf(long), resolving a method
+     * reference can add phantom methods to the scene and is not safe on the worker threads of {@link #apply()}.
+     */
+    private boolean isBigIntegerValueOf(Stmt stmt) {
+        if (!stmt.getInvokeExpr().getMethodRef().getSubSignature().getString().equals(BIG_INTEGER_VALUE_OF))
+            return false;
+        return stmt.getInvokeExpr().getMethod().getSignature()
+                .equals("<java.math.BigInteger: " + BIG_INTEGER_VALUE_OF + ">");
+    }
+
     /**
      * The first statement of a method must be a nop statement, because the call-flow functions do only map parameters
      * to arguments. If the first statement of a method would be an assign statement, the analysis misses data-flows.
@@ -120,7 +143,7 @@ public class BoomerangPretransformer extends BodyTransformer {
     }
 
     private Set<Unit> getStmtsWithConstants(Body methodBody) {
-        Set<Unit> retMap = Sets.newHashSet();
+        Set<Unit> retMap = Sets.newLinkedHashSet();
         for (Unit u : methodBody.getUnits()) {
             if (u instanceof AssignStmt) {
                 AssignStmt assignStmt = (AssignStmt) u;
@@ -150,24 +173,88 @@ public class BoomerangPretransformer extends BodyTransformer {
         return op instanceof InstanceFieldRef || op instanceof StaticFieldRef;
     }
 
-    public void apply() {
+    /**
+     * Transforms the bodies of all reachable methods on {@link #PARALLELISM} threads. Each body is transformed by a
+     * single thread and the result does not depend on the number of threads.
+     */
+    public synchronized void apply() {
         if (applied)
             return;
+        List<Body> bodies = Lists.newArrayList();
         ReachableMethods reachableMethods = Scene.v().getReachableMethods();
         QueueReader<MethodOrMethodContext> listener = reachableMethods.listener();
         while (listener.hasNext()) {
             SootMethod method = listener.next().method();
             if (method.hasActiveBody()) {
-                internalTransform(method.getActiveBody(), "", new HashMap<>());
+                bodies.add(method.getActiveBody());
+            }
+        }
+        if (PARALLELISM <= 1 || bodies.size() <= 1) {
+            for (Body b : bodies) {
+                internalTransform(b, "", new HashMap<>());
             }
+        } else {
+            transformInParallel(bodies);
         }
         applied = true;
     }
 
+    private void transformInParallel(List<Body> bodies) {
+        ExecutorService workers = Executors.newFixedThreadPool(Math.min(PARALLELISM, bodies.size()));
+        List<Future<Void>> futures = Lists.newArrayList();
+        try {
+            for (final Body b : bodies) {
+                futures.add(workers.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        internalTransform(b, "", new HashMap<>());
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> f : futures) {
+                f.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while transforming bodies", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Transforming a body failed", e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
     public boolean isApplied() {
         return applied;
     }
 
+    /**
+     * Marks the bodies of the scene as transformed, e.g. when they were loaded from a {@link SceneSnapshot}.
+     */
+    void markApplied() {
+        applied = true;
+    }
+
+    private static class ReplacerLocals {
+        private final Set<String> names = Sets.newHashSet();
+        private int next;
+
+        ReplacerLocals(Body body) {
+            for (Local l : body.getLocals()) {
+                names.add(l.getName());
+            }
+        }
+
+        Local create(Type type) {
+            String name = "varReplacer" + next++;
+            while (!names.add(name)) {
+                name = "varReplacer" + next++;
+            }
+            return new JimpleLocal(name, type);
+        }
+    }
+
     public static BoomerangPretransformer v() {
         if (instance == null) {
             instance = new BoomerangPretransformer();
@@ -0,0 +1,226 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package boomerang.preanalysis;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import soot.Kind;
+import soot.MethodOrMethodContext;
+import soot.Printer;
+import soot.Scene;
+import soot.SootClass;
+import soot.SootMethod;
+import soot.Unit;
+import soot.jimple.Stmt;
+import soot.jimple.toolkits.callgraph.CallGraph;
+import soot.jimple.toolkits.callgraph.Edge;
+import soot.options.Options;
+import soot.util.queue.QueueReader;
+
+/**
+ * Stores a prepared scene on disk and restores it, so repeated analyses of the same program skip call graph
+ * construction and the {@link BoomerangPretransformer}. A snapshot directory contains
+ * <ul>
+ * <li><code>jimple/</code>: the classes declaring reachable methods as Jimple, with the pretransformed bodies,</li>
+ * <li><code>callgraph.txt</code>: one edge per line as caller signature, index of the call site in the caller's body,
+ * callee signature and edge kind, separated by tabs,</li>
+ * <li><code>classes.txt</code>: the snapshotted classes and whether they are application classes,</li>
+ * <li><code>entrypoints.txt</code>: the signatures of the entry points.</li>
+ * </ul>
+ * A snapshot is loaded with the same Soot options it was written with, except that the snapshotted classes are read
+ * from Jimple. Static ICFGs built afterwards use the restored call graph.
+ */
+public class SceneSnapshot {
+
+    private static final String VERSION = "boomerang-scene-snapshot 1";
+    private static final String JIMPLE_DIR = "jimple";
+    private static final String CALL_GRAPH = "callgraph.txt";
+    private static final String CLASSES = "classes.txt";
+    private static final String ENTRY_POINTS = "entrypoints.txt";
+
+    private SceneSnapshot() {
+    }
+
+    public static boolean exists(File dir) {
+        return new File(dir, CALL_GRAPH).exists();
+    }
+
+    /**
+     * Writes the current scene. The call graph must have been built and the {@link BoomerangPretransformer} applied.
+     */
+    public static void write(File dir) {
+        if (!BoomerangPretransformer.v().isApplied())
+            throw new RuntimeException("The BoomerangPretransformer must be applied before writing a snapshot");
+        File jimpleDir = new File(dir, JIMPLE_DIR);
+        jimpleDir.mkdirs();
+        try {
+            Set<SootClass> classes = Sets.newLinkedHashSet();
+            for (QueueReader<MethodOrMethodContext> iter = Scene.v().getReachableMethods().listener(); iter
+                    .hasNext();) {
+                SootMethod m = iter.next().method();
+                if (m.hasActiveBody())
+                    classes.add(m.getDeclaringClass());
+            }
+            Set<SootClass> written = Sets.newHashSet();
+            try (PrintWriter out = writer(new File(dir, CLASSES))) {
+                for (SootClass c : classes) {
+                    if (!retrieveBodies(c))
+                        continue;
+                    try (PrintWriter jimple = writer(new File(jimpleDir, c.getName() + ".jimple"))) {
+                        Printer.v().printTo(c, jimple);
+                    }
+                    written.add(c);
+                    out.println(c.getName() + "\t" + c.isApplicationClass());
+                }
+            }
+            try (PrintWriter out = writer(new File(dir, ENTRY_POINTS))) {
+                for (SootMethod m : Scene.v().getEntryPoints()) {
+                    out.println(m.getSignature());
+                }
+            }
+            // Written last, exists() only reports complete snapshots
+            Map<SootMethod, Map<Unit, Integer>> unitIndices = Maps.newHashMap();
+            try (PrintWriter out = writer(new File(dir, CALL_GRAPH))) {
+                out.println(VERSION);
+                for (Edge e : Scene.v().getCallGraph()) {
+                    SootMethod src = e.src();
+                    if (src == null || !written.contains(src.getDeclaringClass()))
+                        continue;
+                    int index = -1;
+                    if (e.srcUnit() != null) {
+                        Integer i = unitIndices(src, unitIndices).get(e.srcUnit());
+                        if (i == null)
+                            continue;
+                        index = i;
+                    }
+                    out.println(src.getSignature() + "\t" + index + "\t" + e.tgt().getSignature() + "\t"
+                            + e.kind().name());
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not write scene snapshot to " + dir, e);
+        }
+    }
+
+    /**
+     * Loads the snapshot into a freshly reset scene whose options are set up but whose classes are not loaded yet.
+     * Restores the call graph and entry points and marks the {@link BoomerangPretransformer} as applied.
+     */
+    public static void load(File dir) {
+        File jimpleDir = new File(dir, JIMPLE_DIR);
+        try {
+            // Classes that are not snapshotted are still found in the former process directories
+            List<String> classPath = Lists.newArrayList(jimpleDir.getAbsolutePath());
+            classPath.addAll(Options.v().process_dir());
+            if (Options.v().soot_classpath() != null && !Options.v().soot_classpath().isEmpty())
+                classPath.add(Options.v().soot_classpath());
+            Options.v().set_soot_classpath(Joiner.on(File.pathSeparator).join(classPath));
+            Options.v().set_src_prec(Options.src_prec_jimple);
+            Options.v().set_process_dir(Collections.singletonList(jimpleDir.getAbsolutePath()));
+            Scene.v().loadNecessaryClasses();
+
+            for (String line : Files.readAllLines(new File(dir, CLASSES).toPath(), StandardCharsets.UTF_8)) {
+                String[] columns = line.split("\t");
+                SootClass c = Scene.v().getSootClass(columns[0]);
+                if (Boolean.parseBoolean(columns[1])) {
+                    c.setApplicationClass();
+                } else {
+                    c.setLibraryClass();
+                }
+            }
+            List<SootMethod> entryPoints = Lists.newArrayList();
+            for (String line : Files.readAllLines(new File(dir, ENTRY_POINTS).toPath(), StandardCharsets.UTF_8)) {
+                entryPoints.add(Scene.v().getMethod(line));
+            }
+            Scene.v().setEntryPoints(entryPoints);
+
+            CallGraph cg = new CallGraph();
+            Map<SootMethod, List<Unit>> units = Maps.newHashMap();
+            try (BufferedReader in = Files.newBufferedReader(new File(dir, CALL_GRAPH).toPath(),
+                    StandardCharsets.UTF_8)) {
+                if (!VERSION.equals(in.readLine()))
+                    throw new RuntimeException("Unsupported scene snapshot format in " + dir);
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String[] columns = line.split("\t");
+                    SootMethod src = Scene.v().getMethod(columns[0]);
+                    int index = Integer.parseInt(columns[1]);
+                    Stmt srcUnit = index < 0 ? null : (Stmt) units(src, units).get(index);
+                    cg.addEdge(new Edge(src, srcUnit, Scene.v().getMethod(columns[2]), Kind.valueOf(columns[3])));
+                }
+            }
+            Scene.v().setCallGraph(cg);
+            Scene.v().setReachableMethods(null);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not load scene snapshot from " + dir, e);
+        }
+        BoomerangPretransformer.v().reset();
+        BoomerangPretransformer.v().markApplied();
+    }
+
+    /**
+     * Makes sure all concrete methods of the class have a body, which the Jimple printer requires. Returns false for
+     * classes whose bodies cannot be retrieved, e.g. excluded classes, those are loaded from the classpath again.
+     */
+    private static boolean retrieveBodies(SootClass c) {
+        for (SootMethod m : c.getMethods()) {
+            if (m.isConcrete() && !m.hasActiveBody()) {
+                try {
+                    m.retrieveActiveBody();
+                } catch (RuntimeException e) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static Map<Unit, Integer> unitIndices(SootMethod m, Map<SootMethod, Map<Unit, Integer>> cache) {
+        Map<Unit, Integer> indices = cache.get(m);
+        if (indices == null) {
+            indices = Maps.newHashMap();
+            int i = 0;
+            for (Unit u : m.getActiveBody().getUnits()) {
+                indices.put(u, i++);
+            }
+            cache.put(m, indices);
+        }
+        return indices;
+    }
+
+    private static List<Unit> units(SootMethod m, Map<SootMethod, List<Unit>> cache) {
+        List<Unit> res = cache.get(m);
+        if (res == null) {
+            res = Lists.newArrayList(m.retrieveActiveBody().getUnits());
+            cache.put(m, res);
+        }
+        return res;
+    }
+
+    private static PrintWriter writer(File file) throws IOException {
+        return new PrintWriter(Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8));
+    }
+}
@@ -1,11 +1,17 @@
 package boomerang.results;
 
+import java.util.Iterator;
+import java.util.Map;
 import java.util.Set;
 import java.util.Map.Entry;
 
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.Sets;
 import com.google.common.collect.Table;
+import com.google.common.collect.Tables;
 
 import boomerang.ForwardQuery;
 import boomerang.Query;
@@ -14,6 +20,7 @@ import boomerang.jimple.Val;
 import boomerang.solver.AbstractBoomerangSolver;
 import heros.utilities.DefaultValueMap;
 import soot.Local;
+import soot.SootMethod;
 import sync.pds.solver.nodes.GeneratedState;
 import sync.pds.solver.nodes.INode;
 import sync.pds.solver.nodes.Node;
@@ -40,21 +47,67 @@ public class AbstractBoomerangResults<W extends Weight> {
 
     public Table<Statement, Val, W> asStatementValWeightTable(ForwardQuery query) {
         final Table<Statement, Val, W> results = HashBasedTable.create();
-        WeightedPAutomaton<Statement, INode<Val>, W> callAut = queryToSolvers.getOrCreate(query).getCallAutomaton();
-        for (Entry<Transition<Statement, INode<Val>>, W> e : callAut.getTransitionsToFinalWeights().entrySet()) {
-            Transition<Statement, INode<Val>> t = e.getKey();
-            W w = e.getValue();
-            if (t.getLabel().equals(Statement.epsilon()))
-                continue;
-            if (t.getStart().fact().value() instanceof Local
-                    && !t.getLabel().getMethod().equals(t.getStart().fact().m()))
-                continue;
-            if (t.getLabel().getUnit().isPresent())
-                results.put(t.getLabel(), t.getStart().fact(), w);
+        for (Table.Cell<Statement, Val, W> c : getStatementValWeights(query)) {
+            results.put(c.getRowKey(), c.getColumnKey(), c.getValue());
         }
         return results;
     }
 
+    /**
+     * Returns the cells of {@link #asStatementValWeightTable(ForwardQuery)} as a lazy view. Nothing is copied, every
+     * iteration walks the transitions to final weights of the query's call automaton.
+     */
+    public Iterable<Table.Cell<Statement, Val, W>> getStatementValWeights(ForwardQuery query) {
+        return getStatementValWeights(query, Predicates.<Statement> alwaysTrue());
+    }
+
+    /**
+     * Returns a lazy view of the cells whose statement is in the given method.
+     */
+    public Iterable<Table.Cell<Statement, Val, W>> getStatementValWeights(ForwardQuery query, final SootMethod method) {
+        return getStatementValWeights(query, new Predicate<Statement>() {
+            @Override
+            public boolean apply(Statement s) {
+                return method.equals(s.getMethod());
+            }
+        });
+    }
+
+    /**
+     * Returns a lazy view of the cells whose statement satisfies the filter.
+     */
+    public Iterable<Table.Cell<Statement, Val, W>> getStatementValWeights(ForwardQuery query,
+            final Predicate<Statement> statementFilter) {
+        final Map<Transition<Statement, INode<Val>>, W> weights = queryToSolvers.getOrCreate(query).getCallAutomaton()
+                .getTransitionsToFinalWeights();
+        return new Iterable<Table.Cell<Statement, Val, W>>() {
+            @Override
+            public Iterator<Table.Cell<Statement, Val, W>> iterator() {
+                final Iterator<Entry<Transition<Statement, INode<Val>>, W>> it = weights.entrySet().iterator();
+                return new AbstractIterator<Table.Cell<Statement, Val, W>>() {
+                    @Override
+                    protected Table.Cell<Statement, Val, W> computeNext() {
+                        while (it.hasNext()) {
+                            Entry<Transition<Statement, INode<Val>>, W> e = it.next();
+                            Transition<Statement, INode<Val>> t = e.getKey();
+                            if (isStatementValResult(t) && statementFilter.apply(t.getLabel()))
+                                return Tables.immutableCell(t.getLabel(), t.getStart().fact(), e.getValue());
+                        }
+                        return endOfData();
+                    }
+                };
+            }
+        };
+    }
+
+    private static boolean isStatementValResult(Transition<Statement, INode<Val>> t) {
+        if (t.getLabel().equals(Statement.epsilon()))
+            return false;
+        if (t.getStart().fact().value() instanceof Local && !t.getLabel().getMethod().equals(t.getStart().fact().m()))
+            return false;
+        return t.getLabel().getUnit().isPresent();
+    }
+
     private class OpeningCallStackExtracter extends WPAStateListener<Statement, INode<Val>, W> {
 
         private AbstractBoomerangSolver<W> solver;
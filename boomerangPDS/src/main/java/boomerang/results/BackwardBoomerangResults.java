@@ -13,7 +13,6 @@ import boomerang.ForwardQuery;
 import boomerang.Query;
 import boomerang.Util;
 import boomerang.jimple.AllocVal;
-import boomerang.jimple.Field;
 import boomerang.jimple.Statement;
 import boomerang.jimple.Val;
 import boomerang.solver.AbstractBoomerangSolver;
@@ -26,10 +25,10 @@ import com.google.common.collect.Sets;
 import heros.utilities.DefaultValueMap;
 import soot.Local;
 import soot.PointsToSet;
+import soot.SootMethod;
 import soot.Type;
 import soot.jimple.ClassConstant;
 import soot.jimple.NewExpr;
-import sync.pds.solver.nodes.GeneratedState;
 import sync.pds.solver.nodes.INode;
 import sync.pds.solver.nodes.Node;
 import wpds.impl.Transition;
@@ -106,21 +105,30 @@ public class BackwardBoomerangResults<W extends Weight> extends AbstractBoomeran
         }
     }
 
+    /**
+     * Returns the methods reached by the solver of the query and by the solvers of its allocation sites, i.e. the
+     * methods whose calls the results depend on.
+     */
+    public Set<SootMethod> getVisitedMethods() {
+        Set<SootMethod> methods = Sets.newHashSet();
+        AbstractBoomerangSolver<W> backwardSolver = queryToSolvers.get(query);
+        if (backwardSolver != null)
+            methods.addAll(backwardSolver.getReachableMethods());
+        for (ForwardQuery allocationSite : getAllocationSites().keySet()) {
+            AbstractBoomerangSolver<W> forwardSolver = queryToSolvers.get(allocationSite);
+            if (forwardSolver != null)
+                methods.addAll(forwardSolver.getReachableMethods());
+        }
+        return methods;
+    }
+
     public boolean aliases(Query el) {
         for (final Query fw : getAllocationSites().keySet()) {
             if (fw instanceof BackwardQuery)
                 continue;
 
-            if (queryToSolvers.getOrCreate(fw).getReachedStates().contains(el.asNode())) {
-                for (Transition<Field, INode<Node<Statement, Val>>> t : queryToSolvers.getOrCreate(fw)
-                        .getFieldAutomaton().getTransitions()) {
-                    if (t.getStart() instanceof GeneratedState) {
-                        continue;
-                    }
-                    if (t.getStart().fact().equals(el.asNode()) && t.getLabel().equals(Field.empty())) {
-                        return true;
-                    }
-                }
+            if (queryToSolvers.getOrCreate(fw).reachesWithEmptyField(el.asNode())) {
+                return true;
             }
         }
         return false;
@@ -159,15 +167,13 @@ public class BackwardBoomerangResults<W extends Weight> extends AbstractBoomeran
         }
         BackwardBoomerangResults<W> otherRes = (BackwardBoomerangResults<W>) other;
         Map<ForwardQuery, AbstractBoomerangResults<W>.Context> otherAllocs = otherRes.getAllocationSites();
-        boolean intersection = false;
         for (Entry<ForwardQuery, AbstractBoomerangResults<W>.Context> a : getAllocationSites().entrySet()) {
-            for (Entry<ForwardQuery, AbstractBoomerangResults<W>.Context> b : otherAllocs.entrySet()) {
-                if (a.getKey().equals(b.getKey()) && contextMatch(a.getValue(), b.getValue())) {
-                    intersection = true;
-                }
+            AbstractBoomerangResults<W>.Context b = otherAllocs.get(a.getKey());
+            if (b != null && contextMatch(a.getValue(), b)) {
+                return true;
             }
         }
-        return intersection;
+        return false;
     }
 
     private boolean contextMatch(AbstractBoomerangResults<W>.Context context,
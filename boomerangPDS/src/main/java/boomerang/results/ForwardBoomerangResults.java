@@ -72,10 +72,15 @@ public class ForwardBoomerangResults<W extends Weight> extends AbstractBoomerang
         AbstractBoomerangSolver<W> solver = queryToSolvers.get(query);
         if (solver == null)
             return HashBasedTable.create();
-        Table<Statement, Val, W> res = asStatementValWeightTable();
+        // Only the rows at exit statements are needed, the remaining results are not materialized
+        Table<Statement, Val, W> res = HashBasedTable.create();
         Set<SootMethod> visitedMethods = Sets.newHashSet();
-        for (Statement s : res.rowKeySet()) {
+        for (Table.Cell<Statement, Val, W> c : getStatementValWeights(query)) {
+            Statement s = c.getRowKey();
             visitedMethods.add(s.getMethod());
+            if (icfg.isExitStmt(s.getUnit().get())) {
+                res.put(s, c.getColumnKey(), c.getValue());
+            }
         }
         ForwardBoomerangSolver<W> forwardSolver = (ForwardBoomerangSolver) queryToSolvers.get(query);
         Table<Statement, Val, W> destructingStatement = HashBasedTable.create();
@@ -116,6 +121,18 @@ public class ForwardBoomerangResults<W extends Weight> extends AbstractBoomerang
         return asStatementValWeightTable(query);
     }
 
+    /**
+     * Lazy alternative to {@link #asStatementValWeightTable()}, see
+     * {@link #getStatementValWeights(ForwardQuery)}.
+     */
+    public Iterable<Table.Cell<Statement, Val, W>> getStatementValWeights() {
+        return getStatementValWeights(query);
+    }
+
+    public Iterable<Table.Cell<Statement, Val, W>> getStatementValWeights(SootMethod method) {
+        return getStatementValWeights(query, method);
+    }
+
     private void findLastUsage(Statement exitStmt, Map<Val, W> row, Table<Statement, Val, W> destructingStatement,
             ForwardBoomerangSolver<W> forwardSolver) {
         LinkedList<Statement> worklist = Lists.newLinkedList();
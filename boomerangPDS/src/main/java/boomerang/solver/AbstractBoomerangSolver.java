@@ -21,8 +21,10 @@ import java.util.Set;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import com.google.common.base.Predicate;
 import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
@@ -61,14 +63,19 @@ import sync.pds.solver.nodes.GeneratedState;
 import sync.pds.solver.nodes.INode;
 import sync.pds.solver.nodes.Node;
 import sync.pds.solver.nodes.SingleNode;
+import wpds.impl.HashTransitionStore;
+import wpds.impl.IntTransitionStore;
 import wpds.impl.NestedWeightedPAutomatons;
 import wpds.impl.NormalRule;
 import wpds.impl.PopRule;
 import wpds.impl.Rule;
 import wpds.impl.Transition;
+import wpds.impl.TransitionStore;
 import wpds.impl.Weight;
+import wpds.impl.WeightInterner;
 import wpds.impl.WeightedPAutomaton;
 import wpds.impl.WeightedPushdownSystem;
+import wpds.interfaces.Location;
 import wpds.interfaces.State;
 import wpds.interfaces.WPAUpdateListener;
 
@@ -187,10 +194,19 @@ public abstract class AbstractBoomerangSolver<W extends Weight> extends SyncPDSS
             BoomerangOptions options, NestedWeightedPAutomatons<Statement, INode<Val>, W> callSummaries,
             NestedWeightedPAutomatons<Field, INode<Node<Statement, Val>>, W> fieldSummaries) {
         super(new SingleNode<Val>(query.asNode().fact()), new SingleNode<Node<Statement, Val>>(query.asNode()),
-                options.callSummaries(), callSummaries, options.fieldSummaries(), fieldSummaries);
+                options.callSummaries(), callSummaries, options.fieldSummaries(), fieldSummaries,
+                AbstractBoomerangSolver.<Statement, INode<Val>, W> createTransitionStore(options),
+                AbstractBoomerangSolver.<Field, INode<Node<Statement, Val>>, W> createTransitionStore(options));
         this.options = options;
         this.icfg = icfg;
         this.query = query;
+        this.fieldAutomaton.setDeferredDispatch(options.deferredDispatch());
+        this.callAutomaton.setDeferredDispatch(options.deferredDispatch());
+        if (options.internWeights()) {
+            WeightInterner<W> interner = new WeightInterner<>();
+            this.fieldAutomaton.setWeightInterner(interner);
+            this.callAutomaton.setWeightInterner(interner);
+        }
         this.fieldAutomaton.registerListener(new WPAUpdateListener<Field, INode<Node<Statement, Val>>, W>() {
 
             @Override
@@ -368,10 +384,10 @@ public abstract class AbstractBoomerangSolver<W extends Weight> extends SyncPDSS
         AssignStmt as = (AssignStmt) curr;
         if (as.getLeftOp() instanceof StaticFieldRef) {
             StaticFieldRef staticFieldRef = (StaticFieldRef) as.getLeftOp();
-            return new Field(staticFieldRef.getField());
+            return Field.of(staticFieldRef.getField());
         }
         InstanceFieldRef ifr = (InstanceFieldRef) as.getLeftOp();
-        return new Field(ifr.getField());
+        return Field.of(ifr.getField());
     }
 
     protected boolean isFieldWriteWithBase(Stmt curr, Val base) {
@@ -388,7 +404,7 @@ public abstract class AbstractBoomerangSolver<W extends Weight> extends SyncPDSS
     protected Field getLoadedField(Stmt curr) {
         AssignStmt as = (AssignStmt) curr;
         InstanceFieldRef ifr = (InstanceFieldRef) as.getRightOp();
-        return new Field(ifr.getField());
+        return Field.of(ifr.getField());
     }
 
     protected boolean isFieldLoadWithBase(Stmt curr, Val base) {
@@ -548,7 +564,7 @@ public abstract class AbstractBoomerangSolver<W extends Weight> extends SyncPDSS
             return res;
         Stmt curr = stmt.getUnit().get();
         for (Unit succ : icfg.getSuccsOf(curr)) {
-            res.add(new Statement((Stmt) succ, icfg.getMethodOf(succ)));
+            res.add(Statement.of((Stmt) succ, icfg.getMethodOf(succ)));
         }
         return res;
     }
@@ -559,7 +575,7 @@ public abstract class AbstractBoomerangSolver<W extends Weight> extends SyncPDSS
             return res;
         Stmt curr = stmt.getUnit().get();
         for (Unit succ : icfg.getPredsOf(curr)) {
-            res.add(new Statement((Stmt) succ, icfg.getMethodOf(succ)));
+            res.add(Statement.of((Stmt) succ, icfg.getMethodOf(succ)));
         }
         return res;
     }
@@ -573,10 +589,36 @@ public abstract class AbstractBoomerangSolver<W extends Weight> extends SyncPDSS
         return callAutomaton.getTransitionsToFinalWeights();
     }
 
+    /**
+     * Returns true if the node is reached with an empty field stack, i.e. the variable of the node itself holds the
+     * object this solver tracks. Only the outgoing field transitions of the node's state are inspected.
+     */
+    public boolean reachesWithEmptyField(Node<Statement, Val> node) {
+        if (!isReached(node))
+            return false;
+        for (Transition<Field, INode<Node<Statement, Val>>> t : fieldAutomaton
+                .getTransitionsOutOf(new SingleNode<Node<Statement, Val>>(node))) {
+            if (t.getLabel().equals(Field.empty()))
+                return true;
+        }
+        return false;
+    }
+
     public int getNumberOfRules() {
         return callingPDS.getAllRules().size() + fieldPDS.getAllRules().size();
     }
 
+    /**
+     * Approximates the memory held by this solver as the number of its rules plus the number of transitions of its
+     * call and field automaton. Unlike {@link #getNumberOfRules()} this does not copy any rule set.
+     */
+    public long getApproximateSize() {
+        return callingPDS.getNormalRules().size() + callingPDS.getPopRules().size()
+                + callingPDS.getPushRules().size() + fieldPDS.getNormalRules().size() + fieldPDS.getPopRules().size()
+                + fieldPDS.getPushRules().size() + callAutomaton.getNumberOfTransitions()
+                + fieldAutomaton.getNumberOfTransitions();
+    }
+
     @Override
     protected boolean preventFieldTransitionAdd(Transition<Field, INode<Node<Statement, Val>>> t, W weight) {
         if (!t.getLabel().equals(Field.empty()) || !options.typeCheck()) {
@@ -733,6 +775,32 @@ public abstract class AbstractBoomerangSolver<W extends Weight> extends SyncPDSS
         return reachableMethods;
     }
 
+    private static <N extends Location, D extends State, W extends Weight> TransitionStore<N, D, W>
+            createTransitionStore(BoomerangOptions options) {
+        if (options.compactTransitionStores())
+            return new IntTransitionStore<N, D, W>();
+        return new HashTransitionStore<N, D, W>();
+    }
+
+    /**
+     * Unregisters all {@link SolverDependentListener}s that depend on the given solver, which was evicted. Listeners
+     * that were propagated to nested field automata are removed there as well.
+     */
+    public void unregisterListenersDependingOn(final AbstractBoomerangSolver<?> solver) {
+        Predicate<Object> dependsOnSolver = new Predicate<Object>() {
+            @Override
+            public boolean apply(Object l) {
+                return l instanceof SolverDependentListener && ((SolverDependentListener) l).dependsOn(solver);
+            }
+        };
+        this.callAutomaton.unregisterListeners(dependsOnSolver);
+        this.fieldAutomaton.unregisterListeners(dependsOnSolver);
+        Iterables.removeIf(this.perMethodFieldTransitionsListener.values(), dependsOnSolver);
+        Iterables.removeIf(this.perStatementCallTransitionsListener.values(), dependsOnSolver);
+        Iterables.removeIf(this.perStatementFieldTransitionsListener.values(), dependsOnSolver);
+        Iterables.removeIf(this.reachableMethodListeners, dependsOnSolver);
+    }
+
     public void cleanup() {
         this.callAutomaton.clearListener();
         this.fieldAutomaton.clearListener();
@@ -88,8 +88,8 @@ public abstract class BackwardBoomerangSolver<W extends Weight> extends Abstract
             InvokeExpr invokeExpr = curr.stmt().getUnit().get().getInvokeExpr();
             for (Unit calleeSp : icfg.getStartPointsOf(callee)) {
                 for (Unit returnSite : icfg.getSuccsOf(callSite)) {
-                    Collection<? extends State> res = computeCallFlow(caller, new Statement((Stmt) returnSite, caller),
-                            new Statement((Stmt) callSite, caller), invokeExpr, curr.fact(), callee, (Stmt) calleeSp);
+                    Collection<? extends State> res = computeCallFlow(caller, Statement.of((Stmt) returnSite, caller),
+                            Statement.of((Stmt) callSite, caller), invokeExpr, curr.fact(), callee, (Stmt) calleeSp);
                     out.addAll(res);
                 }
             }
@@ -176,14 +176,14 @@ public abstract class BackwardBoomerangSolver<W extends Weight> extends Abstract
     @Override
     protected Collection<? extends State> computeReturnFlow(SootMethod method, Stmt curr, Val value, Stmt callSite,
             Stmt returnSite) {
-        Statement returnSiteStatement = new Statement(returnSite, icfg.getMethodOf(returnSite));
+        Statement returnSiteStatement = Statement.of(returnSite, icfg.getMethodOf(returnSite));
         Set<State> out = Sets.newHashSet();
         if (!method.isStatic()) {
             if (method.getActiveBody().getThisLocal().equals(value.value())) {
                 if (callSite.containsInvokeExpr()) {
                     if (callSite.getInvokeExpr() instanceof InstanceInvokeExpr) {
                         InstanceInvokeExpr iie = (InstanceInvokeExpr) callSite.getInvokeExpr();
-                        out.add(new CallPopNode<Val, Statement>(new Val(iie.getBase(), icfg.getMethodOf(callSite)),
+                        out.add(new CallPopNode<Val, Statement>(Val.of(iie.getBase(), icfg.getMethodOf(callSite)),
                                 PDSSystem.CALLS, returnSiteStatement));
                     }
                 }
@@ -194,7 +194,7 @@ public abstract class BackwardBoomerangSolver<W extends Weight> extends Abstract
             if (param.equals(value.value())) {
                 if (callSite.containsInvokeExpr()) {
                     InvokeExpr ie = callSite.getInvokeExpr();
-                    out.add(new CallPopNode<Val, Statement>(new Val(ie.getArg(index), icfg.getMethodOf(callSite)),
+                    out.add(new CallPopNode<Val, Statement>(Val.of(ie.getArg(index), icfg.getMethodOf(callSite)),
                             PDSSystem.CALLS, returnSiteStatement));
                 }
             }
@@ -275,8 +275,8 @@ public abstract class BackwardBoomerangSolver<W extends Weight> extends Abstract
         if (invokeExpr instanceof InstanceInvokeExpr) {
             InstanceInvokeExpr iie = (InstanceInvokeExpr) invokeExpr;
             if (iie.getBase().equals(fact.value()) && !callee.isStatic()) {
-                out.add(new PushNode<Statement, Val, Statement>(new Statement(calleeSp, callee),
-                        new Val(calleeBody.getThisLocal(), callee), returnSite, PDSSystem.CALLS));
+                out.add(new PushNode<Statement, Val, Statement>(Statement.of(calleeSp, callee),
+                        Val.of(calleeBody.getThisLocal(), callee), returnSite, PDSSystem.CALLS));
             }
         }
         List<Local> parameterLocals = calleeBody.getParameterLocals();
@@ -284,7 +284,7 @@ public abstract class BackwardBoomerangSolver<W extends Weight> extends Abstract
         for (Value arg : invokeExpr.getArgs()) {
             if (arg.equals(fact.value()) && parameterLocals.size() > i) {
                 Local param = parameterLocals.get(i);
-                out.add(new PushNode<Statement, Val, Statement>(new Statement(calleeSp, callee), new Val(param, callee),
+                out.add(new PushNode<Statement, Val, Statement>(Statement.of(calleeSp, callee), Val.of(param, callee),
                         returnSite, PDSSystem.CALLS));
             }
             i++;
@@ -294,12 +294,12 @@ public abstract class BackwardBoomerangSolver<W extends Weight> extends Abstract
             AssignStmt as = (AssignStmt) callSite.getUnit().get();
             ReturnStmt retStmt = (ReturnStmt) calleeSp;
             if (as.getLeftOp().equals(fact.value())) {
-                out.add(new PushNode<Statement, Val, Statement>(new Statement(calleeSp, callee),
-                        new Val(retStmt.getOp(), callee), returnSite, PDSSystem.CALLS));
+                out.add(new PushNode<Statement, Val, Statement>(Statement.of(calleeSp, callee),
+                        Val.of(retStmt.getOp(), callee), returnSite, PDSSystem.CALLS));
             }
         }
         if (fact.isStatic()) {
-            out.add(new PushNode<Statement, Val, Statement>(new Statement(calleeSp, callee),
+            out.add(new PushNode<Statement, Val, Statement>(Statement.of(calleeSp, callee),
                     new StaticFieldVal(fact.value(), ((StaticFieldVal) fact).field(), callee), returnSite,
                     PDSSystem.CALLS));
         }
@@ -332,31 +332,31 @@ public abstract class BackwardBoomerangSolver<W extends Weight> extends Abstract
                 if (rightOp instanceof InstanceFieldRef) {
                     if (options.trackFields()) {
                         InstanceFieldRef ifr = (InstanceFieldRef) rightOp;
-                        out.add(new PushNode<Statement, Val, Field>(new Statement(succ, method),
-                                new Val(ifr.getBase(), method), new Field(ifr.getField()), PDSSystem.FIELDS));
+                        out.add(new PushNode<Statement, Val, Field>(Statement.of(succ, method),
+                                Val.of(ifr.getBase(), method), Field.of(ifr.getField()), PDSSystem.FIELDS));
                     }
                 } else if (rightOp instanceof StaticFieldRef) {
                     if (options.trackFields() && options.staticFlows()) {
                         StaticFieldRef sfr = (StaticFieldRef) rightOp;
-                        out.add(new Node<Statement, Val>(new Statement(succ, method),
+                        out.add(Node.of(Statement.of(succ, method),
                                 new StaticFieldVal(leftOp, sfr.getField(), method)));
                     }
                 } else if (rightOp instanceof ArrayRef) {
                     ArrayRef ifr = (ArrayRef) rightOp;
                     if (options.trackFields() && options.arrayFlows()) {
-                        out.add(new PushNode<Statement, Val, Field>(new Statement(succ, method),
-                                new Val(ifr.getBase(), method), Field.array(), PDSSystem.FIELDS));
+                        out.add(new PushNode<Statement, Val, Field>(Statement.of(succ, method),
+                                Val.of(ifr.getBase(), method), Field.array(), PDSSystem.FIELDS));
                     }
                     // leftSideMatches = false;
                 } else if (rightOp instanceof CastExpr) {
                     CastExpr castExpr = (CastExpr) rightOp;
-                    out.add(new Node<Statement, Val>(new Statement(succ, method), new Val(castExpr.getOp(), method)));
+                    out.add(Node.of(Statement.of(succ, method), Val.of(castExpr.getOp(), method)));
                 } else {
                     if (isFieldLoadWithBase(curr, fact)) {
-                        out.add(new ExclusionNode<Statement, Val, Field>(new Statement(succ, method), fact,
+                        out.add(new ExclusionNode<Statement, Val, Field>(Statement.of(succ, method), fact,
                                 getLoadedField(curr)));
                     } else {
-                        out.add(new Node<Statement, Val>(new Statement(succ, method), new Val(rightOp, method)));
+                        out.add(Node.of(Statement.of(succ, method), Val.of(rightOp, method)));
                     }
                 }
             }
@@ -365,26 +365,26 @@ public abstract class BackwardBoomerangSolver<W extends Weight> extends Abstract
                 Value base = ifr.getBase();
                 if (base.equals(fact.value())) {
                     NodeWithLocation<Statement, Val, Field> succNode = new NodeWithLocation<>(
-                            new Statement(succ, method), new Val(rightOp, method), new Field(ifr.getField()));
+                            Statement.of(succ, method), Val.of(rightOp, method), Field.of(ifr.getField()));
                     out.add(new PopNode<NodeWithLocation<Statement, Val, Field>>(succNode, PDSSystem.FIELDS));
                 }
             } else if (leftOp instanceof StaticFieldRef) {
                 StaticFieldRef sfr = (StaticFieldRef) leftOp;
                 if (fact.isStatic() && fact.equals(new StaticFieldVal(leftOp, sfr.getField(), method))) {
-                    out.add(new Node<Statement, Val>(new Statement(succ, method), new Val(rightOp, method)));
+                    out.add(Node.of(Statement.of(succ, method), Val.of(rightOp, method)));
                 }
             } else if (leftOp instanceof ArrayRef) {
                 ArrayRef ifr = (ArrayRef) leftOp;
                 Value base = ifr.getBase();
                 if (base.equals(fact.value())) {
                     NodeWithLocation<Statement, Val, Field> succNode = new NodeWithLocation<>(
-                            new Statement(succ, method), new Val(rightOp, method), Field.array());
+                            Statement.of(succ, method), Val.of(rightOp, method), Field.array());
                     out.add(new PopNode<NodeWithLocation<Statement, Val, Field>>(succNode, PDSSystem.FIELDS));
                 }
             }
         }
         if (!leftSideMatches)
-            out.add(new Node<Statement, Val>(new Statement(succ, method), fact));
+            out.add(Node.of(Statement.of(succ, method), fact));
         return out;
     }
 }
\ No newline at end of file
@@ -136,7 +136,7 @@ public abstract class ForwardBoomerangSolver<W extends Weight> extends AbstractB
             // onlyStaticInitializer = false;
             for (Unit calleeSp : icfg.getStartPointsOf(callee)) {
                 Set<State> out = Sets.newHashSet();
-                Collection<? extends State> res = computeCallFlow(caller, new Statement((Stmt) callSite, caller),
+                Collection<? extends State> res = computeCallFlow(caller, Statement.of((Stmt) callSite, caller),
                         invokeExpr, currNode.fact(), callee, (Stmt) calleeSp);
                 out.addAll(res);
                 for (State s : out) {
@@ -177,8 +177,8 @@ public abstract class ForwardBoomerangSolver<W extends Weight> extends AbstractB
         if (invokeExpr instanceof InstanceInvokeExpr) {
             InstanceInvokeExpr iie = (InstanceInvokeExpr) invokeExpr;
             if (iie.getBase().equals(fact.value()) && !callee.isStatic()) {
-                out.add(new PushNode<Statement, Val, Statement>(new Statement(calleeSp, callee),
-                        new Val(calleeBody.getThisLocal(), callee), callSite, PDSSystem.CALLS));
+                out.add(new PushNode<Statement, Val, Statement>(Statement.of(calleeSp, callee),
+                        Val.of(calleeBody.getThisLocal(), callee), callSite, PDSSystem.CALLS));
             }
         }
         int i = 0;
@@ -186,13 +186,13 @@ public abstract class ForwardBoomerangSolver<W extends Weight> extends AbstractB
         for (Value arg : invokeExpr.getArgs()) {
             if (arg.equals(fact.value()) && parameterLocals.size() > i) {
                 Local param = parameterLocals.get(i);
-                out.add(new PushNode<Statement, Val, Statement>(new Statement(calleeSp, callee), new Val(param, callee),
+                out.add(new PushNode<Statement, Val, Statement>(Statement.of(calleeSp, callee), Val.of(param, callee),
                         callSite, PDSSystem.CALLS));
             }
             i++;
         }
         if (fact.isStatic()) {
-            out.add(new PushNode<Statement, Val, Statement>(new Statement(calleeSp, callee),
+            out.add(new PushNode<Statement, Val, Statement>(Statement.of(calleeSp, callee),
                     new StaticFieldVal(fact.value(), ((StaticFieldVal) fact).field(), callee), callSite,
                     PDSSystem.CALLS));
         }
@@ -355,10 +355,10 @@ public abstract class ForwardBoomerangSolver<W extends Weight> extends AbstractB
             // always maintain data-flow if not a field write // killFlow has
             // been taken care of
             if (!options.trackReturnOfInstanceOf() || !isInstanceOfStatement(succ, fact)) {
-                out.add(new Node<Statement, Val>(new Statement((Stmt) succ, method), fact));
+                out.add(Node.of(Statement.of((Stmt) succ, method), fact));
             }
         } else {
-            out.add(new ExclusionNode<Statement, Val, Field>(new Statement(succ, method), fact, getWrittenField(succ)));
+            out.add(new ExclusionNode<Statement, Val, Field>(Statement.of(succ, method), fact, getWrittenField(succ)));
         }
         if (succ instanceof AssignStmt) {
             AssignStmt assignStmt = (AssignStmt) succ;
@@ -368,23 +368,23 @@ public abstract class ForwardBoomerangSolver<W extends Weight> extends AbstractB
                 if (leftOp instanceof InstanceFieldRef) {
                     InstanceFieldRef ifr = (InstanceFieldRef) leftOp;
                     if (options.trackFields()) {
-                        out.add(new PushNode<Statement, Val, Field>(new Statement(succ, method),
-                                new Val(ifr.getBase(), method), new Field(ifr.getField()), PDSSystem.FIELDS));
+                        out.add(new PushNode<Statement, Val, Field>(Statement.of(succ, method),
+                                Val.of(ifr.getBase(), method), Field.of(ifr.getField()), PDSSystem.FIELDS));
                     }
                 } else if (leftOp instanceof StaticFieldRef) {
                     StaticFieldRef sfr = (StaticFieldRef) leftOp;
                     if (options.trackFields() && options.staticFlows()) {
-                        out.add(new Node<Statement, Val>(new Statement(succ, method),
+                        out.add(Node.of(Statement.of(succ, method),
                                 new StaticFieldVal(leftOp, sfr.getField(), method)));
                     }
                 } else if (leftOp instanceof ArrayRef) {
                     ArrayRef arrayRef = (ArrayRef) leftOp;
                     if (options.trackFields() && options.arrayFlows()) {
-                        out.add(new PushNode<Statement, Val, Field>(new Statement(succ, method),
-                                new Val(arrayRef.getBase(), method), Field.array(), PDSSystem.FIELDS));
+                        out.add(new PushNode<Statement, Val, Field>(Statement.of(succ, method),
+                                Val.of(arrayRef.getBase(), method), Field.array(), PDSSystem.FIELDS));
                     }
                 } else {
-                    out.add(new Node<Statement, Val>(new Statement(succ, method), new Val(leftOp, method)));
+                    out.add(Node.of(Statement.of(succ, method), Val.of(leftOp, method)));
                 }
             }
             if (rightOp instanceof InstanceFieldRef) {
@@ -392,32 +392,32 @@ public abstract class ForwardBoomerangSolver<W extends Weight> extends AbstractB
                 Value base = ifr.getBase();
                 if (base.equals(fact.value())) {
                     NodeWithLocation<Statement, Val, Field> succNode = new NodeWithLocation<>(
-                            new Statement(succ, method), new Val(leftOp, method), new Field(ifr.getField()));
+                            Statement.of(succ, method), Val.of(leftOp, method), Field.of(ifr.getField()));
                     out.add(new PopNode<NodeWithLocation<Statement, Val, Field>>(succNode, PDSSystem.FIELDS));
                 }
             } else if (rightOp instanceof StaticFieldRef) {
                 StaticFieldRef sfr = (StaticFieldRef) rightOp;
                 if (fact.isStatic() && fact.equals(new StaticFieldVal(rightOp, sfr.getField(), method))) {
-                    out.add(new Node<Statement, Val>(new Statement(succ, method), new Val(leftOp, method)));
+                    out.add(Node.of(Statement.of(succ, method), Val.of(leftOp, method)));
                 }
             } else if (rightOp instanceof ArrayRef) {
                 ArrayRef arrayRef = (ArrayRef) rightOp;
                 Value base = arrayRef.getBase();
                 if (base.equals(fact.value())) {
                     NodeWithLocation<Statement, Val, Field> succNode = new NodeWithLocation<>(
-                            new Statement(succ, method), new Val(leftOp, method), Field.array());
+                            Statement.of(succ, method), Val.of(leftOp, method), Field.array());
                     out.add(new PopNode<NodeWithLocation<Statement, Val, Field>>(succNode, PDSSystem.FIELDS));
                 }
             } else if (rightOp instanceof CastExpr) {
                 CastExpr castExpr = (CastExpr) rightOp;
                 if (castExpr.getOp().equals(fact.value())) {
-                    out.add(new Node<Statement, Val>(new Statement(succ, method), new Val(leftOp, method)));
+                    out.add(Node.of(Statement.of(succ, method), Val.of(leftOp, method)));
                 }
             } else if (rightOp instanceof InstanceOfExpr && query.getType() instanceof NullType
                     && options.trackReturnOfInstanceOf()) {
                 InstanceOfExpr instanceOfExpr = (InstanceOfExpr) rightOp;
                 if (instanceOfExpr.getOp().equals(fact.value())) {
-                    out.add(new Node<Statement, Val>(new Statement(succ, method),
+                    out.add(Node.of(Statement.of(succ, method),
                             new ValWithFalseVariable(fact.value(), method, leftOp)));
                 }
             }
@@ -459,7 +459,7 @@ public abstract class ForwardBoomerangSolver<W extends Weight> extends AbstractB
     @Override
     public Collection<? extends State> computeReturnFlow(SootMethod method, Stmt curr, Val value, Stmt callSite,
             Stmt returnSite) {
-        Statement returnSiteStatement = new Statement(callSite, icfg.getMethodOf(callSite));
+        Statement returnSiteStatement = Statement.of(callSite, icfg.getMethodOf(callSite));
         if (curr instanceof ThrowStmt && !options.throwFlows()) {
             return Collections.emptySet();
         }
@@ -469,7 +469,7 @@ public abstract class ForwardBoomerangSolver<W extends Weight> extends AbstractB
             if (op.equals(value.value())) {
                 if (callSite instanceof AssignStmt) {
                     out.add(new CallPopNode<Val, Statement>(
-                            new Val(((AssignStmt) callSite).getLeftOp(), icfg.getMethodOf(callSite)), PDSSystem.CALLS,
+                            Val.of(((AssignStmt) callSite).getLeftOp(), icfg.getMethodOf(callSite)), PDSSystem.CALLS,
                             returnSiteStatement));
                 }
             }
@@ -479,7 +479,7 @@ public abstract class ForwardBoomerangSolver<W extends Weight> extends AbstractB
                 if (callSite.containsInvokeExpr()) {
                     if (callSite.getInvokeExpr() instanceof InstanceInvokeExpr) {
                         InstanceInvokeExpr iie = (InstanceInvokeExpr) callSite.getInvokeExpr();
-                        out.add(new CallPopNode<Val, Statement>(new Val(iie.getBase(), icfg.getMethodOf(callSite)),
+                        out.add(new CallPopNode<Val, Statement>(Val.of(iie.getBase(), icfg.getMethodOf(callSite)),
                                 PDSSystem.CALLS, returnSiteStatement));
                     }
                 }
@@ -490,7 +490,7 @@ public abstract class ForwardBoomerangSolver<W extends Weight> extends AbstractB
             if (param.equals(value.value())) {
                 if (callSite.containsInvokeExpr()) {
                     InvokeExpr iie = (InvokeExpr) callSite.getInvokeExpr();
-                    out.add(new CallPopNode<Val, Statement>(new Val(iie.getArg(index), icfg.getMethodOf(callSite)),
+                    out.add(new CallPopNode<Val, Statement>(Val.of(iie.getArg(index), icfg.getMethodOf(callSite)),
                             PDSSystem.CALLS, returnSiteStatement));
                 }
             }
@@ -0,0 +1,21 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package boomerang.solver;
+
+/**
+ * A listener that is registered on one solver on behalf of another one, for example to import the flows of a base
+ * solver into a flow solver at a point of indirection. When a solver is evicted, all listeners depending on it are
+ * unregistered from the remaining solvers, see {@link AbstractBoomerangSolver#unregisterListenersDependingOn}.
+ */
+public interface SolverDependentListener {
+    boolean dependsOn(AbstractBoomerangSolver<?> solver);
+}
@@ -48,6 +48,7 @@ import wpds.interfaces.WPDSUpdateListener;
 public class AdvancedBoomerangStats<W extends Weight> implements IBoomerangStats<W> {
 
     private Map<Query, AbstractBoomerangSolver<W>> queries = Maps.newHashMap();
+    private int evictedSolvers;
     private Set<WeightedTransition<Field, INode<Node<Statement, Val>>, W>> globalFieldTransitions = Sets.newHashSet();
     private int fieldTransitionCollisions;
     private Set<WeightedTransition<Statement, INode<Val>, W>> globalCallTransitions = Sets.newHashSet();
@@ -175,6 +176,18 @@ public class AdvancedBoomerangStats<W extends Weight> implements IBoomerangStats
         map.put(method, ++i);
     }
 
+    @Override
+    public void evictedSolver(Query key, AbstractBoomerangSolver<W> solver) {
+        if (queries.remove(key) != null) {
+            evictedSolvers++;
+        }
+    }
+
+    @Override
+    public int getEvictedSolvers() {
+        return evictedSolvers;
+    }
+
     @Override
     public void registerFieldWritePOI(WeightedBoomerang<W>.FieldWritePOI key) {
         fieldWritePOIs++;
@@ -197,6 +210,9 @@ public class AdvancedBoomerangStats<W extends Weight> implements IBoomerangStats
         }
         s += String.format("Queries (Forward/Backward/Total): \t\t %s/%s/%s\n", forwardQuery, backwardQuery,
                 queries.keySet().size());
+        if (evictedSolvers > 0) {
+            s += String.format("Evicted Solvers: \t\t %s\n", evictedSolvers);
+        }
         s += String.format("Visited Methods (Field/Call): \t\t %s/%s\n", fieldVisitedMethods.size(),
                 callVisitedMethods.size());
         s += String.format("Reached Forward Nodes(Collisions): \t\t %s (%s)\n", reachedForwardNodes.size(),
@@ -262,6 +278,13 @@ public class AdvancedBoomerangStats<W extends Weight> implements IBoomerangStats
         float average = ((float) totalReached) / queries.keySet().size();
         String s = String.format("Reachable nodes (Min/Avg/Max): \t\t%s/%s/%s\n", min, average, max);
         s += String.format("Maximal Query: \t\t%s\n", maxQuery);
+        int maxCallQueue = 0;
+        int maxFieldQueue = 0;
+        for (AbstractBoomerangSolver<W> solver : queries.values()) {
+            maxCallQueue = Math.max(maxCallQueue, solver.getCallAutomaton().getMaxDispatchQueueSize());
+            maxFieldQueue = Math.max(maxFieldQueue, solver.getFieldAutomaton().getMaxDispatchQueueSize());
+        }
+        s += String.format("Max Dispatch Queue (Call/Field): \t\t%s/%s\n", maxCallQueue, maxFieldQueue);
         return s;
     }
 
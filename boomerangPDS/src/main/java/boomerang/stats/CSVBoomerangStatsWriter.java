@@ -57,6 +57,7 @@ import wpds.interfaces.WPDSUpdateListener;
 public class CSVBoomerangStatsWriter<W extends Weight> implements IBoomerangStats<W> {
 
     private Map<Query, AbstractBoomerangSolver<W>> queries = Maps.newHashMap();
+    private int evictedSolvers;
     private Set<WeightedTransition<Field, INode<Node<Statement, Val>>, W>> globalFieldTransitions = Sets.newHashSet();
     private int fieldTransitionCollisions;
     private Set<WeightedTransition<Statement, INode<Val>, W>> globalCallTransitions = Sets.newHashSet();
@@ -88,7 +89,7 @@ public class CSVBoomerangStatsWriter<W extends Weight> implements IBoomerangStat
     private long memoryBefore;
 
     private enum Headers {
-        Query, QueryType, FieldTransitions, CallTransitions, CallRules, FieldRules, ReachedForwardNodes, ReachedBackwardNodes, CallVisitedMethods, FieldVisitedMethods, CallVisitedStmts, FieldVisitedStmts, FieldWritePOIs, FieldReadPOIs, StaticFlows, ArrayFlows, QueryTime, Timeout, ICFGEdges, CallGeneratedStates, FieldGeneratedStates, FieldLongestAccessPath, CallLongestCallStack, CallContainsLoop, FieldContainsLoop, MemoryBefore, MemoryAfter, MemoryDiff
+        Query, QueryType, FieldTransitions, CallTransitions, CallRules, FieldRules, ReachedForwardNodes, ReachedBackwardNodes, CallVisitedMethods, FieldVisitedMethods, CallVisitedStmts, FieldVisitedStmts, FieldWritePOIs, FieldReadPOIs, StaticFlows, ArrayFlows, QueryTime, Timeout, ICFGEdges, CallGeneratedStates, FieldGeneratedStates, FieldLongestAccessPath, CallLongestCallStack, CallContainsLoop, FieldContainsLoop, MemoryBefore, MemoryAfter, MemoryDiff, EvictedSolvers
     }
 
     public CSVBoomerangStatsWriter(String outputFileName) {
@@ -201,6 +202,18 @@ public class CSVBoomerangStatsWriter<W extends Weight> implements IBoomerangStat
         }
     }
 
+    @Override
+    public void evictedSolver(Query key, AbstractBoomerangSolver<W> solver) {
+        if (queries.remove(key) != null) {
+            evictedSolvers++;
+        }
+    }
+
+    @Override
+    public int getEvictedSolvers() {
+        return evictedSolvers;
+    }
+
     @Override
     public void registerFieldWritePOI(WeightedBoomerang<W>.FieldWritePOI key) {
         fieldWritePOIs++;
@@ -223,6 +236,9 @@ public class CSVBoomerangStatsWriter<W extends Weight> implements IBoomerangStat
         }
         s += String.format("Queries (Forward/Backward/Total): \t\t %s/%s/%s\n", forwardQuery, backwardQuery,
                 queries.keySet().size());
+        if (evictedSolvers > 0) {
+            s += String.format("Evicted Solvers: \t\t %s\n", evictedSolvers);
+        }
         s += String.format("Visited Methods (Field/Call): \t\t %s/%s\n", fieldVisitedMethods.size(),
                 callVisitedMethods.size());
         s += String.format("Reached Forward Nodes(Collisions): \t\t %s (%s)\n", reachedForwardNodes.size(),
@@ -361,6 +377,7 @@ public class CSVBoomerangStatsWriter<W extends Weight> implements IBoomerangStat
         put(Headers.MemoryAfter, memoryAfter);
         put(Headers.MemoryBefore, memoryBefore);
         put(Headers.MemoryDiff, memoryAfter - memoryBefore);
+        put(Headers.EvictedSolvers, evictedSolvers);
         try {
             File reportFile = new File(outputFileName).getAbsoluteFile();
             if (!reportFile.getParentFile().exists()) {
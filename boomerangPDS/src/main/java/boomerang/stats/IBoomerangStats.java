@@ -33,6 +33,14 @@ import wpds.impl.Weight;
 public interface IBoomerangStats<W extends Weight> {
     void registerSolver(Query key, AbstractBoomerangSolver<W> solver);
 
+    /**
+     * Called when a solver is evicted in bounded-memory mode (see {@link boomerang.BoomerangOptions#solverSizeBudget()}).
+     * The stats must drop their reference to the solver, it is registered again if the query is recomputed.
+     */
+    void evictedSolver(Query key, AbstractBoomerangSolver<W> solver);
+
+    int getEvictedSolvers();
+
     void registerFieldWritePOI(WeightedBoomerang<W>.FieldWritePOI key);
 
     void registerFieldReadPOI(WeightedBoomerang<W>.FieldReadPOI key);
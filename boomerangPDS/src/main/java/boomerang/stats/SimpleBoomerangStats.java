@@ -42,6 +42,7 @@ import wpds.interfaces.WPAUpdateListener;
 public class SimpleBoomerangStats<W extends Weight> implements IBoomerangStats<W> {
 
     private Map<Query, AbstractBoomerangSolver<W>> queries = Maps.newHashMap();
+    private int evictedSolvers;
     private Set<SootMethod> callVisitedMethods = Sets.newHashSet();
     private Set<SootMethod> fieldVisitedMethods = Sets.newHashSet();
 
@@ -69,6 +70,18 @@ public class SimpleBoomerangStats<W extends Weight> implements IBoomerangStats<W
 
     }
 
+    @Override
+    public void evictedSolver(Query key, AbstractBoomerangSolver<W> solver) {
+        if (queries.remove(key) != null) {
+            evictedSolvers++;
+        }
+    }
+
+    @Override
+    public int getEvictedSolvers() {
+        return evictedSolvers;
+    }
+
     @Override
     public void registerFieldWritePOI(WeightedBoomerang<W>.FieldWritePOI key) {
 
@@ -90,6 +103,9 @@ public class SimpleBoomerangStats<W extends Weight> implements IBoomerangStats<W
         }
         s += String.format("Queries (Forward/Backward/Total): \t\t %s/%s/%s\n", forwardQuery, backwardQuery,
                 queries.keySet().size());
+        if (evictedSolvers > 0) {
+            s += String.format("Evicted Solvers: \t\t %s\n", evictedSolvers);
+        }
         s += String.format("Visited Methods (Field/Call): \t\t %s/%s/(%s/%s)\n", fieldVisitedMethods.size(),
                 callVisitedMethods.size(), Sets.difference(fieldVisitedMethods, callVisitedMethods).size(),
                 Sets.difference(callVisitedMethods, fieldVisitedMethods).size());
@@ -0,0 +1,300 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package boomerang.util;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable hash set with structural sharing (a hash array mapped trie). {@link #plus(Object)} returns a new set in
+ * O(log n) and shares all untouched nodes with this set, so a chain of sets that each extend the previous one does not
+ * copy the elements again and again.
+ */
+public final class PersistentSet<E> extends AbstractSet<E> {
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final int MAX_SHIFT = 30;
+
+    private static final PersistentSet<Object> EMPTY = new PersistentSet<>(new BitmapNode(0, new Object[0]), 0, 0);
+
+    private final Node root;
+    private final int size;
+    private final int hashCode;
+
+    private PersistentSet(Node root, int size, int hashCode) {
+        this.root = root;
+        this.size = size;
+        this.hashCode = hashCode;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentSet<E> empty() {
+        return (PersistentSet<E>) EMPTY;
+    }
+
+    public static <E> PersistentSet<E> of(E element) {
+        return PersistentSet.<E> empty().plus(element);
+    }
+
+    public PersistentSet<E> plus(E element) {
+        if (element == null)
+            throw new IllegalArgumentException("Element must not be null!");
+        int hash = element.hashCode();
+        Node newRoot = root.plus(element, hash, 0);
+        if (newRoot == root)
+            return this;
+        return new PersistentSet<>(newRoot, size + 1, hashCode + hash);
+    }
+
+    /**
+     * Returns the union of both sets. The elements of the smaller set are added to the larger one, so the cost is
+     * O(m log n) where m is the size of the smaller set.
+     */
+    public PersistentSet<E> plusAll(PersistentSet<E> other) {
+        PersistentSet<E> larger = size >= other.size ? this : other;
+        PersistentSet<E> smaller = larger == this ? other : this;
+        PersistentSet<E> res = larger;
+        for (E e : smaller) {
+            res = res.plus(e);
+        }
+        return res;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (o == null)
+            return false;
+        return root.contains(o, o.hashCode(), 0);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this)
+            return true;
+        if (o instanceof PersistentSet) {
+            PersistentSet<?> other = (PersistentSet<?>) o;
+            if (other.size != size || other.hashCode != hashCode)
+                return false;
+            // Equal sets have the same trie, subtrees shared by both sets are not compared element by element
+            return equalNodes(root, other.root);
+        }
+        return super.equals(o);
+    }
+
+    private static boolean equalNodes(Node node, Node other) {
+        if (node == other)
+            return true;
+        if (node instanceof BitmapNode && other instanceof BitmapNode) {
+            BitmapNode bitmapNode = (BitmapNode) node;
+            BitmapNode otherBitmapNode = (BitmapNode) other;
+            if (bitmapNode.bitmap != otherBitmapNode.bitmap)
+                return false;
+            for (int i = 0; i < bitmapNode.slots.length; i++) {
+                Object slot = bitmapNode.slots[i];
+                Object otherSlot = otherBitmapNode.slots[i];
+                if (slot instanceof Node && otherSlot instanceof Node) {
+                    if (!equalNodes((Node) slot, (Node) otherSlot))
+                        return false;
+                } else if (slot instanceof Node || otherSlot instanceof Node || !slot.equals(otherSlot)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (node instanceof CollisionNode && other instanceof CollisionNode) {
+            CollisionNode collisionNode = (CollisionNode) node;
+            CollisionNode otherCollisionNode = (CollisionNode) other;
+            if (collisionNode.hash != otherCollisionNode.hash
+                    || collisionNode.elements.length != otherCollisionNode.elements.length)
+                return false;
+            for (Object e : collisionNode.elements) {
+                if (!otherCollisionNode.contains(e, collisionNode.hash, 0))
+                    return false;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new NodeIterator<>(root);
+    }
+
+    private interface Node {
+        boolean contains(Object element, int hash, int shift);
+
+        /**
+         * @return this node if the element is already contained.
+         */
+        Node plus(Object element, int hash, int shift);
+    }
+
+    /**
+     * Slots hold either an element or a child node, the bitmap marks which of the 32 slots are present.
+     */
+    private static final class BitmapNode implements Node {
+        private final int bitmap;
+        private final Object[] slots;
+
+        BitmapNode(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+
+        @Override
+        public boolean contains(Object element, int hash, int shift) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((bitmap & bit) == 0)
+                return false;
+            Object slot = slots[Integer.bitCount(bitmap & (bit - 1))];
+            if (slot instanceof Node)
+                return ((Node) slot).contains(element, hash, shift + BITS);
+            return slot.equals(element);
+        }
+
+        @Override
+        public Node plus(Object element, int hash, int shift) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            int index = Integer.bitCount(bitmap & (bit - 1));
+            if ((bitmap & bit) == 0) {
+                Object[] newSlots = new Object[slots.length + 1];
+                System.arraycopy(slots, 0, newSlots, 0, index);
+                newSlots[index] = element;
+                System.arraycopy(slots, index, newSlots, index + 1, slots.length - index);
+                return new BitmapNode(bitmap | bit, newSlots);
+            }
+            Object slot = slots[index];
+            Node child;
+            if (slot instanceof Node) {
+                child = ((Node) slot).plus(element, hash, shift + BITS);
+                if (child == slot)
+                    return this;
+            } else {
+                if (slot.equals(element))
+                    return this;
+                child = merge(slot, element, hash, shift + BITS);
+            }
+            Object[] newSlots = slots.clone();
+            newSlots[index] = child;
+            return new BitmapNode(bitmap, newSlots);
+        }
+
+        private static Node merge(Object existing, Object element, int hash, int shift) {
+            int existingHash = existing.hashCode();
+            if (existingHash == hash || shift > MAX_SHIFT)
+                return new CollisionNode(hash, new Object[] { existing, element });
+            Node node = new BitmapNode(0, new Object[0]);
+            return node.plus(existing, existingHash, shift).plus(element, hash, shift);
+        }
+    }
+
+    /**
+     * Holds elements with the same hash. An element with a different hash splits the node, so the trie of a set does
+     * not depend on the order its elements were added in.
+     */
+    private static final class CollisionNode implements Node {
+        private final int hash;
+        private final Object[] elements;
+
+        CollisionNode(int hash, Object[] elements) {
+            this.hash = hash;
+            this.elements = elements;
+        }
+
+        @Override
+        public boolean contains(Object element, int hash, int shift) {
+            for (Object e : elements) {
+                if (e.equals(element))
+                    return true;
+            }
+            return false;
+        }
+
+        @Override
+        public Node plus(Object element, int hash, int shift) {
+            if (hash != this.hash) {
+                Node node = new BitmapNode(1 << ((this.hash >>> shift) & MASK), new Object[] { this });
+                return node.plus(element, hash, shift);
+            }
+            if (contains(element, hash, shift))
+                return this;
+            Object[] newElements = Arrays.copyOf(elements, elements.length + 1);
+            newElements[elements.length] = element;
+            return new CollisionNode(hash, newElements);
+        }
+    }
+
+    private static final class NodeIterator<E> implements Iterator<E> {
+        private final LinkedList<Object[]> stack = new LinkedList<>();
+        private final LinkedList<Integer> positions = new LinkedList<>();
+        private Object next;
+
+        NodeIterator(Node root) {
+            push(root);
+            advance();
+        }
+
+        private void push(Node node) {
+            stack.push(node instanceof BitmapNode ? ((BitmapNode) node).slots : ((CollisionNode) node).elements);
+            positions.push(0);
+        }
+
+        private void advance() {
+            next = null;
+            while (!stack.isEmpty()) {
+                Object[] slots = stack.peek();
+                int pos = positions.pop();
+                if (pos == slots.length) {
+                    stack.pop();
+                    continue;
+                }
+                positions.push(pos + 1);
+                Object slot = slots[pos];
+                if (slot instanceof Node) {
+                    push((Node) slot);
+                } else {
+                    next = slot;
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public E next() {
+            if (next == null)
+                throw new NoSuchElementException();
+            E res = (E) next;
+            advance();
+            return res;
+        }
+    }
+}
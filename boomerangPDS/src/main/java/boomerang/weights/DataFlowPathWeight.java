@@ -1,27 +1,27 @@
 package boomerang.weights;
 
-import java.util.Set;
-
-import com.google.common.collect.Sets;
-
 import boomerang.jimple.Statement;
+import boomerang.util.PersistentSet;
 import wpds.impl.Weight;
+import wpds.impl.WeightInterner;
 
 public class DataFlowPathWeight extends Weight {
 
-    private static DataFlowPathWeight one;
-    private static DataFlowPathWeight zero;
+    private static final DataFlowPathWeight ONE = new DataFlowPathWeight("ONE");
+    private static final DataFlowPathWeight ZERO = new DataFlowPathWeight("ZERO");
+    private static final WeightInterner<DataFlowPathWeight> INTERNER = new WeightInterner<>();
 
     /**
-     * This set keeps track of all statement that use an alias from source to sink.
+     * This set keeps track of all statement that use an alias from source to sink. It is persistent, extending a weight
+     * shares the set of the extended weight instead of copying it.
      */
-    private Set<Statement> allStatements;
+    private PersistentSet<Statement> allStatements;
 
     /**
      * A subset of {@link #allStatements} that lists only the last usage of a variable. When data-flow at branches is
      * joined, the set can contain multiple statement that use the variable
      */
-    private Set<Statement> lastStatements;
+    private PersistentSet<Statement> lastStatements;
 
     private String rep;
 
@@ -29,16 +29,14 @@ public class DataFlowPathWeight extends Weight {
         this.rep = rep;
     }
 
-    private DataFlowPathWeight(Set<Statement> allStatement, Set<Statement> lastStatements) {
+    private DataFlowPathWeight(PersistentSet<Statement> allStatement, PersistentSet<Statement> lastStatements) {
         this.allStatements = allStatement;
         this.lastStatements = lastStatements;
     }
 
     public DataFlowPathWeight(Statement relevantStatement) {
-        allStatements = Sets.newHashSet();
-        lastStatements = Sets.newHashSet();
-        allStatements.add(relevantStatement);
-        lastStatements.add(relevantStatement);
+        allStatements = PersistentSet.of(relevantStatement);
+        lastStatements = allStatements;
     }
 
     @Override
@@ -53,10 +51,8 @@ public class DataFlowPathWeight extends Weight {
         if (other.equals(zero()) || this.equals(zero())) {
             return zero();
         }
-        Set<Statement> newAllStatements = Sets.newHashSet();
-        newAllStatements.addAll(allStatements);
-        newAllStatements.addAll(other.allStatements);
-        return new DataFlowPathWeight(newAllStatements, other.lastStatements);
+        PersistentSet<Statement> newAllStatements = allStatements.plusAll(other.allStatements);
+        return INTERNER.intern(new DataFlowPathWeight(newAllStatements, other.lastStatements));
     }
 
     @Override
@@ -65,15 +61,11 @@ public class DataFlowPathWeight extends Weight {
     }
 
     public static DataFlowPathWeight one() {
-        if (one == null)
-            one = new DataFlowPathWeight("ONE");
-        return one;
+        return ONE;
     }
 
     public static DataFlowPathWeight zero() {
-        if (zero == null)
-            zero = new DataFlowPathWeight("ZERO");
-        return zero;
+        return ZERO;
     }
 
     @Override
@@ -0,0 +1,180 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package test.callgraph;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import boomerang.callgraph.CallGraphEdgeCache;
+import boomerang.callgraph.ICFGCache;
+import boomerang.callgraph.ObservableStaticICFG;
+import soot.G;
+import soot.IntType;
+import soot.Kind;
+import soot.Local;
+import soot.MethodOrMethodContext;
+import soot.Modifier;
+import soot.Scene;
+import soot.SootClass;
+import soot.SootMethod;
+import soot.Unit;
+import soot.VoidType;
+import soot.jimple.AssignStmt;
+import soot.jimple.IntConstant;
+import soot.jimple.Jimple;
+import soot.jimple.JimpleBody;
+import soot.jimple.Stmt;
+import soot.jimple.toolkits.callgraph.CallGraph;
+import soot.jimple.toolkits.callgraph.Edge;
+import soot.jimple.toolkits.callgraph.ReachableMethods;
+import soot.jimple.toolkits.ide.icfg.JimpleBasedInterproceduralCFG;
+
+public class CallGraphEdgeCacheTest {
+
+    private static final int CALLEES = 10;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private SootMethod main;
+    private SootMethod helper;
+    private List<SootMethod> callees;
+    private CallGraph cg;
+
+    /**
+     * A main method calling {@link #CALLEES} methods and a helper method, the helper calls the first of the callees.
+     */
+    @Before
+    public void createScene() {
+        G.reset();
+        ICFGCache.reset();
+        SootClass target = new SootClass("Target", Modifier.PUBLIC);
+        Scene.v().addClass(target);
+        main = new SootMethod("main", Collections.emptyList(), VoidType.v(), Modifier.PUBLIC | Modifier.STATIC);
+        target.addMethod(main);
+        helper = new SootMethod("helper", Collections.emptyList(), VoidType.v(), Modifier.PUBLIC | Modifier.STATIC);
+        target.addMethod(helper);
+        callees = Lists.newArrayList();
+        for (int i = 0; i < CALLEES; i++) {
+            SootMethod m = new SootMethod("m" + i, Collections.emptyList(), IntType.v(),
+                    Modifier.PUBLIC | Modifier.STATIC);
+            target.addMethod(m);
+            JimpleBody body = Jimple.v().newBody(m);
+            m.setActiveBody(body);
+            body.getUnits().add(Jimple.v().newReturnStmt(IntConstant.v(i)));
+            callees.add(m);
+        }
+        cg = new CallGraph();
+        JimpleBody mainBody = Jimple.v().newBody(main);
+        main.setActiveBody(mainBody);
+        for (SootMethod m : callees) {
+            Local l = Jimple.v().newLocal("l" + m.getName(), IntType.v());
+            mainBody.getLocals().add(l);
+            Stmt call = Jimple.v().newAssignStmt(l, Jimple.v().newStaticInvokeExpr(m.makeRef()));
+            mainBody.getUnits().add(call);
+            cg.addEdge(new Edge(main, call, m, Kind.STATIC));
+        }
+        Stmt callHelper = Jimple.v().newInvokeStmt(Jimple.v().newStaticInvokeExpr(helper.makeRef()));
+        mainBody.getUnits().add(callHelper);
+        cg.addEdge(new Edge(main, callHelper, helper, Kind.STATIC));
+        mainBody.getUnits().add(Jimple.v().newReturnVoidStmt());
+
+        JimpleBody helperBody = Jimple.v().newBody(helper);
+        helper.setActiveBody(helperBody);
+        Stmt callFirst = Jimple.v().newInvokeStmt(Jimple.v().newStaticInvokeExpr(callees.get(0).makeRef()));
+        helperBody.getUnits().add(callFirst);
+        cg.addEdge(new Edge(helper, callFirst, callees.get(0), Kind.STATIC));
+        helperBody.getUnits().add(Jimple.v().newReturnVoidStmt());
+
+        Scene.v().setEntryPoints(Collections.singletonList(main));
+        Scene.v().setCallGraph(cg);
+        Scene.v().setReachableMethods(
+                new ReachableMethods(cg, Collections.<MethodOrMethodContext> singletonList(main)));
+    }
+
+    @After
+    public void reset() {
+        ICFGCache.reset();
+        G.reset();
+    }
+
+    @Test
+    public void roundTrip() throws Exception {
+        CallGraphEdgeCache edges = write();
+        CallGraphEdgeCache read = CallGraphEdgeCache.read(new File(folder.getRoot(), "edges"));
+        assertEquals(CALLEES + 2, read.getEdges().size());
+        assertEquals(edges(edges.getEdges()), edges(read.getEdges()));
+        assertEquals(edges.getQueriedCallSites(), read.getQueriedCallSites());
+    }
+
+    @Test
+    public void insertedUnitSkipsMethod() throws Exception {
+        write();
+        main.getActiveBody().getUnits().addFirst(Jimple.v().newNopStmt());
+        assertOnlyHelperIsRead();
+    }
+
+    @Test
+    public void changedCalleeSkipsMethod() throws Exception {
+        write();
+        // Same number of units, but the first call site invokes a different method
+        AssignStmt firstCall = (AssignStmt) main.getActiveBody().getUnits().getFirst();
+        firstCall.setRightOp(Jimple.v().newStaticInvokeExpr(callees.get(1).makeRef()));
+        assertOnlyHelperIsRead();
+    }
+
+    private void assertOnlyHelperIsRead() {
+        CallGraphEdgeCache read = CallGraphEdgeCache.read(new File(folder.getRoot(), "edges"));
+        assertEquals(edges(Lists.newArrayList(cg.edgesOutOf(helper))), edges(read.getEdges()));
+        assertEquals(Sets.newHashSet(helper.getActiveBody().getUnits().getFirst()), read.getQueriedCallSites());
+    }
+
+    /**
+     * Writes all edges of the call graph, all call sites are marked as queried.
+     */
+    private CallGraphEdgeCache write() throws Exception {
+        File file = folder.newFile("edges");
+        List<Unit> callSites = Lists.newArrayList();
+        for (SootMethod m : Arrays.asList(main, helper)) {
+            for (Unit u : m.getActiveBody().getUnits()) {
+                if (((Stmt) u).containsInvokeExpr())
+                    callSites.add(u);
+            }
+        }
+        CallGraphEdgeCache edges = new CallGraphEdgeCache(Lists.newArrayList(cg.iterator()), callSites);
+        edges.write(file, new ObservableStaticICFG(new JimpleBasedInterproceduralCFG(false)));
+        return edges;
+    }
+
+    private static Set<List<Object>> edges(Collection<Edge> edges) {
+        Set<List<Object>> res = Sets.newHashSet();
+        for (Edge e : edges) {
+            res.add(Arrays.<Object> asList(e.src(), e.srcUnit(), e.tgt(), e.kind()));
+        }
+        return res;
+    }
+}
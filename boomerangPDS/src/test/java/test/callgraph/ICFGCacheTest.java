@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package test.callgraph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+import boomerang.callgraph.ICFGCache;
+import soot.G;
+import soot.IntType;
+import soot.Local;
+import soot.MethodOrMethodContext;
+import soot.Modifier;
+import soot.Scene;
+import soot.SootClass;
+import soot.SootMethod;
+import soot.Unit;
+import soot.jimple.IntConstant;
+import soot.jimple.Jimple;
+import soot.jimple.JimpleBody;
+import soot.jimple.toolkits.callgraph.CallGraph;
+import soot.jimple.toolkits.callgraph.ReachableMethods;
+import soot.toolkits.graph.DirectedGraph;
+
+public class ICFGCacheTest {
+
+    private static final int METHODS = 100;
+    private static final int THREADS = 8;
+
+    private List<SootMethod> methods;
+
+    @Before
+    public void createScene() {
+        G.reset();
+        ICFGCache.reset();
+        SootClass target = new SootClass("Target", Modifier.PUBLIC);
+        Scene.v().addClass(target);
+        methods = Lists.newArrayList();
+        List<MethodOrMethodContext> entryPoints = Lists.newArrayList();
+        for (int i = 0; i < METHODS; i++) {
+            SootMethod m = new SootMethod("m" + i, Collections.emptyList(), IntType.v(),
+                    Modifier.PUBLIC | Modifier.STATIC);
+            target.addMethod(m);
+            methods.add(m);
+            entryPoints.add(m);
+        }
+        for (int i = 0; i < METHODS; i++) {
+            SootMethod m = methods.get(i);
+            JimpleBody body = Jimple.v().newBody(m);
+            m.setActiveBody(body);
+            Local l = Jimple.v().newLocal("l", IntType.v());
+            body.getLocals().add(l);
+            body.getUnits().add(Jimple.v().newAssignStmt(l,
+                    Jimple.v().newStaticInvokeExpr(methods.get((i + 1) % METHODS).makeRef())));
+            body.getUnits().add(Jimple.v().newReturnStmt(IntConstant.v(i)));
+        }
+        Scene.v().setReachableMethods(new ReachableMethods(new CallGraph(), entryPoints));
+    }
+
+    @After
+    public void reset() {
+        ICFGCache.reset();
+        G.reset();
+    }
+
+    @Test
+    public void concurrentReadsShareOneResult() throws Exception {
+        final ICFGCache cache = ICFGCache.v(false);
+        ExecutorService workers = Executors.newFixedThreadPool(THREADS);
+        List<Future<List<Object>>> futures = Lists.newArrayList();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(workers.submit(new Callable<List<Object>>() {
+                    @Override
+                    public List<Object> call() throws Exception {
+                        List<Object> read = Lists.newArrayList();
+                        for (SootMethod m : methods) {
+                            DirectedGraph<Unit> graph = cache.getUnitGraph(m.getActiveBody());
+                            Unit first = graph.getHeads().get(0);
+                            assertSame(m.getActiveBody(), cache.getOwner(first));
+                            read.add(graph);
+                            read.add(cache.getCallsFromWithin(m));
+                            read.add(cache.getParameterRefs(m));
+                        }
+                        return read;
+                    }
+                }));
+            }
+            List<Object> expected = futures.get(0).get();
+            for (Future<List<Object>> f : futures) {
+                List<Object> read = f.get();
+                assertEquals(expected.size(), read.size());
+                for (int i = 0; i < read.size(); i++) {
+                    assertSame(expected.get(i), read.get(i));
+                }
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+        assertEquals(METHODS * 2, cache.getReachableUnits().size());
+        assertSame(cache, ICFGCache.v(false));
+    }
+
+    @Test
+    public void resetDropsCache() {
+        ICFGCache cache = ICFGCache.v(false);
+        ICFGCache.reset();
+        assertNotSame(cache, ICFGCache.v(false));
+    }
+}
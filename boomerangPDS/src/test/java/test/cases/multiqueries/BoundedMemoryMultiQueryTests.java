@@ -0,0 +1,75 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package test.cases.multiqueries;
+
+import org.junit.Test;
+
+import test.core.MultiQueryBoomerangTest;
+import test.core.selfrunning.AllocatedObject;
+import test.core.selfrunning.AllocatedObject2;
+
+/**
+ * Runs the queries with a budget of a single transition, such that each query evicts the solvers of the previous one.
+ */
+public class BoundedMemoryMultiQueryTests extends MultiQueryBoomerangTest {
+
+    @Override
+    protected long solverSizeBudget() {
+        return 1;
+    }
+
+    @Test
+    public void twoQueriesTest() {
+        Object alloc1 = new Alloc1();
+        Object alias1 = new Alloc2();
+        Object query = alloc1;
+        queryFor1(query, AllocatedObject.class);
+        queryFor2(alias1, AllocatedObject2.class);
+    }
+
+    @Test
+    public void withFields() {
+        Alloc1 alloc1 = new Alloc1();
+        Object alias1 = new Alloc2();
+        Alloc1 alias = alloc1;
+        alias.field = alias1;
+        Object query = alloc1.field;
+        queryFor1(alias, AllocatedObject.class);
+        queryFor2(query, AllocatedObject2.class);
+    }
+
+    @Test
+    public void withFieldsInCallee() {
+        Alloc1 alloc1 = new Alloc1();
+        Alloc1 alias = alloc1;
+        store(alias, new Alloc2());
+        queryFor1(alias, AllocatedObject.class);
+        Object query = load(alloc1);
+        queryFor2(query, AllocatedObject2.class);
+    }
+
+    private static void store(Alloc1 base, Object value) {
+        base.field = value;
+    }
+
+    private static Object load(Alloc1 base) {
+        return base.field;
+    }
+
+    private static class Alloc1 implements AllocatedObject {
+        Object field = new Object();
+    }
+
+    private static class Alloc2 implements AllocatedObject2 {
+
+    }
+}
@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package test.cases.multiqueries;
+
+import org.junit.Test;
+
+import test.core.MultiQueryBoomerangTest;
+import test.core.selfrunning.AllocatedObject;
+import test.core.selfrunning.AllocatedObject2;
+
+/**
+ * Answers the queries a second time from a cache that is shared by the solvers of a common ICFG.
+ */
+public class CachedMultiQueryTests extends MultiQueryBoomerangTest {
+
+    @Override
+    protected boolean cacheBackwardQueries() {
+        return true;
+    }
+
+    @Test
+    public void twoQueriesTest() {
+        Object alloc1 = new Alloc1();
+        Object alias1 = new Alloc2();
+        Object query = alloc1;
+        queryFor1(query, AllocatedObject.class);
+        queryFor2(alias1, AllocatedObject2.class);
+    }
+
+    @Test
+    public void withFieldsInCallee() {
+        Alloc1 alloc1 = new Alloc1();
+        Alloc1 alias = alloc1;
+        store(alias, new Alloc2());
+        queryFor1(alias, AllocatedObject.class);
+        Object query = load(alloc1);
+        queryFor2(query, AllocatedObject2.class);
+    }
+
+    private static void store(Alloc1 base, Object value) {
+        base.field = value;
+    }
+
+    private static Object load(Alloc1 base) {
+        return base.field;
+    }
+
+    @Test
+    public void virtualCalls() {
+        Wrapper wrapper1 = new Wrapper();
+        Object query1 = wrapper1.wrap(new Alloc1());
+        queryFor1(query1, AllocatedObject.class);
+        Wrapper wrapper2 = new Wrapper();
+        Object query2 = wrapper2.wrap(new Alloc2());
+        queryFor2(query2, AllocatedObject2.class);
+    }
+
+    private static class Wrapper {
+        public Object wrap(Object o) {
+            return o;
+        }
+    }
+
+    private static class Alloc1 implements AllocatedObject {
+        Object field = new Object();
+    }
+
+    private static class Alloc2 implements AllocatedObject2 {
+
+    }
+}
@@ -35,6 +35,7 @@ import boomerang.Query;
 import boomerang.WeightedBoomerang;
 import boomerang.WholeProgramBoomerang;
 import boomerang.callgraph.CalleeListener;
+import boomerang.callgraph.ICFGCache;
 import boomerang.callgraph.ObservableDynamicICFG;
 import boomerang.callgraph.ObservableICFG;
 import boomerang.callgraph.ObservableStaticICFG;
@@ -108,6 +109,7 @@ public class AbstractBoomerangTest extends AbstractTestingFramework {
         return new SceneTransformer() {
 
             protected void internalTransform(String phaseName, @SuppressWarnings("rawtypes") Map options) {
+                ICFGCache.reset();
                 BoomerangPretransformer.v().apply();
                 staticIcfg = new ObservableStaticICFG(new JimpleBasedInterproceduralCFG());
                 queryDetector = new QueryForCallSiteDetector(staticIcfg);
@@ -11,8 +11,12 @@
  *******************************************************************************/
 package test.core;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
 import boomerang.*;
 import boomerang.callgraph.CalleeListener;
+import boomerang.callgraph.ICFGCache;
 import boomerang.callgraph.ObservableDynamicICFG;
 import boomerang.callgraph.ObservableICFG;
 import boomerang.callgraph.ObservableStaticICFG;
@@ -28,6 +32,7 @@ import boomerang.seedfactory.SimpleSeedFactory;
 import com.google.common.base.Joiner;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
 import org.junit.Rule;
@@ -49,7 +54,6 @@ public class MultiQueryBoomerangTest extends AbstractTestingFramework {
 
     @Rule
     public Timeout timeout = new Timeout(10000000);
-    private ObservableICFG<Unit, SootMethod> dynamicIcfg;
     private ObservableStaticICFG staticIcfg;
     private Collection<? extends Query> allocationSites;
     protected Collection<? extends Query> queryForCallSites;
@@ -66,6 +70,7 @@ public class MultiQueryBoomerangTest extends AbstractTestingFramework {
         return new SceneTransformer() {
 
             protected void internalTransform(String phaseName, @SuppressWarnings("rawtypes") Map options) {
+                ICFGCache.reset();
                 BoomerangPretransformer.v().apply();
                 staticIcfg = new ObservableStaticICFG(new JimpleBasedInterproceduralCFG());
                 seedFactory = new SeedFactory<Weight.NoWeight>() {
@@ -184,7 +189,112 @@ public class MultiQueryBoomerangTest extends AbstractTestingFramework {
         }
     }
 
+    /**
+     * A positive budget solves all queries a second time with a solver in bounded-memory mode, which must compute the
+     * same results even though the solvers of earlier queries are evicted and recomputed.
+     */
+    protected long solverSizeBudget() {
+        return 0;
+    }
+
     private void runDemandDrivenBackward() {
+        solver = createSolver(0);
+        Map<Query, Set<ForwardQuery>> results = Maps.newHashMap();
+        for (final Query query : queryForCallSites) {
+            if (query instanceof BackwardQuery) {
+                BackwardBoomerangResults<NoWeight> res = solver.solve((BackwardQuery) query);
+                compareQuery(query, res.getAllocationSites().keySet());
+                results.put(query, Sets.newHashSet(res.getAllocationSites().keySet()));
+            }
+        }
+        solver.debugOutput();
+        if (solverSizeBudget() > 0) {
+            runBoundedMemory(results);
+        }
+        if (cacheBackwardQueries()) {
+            runCached(results.keySet());
+            runCachedOnDynamicICFG(results);
+        }
+    }
+
+    /**
+     * Solves all queries a second time through a {@link BackwardQueryCache} shared by solvers of a common ICFG. Each
+     * query is looked up twice, by solvers that did not solve it, and must be answered from the cache the second time.
+     * The queries are then solved twice on an ICFG that builds its call graph on the fly, the second time after the
+     * call graph was reset, and the receiver queries of the second run must be answered from the cache.
+     */
+    protected boolean cacheBackwardQueries() {
+        return false;
+    }
+
+    private void runCached(Set<Query> queries) {
+        BackwardQueryCache cache = new BackwardQueryCache(queries.size());
+        Map<Query, Set<ForwardQuery>> allocationSites = Maps.newHashMap();
+        for (Query query : queries) {
+            allocationSites.put(query, cache.getAllocationSites(createSolver(0, staticIcfg), (BackwardQuery) query));
+        }
+        assertEquals(0, cache.getHits());
+        for (Query query : queries) {
+            assertEquals(allocationSites.get(query),
+                    cache.getAllocationSites(createSolver(0, staticIcfg), (BackwardQuery) query));
+            BackwardBoomerangResults<NoWeight> res = createSolver(0, staticIcfg).solve((BackwardQuery) query);
+            assertEquals(res.getAllAliases(), cache.getAllAliases(createSolver(0, staticIcfg), (BackwardQuery) query));
+            assertEquals(res.getAllAliases(), cache.getAllAliases(createSolver(0, staticIcfg), (BackwardQuery) query));
+        }
+        // Each query is a hit once for its allocation sites and once for its aliases
+        assertEquals(2 * queries.size(), cache.getHits());
+        assertEquals(2 * queries.size(), cache.getMisses());
+    }
+
+    private void runCachedOnDynamicICFG(Map<Query, Set<ForwardQuery>> expectedResults) {
+        BackwardQueryCache cache = new BackwardQueryCache(1000);
+        ObservableDynamicICFG dynamicIcfg = new ObservableDynamicICFG(true);
+        dynamicIcfg.setBackwardQueryCache(cache);
+        int firstRunHits = 0;
+        int firstRunMisses = 0;
+        for (int run = 0; run < 2; run++) {
+            dynamicIcfg.resetCallGraph();
+            WeightedBoomerang<NoWeight> cachedSolver = createSolver(0, dynamicIcfg);
+            for (Query query : expectedResults.keySet()) {
+                BackwardBoomerangResults<NoWeight> res = cachedSolver.solve((BackwardQuery) query);
+                assertEquals("Results on the on-the-fly call graph differ for " + query, expectedResults.get(query),
+                        Sets.newHashSet(res.getAllocationSites().keySet()));
+            }
+            if (run == 0) {
+                firstRunHits = cache.getHits();
+                firstRunMisses = cache.getMisses();
+            }
+        }
+        if (firstRunMisses > 0) {
+            // The calls added again after the reset keep the entries, at least the last receiver query is a hit
+            assertTrue(cache.getHits() > firstRunHits);
+        }
+    }
+
+    private void runBoundedMemory(Map<Query, Set<ForwardQuery>> expectedResults) {
+        solver = createSolver(solverSizeBudget());
+        // Solving the queries again in reverse order solves each one after its solvers were evicted
+        List<Query> queries = Lists.newArrayList(expectedResults.keySet());
+        queries.addAll(Lists.reverse(Lists.newArrayList(expectedResults.keySet())));
+        for (Query query : queries) {
+            BackwardBoomerangResults<NoWeight> res = solver.solve((BackwardQuery) query);
+            assertEquals("Bounded-memory results differ for " + query, expectedResults.get(query),
+                    Sets.newHashSet(res.getAllocationSites().keySet()));
+        }
+        if (expectedResults.size() > 1) {
+            assertTrue(solver.getStats().getEvictedSolvers() > 0);
+        }
+    }
+
+    private WeightedBoomerang<NoWeight> createSolver(long solverSizeBudget) {
+        return createSolver(solverSizeBudget, null);
+    }
+
+    /**
+     * Creates a solver on the given ICFG, or on an ICFG of its own if the given one is null.
+     */
+    private WeightedBoomerang<NoWeight> createSolver(final long solverSizeBudget,
+            final ObservableICFG<Unit, SootMethod> sharedIcfg) {
         DefaultBoomerangOptions options = new DefaultBoomerangOptions() {
             @Override
             public boolean arrayFlows() {
@@ -200,14 +310,21 @@ public class MultiQueryBoomerangTest extends AbstractTestingFramework {
             public boolean onTheFlyCallGraph() {
                 return false;
             }
+
+            @Override
+            public long solverSizeBudget() {
+                return solverSizeBudget;
+            }
         };
-        solver = new Boomerang(options) {
+        return new Boomerang(options) {
+            private ObservableICFG<Unit, SootMethod> icfg = sharedIcfg;
+
             @Override
             public ObservableICFG<Unit, SootMethod> icfg() {
-                if (dynamicIcfg == null) {
-                    dynamicIcfg = new ObservableDynamicICFG(this);
+                if (icfg == null) {
+                    icfg = new ObservableDynamicICFG(this);
                 }
-                return dynamicIcfg;
+                return icfg;
             }
 
             @Override
@@ -220,13 +337,6 @@ public class MultiQueryBoomerangTest extends AbstractTestingFramework {
                 return seedFactory;
             }
         };
-        for (final Query query : queryForCallSites) {
-            if (query instanceof BackwardQuery) {
-                BackwardBoomerangResults<NoWeight> res = solver.solve((BackwardQuery) query);
-                compareQuery(query, res.getAllocationSites().keySet());
-            }
-        }
-        solver.debugOutput();
     }
 
     private boolean allocatesObjectOfInterest(NewExpr rightOp, String type) {
@@ -0,0 +1,158 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package test.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+import boomerang.ForwardQuery;
+import boomerang.ParallelQueryScheduler;
+import boomerang.ParallelQueryScheduler.QuerySolver;
+import boomerang.jimple.Statement;
+import boomerang.jimple.Val;
+import soot.G;
+import soot.IntType;
+import soot.Local;
+import soot.Modifier;
+import soot.Scene;
+import soot.SootClass;
+import soot.SootMethod;
+import soot.VoidType;
+import soot.jimple.AssignStmt;
+import soot.jimple.IntConstant;
+import soot.jimple.Jimple;
+import soot.jimple.JimpleBody;
+
+public class ParallelQuerySchedulerTest {
+
+    private List<ForwardQuery> queries;
+
+    @Before
+    public void createQueries() {
+        G.reset();
+        SootClass target = new SootClass("Target", Modifier.PUBLIC);
+        Scene.v().addClass(target);
+        SootMethod m = new SootMethod("m", Collections.emptyList(), VoidType.v(), Modifier.PUBLIC | Modifier.STATIC);
+        target.addMethod(m);
+        JimpleBody body = Jimple.v().newBody(m);
+        m.setActiveBody(body);
+        queries = Lists.newArrayList();
+        for (int i = 0; i < 4; i++) {
+            Local local = Jimple.v().newLocal("l" + i, IntType.v());
+            body.getLocals().add(local);
+            AssignStmt stmt = Jimple.v().newAssignStmt(local, IntConstant.v(i));
+            body.getUnits().add(stmt);
+            queries.add(new ForwardQuery(new Statement(stmt, m), new Val(local, m)));
+        }
+        body.getUnits().add(Jimple.v().newReturnVoidStmt());
+    }
+
+    @After
+    public void reset() {
+        G.reset();
+    }
+
+    @Test
+    public void resultsFollowQueryOrder() {
+        ParallelQueryScheduler scheduler = new ParallelQueryScheduler(4, 0);
+        Map<ForwardQuery, Integer> results = scheduler.solve(queries, new QuerySolver<ForwardQuery, Integer>() {
+            @Override
+            public Integer solve(ForwardQuery query) {
+                int index = queries.indexOf(query);
+                // Later queries finish first.
+                sleep((queries.size() - index) * 20);
+                return index;
+            }
+        });
+        assertEquals(queries, Lists.newArrayList(results.keySet()));
+        for (int i = 0; i < queries.size(); i++) {
+            assertEquals(Integer.valueOf(i), results.get(queries.get(i)));
+        }
+        assertTrue(scheduler.getTimedOutQueries().isEmpty());
+    }
+
+    @Test
+    public void solvesQueriesConcurrently() {
+        final CountDownLatch running = new CountDownLatch(2);
+        Map<ForwardQuery, Boolean> results = new ParallelQueryScheduler(2, 0).solve(queries.subList(0, 2),
+                new QuerySolver<ForwardQuery, Boolean>() {
+                    @Override
+                    public Boolean solve(ForwardQuery query) {
+                        running.countDown();
+                        try {
+                            return running.await(10, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            return false;
+                        }
+                    }
+                });
+        assertEquals(2, results.size());
+        assertFalse(results.containsValue(false));
+    }
+
+    @Test
+    public void timeoutInterruptsOnlyTheSlowQuery() {
+        final ForwardQuery slow = queries.get(0);
+        ParallelQueryScheduler scheduler = new ParallelQueryScheduler(1, 50);
+        Map<ForwardQuery, Boolean> interrupted = scheduler.solve(queries, new QuerySolver<ForwardQuery, Boolean>() {
+            @Override
+            public Boolean solve(ForwardQuery query) {
+                if (!query.equals(slow))
+                    return Thread.currentThread().isInterrupted();
+                try {
+                    Thread.sleep(10000);
+                    return false;
+                } catch (InterruptedException e) {
+                    return true;
+                }
+            }
+        });
+        assertTrue(interrupted.get(slow));
+        assertEquals(Collections.singleton(slow), scheduler.getTimedOutQueries());
+        for (ForwardQuery q : queries.subList(1, queries.size())) {
+            assertFalse(interrupted.get(q));
+        }
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void failingQueryFailsSolve() {
+        new ParallelQueryScheduler(2, 0).solve(queries, new QuerySolver<ForwardQuery, Integer>() {
+            @Override
+            public Integer solve(ForwardQuery query) {
+                if (query.equals(queries.get(2)))
+                    throw new IllegalStateException(query.toString());
+                return 0;
+            }
+        });
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package test.jimple;
+
+import static org.junit.Assert.assertSame;
+
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import boomerang.jimple.Val;
+import soot.G;
+import soot.IntType;
+import soot.Local;
+import soot.Modifier;
+import soot.Scene;
+import soot.SootClass;
+import soot.SootMethod;
+import soot.Value;
+import soot.jimple.IntConstant;
+import soot.jimple.Jimple;
+import soot.jimple.JimpleBody;
+import soot.jimple.NullConstant;
+import soot.jimple.StringConstant;
+
+public class ValTest {
+
+    private SootMethod m1;
+    private SootMethod m2;
+    private Local local;
+
+    @Before
+    public void createScene() {
+        G.reset();
+        SootClass target = new SootClass("Target", Modifier.PUBLIC);
+        Scene.v().addClass(target);
+        m1 = method(target, "m1");
+        m2 = method(target, "m2");
+        local = Jimple.v().newLocal("l", IntType.v());
+        m1.getActiveBody().getLocals().add(local);
+    }
+
+    @After
+    public void reset() {
+        G.reset();
+    }
+
+    @Test
+    public void sameConstantInTwoMethods() {
+        for (Value constant : new Value[] { IntConstant.v(1), NullConstant.v(), StringConstant.v("s") }) {
+            assertSame(m1, Val.of(constant, m1).m());
+            assertSame(m2, Val.of(constant, m2).m());
+            assertSame(m1, Val.of(constant, m1).m());
+        }
+    }
+
+    @Test
+    public void localsAreCanonical() {
+        assertSame(Val.of(local, m1), Val.of(local, m1));
+        assertSame(m1, Val.of(local, m1).m());
+    }
+
+    private static SootMethod method(SootClass target, String name) {
+        SootMethod m = new SootMethod(name, Collections.emptyList(), IntType.v(), Modifier.PUBLIC | Modifier.STATIC);
+        target.addMethod(m);
+        JimpleBody body = Jimple.v().newBody(m);
+        m.setActiveBody(body);
+        body.getUnits().add(Jimple.v().newReturnStmt(IntConstant.v(0)));
+        return m;
+    }
+}
@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package test.preanalysis;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+import boomerang.preanalysis.BoomerangPretransformer;
+import soot.G;
+import soot.IntType;
+import soot.Local;
+import soot.MethodOrMethodContext;
+import soot.Modifier;
+import soot.Scene;
+import soot.SootClass;
+import soot.SootField;
+import soot.SootMethod;
+import soot.jimple.IntConstant;
+import soot.jimple.Jimple;
+import soot.jimple.JimpleBody;
+import soot.jimple.toolkits.callgraph.CallGraph;
+import soot.jimple.toolkits.callgraph.ReachableMethods;
+import soot.options.Options;
+
+public class BoomerangPretransformerTest {
+
+    private static final int METHODS = 200;
+
+    @After
+    public void reset() {
+        BoomerangPretransformer.PARALLELISM = 1;
+        BoomerangPretransformer.v().reset();
+        G.reset();
+    }
+
+    @Test
+    public void localNamesDoNotDependOnThreadCount() {
+        List<String> sequential = transform(1);
+        for (int threads : new int[] { 2, 4, 8, METHODS * 2 }) {
+            assertEquals(sequential, transform(threads));
+        }
+    }
+
+    /**
+     * Creates a fresh scene with {@link #METHODS} reachable methods that write and return constants, one of them
+     * already declares a local named like the replacer locals, and returns the transformed bodies.
+     */
+    private static List<String> transform(int threads) {
+        G.reset();
+        BoomerangPretransformer.v().reset();
+        Options.v().set_allow_phantom_refs(true);
+        SootClass target = new SootClass("Target", Modifier.PUBLIC);
+        Scene.v().addClass(target);
+        SootField field = new SootField("f", IntType.v(), Modifier.PUBLIC | Modifier.STATIC);
+        target.addField(field);
+        List<MethodOrMethodContext> entryPoints = Lists.newArrayList();
+        for (int i = 0; i < METHODS; i++) {
+            SootMethod m = new SootMethod("m" + i, Collections.emptyList(), IntType.v(),
+                    Modifier.PUBLIC | Modifier.STATIC);
+            target.addMethod(m);
+            JimpleBody body = Jimple.v().newBody(m);
+            m.setActiveBody(body);
+            Local existing = Jimple.v().newLocal(i == 0 ? "varReplacer0" : "l" + i, IntType.v());
+            body.getLocals().add(existing);
+            body.getUnits().add(Jimple.v().newAssignStmt(existing, IntConstant.v(i)));
+            body.getUnits()
+                    .add(Jimple.v().newAssignStmt(Jimple.v().newStaticFieldRef(field.makeRef()), IntConstant.v(i)));
+            body.getUnits().add(Jimple.v().newReturnStmt(IntConstant.v(i + 1)));
+            entryPoints.add(m);
+        }
+        Scene.v().setReachableMethods(new ReachableMethods(new CallGraph(), entryPoints));
+        BoomerangPretransformer.PARALLELISM = threads;
+        BoomerangPretransformer.v().apply();
+        List<String> bodies = Lists.newArrayList();
+        for (SootMethod m : target.getMethods()) {
+            bodies.add(m.getActiveBody().toString());
+        }
+        return bodies;
+    }
+}
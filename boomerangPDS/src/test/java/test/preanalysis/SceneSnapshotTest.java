@@ -0,0 +1,171 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package test.preanalysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import boomerang.callgraph.ICFGCache;
+import boomerang.preanalysis.BoomerangPretransformer;
+import boomerang.preanalysis.SceneSnapshot;
+import soot.G;
+import soot.IntType;
+import soot.Kind;
+import soot.Local;
+import soot.Modifier;
+import soot.Scene;
+import soot.SootClass;
+import soot.SootField;
+import soot.SootMethod;
+import soot.Unit;
+import soot.VoidType;
+import soot.jimple.IntConstant;
+import soot.jimple.Jimple;
+import soot.jimple.JimpleBody;
+import soot.jimple.Stmt;
+import soot.jimple.toolkits.callgraph.CallGraph;
+import soot.jimple.toolkits.callgraph.Edge;
+import soot.options.Options;
+
+public class SceneSnapshotTest {
+
+    private static final int CALLEES = 10;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @After
+    public void reset() {
+        BoomerangPretransformer.v().reset();
+        ICFGCache.reset();
+        G.reset();
+    }
+
+    @Test
+    public void roundTrip() throws Exception {
+        File dir = folder.newFolder("snapshot");
+        createScene();
+        Set<String> edges = edges();
+        List<List<String>> bodies = bodies();
+        assertEquals(CALLEES, edges.size());
+        SceneSnapshot.write(dir);
+        assertTrue(SceneSnapshot.exists(dir));
+
+        G.reset();
+        BoomerangPretransformer.v().reset();
+        ICFGCache.reset();
+        setOptions();
+        SceneSnapshot.load(dir);
+
+        assertTrue(BoomerangPretransformer.v().isApplied());
+        assertEquals(Collections.singletonList("<Target: void main()>"), signatures(Scene.v().getEntryPoints()));
+        assertTrue(Scene.v().getSootClass("Target").isApplicationClass());
+        // Call sites are stored as unit indices, they must denote the same statements in the parsed bodies.
+        assertEquals(edges, edges());
+        assertEquals(bodies, bodies());
+        assertEquals(CALLEES + 1, Scene.v().getReachableMethods().size());
+    }
+
+    /**
+     * A main method calling {@link #CALLEES} methods that write and return constants, with the call graph set and the
+     * {@link BoomerangPretransformer} applied.
+     */
+    private static void createScene() {
+        G.reset();
+        setOptions();
+        Scene.v().loadNecessaryClasses();
+        SootClass target = new SootClass("Target", Modifier.PUBLIC);
+        target.setSuperclass(Scene.v().getSootClass("java.lang.Object"));
+        Scene.v().addClass(target);
+        target.setApplicationClass();
+        SootField field = new SootField("f", IntType.v(), Modifier.PUBLIC | Modifier.STATIC);
+        target.addField(field);
+        SootMethod main = new SootMethod("main", Collections.emptyList(), VoidType.v(),
+                Modifier.PUBLIC | Modifier.STATIC);
+        target.addMethod(main);
+        JimpleBody mainBody = Jimple.v().newBody(main);
+        main.setActiveBody(mainBody);
+        CallGraph cg = new CallGraph();
+        for (int i = 0; i < CALLEES; i++) {
+            SootMethod m = new SootMethod("m" + i, Collections.emptyList(), IntType.v(),
+                    Modifier.PUBLIC | Modifier.STATIC);
+            target.addMethod(m);
+            JimpleBody body = Jimple.v().newBody(m);
+            m.setActiveBody(body);
+            body.getUnits()
+                    .add(Jimple.v().newAssignStmt(Jimple.v().newStaticFieldRef(field.makeRef()), IntConstant.v(i)));
+            body.getUnits().add(Jimple.v().newReturnStmt(IntConstant.v(i)));
+
+            Local l = Jimple.v().newLocal("l" + i, IntType.v());
+            mainBody.getLocals().add(l);
+            Stmt call = Jimple.v().newAssignStmt(l, Jimple.v().newStaticInvokeExpr(m.makeRef()));
+            mainBody.getUnits().add(call);
+            cg.addEdge(new Edge(main, call, m, Kind.STATIC));
+        }
+        mainBody.getUnits().add(Jimple.v().newReturnVoidStmt());
+        Scene.v().setEntryPoints(Collections.singletonList(main));
+        Scene.v().setCallGraph(cg);
+        BoomerangPretransformer.v().reset();
+        BoomerangPretransformer.v().apply();
+    }
+
+    private static void setOptions() {
+        Options.v().set_whole_program(true);
+        Options.v().set_allow_phantom_refs(true);
+        Options.v().set_output_format(Options.output_format_none);
+        String javaHome = System.getProperty("java.home");
+        Options.v().set_soot_classpath(javaHome + "/lib/rt.jar" + File.pathSeparator + javaHome + "/lib/jce.jar");
+    }
+
+    private static Set<String> edges() {
+        Set<String> res = Sets.newHashSet();
+        for (Edge e : Scene.v().getCallGraph()) {
+            List<Unit> units = Lists.newArrayList(e.src().getActiveBody().getUnits());
+            res.add(e.src().getSignature() + " " + units.indexOf(e.srcUnit()) + " " + e.srcUnit() + " "
+                    + e.tgt().getSignature() + " " + e.kind());
+        }
+        return res;
+    }
+
+    private static List<List<String>> bodies() {
+        List<List<String>> res = Lists.newArrayList();
+        for (SootMethod m : Scene.v().getSootClass("Target").getMethods()) {
+            List<String> units = Lists.newArrayList();
+            for (Unit u : m.retrieveActiveBody().getUnits()) {
+                units.add(u.toString());
+            }
+            res.add(units);
+        }
+        return res;
+    }
+
+    private static List<String> signatures(List<SootMethod> methods) {
+        List<String> res = Lists.newArrayList();
+        for (SootMethod m : methods) {
+            res.add(m.getSignature());
+        }
+        return res;
+    }
+}
@@ -0,0 +1,208 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package test.scalability;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import boomerang.BackwardQuery;
+import boomerang.Boomerang;
+import boomerang.DefaultBoomerangOptions;
+import boomerang.ForwardQuery;
+import boomerang.Query;
+import boomerang.callgraph.ICFGCache;
+import boomerang.callgraph.ObservableICFG;
+import boomerang.callgraph.ObservableStaticICFG;
+import boomerang.preanalysis.BoomerangPretransformer;
+import boomerang.seedfactory.SeedFactory;
+import boomerang.solver.AbstractBoomerangSolver;
+import soot.G;
+import soot.PackManager;
+import soot.Scene;
+import soot.SootMethod;
+import soot.Unit;
+import soot.jimple.toolkits.ide.icfg.JimpleBasedInterproceduralCFG;
+import soot.options.Options;
+import wpds.impl.Weight.NoWeight;
+
+/**
+ * Runs a backward and a forward query on every program of a grid of {@link SyntheticProgramGenerator} parameters and
+ * appends one CSV line per query. Arguments are <code>key=value</code> pairs, list values are comma separated:
+ *
+ * <pre>
+ * classes=10,100,1000 fieldDepth=1,4 recursion=0,2 fanOut=1,2 timeout=60000 out=scalability.csv
+ * </pre>
+ *
+ * The peak heap is the sum of the peak usages of all heap memory pools during the query, an upper bound of the
+ * actual peak.
+ */
+public class ScalabilityBenchmark {
+
+    private static final String CSV_SEPARATOR = ";";
+    private static final List<String> HEADERS = Lists.newArrayList("Classes", "FieldDepth", "Recursion", "FanOut",
+            "QueryType", "QueryTime", "Timeout", "PeakHeap", "Solvers", "CallRules", "FieldRules", "CallTransitions",
+            "FieldTransitions");
+
+    private final int timeoutMS;
+
+    public ScalabilityBenchmark(int timeoutMS) {
+        this.timeoutMS = timeoutMS;
+    }
+
+    public static void main(String... args) throws IOException {
+        Map<String, String> arguments = Maps.newHashMap();
+        arguments.put("classes", "10,100,1000");
+        arguments.put("fieldDepth", "1,2,4");
+        arguments.put("recursion", "0,2");
+        arguments.put("fanOut", "1,2");
+        arguments.put("timeout", "60000");
+        arguments.put("out", "scalability.csv");
+        for (String arg : args) {
+            String[] keyValue = arg.split("=", 2);
+            if (keyValue.length != 2 || !arguments.containsKey(keyValue[0]))
+                throw new IllegalArgumentException(
+                        "Unknown argument " + arg + ", expected one of " + arguments.keySet());
+            arguments.put(keyValue[0], keyValue[1]);
+        }
+        ScalabilityBenchmark benchmark = new ScalabilityBenchmark(Integer.parseInt(arguments.get("timeout")));
+        try (PrintWriter out = new PrintWriter(new FileWriter(arguments.get("out")))) {
+            out.println(Joiner.on(CSV_SEPARATOR).join(HEADERS));
+            for (int classes : parse(arguments.get("classes"))) {
+                for (int fieldDepth : parse(arguments.get("fieldDepth"))) {
+                    for (int recursion : parse(arguments.get("recursion"))) {
+                        for (int fanOut : parse(arguments.get("fanOut"))) {
+                            for (List<Object> line : benchmark.run(classes, fieldDepth, recursion, fanOut)) {
+                                out.println(Joiner.on(CSV_SEPARATOR).join(line));
+                                out.flush();
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static List<Integer> parse(String values) {
+        List<Integer> res = Lists.newArrayList();
+        for (String v : values.split(",")) {
+            res.add(Integer.parseInt(v.trim()));
+        }
+        return res;
+    }
+
+    /**
+     * Generates the program for the given parameters and solves its backward and forward query, each with a fresh
+     * solver.
+     *
+     * @return one CSV line per query in the order of {@link #HEADERS}.
+     */
+    public List<List<Object>> run(int classes, int fieldDepth, int recursion, int fanOut) {
+        SyntheticProgramGenerator generator = new SyntheticProgramGenerator(classes, fieldDepth, recursion, fanOut);
+        setupSoot(generator);
+        System.out.println("Analyzing program with " + generator);
+        ObservableICFG<Unit, SootMethod> icfg = new ObservableStaticICFG(new JimpleBasedInterproceduralCFG());
+        List<List<Object>> lines = Lists.newArrayList();
+        for (Query query : Lists.<Query> newArrayList(generator.getBackwardQuery(), generator.getForwardQuery())) {
+            List<Object> line = Lists.<Object> newArrayList(classes, fieldDepth, recursion, fanOut);
+            line.addAll(solve(query, icfg));
+            lines.add(line);
+        }
+        return lines;
+    }
+
+    private List<Object> solve(Query query, final ObservableICFG<Unit, SootMethod> icfg) {
+        Boomerang solver = new Boomerang(new DefaultBoomerangOptions() {
+            @Override
+            public int analysisTimeoutMS() {
+                return timeoutMS;
+            }
+
+            @Override
+            public boolean onTheFlyCallGraph() {
+                return false;
+            }
+        }) {
+            @Override
+            public ObservableICFG<Unit, SootMethod> icfg() {
+                return icfg;
+            }
+
+            @Override
+            public SeedFactory<NoWeight> getSeedFactory() {
+                return null;
+            }
+        };
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            pool.resetPeakUsage();
+        }
+        Stopwatch watch = Stopwatch.createStarted();
+        boolean timedout;
+        if (query instanceof BackwardQuery) {
+            timedout = solver.solve((BackwardQuery) query).isTimedout();
+        } else {
+            timedout = solver.solve((ForwardQuery) query).isTimedout();
+        }
+        long time = watch.elapsed(TimeUnit.MILLISECONDS);
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP)
+                peakHeap += pool.getPeakUsage().getUsed();
+        }
+        int callRules = 0;
+        int fieldRules = 0;
+        int callTransitions = 0;
+        int fieldTransitions = 0;
+        for (AbstractBoomerangSolver<NoWeight> s : solver.getSolvers().values()) {
+            callRules += s.getCallPDS().getAllRules().size();
+            fieldRules += s.getFieldPDS().getAllRules().size();
+            callTransitions += s.getCallAutomaton().getTransitions().size();
+            fieldTransitions += s.getFieldAutomaton().getTransitions().size();
+        }
+        return Lists.<Object> newArrayList(query instanceof BackwardQuery ? "B" : "F", time, timedout ? 1 : 0,
+                peakHeap, solver.getSolvers().size(), callRules, fieldRules, callTransitions, fieldTransitions);
+    }
+
+    /**
+     * Resets Soot and generates the program into the scene, with the call graph built and the
+     * {@link BoomerangPretransformer} applied.
+     */
+    static void setupSoot(SyntheticProgramGenerator generator) {
+        G.v().reset();
+        ICFGCache.reset();
+        BoomerangPretransformer.v().reset();
+        Options.v().set_whole_program(true);
+        Options.v().setPhaseOption("cg.cha", "on");
+        Options.v().set_output_format(Options.output_format_none);
+        Options.v().set_no_bodies_for_excluded(true);
+        Options.v().set_allow_phantom_refs(true);
+        Options.v().set_prepend_classpath(true);
+        Scene.v().loadNecessaryClasses();
+        generator.generate();
+        Scene.v().setEntryPoints(Collections.singletonList(generator.getMainMethod()));
+        PackManager.v().getPack("cg").apply();
+        BoomerangPretransformer.v().apply();
+    }
+}
@@ -0,0 +1,260 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package test.scalability;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.collect.Lists;
+
+import boomerang.BackwardQuery;
+import boomerang.ForwardQuery;
+import boomerang.jimple.AllocVal;
+import boomerang.jimple.Statement;
+import boomerang.jimple.Val;
+import soot.ArrayType;
+import soot.Local;
+import soot.Modifier;
+import soot.RefType;
+import soot.Scene;
+import soot.SootClass;
+import soot.SootField;
+import soot.SootMethod;
+import soot.Type;
+import soot.Unit;
+import soot.UnitPatchingChain;
+import soot.VoidType;
+import soot.jimple.AssignStmt;
+import soot.jimple.InvokeStmt;
+import soot.jimple.Jimple;
+import soot.jimple.JimpleBody;
+import soot.jimple.NopStmt;
+import soot.jimple.NullConstant;
+
+/**
+ * Generates a program directly into the {@link Scene}. The program consists of <code>classes</code> classes
+ * <code>synthetic.C0</code> to <code>synthetic.C(classes-1)</code> with one static method <code>m(Node)</code> each.
+ * <ul>
+ * <li>Every method stores its parameter at the end of a freshly allocated chain of <code>fieldDepth</code> fields and
+ * loads it back through the same chain, so the access paths grow to the given depth.</li>
+ * <li>Method <code>i</code> passes the loaded value on to the methods <code>i * fanOut + 1</code> to
+ * <code>i * fanOut + fanOut</code>, as long as they exist.</li>
+ * <li>With <code>recursion > 0</code>, method <code>i</code> conditionally calls method
+ * <code>i - recursion + 1</code>, which closes a recursive cycle of length <code>recursion</code>.</li>
+ * </ul>
+ * <code>synthetic.Main.main</code> allocates the object passed to <code>C0.m</code> and hands the returned value to
+ * <code>synthetic.Main.use</code>. The forward query starts at the allocation, the backward query at the call to
+ * <code>use</code>.
+ */
+public class SyntheticProgramGenerator {
+
+    private static final String PACKAGE = "synthetic.";
+
+    private final int classes;
+    private final int fieldDepth;
+    private final int recursion;
+    private final int fanOut;
+
+    private SootClass nodeClass;
+    private RefType nodeType;
+    private SootMethod nodeInit;
+    private List<SootField> chainFields;
+    private SootField valueField;
+    private List<SootMethod> methods;
+    private SootMethod mainMethod;
+    private ForwardQuery forwardQuery;
+    private BackwardQuery backwardQuery;
+
+    public SyntheticProgramGenerator(int classes, int fieldDepth, int recursion, int fanOut) {
+        if (classes < 1 || fieldDepth < 0 || recursion < 0 || fanOut < 0)
+            throw new IllegalArgumentException("Invalid program parameters: classes=" + classes + ", fieldDepth="
+                    + fieldDepth + ", recursion=" + recursion + ", fanOut=" + fanOut);
+        this.classes = classes;
+        this.fieldDepth = fieldDepth;
+        this.recursion = Math.min(recursion, classes);
+        this.fanOut = fanOut;
+    }
+
+    /**
+     * Adds the classes of the program to the scene. Soot must have loaded its basic classes already, the call graph
+     * has to be built afterwards with {@link #getMainMethod()} as entry point.
+     */
+    public void generate() {
+        createNodeClass();
+        methods = Lists.newArrayList();
+        for (int i = 0; i < classes; i++) {
+            SootClass c = createClass("C" + i);
+            SootMethod m = new SootMethod("m", Collections.<Type> singletonList(nodeType), nodeType,
+                    Modifier.PUBLIC | Modifier.STATIC);
+            c.addMethod(m);
+            methods.add(m);
+        }
+        for (int i = 0; i < classes; i++) {
+            createMethodBody(i);
+        }
+        createMainClass();
+    }
+
+    private SootClass createClass(String name) {
+        SootClass c = new SootClass(PACKAGE + name, Modifier.PUBLIC);
+        c.setSuperclass(Scene.v().getSootClass("java.lang.Object"));
+        Scene.v().addClass(c);
+        c.setApplicationClass();
+        return c;
+    }
+
+    private void createNodeClass() {
+        nodeClass = createClass("Node");
+        nodeType = nodeClass.getType();
+        chainFields = Lists.newArrayList();
+        for (int k = 0; k < fieldDepth; k++) {
+            SootField f = new SootField("f" + k, nodeType, Modifier.PUBLIC);
+            nodeClass.addField(f);
+            chainFields.add(f);
+        }
+        valueField = new SootField("value", nodeType, Modifier.PUBLIC);
+        nodeClass.addField(valueField);
+
+        nodeInit = new SootMethod("<init>", Collections.<Type> emptyList(), VoidType.v(), Modifier.PUBLIC);
+        nodeClass.addMethod(nodeInit);
+        JimpleBody body = Jimple.v().newBody(nodeInit);
+        nodeInit.setActiveBody(body);
+        Local thisLocal = newLocal(body, "this", nodeType);
+        body.getUnits().add(Jimple.v().newIdentityStmt(thisLocal, Jimple.v().newThisRef(nodeType)));
+        SootMethod objectInit = Scene.v().getSootClass("java.lang.Object").getMethod("void <init>()");
+        body.getUnits().add(Jimple.v().newInvokeStmt(Jimple.v().newSpecialInvokeExpr(thisLocal, objectInit.makeRef())));
+        body.getUnits().add(Jimple.v().newReturnVoidStmt());
+    }
+
+    private void createMethodBody(int i) {
+        SootMethod method = methods.get(i);
+        JimpleBody body = Jimple.v().newBody(method);
+        method.setActiveBody(body);
+        UnitPatchingChain units = body.getUnits();
+        Local param = newLocal(body, "p", nodeType);
+        units.add(Jimple.v().newIdentityStmt(param, Jimple.v().newParameterRef(nodeType, 0)));
+
+        // Store the parameter at the end of a fresh field chain
+        Local head = allocate(body, "c0");
+        Local current = head;
+        for (int k = 0; k < fieldDepth; k++) {
+            Local next = allocate(body, "c" + (k + 1));
+            units.add(Jimple.v().newAssignStmt(
+                    Jimple.v().newInstanceFieldRef(current, chainFields.get(k).makeRef()), next));
+            current = next;
+        }
+        units.add(Jimple.v().newAssignStmt(Jimple.v().newInstanceFieldRef(current, valueField.makeRef()), param));
+
+        // and load it back through the chain
+        Local loaded = head;
+        for (int k = 0; k < fieldDepth; k++) {
+            Local next = newLocal(body, "l" + k, nodeType);
+            units.add(Jimple.v().newAssignStmt(next,
+                    Jimple.v().newInstanceFieldRef(loaded, chainFields.get(k).makeRef())));
+            loaded = next;
+        }
+        Local result = newLocal(body, "r0", nodeType);
+        units.add(Jimple.v().newAssignStmt(result, Jimple.v().newInstanceFieldRef(loaded, valueField.makeRef())));
+
+        int calls = 0;
+        for (int j = 1; j <= fanOut; j++) {
+            int callee = i * fanOut + j;
+            if (callee >= classes)
+                break;
+            Local returned = newLocal(body, "r" + (++calls), nodeType);
+            units.add(Jimple.v().newAssignStmt(returned,
+                    Jimple.v().newStaticInvokeExpr(methods.get(callee).makeRef(), result)));
+            result = returned;
+        }
+
+        if (recursion > 0 && i >= recursion - 1) {
+            NopStmt afterRecursion = Jimple.v().newNopStmt();
+            units.add(Jimple.v().newIfStmt(Jimple.v().newEqExpr(param, NullConstant.v()), afterRecursion));
+            units.add(Jimple.v().newAssignStmt(result,
+                    Jimple.v().newStaticInvokeExpr(methods.get(i - recursion + 1).makeRef(), result)));
+            units.add(afterRecursion);
+        }
+        units.add(Jimple.v().newReturnStmt(result));
+    }
+
+    private void createMainClass() {
+        SootClass mainClass = createClass("Main");
+        SootMethod use = new SootMethod("use", Collections.<Type> singletonList(nodeType), VoidType.v(),
+                Modifier.PUBLIC | Modifier.STATIC);
+        mainClass.addMethod(use);
+        JimpleBody useBody = Jimple.v().newBody(use);
+        use.setActiveBody(useBody);
+        Local used = newLocal(useBody, "p", nodeType);
+        useBody.getUnits().add(Jimple.v().newIdentityStmt(used, Jimple.v().newParameterRef(nodeType, 0)));
+        useBody.getUnits().add(Jimple.v().newReturnVoidStmt());
+
+        Type argsType = ArrayType.v(RefType.v("java.lang.String"), 1);
+        mainMethod = new SootMethod("main", Collections.singletonList(argsType), VoidType.v(),
+                Modifier.PUBLIC | Modifier.STATIC);
+        mainClass.addMethod(mainMethod);
+        JimpleBody body = Jimple.v().newBody(mainMethod);
+        mainMethod.setActiveBody(body);
+        UnitPatchingChain units = body.getUnits();
+        Local args = newLocal(body, "args", argsType);
+        units.add(Jimple.v().newIdentityStmt(args, Jimple.v().newParameterRef(argsType, 0)));
+        Local alloc = allocate(body, "alloc");
+        Local result = newLocal(body, "result", nodeType);
+        units.add(Jimple.v().newAssignStmt(result, Jimple.v().newStaticInvokeExpr(methods.get(0).makeRef(), alloc)));
+        InvokeStmt useStmt = Jimple.v().newInvokeStmt(Jimple.v().newStaticInvokeExpr(use.makeRef(), result));
+        units.add(useStmt);
+        units.add(Jimple.v().newReturnVoidStmt());
+
+        AssignStmt allocStmt = findAllocation(units, alloc);
+        Statement allocStatement = new Statement(allocStmt, mainMethod);
+        forwardQuery = new ForwardQuery(allocStatement,
+                new AllocVal(alloc, mainMethod, allocStmt.getRightOp(), allocStatement));
+        backwardQuery = new BackwardQuery(new Statement(useStmt, mainMethod), new Val(result, mainMethod));
+    }
+
+    private static AssignStmt findAllocation(UnitPatchingChain units, Local local) {
+        for (Unit u : units) {
+            if (u instanceof AssignStmt && ((AssignStmt) u).getLeftOp().equals(local))
+                return (AssignStmt) u;
+        }
+        throw new RuntimeException("No allocation of " + local);
+    }
+
+    private Local allocate(JimpleBody body, String name) {
+        Local local = newLocal(body, name, nodeType);
+        body.getUnits().add(Jimple.v().newAssignStmt(local, Jimple.v().newNewExpr(nodeType)));
+        body.getUnits().add(Jimple.v().newInvokeStmt(Jimple.v().newSpecialInvokeExpr(local, nodeInit.makeRef())));
+        return local;
+    }
+
+    private static Local newLocal(JimpleBody body, String name, Type type) {
+        Local local = Jimple.v().newLocal(name, type);
+        body.getLocals().add(local);
+        return local;
+    }
+
+    public SootMethod getMainMethod() {
+        return mainMethod;
+    }
+
+    public ForwardQuery getForwardQuery() {
+        return forwardQuery;
+    }
+
+    public BackwardQuery getBackwardQuery() {
+        return backwardQuery;
+    }
+
+    @Override
+    public String toString() {
+        return "classes=" + classes + ", fieldDepth=" + fieldDepth + ", recursion=" + recursion + ", fanOut=" + fanOut;
+    }
+}
@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package test.scalability;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Test;
+
+import boomerang.Boomerang;
+import boomerang.DefaultBoomerangOptions;
+import boomerang.callgraph.ICFGCache;
+import boomerang.callgraph.ObservableICFG;
+import boomerang.callgraph.ObservableStaticICFG;
+import boomerang.preanalysis.BoomerangPretransformer;
+import boomerang.results.BackwardBoomerangResults;
+import boomerang.seedfactory.SeedFactory;
+import soot.G;
+import soot.SootMethod;
+import soot.Unit;
+import soot.jimple.toolkits.ide.icfg.JimpleBasedInterproceduralCFG;
+import wpds.impl.Weight.NoWeight;
+
+public class SyntheticProgramGeneratorTest {
+
+    @After
+    public void reset() {
+        BoomerangPretransformer.v().reset();
+        ICFGCache.reset();
+        G.reset();
+    }
+
+    @Test
+    public void singleMethod() {
+        assertFindsAllocation(new SyntheticProgramGenerator(1, 0, 0, 0));
+    }
+
+    @Test
+    public void fieldChain() {
+        assertFindsAllocation(new SyntheticProgramGenerator(3, 2, 0, 1));
+    }
+
+    @Test
+    public void recursionAndFanOut() {
+        assertFindsAllocation(new SyntheticProgramGenerator(5, 1, 2, 2));
+    }
+
+    /**
+     * The backward query at the call to <code>use</code> must find exactly the allocation the forward query starts
+     * at.
+     */
+    private static void assertFindsAllocation(SyntheticProgramGenerator generator) {
+        ScalabilityBenchmark.setupSoot(generator);
+        final ObservableICFG<Unit, SootMethod> icfg = new ObservableStaticICFG(new JimpleBasedInterproceduralCFG());
+        Boomerang solver = new Boomerang(new DefaultBoomerangOptions() {
+            @Override
+            public boolean onTheFlyCallGraph() {
+                return false;
+            }
+        }) {
+            @Override
+            public ObservableICFG<Unit, SootMethod> icfg() {
+                return icfg;
+            }
+
+            @Override
+            public SeedFactory<NoWeight> getSeedFactory() {
+                return null;
+            }
+        };
+        BackwardBoomerangResults<NoWeight> results = solver.solve(generator.getBackwardQuery());
+        assertFalse(results.isTimedout());
+        assertEquals(Collections.singleton(generator.getForwardQuery()), results.getAllocationSites().keySet());
+    }
+}
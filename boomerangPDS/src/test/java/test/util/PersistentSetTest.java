@@ -0,0 +1,205 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package test.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.google.common.collect.Collections2;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import boomerang.util.PersistentSet;
+
+public class PersistentSetTest {
+
+    @Test
+    public void plusAndContains() {
+        PersistentSet<Integer> empty = PersistentSet.empty();
+        PersistentSet<Integer> one = empty.plus(1);
+        PersistentSet<Integer> two = one.plus(2);
+        assertEquals(0, empty.size());
+        assertFalse(empty.contains(1));
+        assertEquals(1, one.size());
+        assertTrue(one.contains(1));
+        assertFalse(one.contains(2));
+        assertEquals(2, two.size());
+        assertTrue(two.contains(1));
+        assertTrue(two.contains(2));
+        assertFalse(two.contains(null));
+        assertSame(two, two.plus(2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void plusNull() {
+        PersistentSet.<Integer> empty().plus(null);
+    }
+
+    @Test
+    public void plusAll() {
+        PersistentSet<Integer> evens = PersistentSet.empty();
+        PersistentSet<Integer> small = PersistentSet.empty();
+        for (int i = 0; i < 1000; i += 2) {
+            evens = evens.plus(i);
+        }
+        for (int i = 0; i < 10; i++) {
+            small = small.plus(i);
+        }
+        PersistentSet<Integer> union = evens.plusAll(small);
+        assertEquals(union, small.plusAll(evens));
+        assertEquals(505, union.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i % 2 == 0 || i < 10, union.contains(i));
+        }
+        assertSame(evens, evens.plusAll(PersistentSet.<Integer> empty()));
+        assertSame(evens, evens.plusAll(evens));
+        assertEquals(500, evens.size());
+    }
+
+    @Test
+    public void hashCollisions() {
+        PersistentSet<Colliding> set = PersistentSet.empty();
+        List<Colliding> elements = Lists.newArrayList();
+        for (int i = 0; i < 50; i++) {
+            Colliding c = new Colliding(i, i % 3);
+            elements.add(c);
+            set = set.plus(c);
+        }
+        assertEquals(50, set.size());
+        for (Colliding c : elements) {
+            assertTrue(set.contains(c));
+            assertTrue(set.contains(new Colliding(c.id, c.hash)));
+            assertSame(set, set.plus(new Colliding(c.id, c.hash)));
+        }
+        assertFalse(set.contains(new Colliding(50, 0)));
+        assertEquals(Sets.newHashSet(elements), Sets.newHashSet(set));
+    }
+
+    @Test
+    public void equalsAndHashCodeLikeHashSet() {
+        Random random = new Random(5);
+        for (int round = 0; round < 100; round++) {
+            Set<Integer> expected = Sets.newHashSet();
+            PersistentSet<Integer> set = PersistentSet.empty();
+            PersistentSet<Integer> reversed = PersistentSet.empty();
+            List<Integer> added = Lists.newArrayList();
+            int size = random.nextInt(200);
+            for (int i = 0; i < size; i++) {
+                int e = random.nextInt(1000) - 500;
+                expected.add(e);
+                added.add(e);
+                set = set.plus(e);
+            }
+            for (Integer e : Lists.reverse(added)) {
+                reversed = reversed.plus(e);
+            }
+            assertEquals(expected.size(), set.size());
+            assertEquals(expected.hashCode(), set.hashCode());
+            assertEquals(expected, set);
+            assertEquals(set, expected);
+            assertEquals(set, reversed);
+            assertEquals(set.hashCode(), reversed.hashCode());
+            if (!expected.isEmpty()) {
+                Integer removed = expected.iterator().next();
+                expected.remove(removed);
+                assertFalse(set.equals(expected));
+                assertFalse(expected.equals(set));
+            }
+        }
+    }
+
+    @Test
+    public void equalsIndependentOfInsertionOrderWithCollisions() {
+        // Two elements share a hash, the others share a prefix of that hash of one or two levels
+        List<Colliding> elements = Lists.newArrayList(new Colliding(0, 1), new Colliding(1, 1),
+                new Colliding(2, 1 + (1 << 5)), new Colliding(3, 1 + (1 << 10)), new Colliding(4, 2));
+        PersistentSet<Colliding> first = null;
+        for (List<Colliding> order : Collections2.permutations(elements)) {
+            PersistentSet<Colliding> set = PersistentSet.empty();
+            for (Colliding c : order) {
+                set = set.plus(c);
+            }
+            assertEquals(Sets.newHashSet(elements), Sets.newHashSet(set));
+            if (first == null) {
+                first = set;
+            }
+            assertEquals(first, set);
+            assertFalse(first.equals(set.plus(new Colliding(5, 1))));
+        }
+    }
+
+    @Test
+    public void iteration() {
+        PersistentSet<Integer> set = PersistentSet.empty();
+        for (int i = 0; i < 5000; i++) {
+            set = set.plus(i * 31);
+        }
+        Set<Integer> seen = Sets.newHashSet();
+        Iterator<Integer> it = set.iterator();
+        while (it.hasNext()) {
+            assertTrue(seen.add(it.next()));
+        }
+        assertEquals(5000, seen.size());
+        for (int i = 0; i < 5000; i++) {
+            assertTrue(seen.contains(i * 31));
+        }
+        try {
+            it.next();
+            throw new AssertionError("Expected NoSuchElementException");
+        } catch (NoSuchElementException e) {
+        }
+        assertFalse(PersistentSet.empty().iterator().hasNext());
+    }
+
+    @Test
+    public void persistent() {
+        PersistentSet<String> base = PersistentSet.of("a");
+        PersistentSet<String> left = base.plus("b");
+        PersistentSet<String> right = base.plus("c");
+        assertEquals(Sets.newHashSet("a"), base);
+        assertEquals(Sets.newHashSet("a", "b"), left);
+        assertEquals(Sets.newHashSet("a", "c"), right);
+    }
+
+    private static class Colliding {
+        final int id;
+        final int hash;
+
+        Colliding(int id, int hash) {
+            this.id = id;
+            this.hash = hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Colliding))
+                return false;
+            Colliding other = (Colliding) obj;
+            return id == other.id && hash == other.hash;
+        }
+    }
+}
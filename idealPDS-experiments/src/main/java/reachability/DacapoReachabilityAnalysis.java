@@ -1,8 +1,11 @@
 package reachability;
 
+import java.io.File;
 import java.util.Map;
 import java.util.Set;
 
+import boomerang.callgraph.CallGraphEdgeCache;
+import boomerang.callgraph.ICFGCache;
 import boomerang.callgraph.ObservableDynamicICFG;
 import boomerang.preanalysis.BoomerangPretransformer;
 import soot.G;
@@ -21,14 +24,20 @@ public class DacapoReachabilityAnalysis extends SootSceneSetupDacapo {
 
 	public void run() {
 		G.v().reset();
+		ICFGCache.reset();
 		setupSoot();
 		Transform transform = new Transform("wjtp.ifds", new SceneTransformer() {
 			protected void internalTransform(String phaseName, @SuppressWarnings("rawtypes") Map options) {
 				BoomerangPretransformer.v().apply();
 				ObservableDynamicICFG observableDynamicICFG = new ObservableDynamicICFG(false);
+				File edgeFile = getCallGraphEdgeFile();
+				if (edgeFile != null && edgeFile.exists())
+					observableDynamicICFG.preseed(CallGraphEdgeCache.read(edgeFile));
 				ReachabilityAnalysis reachabilityAnalysis = new ReachabilityAnalysis(observableDynamicICFG);
 				Set<SootMethod> reachbleFrom = reachabilityAnalysis.reachbleFrom(Scene.v().getEntryPoints());
 				System.out.println("Computed " + reachbleFrom.size() + " reachable methods");
+				if (edgeFile != null)
+					observableDynamicICFG.getCallGraphEdgeCache().write(edgeFile, observableDynamicICFG);
 
 			}
 		});
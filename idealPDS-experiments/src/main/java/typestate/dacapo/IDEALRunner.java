@@ -1,4 +1,5 @@
 package typestate.dacapo;
+import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.security.GeneralSecurityException;
@@ -15,11 +16,13 @@ import com.google.common.collect.Table;
 import boomerang.BoomerangOptions;
 import boomerang.DefaultBoomerangOptions;
 import boomerang.WeightedForwardQuery;
+import boomerang.callgraph.ICFGCache;
 import boomerang.callgraph.ObservableICFG;
 import boomerang.debugger.Debugger;
 import boomerang.jimple.Statement;
 import boomerang.jimple.Val;
 import boomerang.preanalysis.BoomerangPretransformer;
+import boomerang.preanalysis.SceneSnapshot;
 import boomerang.results.ForwardBoomerangResults;
 import experiments.google.spreadsheet.GoogleSpreadsheetWriter;
 import ideal.IDEALAnalysis;
@@ -50,8 +53,13 @@ public class IDEALRunner extends SootSceneSetupDacapo  {
 protected IDEALAnalysis<TransitionFunction> createAnalysis() {
     String className = System.getProperty("rule");
     try {
-		BoomerangPretransformer.v().reset();
-		BoomerangPretransformer.v().apply();
+		if (!loadedFromSnapshot) {
+			BoomerangPretransformer.v().reset();
+			BoomerangPretransformer.v().apply();
+			File snapshot = getSnapshotDir();
+			if (snapshot != null)
+				SceneSnapshot.write(snapshot);
+		}
     	System.out.println("Reachable Methods" +  Scene.v().getReachableMethods().size());
 		final TypeStateMachineWeightFunctions genericsType = (TypeStateMachineWeightFunctions) Class.forName(className).getConstructor()
           .newInstance();
@@ -152,6 +160,7 @@ private String outputFile;
 
   public void run(final String outputFile) {
     G.v().reset();
+    ICFGCache.reset();
     this.outputFile = outputFile;
     setupSoot();
     Transform transform = new Transform("wjtp.ifds", new SceneTransformer() {
@@ -176,7 +185,8 @@ private String outputFile;
 
 //    PackManager.v().getPack("wjtp").add(new Transform("wjtp.prep", new PreparationTransformer()));
     PackManager.v().getPack("wjtp").add(transform);
-    PackManager.v().getPack("cg").apply();
+    if (!loadedFromSnapshot)
+      PackManager.v().getPack("cg").apply();
     PackManager.v().getPack("wjtp").apply();
   }
 
@@ -202,8 +212,7 @@ private String outputFile;
     }
 
     private boolean isInErrorState(WeightedForwardQuery<TransitionFunction> key, ForwardBoomerangResults<TransitionFunction> forwardBoomerangResults) {
-        Table<Statement, Val, TransitionFunction> objectDestructingStatements = forwardBoomerangResults.asStatementValWeightTable();
-        for(Table.Cell<Statement,Val,TransitionFunction> c : objectDestructingStatements.cellSet()){
+        for(Table.Cell<Statement,Val,TransitionFunction> c : forwardBoomerangResults.getStatementValWeights()){
             for(ITransition t : c.getValue().values()){
                 if(t.to() != null){
                     if(t.to().isErrorState()){
@@ -14,6 +14,8 @@ import java.util.Properties;
 
 import com.google.common.base.Joiner;
 
+import boomerang.callgraph.ICFGCache;
+import boomerang.preanalysis.SceneSnapshot;
 import soot.G;
 import soot.Scene;
 import soot.SootClass;
@@ -25,6 +27,7 @@ public class SootSceneSetupDacapo {
 	private Properties generalProperties = new Properties();
 	private String project;
 	private String benchmarkFolder;
+	protected boolean loadedFromSnapshot;
 
 	public SootSceneSetupDacapo(String benchmarkFolder, String project) {
 		this.benchmarkFolder = benchmarkFolder;
@@ -47,6 +50,7 @@ public class SootSceneSetupDacapo {
 	public void setupSoot() {
 		G.v().resetSpark();
 		G.v().reset();
+		ICFGCache.reset();
 		String inputJar = benchProperties.getProperty("input_jar_files");
 		String[] split = inputJar.split(":");
 		List<String> path = new LinkedList<>();
@@ -76,6 +80,13 @@ public class SootSceneSetupDacapo {
 		Options.v().setPhaseOption("cg", "implicit-entry:false,trim-clinit:false");
 		Options.v().setPhaseOption("cg.cha", "enabled:true,verbose:true,simulate-natives:false,empties-as-allocs:true,merge-stringbuffer:false,string-constants:true");
 //		readDynamicClasses();
+		loadedFromSnapshot = false;
+		File snapshot = getSnapshotDir();
+		if (snapshot != null && SceneSnapshot.exists(snapshot)) {
+			SceneSnapshot.load(snapshot);
+			loadedFromSnapshot = true;
+			return;
+		}
 		Scene.v().addBasicClass("java.security.Signature",SootClass.HIERARCHY);
 		Scene.v().loadNecessaryClasses();
 		LinkedList<SootMethod> entryPoint = new LinkedList<>();
@@ -131,6 +142,24 @@ public class SootSceneSetupDacapo {
 		return path + jar;
 	}
 
+	/**
+	 * The directory set by -Dsnapshot= to store the prepared scene in. The first run writes the snapshot, later runs
+	 * load it instead of building the call graph.
+	 */
+	protected File getSnapshotDir() {
+		String dir = System.getProperty("snapshot");
+		return dir == null ? null : new File(dir);
+	}
+
+	/**
+	 * The file set by -DcallGraphEdges= to store the demand-driven call graph in. The first run writes the edges, later
+	 * runs pre-seed their call graph with them.
+	 */
+	protected File getCallGraphEdgeFile() {
+		String file = System.getProperty("callGraphEdges");
+		return file == null ? null : new File(file);
+	}
+
 	protected String getMainClass() {
 		return benchProperties.getProperty("main_class");
 	}
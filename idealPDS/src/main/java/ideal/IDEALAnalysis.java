@@ -12,16 +12,26 @@
 package ideal;
 
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.google.common.base.Stopwatch;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Queues;
+import com.google.common.collect.Sets;
 
+import boomerang.BackwardQueryCache;
 import boomerang.ForwardQuery;
+import boomerang.ParallelQueryScheduler;
+import boomerang.ParallelQueryScheduler.QuerySolver;
 import boomerang.Query;
+import boomerang.SummaryCache;
 import boomerang.WeightedForwardQuery;
+import boomerang.callgraph.ObservableDynamicICFG;
 import boomerang.callgraph.ObservableICFG;
 import boomerang.callgraph.ObservableStaticICFG;
 import boomerang.results.ForwardBoomerangResults;
@@ -44,12 +54,14 @@ public class IDEALAnalysis<W extends Weight> {
     private static final Logger logger = LogManager.getLogger();
 
     public static boolean PRINT_OPTIONS = false;
+    private static final long BACKWARD_QUERY_CACHE_SIZE = 10000;
 
     protected final IDEALAnalysisDefinition<W> analysisDefinition;
     private final SeedFactory<W> seedFactory;
-    private int seedCount;
-    private Map<WeightedForwardQuery<W>, Stopwatch> analysisTime = new HashMap<>();
-    private Set<WeightedForwardQuery<W>> timedoutSeeds = new HashSet<>();
+    private final AtomicInteger seedCount = new AtomicInteger();
+    private Map<WeightedForwardQuery<W>, Stopwatch> analysisTime = Maps.newConcurrentMap();
+    private Set<WeightedForwardQuery<W>> timedoutSeeds = Sets.newConcurrentHashSet();
+    private SummaryCache<W> summaryCache;
 
     public IDEALAnalysis(final IDEALAnalysisDefinition<W> analysisDefinition) {
         this.analysisDefinition = analysisDefinition;
@@ -71,45 +83,127 @@ public class IDEALAnalysis<W extends Weight> {
     public void run() {
         printOptions();
 
-        Collection<Query> initialSeeds = seedFactory.computeSeeds();
+        final Collection<Query> initialSeeds = seedFactory.computeSeeds();
 
         if (initialSeeds.isEmpty())
             System.out.println("No seeds found!");
         else
             System.out.println("Analysing " + initialSeeds.size() + " seeds!");
+        final List<WeightedForwardQuery<W>> seeds = Lists.newArrayList();
         for (Query s : initialSeeds) {
-            if (!(s instanceof WeightedForwardQuery))
-                continue;
-            WeightedForwardQuery<W> seed = (WeightedForwardQuery<W>) s;
-            seedCount++;
-            logger.info("Analyzing " + seed);
-            Stopwatch watch = Stopwatch.createStarted();
-            analysisTime.put(seed, watch);
-            if (analysisDefinition.icfg() != null)
-                analysisDefinition.icfg().resetCallGraph();
-            ForwardBoomerangResults<W> res = run(seed);
-            watch.stop();
-            System.out.println("Analyzed (finished,timedout): \t (" + (seedCount - timedoutSeeds.size()) + ","
-                    + timedoutSeeds.size() + ") of " + initialSeeds.size() + " seeds! ");
-            analysisDefinition.getResultHandler().report(seed, res);
+            if (s instanceof WeightedForwardQuery)
+                seeds.add((WeightedForwardQuery<W>) s);
+        }
+        final Queue<IDEALAnalysisDefinition<W>> workerDefinitions = createWorkerDefinitions();
+        if (!workerDefinitions.isEmpty()) {
+            if (analysisDefinition.boomerangOptions().onTheFlyCallGraph()) {
+                // Computing a method scope registers listeners on the seed factory, the workers only read the scopes.
+                for (WeightedForwardQuery<W> seed : seeds)
+                    seedFactory.getMethodScope(seed);
+            }
+            final ThreadLocal<IDEALAnalysisDefinition<W>> workerDefinition =
+                    new ThreadLocal<IDEALAnalysisDefinition<W>>() {
+                        @Override
+                        protected IDEALAnalysisDefinition<W> initialValue() {
+                            return workerDefinitions.remove();
+                        }
+                    };
+            new ParallelQueryScheduler(workerDefinitions.size(), 0).solve(seeds,
+                    new QuerySolver<WeightedForwardQuery<W>, ForwardBoomerangResults<W>>() {
+                        @Override
+                        public ForwardBoomerangResults<W> solve(WeightedForwardQuery<W> seed) {
+                            return analyzeSeed(workerDefinition.get(), seed, initialSeeds.size());
+                        }
+                    });
+        } else {
+            if (analysisDefinition.icfg() == null || analysisDefinition.icfg() instanceof ObservableStaticICFG) {
+                // Summaries computed under a call graph that is reset for each seed must not be shared.
+                summaryCache = new SummaryCache<W>();
+            }
+            if (analysisDefinition.icfg() == null)
+                analysisDefinition.icfg = new ObservableStaticICFG(new JimpleBasedInterproceduralCFG(false));
+            if (analysisDefinition.icfg() instanceof ObservableDynamicICFG) {
+                // Receiver queries of the on-the-fly call graph do not depend on the seed, the cache outlives the
+                // reset of the call graph for each seed
+                ((ObservableDynamicICFG) analysisDefinition.icfg())
+                        .setBackwardQueryCache(new BackwardQueryCache(BACKWARD_QUERY_CACHE_SIZE));
+            }
+            for (WeightedForwardQuery<W> seed : seeds) {
+                analyzeSeed(analysisDefinition, seed, initialSeeds.size());
+            }
+        }
+    }
+
+    /**
+     * Creates one definition per worker thread on the calling thread, so that workers never share weight functions,
+     * state machines or a call graph. Returns an empty queue if seeds are analyzed sequentially.
+     */
+    private Queue<IDEALAnalysisDefinition<W>> createWorkerDefinitions() {
+        Queue<IDEALAnalysisDefinition<W>> workerDefinitions = Queues.newConcurrentLinkedQueue();
+        int parallelism = analysisDefinition.parallelism();
+        if (parallelism <= 1 || (analysisDefinition.icfg() != null
+                && !(analysisDefinition.icfg() instanceof ObservableStaticICFG)))
+            return workerDefinitions;
+        for (int i = 0; i < parallelism; i++) {
+            IDEALAnalysisDefinition<W> workerDefinition = analysisDefinition.newWorkerDefinition();
+            if (workerDefinition == null) {
+                logger.warn("No worker definitions, analyzing seeds sequentially.");
+                workerDefinitions.clear();
+                return workerDefinitions;
+            }
+            if (workerDefinition == analysisDefinition)
+                throw new RuntimeException("A worker definition must not be the analysis definition itself.");
+            if (workerDefinition.icfg() == null)
+                workerDefinition.icfg = new ObservableStaticICFG(new JimpleBasedInterproceduralCFG(false));
+            workerDefinitions.add(workerDefinition);
         }
+        return workerDefinitions;
+    }
+
+    private ForwardBoomerangResults<W> analyzeSeed(IDEALAnalysisDefinition<W> definition,
+            WeightedForwardQuery<W> seed, int totalSeeds) {
+        int count = seedCount.incrementAndGet();
+        logger.info("Analyzing " + seed);
+        Stopwatch watch = Stopwatch.createStarted();
+        analysisTime.put(seed, watch);
+        if (definition.icfg() != null)
+            definition.icfg().resetCallGraph();
+        ForwardBoomerangResults<W> res = run(definition, seed);
+        watch.stop();
+        System.out.println("Analyzed (finished,timedout): \t (" + (count - timedoutSeeds.size()) + ","
+                + timedoutSeeds.size() + ") of " + totalSeeds + " seeds! ");
+        report(seed, res);
+        return res;
     }
 
     public ForwardBoomerangResults<W> run(ForwardQuery seed) {
-        IDEALSeedSolver<W> idealAnalysis = new IDEALSeedSolver<W>(analysisDefinition, seed, seedFactory);
+        return run(analysisDefinition, seed);
+    }
+
+    private ForwardBoomerangResults<W> run(IDEALAnalysisDefinition<W> definition, ForwardQuery seed) {
+        IDEALSeedSolver<W> idealAnalysis = new IDEALSeedSolver<W>(definition, seed, seedFactory, summaryCache);
         ForwardBoomerangResults<W> res;
         try {
-            if (analysisDefinition.icfg() != null)
-                analysisDefinition.icfg().resetCallGraph();
+            if (definition.icfg() != null)
+                definition.icfg().resetCallGraph();
             res = idealAnalysis.run();
         } catch (IDEALSeedTimeout e) {
             res = (ForwardBoomerangResults<W>) e.getLastResults();
             timedoutSeeds.add((WeightedForwardQuery) seed);
         }
-        analysisDefinition.getResultHandler().report((WeightedForwardQuery) seed, res);
+        if (summaryCache != null)
+            summaryCache.detachListeners();
+        report((WeightedForwardQuery) seed, res);
         return res;
     }
 
+    private void report(WeightedForwardQuery seed, ForwardBoomerangResults<W> res) {
+        // Result handlers are not required to be thread-safe
+        synchronized (analysisDefinition) {
+            analysisDefinition.getResultHandler().report(seed, res);
+        }
+    }
+
     private void printOptions() {
         if (PRINT_OPTIONS) {
             System.out.println(analysisDefinition);
@@ -54,6 +54,26 @@ public abstract class IDEALAnalysisDefinition<W extends Weight> {
         return true;
     }
 
+    /**
+     * Number of seeds that are analyzed concurrently. Seeds are only analyzed in parallel with a static call graph, as
+     * a call graph that is built on the fly is reset for each seed, and only if {@link #newWorkerDefinition()} is
+     * implemented.
+     */
+    public int parallelism() {
+        return 1;
+    }
+
+    /**
+     * Creates the definition a worker thread analyzes its seeds with when seeds are analyzed in parallel. The returned
+     * definition must not share weight functions, state machines, debuggers or a call graph with this definition or
+     * any other worker definition. Results are still reported to the result handler of this definition.
+     * 
+     * @return a new definition, or null to analyze seeds sequentially.
+     */
+    public IDEALAnalysisDefinition<W> newWorkerDefinition() {
+        return null;
+    }
+
     public String toString() {
         String str = "====== IDEal Analysis Options ======";
         // str += "\nEdge Functions:\t\t" + edgeFunctions();
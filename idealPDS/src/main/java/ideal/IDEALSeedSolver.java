@@ -24,6 +24,7 @@ import com.google.common.collect.Sets;
 import boomerang.BackwardQuery;
 import boomerang.ForwardQuery;
 import boomerang.Query;
+import boomerang.SummaryCache;
 import boomerang.WeightedBoomerang;
 import boomerang.callgraph.ObservableDynamicICFG;
 import boomerang.callgraph.ObservableICFG;
@@ -66,9 +67,10 @@ public class IDEALSeedSolver<W extends Weight> {
     private final W zero;
     private final W one;
     private final WeightedBoomerang<W> phase1Solver;
-    private final WeightedBoomerang<W> phase2Solver;
+    private WeightedBoomerang<W> phase2Solver;
     private final Stopwatch analysisStopwatch = Stopwatch.createUnstarted();
     private final SeedFactory<W> seedFactory;
+    private final SummaryCache<W> summaryCache;
     private Multimap<Node<Statement, Val>, Statement> affectedStrongUpdateStmt = HashMultimap.create();
     private Set<Node<Statement, Val>> weakUpdates = Sets.newHashSet();
 
@@ -295,9 +297,19 @@ public class IDEALSeedSolver<W extends Weight> {
 
     public IDEALSeedSolver(IDEALAnalysisDefinition<W> analysisDefinition, ForwardQuery seed,
             SeedFactory<W> seedFactory) {
+        this(analysisDefinition, seed, seedFactory, null);
+    }
+
+    /**
+     * Creates a solver for the seed whose sub-queries share the call summaries of the cache with the solvers of other
+     * seeds. Only sub-queries with weights of one use the cache, the seed itself is always solved in isolation.
+     */
+    public IDEALSeedSolver(IDEALAnalysisDefinition<W> analysisDefinition, ForwardQuery seed,
+            SeedFactory<W> seedFactory, SummaryCache<W> summaryCache) {
         this.analysisDefinition = analysisDefinition;
         this.seed = seed;
         this.seedFactory = seedFactory;
+        this.summaryCache = summaryCache;
         this.idealWeightFunctions = new IDEALWeightFunctions<W>(analysisDefinition.weightFunctions(),
                 analysisDefinition.enableStrongUpdates());
         this.zero = analysisDefinition.weightFunctions().getZero();
@@ -314,6 +326,15 @@ public class IDEALSeedSolver<W extends Weight> {
             }
             throw new IDEALSeedTimeout(this, this.phase1Solver, resultPhase1);
         }
+        if (!idealWeightFunctions.hasValueFlowUpdates()) {
+            // The seed solver of phase 1 already carries the value-flow weights. Without strong updates or indirect
+            // flows phase 2 would saturate to the same automata.
+            this.phase2Solver = this.phase1Solver;
+            this.phase1Solver.debugOutput();
+            return resultPhase1;
+        }
+        if (summaryCache != null)
+            summaryCache.detachListeners();
         ForwardBoomerangResults<W> resultPhase2 = runPhase(this.phase2Solver, Phases.ValueFlow);
         if (resultPhase2.isTimedout()) {
             if (analysisStopwatch.isRunning()) {
@@ -367,6 +388,11 @@ public class IDEALSeedSolver<W extends Weight> {
                 return seedFactory;
             }
 
+            @Override
+            protected SummaryCache<W> getSummaryCache() {
+                return summaryCache;
+            }
+
             @Override
             public boolean preventCallRuleAdd(ForwardQuery sourceQuery, Rule<Statement, INode<Val>, W> rule) {
                 if (phase.equals(Phases.ValueFlow) && sourceQuery.equals(seed)) {
@@ -140,6 +140,20 @@ public class IDEALWeightFunctions<W extends Weight> implements WeightFunctions<S
         return potentialStrongUpdates.contains(stmt) && !weakUpdates.contains(stmt) && strongUpdates;
     }
 
+    /**
+     * Returns whether the object-flow phase found an active strong update or an indirect alias flow. Otherwise the
+     * value-flow phase computes the same result as the object-flow phase.
+     */
+    public boolean hasValueFlowUpdates() {
+        if (!indirectAlias.isEmpty())
+            return true;
+        for (Statement stmt : potentialStrongUpdates) {
+            if (isStrongUpdateStatement(stmt))
+                return true;
+        }
+        return false;
+    }
+
     public boolean isKillFlow(Node<Statement, Val> node) {
         return !nodesWithStrongUpdate.contains(node);
     }
@@ -17,13 +17,15 @@ import java.util.Set;
 
 import soot.SootMethod;
 import wpds.impl.Weight;
+import wpds.impl.WeightInterner;
 
 public class InferenceWeight extends Weight {
 
     private final Set<SootMethod> invokedMethods;
     private final String rep;
-    private static InferenceWeight one;
-    private static InferenceWeight zero;
+    private static final InferenceWeight ONE = new InferenceWeight("ONE");
+    private static final InferenceWeight ZERO = new InferenceWeight("ZERO");
+    private static final WeightInterner<InferenceWeight> INTERNER = new WeightInterner<>();
 
     private InferenceWeight(String rep) {
         this.rep = rep;
@@ -53,7 +55,7 @@ public class InferenceWeight extends Weight {
         Set<SootMethod> otherInvokedMethods = func.invokedMethods;
         Set<SootMethod> res = new HashSet<>(invokedMethods);
         res.addAll(otherInvokedMethods);
-        return new InferenceWeight(res);
+        return INTERNER.intern(new InferenceWeight(res));
     }
 
     @Override
@@ -62,15 +64,11 @@ public class InferenceWeight extends Weight {
     }
 
     public static InferenceWeight one() {
-        if (one == null)
-            one = new InferenceWeight("ONE");
-        return one;
+        return ONE;
     }
 
     public static InferenceWeight zero() {
-        if (zero == null)
-            zero = new InferenceWeight("ZERO");
-        return zero;
+        return ZERO;
     }
 
     public String toString() {
@@ -26,6 +26,7 @@ import com.google.common.base.Joiner;
 import com.google.common.collect.Table;
 
 import boomerang.WeightedForwardQuery;
+import boomerang.callgraph.ICFGCache;
 import boomerang.debugger.Debugger;
 import boomerang.jimple.Statement;
 import boomerang.jimple.Val;
@@ -66,6 +67,7 @@ public class Main {
 
     private static void setupSoot(String sootClassPath, String mainClass) {
         G.v().reset();
+        ICFGCache.reset();
         Options.v().set_whole_program(true);
         Options.v().setPhaseOption("cg.spark", "on");
         Options.v().set_output_format(Options.output_format_none);
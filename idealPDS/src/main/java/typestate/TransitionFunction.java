@@ -11,49 +11,111 @@
  *******************************************************************************/
 package typestate;
 
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Sets;
 
 import boomerang.jimple.Statement;
 import typestate.finiteautomata.ITransition;
+import typestate.finiteautomata.State;
 import typestate.finiteautomata.Transition;
 import wpds.impl.Weight;
 
+/**
+ * A typestate transition relation. The relation is stored as a boolean matrix over globally numbered states: row i
+ * holds the successors of state i as a bit set, which is a single long for state machines with fewer than 64 states.
+ * Extending two functions multiplies the matrices, combining them ors the matrices. The identity transition
+ * {@link Transition#identity()} is tracked as a separate flag.
+ */
 public class TransitionFunction extends Weight {
 
-    private final Set<ITransition> value;
+    // The numbering only grows. The states come from the finite state machines in use (usually enums), so it stays
+    // small. Known states are looked up without locking, only numbering a new state is synchronized.
+    private static final ConcurrentMap<State, Integer> stateToId = new ConcurrentHashMap<>();
+    private static volatile State[] idToState = new State[0];
+    private static final Interner<Set<Statement>> statementSets = Interners.newWeakInterner();
+    private static final BitSet[] NO_ROWS = new BitSet[0];
+
+    // successors[i] is null if state i has no successor, the array has no trailing null rows
+    private final BitSet[] successors;
+
+    private final boolean identity;
 
     private final String rep;
 
-    private static TransitionFunction one;
+    private static final TransitionFunction ONE = new TransitionFunction("ONE");
 
-    private static TransitionFunction zero;
+    private static final TransitionFunction ZERO = new TransitionFunction("ZERO");
 
-    private Set<Statement> stateChangeStatements;
+    private final Set<Statement> stateChangeStatements;
 
     public TransitionFunction(Set<? extends ITransition> trans, Set<Statement> stateChangeStatements) {
-        this.stateChangeStatements = stateChangeStatements;
-        this.value = new HashSet<>(trans);
+        BitSet[] rows = NO_ROWS;
+        boolean id = false;
+        for (ITransition t : trans) {
+            if (t.equals(Transition.identity())) {
+                id = true;
+                continue;
+            }
+            int from = stateId(t.from());
+            if (from >= rows.length)
+                rows = Arrays.copyOf(rows, from + 1);
+            if (rows[from] == null)
+                rows[from] = new BitSet();
+            rows[from].set(stateId(t.to()));
+        }
+        this.successors = rows;
+        this.identity = id;
+        this.stateChangeStatements = intern(stateChangeStatements);
         this.rep = null;
     }
 
     public TransitionFunction(ITransition trans, Set<Statement> stateChangeStatements) {
-        this(new HashSet<>(Collections.singleton(trans)), stateChangeStatements);
+        this(Collections.singleton(trans), stateChangeStatements);
+    }
+
+    private TransitionFunction(BitSet[] successors, boolean identity, Set<Statement> stateChangeStatements) {
+        this.successors = trim(successors);
+        this.identity = identity;
+        this.stateChangeStatements = stateChangeStatements;
+        this.rep = null;
     }
 
     private TransitionFunction(String rep) {
-        this.value = Sets.newHashSet();
+        this.successors = NO_ROWS;
+        this.identity = false;
         this.rep = rep;
-        this.stateChangeStatements = Sets.newHashSet();
+        this.stateChangeStatements = intern(Collections.<Statement> emptySet());
     }
 
+    /**
+     * Returns the transitions of the relation. The relation only records source and target states, so every transition
+     * is returned as a plain {@link Transition}. The method matcher, parameter and type of a
+     * {@link typestate.finiteautomata.MatcherTransition} the function was created from are not retained.
+     */
     public Collection<ITransition> values() {
-        return Lists.newArrayList(value);
+        List<ITransition> res = Lists.newArrayList();
+        for (int from = 0; from < successors.length; from++) {
+            BitSet row = successors[from];
+            if (row == null)
+                continue;
+            for (int to = row.nextSetBit(0); to >= 0; to = row.nextSetBit(to + 1)) {
+                res.add(new Transition(state(from), state(to)));
+            }
+        }
+        if (identity)
+            res.add(Transition.identity());
+        return res;
     }
 
     public Set<Statement> getLastStateChangeStatements() {
@@ -70,24 +132,41 @@ public class TransitionFunction extends Weight {
             return zero();
         }
         TransitionFunction func = (TransitionFunction) other;
-        Set<ITransition> otherTransitions = func.value;
-        Set<ITransition> ress = new HashSet<>();
-        Set<Statement> newStateChangeStatements = new HashSet<>();
-        for (ITransition first : value) {
-            for (ITransition second : otherTransitions) {
-                if (second.equals(Transition.identity())) {
-                    ress.add(first);
-                    newStateChangeStatements.addAll(stateChangeStatements);
-                } else if (first.equals(Transition.identity())) {
-                    ress.add(second);
-                    newStateChangeStatements.addAll(func.stateChangeStatements);
-                } else if (first.to().equals(second.from())) {
-                    ress.add(new Transition(first.from(), second.to()));
-                    newStateChangeStatements.addAll(func.stateChangeStatements);
-                }
+        BitSet[] product = new BitSet[successors.length];
+        boolean composed = false;
+        for (int from = 0; from < successors.length; from++) {
+            BitSet row = successors[from];
+            if (row == null)
+                continue;
+            BitSet res = null;
+            if (func.identity) {
+                res = (BitSet) row.clone();
+            }
+            for (int mid = row.nextSetBit(0); mid >= 0 && mid < func.successors.length; mid = row
+                    .nextSetBit(mid + 1)) {
+                BitSet next = func.successors[mid];
+                if (next == null)
+                    continue;
+                if (res == null)
+                    res = new BitSet();
+                res.or(next);
+                composed = true;
             }
+            product[from] = res;
+        }
+        if (identity) {
+            product = or(product, func.successors);
+        }
+        // Mirrors the pairwise composition: a pair with the identity on the right keeps the statements of this
+        // function, any other composed pair takes the statements of the other function.
+        Set<Statement> statements = Collections.emptySet();
+        if (func.identity && !isEmpty()) {
+            statements = stateChangeStatements;
         }
-        return new TransitionFunction(ress, newStateChangeStatements);
+        if (composed || (identity && func.successors.length > 0)) {
+            statements = union(statements, func.stateChangeStatements);
+        }
+        return new TransitionFunction(product, identity && func.identity, intern(statements));
     }
 
     @Override
@@ -103,38 +182,98 @@ public class TransitionFunction extends Weight {
         }
         TransitionFunction func = (TransitionFunction) other;
         if (other.equals(one()) || this.equals(one())) {
-            Set<ITransition> transitions = new HashSet<>((other.equals(one()) ? value : func.value));
-            Set<ITransition> idTransitions = Sets.newHashSet();
-            for (ITransition t : transitions) {
-                idTransitions.add(new Transition(t.from(), t.from()));
+            TransitionFunction nonOne = other.equals(one()) ? this : func;
+            BitSet[] rows = new BitSet[nonOne.successors.length];
+            for (int from = 0; from < rows.length; from++) {
+                if (nonOne.successors[from] == null)
+                    continue;
+                rows[from] = (BitSet) nonOne.successors[from].clone();
+                rows[from].set(from);
             }
-            transitions.addAll(idTransitions);
-            return new TransitionFunction(transitions,
-                    Sets.newHashSet((other.equals(one()) ? stateChangeStatements : func.stateChangeStatements)));
+            return new TransitionFunction(rows, nonOne.identity, nonOne.stateChangeStatements);
         }
-        Set<ITransition> transitions = new HashSet<>(func.value);
-        transitions.addAll(value);
-        HashSet<Statement> newStateChangeStmts = Sets.newHashSet(stateChangeStatements);
-        newStateChangeStmts.addAll(func.stateChangeStatements);
-        return new TransitionFunction(transitions, newStateChangeStmts);
+        return new TransitionFunction(or(successors, func.successors), identity || func.identity,
+                intern(union(stateChangeStatements, func.stateChangeStatements)));
     };
 
+    private boolean isEmpty() {
+        return successors.length == 0 && !identity;
+    }
+
+    private static BitSet[] or(BitSet[] first, BitSet[] second) {
+        BitSet[] res = Arrays.copyOf(first, Math.max(first.length, second.length));
+        for (int from = 0; from < second.length; from++) {
+            if (second[from] == null)
+                continue;
+            // Rows are never modified once they belong to a function, so they can be shared.
+            if (res[from] == null) {
+                res[from] = second[from];
+            } else {
+                res[from] = (BitSet) res[from].clone();
+                res[from].or(second[from]);
+            }
+        }
+        return res;
+    }
+
+    private static BitSet[] trim(BitSet[] rows) {
+        int length = rows.length;
+        while (length > 0 && (rows[length - 1] == null || rows[length - 1].isEmpty()))
+            length--;
+        for (int i = 0; i < length; i++) {
+            if (rows[i] != null && rows[i].isEmpty())
+                rows[i] = null;
+        }
+        return length == rows.length ? rows : Arrays.copyOf(rows, length);
+    }
+
+    private static Set<Statement> union(Set<Statement> first, Set<Statement> second) {
+        if (first.containsAll(second))
+            return first;
+        if (second.containsAll(first))
+            return second;
+        return ImmutableSet.<Statement> builder().addAll(first).addAll(second).build();
+    }
+
+    private static Set<Statement> intern(Set<Statement> statements) {
+        return statementSets.intern(ImmutableSet.copyOf(statements));
+    }
+
+    private static int stateId(State state) {
+        Integer id = stateToId.get(state);
+        if (id != null)
+            return id;
+        return newStateId(state);
+    }
+
+    private static synchronized int newStateId(State state) {
+        Integer id = stateToId.get(state);
+        if (id != null)
+            return id;
+        State[] states = Arrays.copyOf(idToState, idToState.length + 1);
+        states[states.length - 1] = state;
+        // Publish the state before its id, a thread that sees the id also sees the state.
+        idToState = states;
+        stateToId.put(state, states.length - 1);
+        return states.length - 1;
+    }
+
+    private static State state(int id) {
+        return idToState[id];
+    }
+
     public static TransitionFunction one() {
-        if (one == null)
-            one = new TransitionFunction("ONE");
-        return one;
+        return ONE;
     }
 
     public static TransitionFunction zero() {
-        if (zero == null)
-            zero = new TransitionFunction("ZERO");
-        return zero;
+        return ZERO;
     }
 
     public String toString() {
         if (this.rep != null)
             return this.rep;
-        return "Weight: " + value.toString() + "";
+        return "Weight: " + values().toString() + "";
     }
 
     @Override
@@ -142,7 +281,8 @@ public class TransitionFunction extends Weight {
         final int prime = 31;
         int result = 1;
         result = prime * result + ((rep == null) ? 0 : rep.hashCode());
-        result = prime * result + ((value == null) ? 0 : value.hashCode());
+        result = prime * result + Arrays.hashCode(successors);
+        result = prime * result + (identity ? 1231 : 1237);
         return result;
     }
 
@@ -160,10 +300,9 @@ public class TransitionFunction extends Weight {
                 return false;
         } else if (!rep.equals(other.rep))
             return false;
-        if (value == null) {
-            if (other.value != null)
-                return false;
-        } else if (!value.equals(other.value))
+        if (identity != other.identity)
+            return false;
+        if (!Arrays.equals(successors, other.successors))
             return false;
         return true;
     }
@@ -26,6 +26,7 @@ import boomerang.BoomerangOptions;
 import boomerang.DefaultBoomerangOptions;
 import boomerang.WeightedForwardQuery;
 import boomerang.callgraph.CalleeListener;
+import boomerang.callgraph.ICFGCache;
 import boomerang.callgraph.ObservableICFG;
 import boomerang.callgraph.ObservableStaticICFG;
 import boomerang.debugger.Debugger;
@@ -64,16 +65,38 @@ public abstract class IDEALTestingFramework extends AbstractTestingFramework {
     protected abstract TypeStateMachineWeightFunctions getStateMachine();
 
     protected IDEALAnalysis<TransitionFunction> createAnalysis() {
-        return new IDEALAnalysis<TransitionFunction>(new IDEALAnalysisDefinition<TransitionFunction>() {
+        return new IDEALAnalysis<TransitionFunction>(createAnalysisDefinition());
+    }
+
+    /**
+     * Number of seeds analyzed concurrently, each worker thread uses its own state machine.
+     */
+    protected int parallelism() {
+        return 1;
+    }
+
+    private IDEALAnalysisDefinition<TransitionFunction> createAnalysisDefinition() {
+        final TypeStateMachineWeightFunctions stateMachine = getStateMachine();
+        return new IDEALAnalysisDefinition<TransitionFunction>() {
 
             @Override
             public Collection<WeightedForwardQuery<TransitionFunction>> generate(SootMethod method, Unit stmt) {
-                return IDEALTestingFramework.this.getStateMachine().generateSeed(method, stmt);
+                return stateMachine.generateSeed(method, stmt);
             }
 
             @Override
             public WeightFunctions<Statement, Val, Statement, TransitionFunction> weightFunctions() {
-                return IDEALTestingFramework.this.getStateMachine();
+                return stateMachine;
+            }
+
+            @Override
+            public int parallelism() {
+                return IDEALTestingFramework.this.parallelism();
+            }
+
+            @Override
+            public IDEALAnalysisDefinition<TransitionFunction> newWorkerDefinition() {
+                return createAnalysisDefinition();
             }
 
             @Override
@@ -100,7 +123,7 @@ public abstract class IDEALTestingFramework extends AbstractTestingFramework {
                 };
             }
 
-        });
+        };
     }
 
     @Override
@@ -108,6 +131,7 @@ public abstract class IDEALTestingFramework extends AbstractTestingFramework {
         return new SceneTransformer() {
             protected void internalTransform(String phaseName, @SuppressWarnings("rawtypes") Map options) {
                 BoomerangPretransformer.v().reset();
+                ICFGCache.reset();
                 BoomerangPretransformer.v().apply();
                 staticIcfg = new ObservableStaticICFG(new JimpleBasedInterproceduralCFG(false));
                 Set<Assertion> expectedResults = parseExpectedQueryResults(sootTestMethod);
@@ -0,0 +1,298 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package typestate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import boomerang.jimple.Statement;
+import soot.jimple.Jimple;
+import typestate.finiteautomata.ITransition;
+import typestate.finiteautomata.State;
+import typestate.finiteautomata.Transition;
+import wpds.impl.Weight;
+
+/**
+ * Compares {@link TransitionFunction} with a reference implementation of the set semantics it replaced: a function is
+ * a set of transitions, extend composes all pairs and combine unions the sets.
+ */
+public class TransitionFunctionTest {
+
+    private static final int ROUNDS = 2000;
+
+    private enum States implements State {
+        A, B, C, D, E;
+
+        @Override
+        public boolean isErrorState() {
+            return this == E;
+        }
+
+        @Override
+        public boolean isInitialState() {
+            return this == A;
+        }
+
+        @Override
+        public boolean isAccepting() {
+            return false;
+        }
+    }
+
+    private final List<Statement> statements = Lists.newArrayList(Statement.of(Jimple.v().newNopStmt(), null),
+            Statement.of(Jimple.v().newNopStmt(), null), Statement.of(Jimple.v().newNopStmt(), null));
+
+    @Test
+    public void valuesOfSingleTransitions() {
+        TransitionFunction f = new TransitionFunction(new Transition(States.A, States.B),
+                Collections.singleton(statements.get(0)));
+        assertEquals(Collections.singletonList(new Transition(States.A, States.B)), f.values());
+        assertEquals(Collections.singleton(statements.get(0)), f.getLastStateChangeStatements());
+        TransitionFunction id = new TransitionFunction(Transition.identity(), Collections.<Statement> emptySet());
+        assertEquals(Collections.singletonList(Transition.identity()), id.values());
+    }
+
+    @Test
+    public void extendMatchesSetSemantics() {
+        Random random = new Random(7);
+        for (int i = 0; i < ROUNDS; i++) {
+            Reference first = randomReference(random);
+            Reference second = randomReference(random);
+            assertSameFunction(first.extendWith(second), first.toFunction().extendWith(second.toFunction()));
+        }
+    }
+
+    @Test
+    public void combineMatchesSetSemantics() {
+        Random random = new Random(11);
+        for (int i = 0; i < ROUNDS; i++) {
+            Reference first = randomReference(random);
+            Reference second = randomReference(random);
+            assertSameFunction(first.combineWith(second), first.toFunction().combineWith(second.toFunction()));
+        }
+    }
+
+    @Test
+    public void chainsMatchSetSemantics() {
+        Random random = new Random(13);
+        for (int i = 0; i < ROUNDS; i++) {
+            Reference reference = randomReference(random);
+            Weight function = reference.toFunction();
+            for (int j = 0; j < 4; j++) {
+                Reference next = randomReference(random);
+                if (random.nextBoolean()) {
+                    reference = reference.extendWith(next);
+                    function = function.extendWith(next.toFunction());
+                } else {
+                    reference = reference.combineWith(next);
+                    function = function.combineWith(next.toFunction());
+                }
+                assertSameFunction(reference, function);
+            }
+        }
+    }
+
+    @Test
+    public void oneAndZero() {
+        TransitionFunction f = new TransitionFunction(new Transition(States.A, States.B),
+                Collections.<Statement> emptySet());
+        assertSame(f, f.extendWith(TransitionFunction.one()));
+        assertSame(f, TransitionFunction.one().extendWith(f));
+        assertSame(TransitionFunction.zero(), f.extendWith(TransitionFunction.zero()));
+        assertSame(f, f.combineWith(TransitionFunction.zero()));
+        assertSame(TransitionFunction.one(), TransitionFunction.one().combineWith(TransitionFunction.one()));
+    }
+
+    @Test
+    public void statesNumberedConcurrently() throws Exception {
+        ExecutorService workers = Executors.newFixedThreadPool(8);
+        List<Future<Void>> futures = Lists.newArrayList();
+        try {
+            for (int t = 0; t < 8; t++) {
+                futures.add(workers.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        for (int i = 0; i < 200; i++) {
+                            State from = new FreshState();
+                            State to = new FreshState();
+                            TransitionFunction f = new TransitionFunction(new Transition(from, to),
+                                    Collections.<Statement> emptySet());
+                            assertEquals(Collections.singletonList(new Transition(from, to)), f.values());
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> f : futures) {
+                f.get();
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private void assertSameFunction(Reference expected, Weight actual) {
+        TransitionFunction function = (TransitionFunction) actual;
+        if (expected.rep != null) {
+            assertEquals(expected.rep, function.toString());
+            return;
+        }
+        assertEquals(expected.transitions, Sets.newHashSet(function.values()));
+        assertEquals(expected.values().size(), function.values().size());
+        assertEquals(expected.statements, function.getLastStateChangeStatements());
+    }
+
+    private Reference randomReference(Random random) {
+        int kind = random.nextInt(20);
+        if (kind == 0)
+            return Reference.ONE;
+        if (kind == 1)
+            return Reference.ZERO;
+        Set<ITransition> transitions = Sets.newHashSet();
+        int size = random.nextInt(4);
+        for (int i = 0; i < size; i++) {
+            transitions.add(new Transition(randomState(random), randomState(random)));
+        }
+        if (random.nextInt(3) == 0)
+            transitions.add(Transition.identity());
+        Set<Statement> stmts = Sets.newHashSet();
+        for (Statement s : statements) {
+            if (random.nextBoolean())
+                stmts.add(s);
+        }
+        return new Reference(transitions, stmts);
+    }
+
+    private static State randomState(Random random) {
+        return States.values()[random.nextInt(States.values().length)];
+    }
+
+    /**
+     * The set based transition function, extend and combine as they were implemented before the matrix encoding.
+     */
+    private static class Reference {
+        static final Reference ONE = new Reference("ONE");
+        static final Reference ZERO = new Reference("ZERO");
+
+        final Set<ITransition> transitions;
+        final Set<Statement> statements;
+        final String rep;
+
+        Reference(Set<ITransition> transitions, Set<Statement> statements) {
+            this.transitions = transitions;
+            this.statements = statements;
+            this.rep = null;
+        }
+
+        private Reference(String rep) {
+            this.transitions = Sets.newHashSet();
+            this.statements = Sets.newHashSet();
+            this.rep = rep;
+        }
+
+        Collection<ITransition> values() {
+            return transitions;
+        }
+
+        Weight toFunction() {
+            if (this == ONE)
+                return TransitionFunction.one();
+            if (this == ZERO)
+                return TransitionFunction.zero();
+            return new TransitionFunction(transitions, statements);
+        }
+
+        Reference extendWith(Reference other) {
+            if (other == ONE)
+                return this;
+            if (this == ONE)
+                return other;
+            if (other == ZERO || this == ZERO)
+                return ZERO;
+            Set<ITransition> res = Sets.newHashSet();
+            Set<Statement> stmts = Sets.newHashSet();
+            for (ITransition first : transitions) {
+                for (ITransition second : other.transitions) {
+                    if (second.equals(Transition.identity())) {
+                        res.add(first);
+                        stmts.addAll(statements);
+                    } else if (first.equals(Transition.identity())) {
+                        res.add(second);
+                        stmts.addAll(other.statements);
+                    } else if (first.to().equals(second.from())) {
+                        res.add(new Transition(first.from(), second.to()));
+                        stmts.addAll(other.statements);
+                    }
+                }
+            }
+            return new Reference(res, stmts);
+        }
+
+        Reference combineWith(Reference other) {
+            if (this == ZERO)
+                return other;
+            if (other == ZERO)
+                return this;
+            if (other == ONE && this == ONE)
+                return ONE;
+            if (other == ONE || this == ONE) {
+                Reference nonOne = other == ONE ? this : other;
+                Set<ITransition> res = Sets.newHashSet(nonOne.transitions);
+                for (ITransition t : nonOne.transitions) {
+                    // The set implementation also added a transition without states for the identity, the matrix
+                    // encoding has no such transition.
+                    if (!t.equals(Transition.identity()))
+                        res.add(new Transition(t.from(), t.from()));
+                }
+                return new Reference(res, Sets.newHashSet(nonOne.statements));
+            }
+            Set<ITransition> res = Sets.newHashSet(transitions);
+            res.addAll(other.transitions);
+            Set<Statement> stmts = Sets.newHashSet(statements);
+            stmts.addAll(other.statements);
+            return new Reference(res, stmts);
+        }
+    }
+
+    private static class FreshState implements State {
+
+        @Override
+        public boolean isErrorState() {
+            return false;
+        }
+
+        @Override
+        public boolean isInitialState() {
+            return false;
+        }
+
+        @Override
+        public boolean isAccepting() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package typestate.tests;
+
+import org.junit.Test;
+import test.IDEALTestingFramework;
+import typestate.finiteautomata.TypeStateMachineWeightFunctions;
+import typestate.impl.statemachines.FileMustBeClosedStateMachine;
+import typestate.test.helper.File;
+
+public class FileMustBeClosedParallelTest extends IDEALTestingFramework {
+
+    @Override
+    protected int parallelism() {
+        return 2;
+    }
+
+    @Test
+    public void independentSeeds() {
+        File opened = new File();
+        opened.open();
+        File closed = new File();
+        closed.open();
+        closed.close();
+        File branched = new File();
+        if (staticallyUnknown())
+            branched.open();
+        mustBeInErrorState(opened);
+        mustBeInAcceptingState(closed);
+        mayBeInErrorState(branched);
+    }
+
+    @Test
+    public void sharedCallee() {
+        File file1 = new File();
+        call(file1);
+        file1.close();
+        mustBeInAcceptingState(file1);
+        File file2 = new File();
+        File alias = file2;
+        call(alias);
+        mustBeInErrorState(file2);
+        mustBeInErrorState(alias);
+    }
+
+    private static void call(File alias) {
+        alias.open();
+    }
+
+    @Test
+    public void aliasedSeeds() {
+        File file = new File();
+        File alias = file;
+        if (staticallyUnknown())
+            file.open();
+        mayBeInErrorState(file);
+        alias.close();
+        mustBeInAcceptingState(file);
+        File other = new File();
+        other.open();
+        mustBeInErrorState(other);
+    }
+
+    @Override
+    protected TypeStateMachineWeightFunctions getStateMachine() {
+        return new FileMustBeClosedStateMachine();
+    }
+}